@@ -0,0 +1,69 @@
+package org.bg52.curiospaper.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.data.ItemData;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+/**
+ * Starts a MockBukkit server with CuriosPaper enabled for one benchmark trial,
+ * and reaches the internals the benchmarks call directly.
+ */
+final class BenchmarkServer {
+
+  private BenchmarkServer() {
+  }
+
+  static CuriosPaper start() {
+    ServerMock server = MockBukkit.mock();
+    CuriosPaper plugin = MockBukkit.load(CuriosPaper.class);
+    // Benchmarks build the pack but never serve it, and the port may be taken
+    plugin.getResourcePackManager().shutdown();
+    // Runs what onEnable deferred to the first tick, such as recipe registration
+    server.getScheduler().performOneTick();
+    return plugin;
+  }
+
+  static void stop() {
+    MockBukkit.unmock();
+  }
+
+  static ServerMock server() {
+    return MockBukkit.getMock();
+  }
+
+  /**
+   * Creates an item with the given slot, without writing its file
+   */
+  static ItemData createItem(CuriosPaper plugin, String itemId, String slotType) {
+    ItemData data = plugin.getItemDataManager().createItem(itemId);
+    if (data == null) {
+      data = plugin.getItemDataManager().getItemData(itemId);
+    }
+    data.setSlotType(slotType);
+    data.setDisplayName("<gradient:#9700C1:#FF00EE>" + itemId + "</gradient>");
+    data.addLoreLine("&7A benchmark accessory");
+    data.addLoreLine("&#9700C1Hex colored lore");
+    return data;
+  }
+
+  /**
+   * Looks up a non-public method. Keep the handle in a static final field and
+   * call it with invokeExact: the JIT then inlines it like a direct call, while
+   * invoke on a handle in an instance field adds boxing and dispatch that
+   * would dominate short benchmarks.
+   */
+  static MethodHandle method(Class<?> owner, String name, Class<?>... parameterTypes) {
+    try {
+      Method method = owner.getDeclaredMethod(name, parameterTypes);
+      method.setAccessible(true);
+      return MethodHandles.lookup().unreflect(method);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot access " + owner.getSimpleName() + "." + name, e);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package org.bg52.curiospaper.benchmark;
+
+import org.bg52.curiospaper.util.ColorUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ColorUtil.translate runs for every display name and lore line of every
+ * created item, and for every message. Needs no server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColorUtilBenchmark {
+
+  @Param({ "plain", "legacy", "hex", "gradient", "mixed" })
+  public String format;
+
+  private String text;
+
+  @Setup
+  public void setup() {
+    switch (format) {
+      case "plain":
+        text = "Ring of Swiftness";
+        break;
+      case "legacy":
+        text = "&6&lRing &7of &bSwiftness";
+        break;
+      case "hex":
+        text = "&#9700C1Ring {#FF00EE}of <#00FFAA>Swiftness";
+        break;
+      case "gradient":
+        text = "<gradient:#9700C1:#FF00EE:#9700C1>Ring of Swiftness</gradient>";
+        break;
+      default:
+        text = "<bold><gradient:#9700C1:#FF00EE>Ring</gradient></bold> &7of <color:#00FFAA>Swiftness</color> <red>+10%";
+        break;
+    }
+  }
+
+  @Benchmark
+  public String translate() {
+    return ColorUtil.translate(text);
+  }
+}
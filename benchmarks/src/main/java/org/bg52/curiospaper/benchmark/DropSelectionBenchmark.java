@@ -0,0 +1,100 @@
+package org.bg52.curiospaper.benchmark;
+
+import be.seeseemelk.mockbukkit.WorldMock;
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.data.ItemData;
+import org.bg52.curiospaper.data.LootTableData;
+import org.bg52.curiospaper.data.MobDropData;
+import org.bg52.curiospaper.listener.LootTableListener;
+import org.bg52.curiospaper.listener.MobDropListener;
+import org.bukkit.Location;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picking the custom item for a generated loot chest or a killed mob. With a
+ * chance of 0 every roll fails, which measures the candidate lookup alone;
+ * with 1 the first candidate wins and its item is built and announced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DropSelectionBenchmark {
+  private static final String[] LOOT_TABLES = {
+      "minecraft:chests/simple_dungeon",
+      "chests/desert_pyramid",
+      "abandoned_mineshaft",
+      "minecraft:chests/end_city_treasure"
+  };
+  private static final EntityType[] ENTITIES = {
+      EntityType.ZOMBIE, EntityType.SKELETON, EntityType.CREEPER, EntityType.SPIDER
+  };
+  private static final MethodHandle SELECT_ONE_ITEM = BenchmarkServer.method(LootTableListener.class,
+      "selectOneItem", String.class, boolean.class);
+  private static final MethodHandle SELECT_ONE_DROP = BenchmarkServer.method(MobDropListener.class,
+      "selectOneDrop", LivingEntity.class, EntityType.class, boolean.class);
+
+  // Number of custom items, spread over the loot tables and entity types above
+  @Param({ "10", "100", "1000" })
+  public int items;
+
+  @Param({ "0.0", "1.0" })
+  public double chance;
+
+  private LootTableListener lootTableListener;
+  private MobDropListener mobDropListener;
+  private LivingEntity zombie;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    CuriosPaper plugin = BenchmarkServer.start();
+    for (int i = 0; i < items; i++) {
+      ItemData data = BenchmarkServer.createItem(plugin, "bench_drop_" + i, "charm");
+      data.addLootTable(new LootTableData(LOOT_TABLES[i % LOOT_TABLES.length], chance, 1, 1));
+      data.addMobDrop(new MobDropData(ENTITIES[i % ENTITIES.length].name(), chance, 1, 1));
+      // Re-indexes the item under its loot tables and mob drops
+      plugin.getItemDataManager().saveItemData(data);
+    }
+
+    lootTableListener = new LootTableListener(plugin, plugin.getItemDataManager());
+    mobDropListener = new MobDropListener(plugin, plugin.getItemDataManager());
+
+    WorldMock world = BenchmarkServer.server().addSimpleWorld("world");
+    zombie = (LivingEntity) world.spawnEntity(new Location(world, 0, 64, 0), EntityType.ZOMBIE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkServer.stop();
+  }
+
+  @Benchmark
+  public ItemStack selectLoot() throws Throwable {
+    return (ItemStack) SELECT_ONE_ITEM.invokeExact(lootTableListener, "minecraft:chests/simple_dungeon", false);
+  }
+
+  @Benchmark
+  public ItemStack selectMobDrop() throws Throwable {
+    return (ItemStack) SELECT_ONE_DROP.invokeExact(mobDropListener, zombie, EntityType.ZOMBIE, false);
+  }
+}
@@ -0,0 +1,56 @@
+package org.bg52.curiospaper.benchmark;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.api.CuriosPaperAPI;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building accessory items, as done for every loot, mob drop, trade and
+ * recipe result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemCreationBenchmark {
+  private CuriosPaperAPI api;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    CuriosPaper plugin = BenchmarkServer.start();
+    api = plugin.getCuriosPaperAPI();
+    BenchmarkServer.createItem(plugin, "bench_ring", "ring");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkServer.stop();
+  }
+
+  @Benchmark
+  public ItemStack createItemStack() {
+    return api.createItemStack("bench_ring");
+  }
+
+  @Benchmark
+  public ItemStack tagAccessoryItem() {
+    return api.tagAccessoryItem(new ItemStack(Material.GOLD_NUGGET), "ring", true);
+  }
+}
@@ -0,0 +1,98 @@
+package org.bg52.curiospaper.benchmark;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.data.ItemData;
+import org.bg52.curiospaper.data.RecipeData;
+import org.bg52.curiospaper.listener.RecipeListener;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The check run on every PrepareItemCraftEvent and CraftItemEvent of a
+ * CuriosPaper recipe: reading the custom IDs of the 3x3 matrix and matching
+ * them against the compiled recipe.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecipeValidationBenchmark {
+  private static final MethodHandle GET_CUSTOM_ITEM_IDS = BenchmarkServer.method(RecipeListener.class,
+      "getCustomItemIds", ItemStack[].class);
+  private static final MethodHandle VALIDATE_CUSTOM_INGREDIENTS = BenchmarkServer.method(RecipeListener.class,
+      "validateCustomIngredients", NamespacedKey.class, ItemStack[].class, String[].class);
+
+  // What sits in the center of a ring of gold ingots
+  @Param({ "matching", "wrongCustom", "vanilla" })
+  public String center;
+
+  private RecipeListener recipeListener;
+  private NamespacedKey recipeKey;
+  private ItemStack[] matrix;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    CuriosPaper plugin = BenchmarkServer.start();
+    recipeListener = plugin.getRecipeListener();
+
+    BenchmarkServer.createItem(plugin, "bench_core", "charm");
+    BenchmarkServer.createItem(plugin, "bench_ring", "ring");
+    ItemData amulet = BenchmarkServer.createItem(plugin, "bench_amulet", "necklace");
+
+    RecipeData recipe = new RecipeData(RecipeData.RecipeType.SHAPED);
+    recipe.setShape(new String[] { "GGG", "GCG", "GGG" });
+    recipe.addIngredient('G', "GOLD_INGOT");
+    recipe.addIngredient('C', "bench_core");
+    amulet.addRecipe(recipe);
+    if (!recipeListener.registerRecipe(amulet, recipe)) {
+      throw new IllegalStateException("Failed to register the benchmark recipe");
+    }
+    recipeKey = new NamespacedKey(plugin, "custom_curiospaper_bench_amulet");
+
+    matrix = new ItemStack[9];
+    for (int i = 0; i < matrix.length; i++) {
+      matrix[i] = new ItemStack(Material.GOLD_INGOT);
+    }
+    switch (center) {
+      case "matching":
+        matrix[4] = plugin.getCuriosPaperAPI().createItemStack("bench_core");
+        break;
+      case "wrongCustom":
+        matrix[4] = plugin.getCuriosPaperAPI().createItemStack("bench_ring");
+        break;
+      default:
+        matrix[4] = new ItemStack(Material.GOLD_BLOCK);
+        break;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkServer.stop();
+  }
+
+  @Benchmark
+  public boolean validate() throws Throwable {
+    String[] customIds = (String[]) GET_CUSTOM_ITEM_IDS.invokeExact(recipeListener, matrix);
+    return (boolean) VALIDATE_CUSTOM_INGREDIENTS.invokeExact(recipeListener, recipeKey, matrix, customIds);
+  }
+}
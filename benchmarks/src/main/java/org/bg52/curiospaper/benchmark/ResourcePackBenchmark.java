@@ -0,0 +1,50 @@
+package org.bg52.curiospaper.benchmark;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.resourcepack.ResourcePackManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full pack build from the plugin's own resources: copying the sources,
+ * merging JSON, zipping every variant and hashing the archives. Each build is
+ * timed on its own, as on startup or /curios rp rebuild.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResourcePackBenchmark {
+  private ResourcePackManager resourcePackManager;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    CuriosPaper plugin = BenchmarkServer.start();
+    resourcePackManager = plugin.getResourcePackManager();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkServer.stop();
+  }
+
+  @Benchmark
+  public String generatePack() {
+    resourcePackManager.generatePack();
+    return resourcePackManager.getPackHash();
+  }
+}
@@ -0,0 +1,115 @@
+package org.bg52.curiospaper.benchmark;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.config.SlotConfiguration;
+import org.bg52.curiospaper.manager.SlotManager;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving one player's accessories, as on join, quit and autosave.
+ * load and save include the file I/O; serialize and deserialize measure only
+ * the YAML conversion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlotManagerBenchmark {
+  private static final MethodHandle READ_ACCESSORIES = BenchmarkServer.method(SlotManager.class,
+      "readAccessories", YamlConfiguration.class, boolean.class);
+  // The count of written items isn't needed, drop it from the call site type
+  private static final MethodHandle WRITE_ACCESSORIES = BenchmarkServer.method(SlotManager.class,
+      "writeAccessories", Map.class, YamlConfiguration.class)
+      .asType(MethodType.methodType(void.class, SlotManager.class, Map.class, YamlConfiguration.class));
+
+  // Fraction of the configured slots holding an item, in percent
+  @Param({ "0", "50", "100" })
+  public int filledPercent;
+
+  private CuriosPaper plugin;
+  private SlotManager slotManager;
+  private UUID playerId;
+  private Map<String, List<ItemStack>> accessories;
+  private String savedText;
+
+  @Setup(Level.Trial)
+  public void setup() throws Throwable {
+    plugin = BenchmarkServer.start();
+    slotManager = plugin.getSlotManager();
+    playerId = UUID.randomUUID();
+
+    for (Map.Entry<String, SlotConfiguration> entry : plugin.getConfigManager().getSlotConfigurationsView()
+        .entrySet()) {
+      String slotType = entry.getKey();
+      BenchmarkServer.createItem(plugin, "bench_" + slotType, slotType);
+      int filled = entry.getValue().getAmount() * filledPercent / 100;
+      for (int i = 0; i < filled; i++) {
+        slotManager.setAccessoryItem(playerId, slotType, i,
+            plugin.getCuriosPaperAPI().createItemStack("bench_" + slotType));
+      }
+    }
+    slotManager.savePlayerData(playerId);
+    accessories = slotManager.getPlayerAccessoriesMap(playerId);
+    savedText = serialize();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkServer.stop();
+  }
+
+  @Benchmark
+  public void save() {
+    slotManager.savePlayerData(playerId);
+  }
+
+  @Benchmark
+  public Map<String, List<ItemStack>> load() {
+    slotManager.unloadPlayerData(playerId);
+    slotManager.loadPlayerData(playerId);
+    return slotManager.getPlayerAccessoriesMap(playerId);
+  }
+
+  @Benchmark
+  public String serialize() throws Throwable {
+    YamlConfiguration config = new YamlConfiguration();
+    WRITE_ACCESSORIES.invokeExact(slotManager, accessories, config);
+    return config.saveToString();
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public Map<String, List<ItemStack>> deserialize() throws Throwable {
+    YamlConfiguration config = new YamlConfiguration();
+    try {
+      config.loadFromString(savedText);
+    } catch (InvalidConfigurationException e) {
+      throw new IllegalStateException(e);
+    }
+    return (Map<String, List<ItemStack>>) READ_ACCESSORIES.invokeExact(slotManager, config, false);
+  }
+}
@@ -16,6 +16,7 @@ import org.bg52.curiospaper.manager.ChatInputManager;
 import org.bg52.curiospaper.manager.ItemDataManager;
 import org.bg52.curiospaper.manager.MessagesManager;
 import org.bg52.curiospaper.manager.SlotManager;
+import org.bg52.curiospaper.metrics.MetricsRegistry;
 import org.bg52.curiospaper.model.ModelStandManager;
 import org.bg52.curiospaper.resourcepack.ResourcePackManager;
 import org.bg52.curiospaper.util.AutoSaveTask;
@@ -34,6 +35,7 @@ public class CuriosPaper extends JavaPlugin {
   private AccessoryGUI gui;
   private EditMenuGUI editMenuGUI;
   private AutoSaveTask autoSaveTask;
+  private org.bg52.curiospaper.manager.ContentWatcher contentWatcher;
   private ResourcePackManager resourcePackManager;
   private ElytraBackSlotHandler elytraHandler;
   private RecipeListener recipeListener;
@@ -52,6 +54,7 @@ public class CuriosPaper extends JavaPlugin {
   private ItemListGUI itemListGUI;
   private ItemRecipeListGUI itemRecipeListGUI;
   private RecipeViewGUI recipeViewGUI;
+  private MetricsRegistry metricsRegistry;
 
   @Override
   public void onEnable() {
@@ -59,6 +62,13 @@ public class CuriosPaper extends JavaPlugin {
 
     saveDefaultConfig();
 
+    org.bg52.curiospaper.util.Timings.setEnabled(getConfig().getBoolean("performance.timings", true));
+    metricsRegistry = new MetricsRegistry(this);
+    metricsRegistry.start();
+
+    // Bind version-specific item methods once, before anything creates items
+    getLogger().info("Version adapter: " + org.bg52.curiospaper.util.VersionUtil.adapter().getName());
+
     // Initialize messages first so all components can use it
     messagesManager = new MessagesManager(this);
 
@@ -180,6 +190,10 @@ public class CuriosPaper extends JavaPlugin {
 
       this.abilityListener = new AbilityListener(this);
       getServer().getPluginManager().registerEvents(this.abilityListener, this);
+
+      // Hot reload of items/*.yml and config.yml slots, if enabled
+      contentWatcher = new org.bg52.curiospaper.manager.ContentWatcher(this, itemDataManager);
+      contentWatcher.start();
     }
 
     // Register Elytra Back Slot Handler if enabled AND server supports
@@ -265,6 +279,10 @@ public class CuriosPaper extends JavaPlugin {
       autoSaveTask.cancel();
     }
 
+    if (contentWatcher != null) {
+      contentWatcher.stop();
+    }
+
     // Unregister recipes before cleaning up items
     if (recipeListener != null) {
       recipeListener.unregisterAllRecipes();
@@ -273,6 +291,7 @@ public class CuriosPaper extends JavaPlugin {
     // Clean up external items to prevent stale data on restart
     if (itemDataManager != null) {
       itemDataManager.cleanupExternalItems();
+      itemDataManager.shutdown();
     }
 
     if (resourcePackManager != null) {
@@ -293,8 +312,13 @@ public class CuriosPaper extends JavaPlugin {
       accessoryHotkeyListener.cleanup();
     }
 
+    slotManager.shutdown();
     slotManager.saveAllPlayerData();
 
+    if (metricsRegistry != null) {
+      metricsRegistry.shutdown();
+    }
+
     getLogger().info("CuriosPaper has been disabled!");
   }
 
@@ -353,4 +377,8 @@ public class CuriosPaper extends JavaPlugin {
   public RecipeViewGUI getRecipeViewGUI() {
     return recipeViewGUI;
   }
+
+  public MetricsRegistry getMetricsRegistry() {
+    return metricsRegistry;
+  }
 }
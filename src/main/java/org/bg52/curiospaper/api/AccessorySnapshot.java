@@ -0,0 +1,109 @@
+package org.bg52.curiospaper.api;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only copy of every configured slot of one player, taken at a single
+ * point in time. All slots are copied into one array, so reading many slots
+ * costs one copy instead of one list per call.
+ *
+ * <p>
+ * Empty slots are null. The item stacks are the stored instances, not clones:
+ * don't modify them, use an {@link AccessoryTransaction} to change anything.
+ */
+public final class AccessorySnapshot {
+  private final UUID playerId;
+  private final String[] slotTypes;
+  // Items of slotTypes[i] are items[offsets[i]] until items[offsets[i + 1]]
+  private final int[] offsets;
+  private final ItemStack[] items;
+
+  AccessorySnapshot(UUID playerId, String[] slotTypes, int[] offsets, ItemStack[] items) {
+    this.playerId = playerId;
+    this.slotTypes = slotTypes;
+    this.offsets = offsets;
+    this.items = items;
+  }
+
+  public UUID getPlayerId() {
+    return playerId;
+  }
+
+  /**
+   * Gets the slot types in this snapshot, in configuration order
+   */
+  public List<String> getSlotTypes() {
+    return Collections.unmodifiableList(Arrays.asList(slotTypes));
+  }
+
+  /**
+   * Gets the items of a slot type, one entry per configured slot
+   *
+   * @return an unmodifiable list, empty if the slot type isn't configured
+   */
+  public List<ItemStack> getItems(String slotType) {
+    int slot = slotOf(slotType);
+    if (slot < 0) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(Arrays.asList(items).subList(offsets[slot], offsets[slot + 1]));
+  }
+
+  /**
+   * Gets the item at an index within a slot type, or null if empty or out of
+   * range
+   */
+  public ItemStack getItem(String slotType, int index) {
+    int slot = slotOf(slotType);
+    if (slot < 0 || index < 0 || index >= offsets[slot + 1] - offsets[slot]) {
+      return null;
+    }
+    return items[offsets[slot] + index];
+  }
+
+  public boolean hasEquippedItems(String slotType) {
+    return countEquippedItems(slotType) > 0;
+  }
+
+  /**
+   * Counts the non-empty slots of a slot type
+   */
+  public int countEquippedItems(String slotType) {
+    int slot = slotOf(slotType);
+    return slot < 0 ? 0 : count(offsets[slot], offsets[slot + 1]);
+  }
+
+  /**
+   * Counts the non-empty slots over all slot types
+   */
+  public int countEquippedItems() {
+    return count(0, items.length);
+  }
+
+  private int count(int from, int to) {
+    int count = 0;
+    for (int i = from; i < to; i++) {
+      if (items[i] != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private int slotOf(String slotType) {
+    if (slotType == null) {
+      return -1;
+    }
+    for (int i = 0; i < slotTypes.length; i++) {
+      if (slotTypes[i].equalsIgnoreCase(slotType)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
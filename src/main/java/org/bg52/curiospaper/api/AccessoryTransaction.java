@@ -0,0 +1,137 @@
+package org.bg52.curiospaper.api;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Collects edits to several slots of one player and applies them together on
+ * {@link #commit()}. Nothing is changed before the commit, and the commit is
+ * all or nothing: every edit is validated against the slot configuration in
+ * one pass first, and if any of them is invalid none are applied.
+ *
+ * <p>
+ * For an online player, a commit that changed anything fires a single
+ * {@link org.bg52.curiospaper.event.AccessoryBatchEquipEvent}, then an
+ * {@link org.bg52.curiospaper.event.AccessoryEquipEvent} per changed index.
+ * Main thread only; a transaction can be committed once.
+ */
+public final class AccessoryTransaction {
+  // Marks indices the transaction doesn't change
+  static final Object UNCHANGED = new Object();
+
+  private final CuriosPaperAPIImpl api;
+  private final UUID playerId;
+  private final Map<String, SlotEdits> edits = new LinkedHashMap<>();
+  private boolean committed;
+
+  AccessoryTransaction(CuriosPaperAPIImpl api, UUID playerId) {
+    this.api = api;
+    this.playerId = playerId;
+  }
+
+  public UUID getPlayerId() {
+    return playerId;
+  }
+
+  /**
+   * Sets the item at an index within a slot type (null or air empties it)
+   */
+  public AccessoryTransaction set(String slotType, int index, ItemStack item) {
+    if (index < 0) {
+      throw new IllegalArgumentException("Negative slot index: " + index);
+    }
+    slot(slotType).set(index, item);
+    return this;
+  }
+
+  /**
+   * Empties the slot at an index within a slot type
+   */
+  public AccessoryTransaction remove(String slotType, int index) {
+    return set(slotType, index, null);
+  }
+
+  /**
+   * Replaces all items of a slot type, like
+   * {@link CuriosPaperAPI#setEquippedItems}: slots past the end of the list
+   * are emptied
+   */
+  public AccessoryTransaction setAll(String slotType, List<ItemStack> items) {
+    SlotEdits slot = slot(slotType);
+    slot.clearRest = true;
+    slot.size = 0;
+    for (int i = 0; i < items.size(); i++) {
+      slot.set(i, items.get(i));
+    }
+    return this;
+  }
+
+  /**
+   * Empties every slot of a slot type
+   */
+  public AccessoryTransaction clear(String slotType) {
+    SlotEdits slot = slot(slotType);
+    slot.clearRest = true;
+    slot.size = 0;
+    return this;
+  }
+
+  /**
+   * Validates and applies all edits.
+   *
+   * @return false if an edit was invalid, in which case nothing was applied
+   * @throws IllegalStateException if already committed
+   */
+  public boolean commit() {
+    if (committed) {
+      throw new IllegalStateException("Transaction already committed");
+    }
+    committed = true;
+    return api.commit(playerId, edits);
+  }
+
+  private SlotEdits slot(String slotType) {
+    if (committed) {
+      throw new IllegalStateException("Transaction already committed");
+    }
+    if (slotType == null) {
+      throw new IllegalArgumentException("Slot type cannot be null");
+    }
+    return edits.computeIfAbsent(slotType.toLowerCase(), k -> new SlotEdits());
+  }
+
+  /**
+   * The edits to one slot type: items[0..size) holds the new item per index, or
+   * UNCHANGED. With clearRest, every index not set is emptied.
+   */
+  static final class SlotEdits {
+    Object[] items = new Object[4];
+    int size;
+    boolean clearRest;
+    // Filled in by the validation pass
+    int amount;
+
+    void set(int index, ItemStack item) {
+      if (index >= items.length) {
+        items = Arrays.copyOf(items, Math.max(index + 1, items.length * 2));
+      }
+      if (index >= size) {
+        Arrays.fill(items, size, index, clearRest ? null : UNCHANGED);
+        size = index + 1;
+      }
+      items[index] = item;
+    }
+
+    Object get(int index) {
+      if (index < size) {
+        return items[index];
+      }
+      return clearRest ? null : UNCHANGED;
+    }
+  }
+}
@@ -5,7 +5,10 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface CuriosPaperAPI {
   String HIDE_MODELS_METADATA = "curios_hide_models";
@@ -68,6 +71,49 @@ public interface CuriosPaperAPI {
    */
   List<ItemStack> getEquippedItems(UUID playerId, String slotType);
 
+  /**
+   * Gets a read-only live view of the items in a slot type, without copying.
+   * Empty slots are null. The view reflects later changes; copy it if you need
+   * to keep it past the current tick.
+   */
+  List<ItemStack> getEquippedItemsView(Player player, String slotType);
+
+  /**
+   * Gets a read-only live view of the items in a slot type for a player UUID
+   */
+  List<ItemStack> getEquippedItemsView(UUID playerId, String slotType);
+
+  /**
+   * Calls the visitor for every non-empty slot of every slot type, in
+   * configuration order, without copying anything.
+   *
+   * @return false if the visitor stopped early
+   */
+  boolean forEachEquipped(Player player, EquippedItemVisitor visitor);
+
+  /**
+   * Calls the visitor for every non-empty slot of every slot type of a player
+   * UUID
+   *
+   * @return false if the visitor stopped early
+   */
+  boolean forEachEquipped(UUID playerId, EquippedItemVisitor visitor);
+
+  /**
+   * Calls the visitor for every non-empty slot of one slot type
+   *
+   * @return false if the visitor stopped early
+   */
+  boolean forEachEquipped(Player player, String slotType, EquippedItemVisitor visitor);
+
+  /**
+   * Calls the visitor for every non-empty slot of one slot type of a player
+   * UUID
+   *
+   * @return false if the visitor stopped early
+   */
+  boolean forEachEquipped(UUID playerId, String slotType, EquippedItemVisitor visitor);
+
   /**
    * Sets all items in a specific slot type for a player
    */
@@ -138,6 +184,67 @@ public interface CuriosPaperAPI {
    */
   void clearEquippedItems(UUID playerId, String slotType);
 
+  // ========== BULK ACCESS ==========
+
+  /**
+   * Takes a read-only snapshot of every configured slot of a player in one
+   * pass. Prefer this over many getEquippedItems calls when reading several
+   * slots at once.
+   */
+  AccessorySnapshot getSnapshot(Player player);
+
+  /**
+   * Takes a read-only snapshot of every configured slot of a player UUID
+   */
+  AccessorySnapshot getSnapshot(UUID playerId);
+
+  /**
+   * Starts a transaction that edits several slots of a player at once. The
+   * edits are validated together and applied on
+   * {@link AccessoryTransaction#commit()}, which fires one
+   * {@link org.bg52.curiospaper.event.AccessoryBatchEquipEvent} for all changes
+   * and then the usual {@link org.bg52.curiospaper.event.AccessoryEquipEvent}
+   * for each of them.
+   */
+  AccessoryTransaction beginTransaction(Player player);
+
+  /**
+   * Starts a transaction that edits several slots of a player UUID at once. No
+   * event is fired if the player is offline.
+   */
+  AccessoryTransaction beginTransaction(UUID playerId);
+
+  // ========== OFFLINE ACCESS ==========
+
+  /**
+   * Loads all accessories of a player (slot type -> items) without keeping
+   * them loaded, so it is safe to use for offline players. Unless the player is
+   * online or was read recently, the file is read on a background thread. The
+   * future completes on the main thread with a copy you may edit and pass to
+   * {@link #saveOfflineAccessories}.
+   */
+  CompletableFuture<Map<String, List<ItemStack>>> loadOfflineAccessories(UUID playerId);
+
+  /**
+   * Replaces all accessories of a player with the given ones. Call on the main
+   * thread. For an online player the loaded data is replaced and saved as
+   * usual; otherwise the file is written on a background thread and the
+   * future completes on the main thread once it is. No events are fired.
+   */
+  CompletableFuture<Void> saveOfflineAccessories(UUID playerId, Map<String, List<ItemStack>> accessories);
+
+  /**
+   * Loads a player's accessories, passes them to the editor on the main thread
+   * and saves the result, without keeping the player loaded.
+   */
+  default CompletableFuture<Void> editOfflineAccessories(UUID playerId,
+      Consumer<Map<String, List<ItemStack>>> editor) {
+    return loadOfflineAccessories(playerId).thenCompose(accessories -> {
+      editor.accept(accessories);
+      return saveOfflineAccessories(playerId, accessories);
+    });
+  }
+
   // ========== CONFIGURATION QUERIES ==========
 
   /**
@@ -175,10 +282,17 @@ public interface CuriosPaperAPI {
   /**
    * Counts the number of non-empty slots for a player in a slot type
    */
+  int countEquippedItems(UUID playerId, String slotType);
+
   /**
-   * Counts the number of non-empty slots for a player in a slot type
+   * Counts the number of non-empty slots for a player over all slot types
    */
-  int countEquippedItems(UUID playerId, String slotType);
+  int countEquippedItems(Player player);
+
+  /**
+   * Counts the number of non-empty slots for a player UUID over all slot types
+   */
+  int countEquippedItems(UUID playerId);
 
   // ========== SLOT REGISTRATION ==========
 
@@ -267,6 +381,70 @@ public interface CuriosPaperAPI {
    */
   org.bg52.curiospaper.data.ItemData getItemData(String itemId);
 
+  // ========== ITEM LOOKUPS ==========
+  // Indexed lookups over the loaded items; prefer these to scanning every item.
+  // Returned collections are snapshots and empty when the item editor is disabled.
+
+  /**
+   * Gets an item by ID, falling back to a case-insensitive match
+   *
+   * @param itemId The item identifier in any case
+   * @return The item data, or null if not found
+   */
+  org.bg52.curiospaper.data.ItemData getItemDataIgnoreCase(String itemId);
+
+  /**
+   * Gets the first item with exactly this display name (color codes included)
+   *
+   * @param displayName The display name
+   * @return The item data, or null if not found
+   */
+  org.bg52.curiospaper.data.ItemData getItemByDisplayName(String displayName);
+
+  /**
+   * Gets all custom items that can be equipped in a slot type
+   *
+   * @param slotType The slot type (e.g. "ring")
+   * @return The matching items
+   */
+  java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsBySlot(String slotType);
+
+  /**
+   * Gets all custom items with a mob drop entry for an entity type
+   *
+   * @param entityType The entity type
+   * @return The matching items
+   */
+  java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsByMobDrop(org.bukkit.entity.EntityType entityType);
+
+  /**
+   * Gets all custom items with a loot table entry that may match a loot table.
+   * Entries match on the full path or a trailing segment of it (e.g.
+   * "simple_dungeon" matches "minecraft:chests/simple_dungeon").
+   *
+   * @param lootTableKey The loot table key (e.g. "minecraft:chests/simple_dungeon")
+   * @return The matching items
+   */
+  java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsByLootTable(String lootTableKey);
+
+  /**
+   * Gets all custom items with a villager trade for a profession, including
+   * trades that apply to every profession
+   *
+   * @param profession The profession name (e.g. "LIBRARIAN" or "WANDERING_TRADER")
+   * @return The matching items
+   */
+  java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsByTradeProfession(String profession);
+
+  /**
+   * Gets all custom items with a recipe using a material or custom item as an
+   * ingredient
+   *
+   * @param input The material name or custom item ID (case-insensitive)
+   * @return The matching items
+   */
+  java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsByRecipeInput(String input);
+
   /**
    * Creates a new custom item with the given ID
    * 
@@ -287,10 +465,11 @@ public interface CuriosPaperAPI {
   org.bg52.curiospaper.data.ItemData createItem(org.bukkit.plugin.Plugin plugin, String itemId);
 
   /**
-   * Saves item data to disk
+   * Saves item data to disk. The file is written shortly after on a background
+   * thread, so repeated saves of the same item are cheap.
    * 
    * @param itemId The unique item identifier
-   * @return true if save was successful
+   * @return true if the item was loaded and valid and has been queued for saving
    */
   boolean saveItemData(String itemId);
 
@@ -2,6 +2,10 @@ package org.bg52.curiospaper.api;
 
 import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.config.SlotConfiguration;
+import org.bg52.curiospaper.event.AccessoryBatchEquipEvent;
+import org.bg52.curiospaper.event.AccessoryEquipEvent;
+import org.bg52.curiospaper.manager.SlotManager;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
@@ -11,6 +15,7 @@ import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.Map;
@@ -261,6 +266,52 @@ public class CuriosPaperAPIImpl implements CuriosPaperAPI {
     return plugin.getSlotManager().getAccessories(playerId, slotType);
   }
 
+  @Override
+  public List<ItemStack> getEquippedItemsView(Player player, String slotType) {
+    return getEquippedItemsView(player.getUniqueId(), slotType);
+  }
+
+  @Override
+  public List<ItemStack> getEquippedItemsView(UUID playerId, String slotType) {
+    return plugin.getSlotManager().getAccessoriesView(playerId, slotType);
+  }
+
+  @Override
+  public boolean forEachEquipped(Player player, EquippedItemVisitor visitor) {
+    return forEachEquipped(player.getUniqueId(), visitor);
+  }
+
+  @Override
+  public boolean forEachEquipped(UUID playerId, EquippedItemVisitor visitor) {
+    for (String slotType : plugin.getConfigManager().getSlotConfigurationsView().keySet()) {
+      if (!forEachEquipped(playerId, slotType, visitor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean forEachEquipped(Player player, String slotType, EquippedItemVisitor visitor) {
+    return forEachEquipped(player.getUniqueId(), slotType, visitor);
+  }
+
+  @Override
+  public boolean forEachEquipped(UUID playerId, String slotType, EquippedItemVisitor visitor) {
+    SlotManager slotManager = plugin.getSlotManager();
+    if (slotManager.countAccessories(playerId, slotType) == 0) {
+      return true;
+    }
+    List<ItemStack> items = slotManager.getAccessoriesView(playerId, slotType);
+    for (int i = 0; i < items.size(); i++) {
+      ItemStack item = items.get(i);
+      if (!isEmpty(item) && !visitor.visit(slotType, i, item)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public void setEquippedItems(Player player, String slotType, List<ItemStack> items) {
     setEquippedItems(player.getUniqueId(), slotType, items);
@@ -342,6 +393,128 @@ public class CuriosPaperAPIImpl implements CuriosPaperAPI {
     setEquippedItems(playerId, slotType, emptyList);
   }
 
+  @Override
+  public AccessorySnapshot getSnapshot(Player player) {
+    return getSnapshot(player.getUniqueId());
+  }
+
+  @Override
+  public AccessorySnapshot getSnapshot(UUID playerId) {
+    Map<String, SlotConfiguration> configs = plugin.getConfigManager().getSlotConfigurationsView();
+    String[] slotTypes = new String[configs.size()];
+    int[] offsets = new int[configs.size() + 1];
+    int slot = 0;
+    for (Map.Entry<String, SlotConfiguration> entry : configs.entrySet()) {
+      slotTypes[slot] = entry.getKey();
+      offsets[slot + 1] = offsets[slot] + entry.getValue().getAmount();
+      slot++;
+    }
+
+    SlotManager slotManager = plugin.getSlotManager();
+    ItemStack[] items = new ItemStack[offsets[slot]];
+    for (int i = 0; i < slot; i++) {
+      List<ItemStack> stored = slotManager.peekAccessories(playerId, slotTypes[i]);
+      if (stored == null) {
+        continue;
+      }
+      // Items past the configured amount are left out, not truncated here
+      int count = Math.min(stored.size(), offsets[i + 1] - offsets[i]);
+      for (int j = 0; j < count; j++) {
+        ItemStack item = stored.get(j);
+        if (item != null && item.getType() != org.bukkit.Material.AIR) {
+          items[offsets[i] + j] = item;
+        }
+      }
+    }
+    return new AccessorySnapshot(playerId, slotTypes, offsets, items);
+  }
+
+  @Override
+  public AccessoryTransaction beginTransaction(Player player) {
+    return beginTransaction(player.getUniqueId());
+  }
+
+  @Override
+  public AccessoryTransaction beginTransaction(UUID playerId) {
+    return new AccessoryTransaction(this, playerId);
+  }
+
+  /**
+   * Applies a transaction's edits: validates all of them first, then writes the
+   * changed indices straight into the stored lists, then fires one batch event
+   * followed by the equip event of each change.
+   */
+  boolean commit(UUID playerId, Map<String, AccessoryTransaction.SlotEdits> edits) {
+    for (Map.Entry<String, AccessoryTransaction.SlotEdits> entry : edits.entrySet()) {
+      SlotConfiguration config = plugin.getConfigManager().getSlotConfiguration(entry.getKey());
+      if (config == null) {
+        plugin.getLogger().warning("Rejected accessory transaction for " + playerId
+            + ": unknown slot type '" + entry.getKey() + "'");
+        return false;
+      }
+      AccessoryTransaction.SlotEdits slot = entry.getValue();
+      if (slot.size > config.getAmount()) {
+        plugin.getLogger().warning("Rejected accessory transaction for " + playerId + ": index " + (slot.size - 1)
+            + " for slot type '" + entry.getKey() + "' which only has " + config.getAmount() + " slots");
+        return false;
+      }
+      slot.amount = config.getAmount();
+    }
+
+    Player player = Bukkit.getPlayer(playerId);
+    List<AccessoryEquipEvent> changes = player != null ? new ArrayList<>() : null;
+    SlotManager slotManager = plugin.getSlotManager();
+    for (Map.Entry<String, AccessoryTransaction.SlotEdits> entry : edits.entrySet()) {
+      String slotType = entry.getKey();
+      AccessoryTransaction.SlotEdits slot = entry.getValue();
+      List<ItemStack> items = slotManager.getMutableAccessories(playerId, slotType, slot.amount);
+
+      int end = slot.clearRest ? slot.amount : slot.size;
+      for (int i = 0; i < end; i++) {
+        Object edit = slot.get(i);
+        if (edit == AccessoryTransaction.UNCHANGED) {
+          continue;
+        }
+        ItemStack newItem = isEmpty((ItemStack) edit) ? null : (ItemStack) edit;
+        ItemStack oldItem = isEmpty(items.get(i)) ? null : items.get(i);
+        if (oldItem == null ? newItem == null : oldItem.equals(newItem)) {
+          continue;
+        }
+
+        items.set(i, newItem);
+        if (changes != null) {
+          AccessoryEquipEvent.Action action = oldItem == null ? AccessoryEquipEvent.Action.EQUIP
+              : newItem == null ? AccessoryEquipEvent.Action.UNEQUIP : AccessoryEquipEvent.Action.SWAP;
+          changes.add(new AccessoryEquipEvent(player, slotType, i, oldItem, newItem, action));
+        }
+      }
+    }
+
+    if (changes != null && !changes.isEmpty()) {
+      Bukkit.getPluginManager().callEvent(new AccessoryBatchEquipEvent(player, changes));
+      // Listeners of single equips must still see every change
+      for (AccessoryEquipEvent change : changes) {
+        Bukkit.getPluginManager().callEvent(change);
+      }
+    }
+    return true;
+  }
+
+  private static boolean isEmpty(ItemStack item) {
+    return item == null || item.getType() == org.bukkit.Material.AIR;
+  }
+
+  @Override
+  public java.util.concurrent.CompletableFuture<Map<String, List<ItemStack>>> loadOfflineAccessories(UUID playerId) {
+    return plugin.getSlotManager().loadOfflineAccessories(playerId);
+  }
+
+  @Override
+  public java.util.concurrent.CompletableFuture<Void> saveOfflineAccessories(UUID playerId,
+      Map<String, List<ItemStack>> accessories) {
+    return plugin.getSlotManager().saveOfflineAccessories(playerId, accessories);
+  }
+
   @Override
   public boolean isValidSlotType(String slotType) {
     return plugin.getConfigManager().hasSlotType(slotType);
@@ -365,8 +538,7 @@ public class CuriosPaperAPIImpl implements CuriosPaperAPI {
 
   @Override
   public boolean hasEquippedItems(UUID playerId, String slotType) {
-    List<ItemStack> items = getEquippedItems(playerId, slotType);
-    return items.stream().anyMatch(item -> item != null && item.getType() != org.bukkit.Material.AIR);
+    return plugin.getSlotManager().countAccessories(playerId, slotType) > 0;
   }
 
   @Override
@@ -376,10 +548,17 @@ public class CuriosPaperAPIImpl implements CuriosPaperAPI {
 
   @Override
   public int countEquippedItems(UUID playerId, String slotType) {
-    List<ItemStack> items = getEquippedItems(playerId, slotType);
-    return (int) items.stream()
-        .filter(item -> item != null && item.getType() != org.bukkit.Material.AIR)
-        .count();
+    return plugin.getSlotManager().countAccessories(playerId, slotType);
+  }
+
+  @Override
+  public int countEquippedItems(Player player) {
+    return countEquippedItems(player.getUniqueId());
+  }
+
+  @Override
+  public int countEquippedItems(UUID playerId) {
+    return plugin.getSlotManager().countAccessories(playerId);
   }
 
   // ========== SLOT REGISTRATION ==========
@@ -571,6 +750,49 @@ public class CuriosPaperAPIImpl implements CuriosPaperAPI {
     return itemDataManager.getItemData(itemId);
   }
 
+  @Override
+  public org.bg52.curiospaper.data.ItemData getItemDataIgnoreCase(String itemId) {
+    org.bg52.curiospaper.manager.ItemDataManager itemDataManager = plugin.getItemDataManager();
+    return itemDataManager == null ? null : itemDataManager.getItemDataIgnoreCase(itemId);
+  }
+
+  @Override
+  public org.bg52.curiospaper.data.ItemData getItemByDisplayName(String displayName) {
+    org.bg52.curiospaper.manager.ItemDataManager itemDataManager = plugin.getItemDataManager();
+    return itemDataManager == null ? null : itemDataManager.getItemByDisplayName(displayName);
+  }
+
+  @Override
+  public java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsBySlot(String slotType) {
+    org.bg52.curiospaper.manager.ItemDataManager itemDataManager = plugin.getItemDataManager();
+    return itemDataManager == null ? Collections.emptyList() : itemDataManager.getItemsBySlot(slotType);
+  }
+
+  @Override
+  public java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsByMobDrop(
+      org.bukkit.entity.EntityType entityType) {
+    org.bg52.curiospaper.manager.ItemDataManager itemDataManager = plugin.getItemDataManager();
+    return itemDataManager == null ? Collections.emptyList() : itemDataManager.getItemsByMobDrop(entityType);
+  }
+
+  @Override
+  public java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsByLootTable(String lootTableKey) {
+    org.bg52.curiospaper.manager.ItemDataManager itemDataManager = plugin.getItemDataManager();
+    return itemDataManager == null ? Collections.emptyList() : itemDataManager.getItemsByLootTable(lootTableKey);
+  }
+
+  @Override
+  public java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsByTradeProfession(String profession) {
+    org.bg52.curiospaper.manager.ItemDataManager itemDataManager = plugin.getItemDataManager();
+    return itemDataManager == null ? Collections.emptyList() : itemDataManager.getItemsByTradeProfession(profession);
+  }
+
+  @Override
+  public java.util.Collection<org.bg52.curiospaper.data.ItemData> getItemsByRecipeInput(String input) {
+    org.bg52.curiospaper.manager.ItemDataManager itemDataManager = plugin.getItemDataManager();
+    return itemDataManager == null ? Collections.emptyList() : itemDataManager.getItemsByRecipeInput(input);
+  }
+
   @Override
   public org.bg52.curiospaper.data.ItemData createItem(String itemId) {
     return createItem(null, itemId);
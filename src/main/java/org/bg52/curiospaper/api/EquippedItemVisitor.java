@@ -0,0 +1,19 @@
+package org.bg52.curiospaper.api;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Callback for {@link CuriosPaperAPI#forEachEquipped}, called once per
+ * non-empty slot.
+ */
+@FunctionalInterface
+public interface EquippedItemVisitor {
+
+  /**
+   * @param slotType the slot type key
+   * @param index    the index within the slot type
+   * @param item     the stored item; don't modify it
+   * @return true to continue, false to stop visiting
+   */
+  boolean visit(String slotType, int index, ItemStack item);
+}
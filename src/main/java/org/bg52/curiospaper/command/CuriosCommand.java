@@ -4,6 +4,7 @@ import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.api.CuriosPaperAPI;
 import org.bg52.curiospaper.manager.MessagesManager;
 import org.bg52.curiospaper.resourcepack.ResourcePackManager;
+import org.bg52.curiospaper.util.Timings;
 import org.bg52.curiospaper.data.ItemData;
 import org.bg52.curiospaper.inventory.EditGUI;
 import org.bg52.curiospaper.manager.ItemDataManager;
@@ -24,6 +25,7 @@ import org.bukkit.persistence.PersistentDataType;
 import java.io.File;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class CuriosCommand implements CommandExecutor, TabCompleter {
@@ -36,6 +38,7 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
   private final EditGUI editGUI;
 
   private static final DecimalFormat SIZE_FORMAT = new DecimalFormat("#.##");
+  private static final DecimalFormat TIMING_FORMAT = new DecimalFormat("0.###");
 
   public CuriosCommand(CuriosPaper plugin, CuriosPaperAPI api) {
     this.plugin = plugin;
@@ -90,6 +93,9 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
         return handleGive(sender, args);
       case "recordrtp":
         return handleRecordRtp(sender);
+      case "timings":
+        handleTimings(sender, label, Arrays.copyOfRange(args, 1, args.length));
+        return true;
 
       default:
         sendUsage(sender, label);
@@ -147,8 +153,20 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
 
     sender.sendMessage(msg().get("commands.rp.info-header"));
     sender.sendMessage("\u00a7bHosting Mode: \u00a7f" + mode.name());
-    if (mode == ResourcePackManager.HostingMode.SELF) {
+    if (mode == ResourcePackManager.HostingMode.SELF || mode == ResourcePackManager.HostingMode.NETTY) {
+      if (rpManager.getHost() != null) {
+        port = rpManager.getHost().getPort();
+      }
       sender.sendMessage(msg().get("commands.rp.info-host", "host", host, "port", String.valueOf(port)));
+      if (rpManager.getHost() != null) {
+        org.bg52.curiospaper.resourcepack.DownloadTracker tracker = rpManager.getHost().getDownloadTracker();
+        sender.sendMessage(msg().get("commands.rp.info-downloads",
+            "active", String.valueOf(tracker.getActiveDownloads()),
+            "queued", String.valueOf(tracker.getQueuedRequests()),
+            "rate", humanReadableSize(tracker.getBytesPerSecond()),
+            "served", String.valueOf(tracker.getCompletedDownloads()),
+            "rejected", String.valueOf(tracker.getRejectedRequests())));
+      }
     } else if (mode == ResourcePackManager.HostingMode.LINK) {
       sender.sendMessage("\u00a7bDownload Link: \u00a7f" + url);
     }
@@ -158,6 +176,14 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
             : msg().get("commands.rp.info-pack-missing")));
 
     sender.sendMessage(msg().get("commands.rp.info-hash", "hash", (hash != null ? hash : "none")));
+    if (!rpManager.getVariants().isEmpty()) {
+      List<String> variantNames = new ArrayList<>();
+      for (org.bg52.curiospaper.resourcepack.PackVariant variant : rpManager.getVariants()) {
+        File variantFile = rpManager.getPackFile(variant);
+        variantNames.add(variant.getName() + " (" + humanReadableSize(variantFile.exists() ? variantFile.length() : 0L) + ")");
+      }
+      sender.sendMessage(msg().get("commands.rp.info-variants", "variants", String.join(", ", variantNames)));
+    }
     sender.sendMessage(msg().get("commands.rp.info-sources", "count", String.valueOf(sourceCount)));
 
     sender.sendMessage(msg().get("commands.rp.info-namespaces",
@@ -179,24 +205,27 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
       return;
     }
 
-    String url = rpManager.getPackUrl();
-    if (url == null || url.isEmpty()) {
+    String baseUrl = rpManager.getPackUrl();
+    if (baseUrl == null || baseUrl.isEmpty()) {
       sender.sendMessage("\u00a7c[CuriosPaper] Rebuilt pack, but mode is set to LINK and url is empty. Cannot send to players.");
       return;
     }
-    String hash = rpManager.getPackHash();
-
-    // Append hash as query param to bust client cache on pack rebuild
-    if (hash != null && !hash.isEmpty()) {
-      if (url.contains("?")) {
-        url = url + "&v=" + hash;
-      } else {
-        url = url + "?v=" + hash;
-      }
-    }
 
     int count = 0;
     for (org.bukkit.entity.Player p : org.bukkit.Bukkit.getOnlinePlayers()) {
+      // Each player gets the URL of their own pack variant
+      String url = rpManager.getPackUrl(p);
+      String hash = rpManager.getPackHash(p);
+
+      // Append hash as query param to bust client cache on pack rebuild
+      if (hash != null && !hash.isEmpty()) {
+        if (url.contains("?")) {
+          url = url + "&v=" + hash;
+        } else {
+          url = url + "?v=" + hash;
+        }
+      }
+
       try {
         // Use single-arg setResourcePack(url) for maximum version compatibility (1.14+)
         p.setResourcePack(url);
@@ -270,6 +299,80 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
     return true;
   }
 
+  // ---------------- TIMINGS SUBCOMMAND ----------------
+
+  private void handleTimings(CommandSender sender, String label, String[] args) {
+    if (!sender.hasPermission("curiospaper.admin")) {
+      sender.sendMessage(msg().get("common.no-permission"));
+      return;
+    }
+
+    String sub = args.length == 0 ? "show" : args[0].toLowerCase(Locale.ROOT);
+    switch (sub) {
+      case "show":
+        cmdTimingsShow(sender);
+        break;
+
+      case "reset":
+        Timings.reset();
+        sender.sendMessage(msg().get("commands.timings.reset"));
+        break;
+
+      case "export":
+        cmdTimingsExport(sender);
+        break;
+
+      default:
+        sender.sendMessage(msg().get("commands.timings.usage", "label", label));
+    }
+  }
+
+  private void cmdTimingsShow(CommandSender sender) {
+    long elapsed = Timings.getElapsedNanos();
+    sender.sendMessage(msg().get("commands.timings.header",
+        "duration", String.valueOf(TimeUnit.NANOSECONDS.toSeconds(elapsed))));
+    if (!Timings.isEnabled()) {
+      sender.sendMessage(msg().get("commands.timings.disabled"));
+    }
+
+    boolean any = false;
+    for (Timings.Section section : Timings.Section.values()) {
+      Timings.Stats stats = Timings.getStats(section);
+      if (stats.getCount() == 0) {
+        continue;
+      }
+      any = true;
+      sender.sendMessage(msg().get("commands.timings.entry",
+          "section", section.getId(),
+          "calls", String.valueOf(stats.getCount()),
+          "rate", TIMING_FORMAT.format(stats.getCallsPerSecond(elapsed)),
+          "mean", TIMING_FORMAT.format(Timings.toMillis(stats.getMeanNanos())),
+          "p50", TIMING_FORMAT.format(Timings.toMillis(stats.getPercentileNanos(50))),
+          "p95", TIMING_FORMAT.format(Timings.toMillis(stats.getPercentileNanos(95))),
+          "p99", TIMING_FORMAT.format(Timings.toMillis(stats.getPercentileNanos(99))),
+          "max", TIMING_FORMAT.format(Timings.toMillis(stats.getMaxNanos()))));
+    }
+    if (!any) {
+      sender.sendMessage(msg().get("commands.timings.empty"));
+    }
+  }
+
+  private void cmdTimingsExport(CommandSender sender) {
+    File folder = new File(plugin.getDataFolder(), "timings");
+    File file = new File(folder, "timings-" + new java.text.SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+        + ".json");
+    try {
+      if (!folder.exists() && !folder.mkdirs()) {
+        throw new java.io.IOException("Cannot create " + folder.getAbsolutePath());
+      }
+      java.nio.file.Files.write(file.toPath(), Timings.toJson().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+      sender.sendMessage(msg().get("commands.timings.exported", "file", "timings/" + file.getName()));
+    } catch (java.io.IOException e) {
+      plugin.getLogger().warning("Failed to export timings: " + e.getMessage());
+      sender.sendMessage(msg().get("commands.timings.export-failed"));
+    }
+  }
+
   // ---------------- INSPECT SUBCOMMAND ----------------
 
   /**
@@ -289,6 +392,19 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
    */
   private static final Map<UUID, int[]> activeInspectSlotPositions = new HashMap<>();
 
+  /**
+   * Recently inspected offline players: lowercase name -> (UUID, name), so
+   * paging through their slots doesn't resolve the name again. Sized like the
+   * offline player cache. Main thread only.
+   */
+  private final Map<String, Map.Entry<UUID, String>> recentInspectTargets =
+      new java.util.LinkedHashMap<String, Map.Entry<UUID, String>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map.Entry<UUID, String>> eldest) {
+          return size() > plugin.getConfig().getInt("performance.offline-cache-size", 32);
+        }
+      };
+
   public static Map<UUID, UUID> getActiveInspectSessions() { return activeInspectSessions; }
   public static Map<UUID, String> getActiveInspectSlotTypes() { return activeInspectSlotTypes; }
   public static Map<UUID, List<org.bukkit.inventory.ItemStack>> getActiveInspectPreviousItems() { return activeInspectPreviousItems; }
@@ -310,62 +426,87 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
       return true;
     }
 
+    // If a specific slot type is provided, show that slot directly
+    String slotType = args.length >= 3 ? args[2].toLowerCase() : null;
+    if (slotType != null && !api.isValidSlotType(slotType)) {
+      admin.sendMessage(msg().get("commands.inspect.invalid-slot", "slot", slotType));
+      return true;
+    }
+
     // Support both online and offline players
     String targetName = args[1];
-    UUID targetUUID = null;
-    String resolvedName = targetName;
-
-    // Try online player first
     Player onlineTarget = Bukkit.getPlayer(targetName);
     if (onlineTarget != null) {
-      targetUUID = onlineTarget.getUniqueId();
-      resolvedName = onlineTarget.getName();
-    } else {
-      // Try offline player
-      @SuppressWarnings("deprecation")
-      org.bukkit.OfflinePlayer offlineTarget = Bukkit.getOfflinePlayer(targetName);
-      if (offlineTarget.hasPlayedBefore() || offlineTarget.isOnline()) {
-        targetUUID = offlineTarget.getUniqueId();
-        resolvedName = offlineTarget.getName() != null ? offlineTarget.getName() : targetName;
-      }
-    }
-
-    if (targetUUID == null) {
-      admin.sendMessage(msg().get("common.player-not-found", "player", targetName));
+      openInspect(admin, onlineTarget.getUniqueId(), onlineTarget.getName(), slotType);
       return true;
     }
 
-    // Ensure player data is loaded (works for offline players too)
-    if (!plugin.getSlotManager().hasPlayerData(targetUUID)) {
-      plugin.getSlotManager().loadPlayerData(targetUUID);
+    Map.Entry<UUID, String> recent = recentInspectTargets.get(targetName.toLowerCase());
+    if (recent != null) {
+      openInspect(admin, recent.getKey(), recent.getValue(), slotType);
+      return true;
     }
 
-    // If a specific slot type is provided, show that slot directly
-    if (args.length >= 3) {
-      String slotType = args[2].toLowerCase();
-      if (!api.isValidSlotType(slotType)) {
-        admin.sendMessage(msg().get("commands.inspect.invalid-slot", "slot", slotType));
-        return true;
-      }
-      openInspectSlotGUI(admin, targetUUID, resolvedName, slotType);
-    } else {
-      openInspectOverviewGUI(admin, targetUUID, resolvedName);
-    }
+    // Resolving an offline name may block on a profile lookup
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      @SuppressWarnings("deprecation")
+      org.bukkit.OfflinePlayer offlineTarget = Bukkit.getOfflinePlayer(targetName);
+      boolean known = offlineTarget.hasPlayedBefore() || offlineTarget.isOnline();
+      UUID targetUUID = offlineTarget.getUniqueId();
+      String resolvedName = offlineTarget.getName() != null ? offlineTarget.getName() : targetName;
 
+      Bukkit.getScheduler().runTask(plugin, () -> {
+        if (!admin.isOnline()) {
+          return;
+        }
+        if (!known) {
+          admin.sendMessage(msg().get("common.player-not-found", "player", targetName));
+          return;
+        }
+        recentInspectTargets.put(targetName.toLowerCase(),
+            new java.util.AbstractMap.SimpleImmutableEntry<>(targetUUID, resolvedName));
+        openInspect(admin, targetUUID, resolvedName, slotType);
+      });
+    });
     return true;
   }
 
+  /**
+   * Opens the overview, or one slot if slotType isn't null, once the target's
+   * accessories are available. Offline targets are read in the background and
+   * not kept loaded.
+   */
+  private void openInspect(Player admin, UUID targetUUID, String targetName, String slotType) {
+    plugin.getSlotManager().loadOfflineAccessories(targetUUID).whenComplete((accessories, error) -> {
+      if (!admin.isOnline()) {
+        return;
+      }
+      if (error != null) {
+        admin.sendMessage(msg().get("commands.inspect.load-failed", "player", targetName));
+        return;
+      }
+      if (slotType != null) {
+        openInspectSlotGUI(admin, targetUUID, targetName, slotType, accessories);
+      } else {
+        openInspectOverviewGUI(admin, targetUUID, targetName, accessories);
+      }
+    });
+  }
+
   /**
    * Opens an overview of all curios slot types for the target player.
    */
-  private void openInspectOverviewGUI(Player admin, UUID targetUUID, String targetName) {
+  private void openInspectOverviewGUI(Player admin, UUID targetUUID, String targetName,
+      Map<String, List<org.bukkit.inventory.ItemStack>> accessories) {
     List<String> slotTypes = api.getAllSlotTypes();
     int size = 27;
     if (slotTypes.size() > 7) size = 45;
     if (slotTypes.size() > 14) size = 54;
 
-    org.bukkit.inventory.Inventory gui = Bukkit.createInventory(null, size,
-        msg().get("commands.inspect.gui-title", "player", targetName));
+    org.bukkit.inventory.Inventory gui = org.bg52.curiospaper.inventory.CuriosInventoryHolder.createInventory(
+        org.bg52.curiospaper.inventory.CuriosInventoryHolder
+            .of(org.bg52.curiospaper.inventory.CuriosInventoryHolder.Kind.INSPECT_OVERVIEW),
+        size, msg().get("commands.inspect.gui-title", "player", targetName));
 
     // Fill with glass panes
     org.bukkit.inventory.ItemStack filler = new org.bukkit.inventory.ItemStack(org.bukkit.Material.GRAY_STAINED_GLASS_PANE);
@@ -384,8 +525,17 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
       org.bg52.curiospaper.config.SlotConfiguration config = plugin.getConfigManager().getSlotConfiguration(slotType);
       if (config == null) continue;
 
-      int equipped = api.countEquippedItems(targetUUID, slotType);
       int total = config.getAmount();
+      int equipped = 0;
+      List<org.bukkit.inventory.ItemStack> slotItems = accessories.get(slotType);
+      if (slotItems != null) {
+        for (int j = 0; j < slotItems.size() && j < total; j++) {
+          org.bukkit.inventory.ItemStack item = slotItems.get(j);
+          if (item != null && item.getType() != org.bukkit.Material.AIR) {
+            equipped++;
+          }
+        }
+      }
 
       org.bukkit.inventory.ItemStack button = new org.bukkit.inventory.ItemStack(config.getIcon());
       org.bukkit.inventory.meta.ItemMeta meta = button.getItemMeta();
@@ -420,18 +570,25 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
    * Opens an editable view of a specific slot type's items for the target player.
    * Admins can take items out. Changes are saved on close with proper unequip events.
    */
-  private void openInspectSlotGUI(Player admin, UUID targetUUID, String targetName, String slotType) {
+  private void openInspectSlotGUI(Player admin, UUID targetUUID, String targetName, String slotType,
+      Map<String, List<org.bukkit.inventory.ItemStack>> accessories) {
     org.bg52.curiospaper.config.SlotConfiguration config = plugin.getConfigManager().getSlotConfiguration(slotType);
     if (config == null) return;
 
-    List<org.bukkit.inventory.ItemStack> items = api.getEquippedItems(targetUUID, slotType);
+    List<org.bukkit.inventory.ItemStack> items = accessories.getOrDefault(slotType, java.util.Collections.emptyList());
     int slotAmount = config.getAmount();
     int size = 27;
     if (slotAmount > 5) size = 45;
     if (slotAmount > 16) size = 54;
 
-    org.bukkit.inventory.Inventory gui = Bukkit.createInventory(null, size,
-        msg().get("commands.inspect.slot-gui-title",
+    // Items go in the center — these slots are editable
+    int[] itemPositions = calculatePositions(slotAmount, size);
+
+    org.bukkit.inventory.Inventory gui = org.bg52.curiospaper.inventory.CuriosInventoryHolder.createInventory(
+        org.bg52.curiospaper.inventory.CuriosInventoryHolder.withSlots(
+            org.bg52.curiospaper.inventory.CuriosInventoryHolder.Kind.INSPECT_SLOT, slotType.toLowerCase(),
+            itemPositions, org.bg52.curiospaper.inventory.CuriosInventoryHolder.indexTable(itemPositions, size)),
+        size, msg().get("commands.inspect.slot-gui-title",
             "player", targetName, "slot", config.getName()));
 
     // Border
@@ -459,9 +616,6 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
       if (gui.getItem(i) == null) gui.setItem(i, filler);
     }
 
-    // Place items in center — these slots are editable
-    int[] itemPositions = calculatePositions(slotAmount, size);
-
     // Snapshot the current items BEFORE placing them so we can detect changes on close
     List<org.bukkit.inventory.ItemStack> previousItems = new java.util.ArrayList<>();
     for (int i = 0; i < slotAmount; i++) {
@@ -823,8 +977,10 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
         }
         // Re-init slot activity since slots might have changed
         plugin.getConfigManager().initSlotActivityFromItems();
+        plugin.getMetricsRegistry().reload();
         // Reload resource pack manager configuration and web server
         plugin.getResourcePackManager().reload();
+        Timings.setEnabled(plugin.getConfig().getBoolean("performance.timings", true));
         sender.sendMessage(msg().get("commands.reload.config-success"));
         sender.sendMessage(msg().get("commands.reload.config-warning"));
         break;
@@ -853,6 +1009,10 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
 
       case "messages":
         plugin.getMessagesManager().reload();
+        // Buttons and placeholders carry message text
+        if (plugin.getGUI() != null) {
+          plugin.getGUI().invalidateTemplates();
+        }
         sender.sendMessage(msg().get("commands.reload.messages-success"));
         break;
 
@@ -1175,7 +1335,7 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
 
     if (args.length == 1) {
       return partial(args[0],
-          Arrays.asList("rp", "debug", "editmenu", "inspect", "create", "edit", "delete", "remove", "list", "give", "reload", "recordrtp"));
+          Arrays.asList("rp", "debug", "editmenu", "inspect", "create", "edit", "delete", "remove", "list", "give", "reload", "recordrtp", "timings"));
     }
 
     if (args.length == 2) {
@@ -1187,6 +1347,8 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
           return partial(args[1], Arrays.asList("player", "item"));
         case "reload":
           return partial(args[1], Arrays.asList("config", "items", "messages"));
+        case "timings":
+          return partial(args[1], Arrays.asList("reset", "export"));
         case "inspect": {
           String prefix = args[1].toLowerCase(Locale.ROOT);
           return Bukkit.getOnlinePlayers().stream()
@@ -1260,6 +1422,7 @@ public class CuriosCommand implements CommandExecutor, TabCompleter {
     sender.sendMessage(msg().get("commands.usage-inspect", "label", label));
     sender.sendMessage(msg().get("commands.usage-debug-player", "label", label));
     sender.sendMessage(msg().get("commands.usage-debug-item", "label", label));
+    sender.sendMessage(msg().get("commands.usage-timings", "label", label));
     sender.sendMessage("§6/" + label + " recordrtp §7- Start/stop recording of RTP trigger sequences");
   }
 
@@ -14,6 +14,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ConfigManager {
   private final CuriosPaper plugin;
   private final Map<String, SlotConfiguration> slotConfigurations;
+  private final Map<String, SlotConfiguration> slotConfigurationsView;
   private final Map<String, SlotConfiguration> apiSlotConfigurations;
   private final java.util.Set<String> configSlotKeys = new java.util.HashSet<>();
 
@@ -52,6 +53,7 @@ public class ConfigManager {
   public ConfigManager(CuriosPaper plugin) {
     this.plugin = plugin;
     this.slotConfigurations = new LinkedHashMap<>();
+    this.slotConfigurationsView = java.util.Collections.unmodifiableMap(slotConfigurations);
     this.apiSlotConfigurations = new LinkedHashMap<>();
     loadConfigurations();
   }
@@ -198,6 +200,15 @@ public class ConfigManager {
     return new LinkedHashMap<>(slotConfigurations);
   }
 
+  /**
+   * Read-only live view of the slot configurations, in order. Unlike
+   * {@link #getSlotConfigurations()} this doesn't copy, so don't hold on to it
+   * across a reload.
+   */
+  public Map<String, SlotConfiguration> getSlotConfigurationsView() {
+    return slotConfigurationsView;
+  }
+
   public SlotConfiguration getSlotConfiguration(String key) {
     if (key == null) {
       return null;
@@ -245,6 +256,45 @@ public class ConfigManager {
     }
   }
 
+  /**
+   * Applies slot definitions that changed in config.yml without a full reload.
+   * Other config.yml settings are left alone until /curios reload config.
+   *
+   * @param changed new sections of slots that were added or edited
+   * @param removed keys of slots that were deleted from config.yml
+   */
+  public void applySlotChanges(Map<String, ConfigurationSection> changed, java.util.Set<String> removed) {
+    for (String key : removed) {
+      String normalized = key.toLowerCase();
+      if (!configSlotKeys.remove(normalized)) {
+        continue;
+      }
+      SlotConfiguration apiSlot = apiSlotConfigurations.get(normalized);
+      if (apiSlot != null) {
+        slotConfigurations.put(normalized, apiSlot);
+      } else {
+        slotConfigurations.remove(normalized);
+      }
+      plugin.getLogger().info("✓ Removed slot: '" + key + "'");
+    }
+
+    for (Map.Entry<String, ConfigurationSection> entry : changed.entrySet()) {
+      try {
+        SlotConfiguration config = loadSlotConfiguration(entry.getKey(), entry.getValue());
+        if (config != null) {
+          String normalized = entry.getKey().toLowerCase();
+          slotConfigurations.put(normalized, config);
+          configSlotKeys.add(normalized);
+          plugin.getLogger().info("✓ Loaded slot: '" + entry.getKey() + "' (" + config.getAmount() + " slots)");
+        }
+      } catch (Exception e) {
+        plugin.getLogger().severe("✗ Failed to load slot '" + entry.getKey() + "': " + e.getMessage());
+      }
+    }
+
+    recalculateSlotActivityFromItems();
+  }
+
   /**
    * Adds a slot configuration at runtime (does not persist to config.yml)
    */
@@ -367,17 +417,9 @@ public class ConfigManager {
     org.bg52.curiospaper.manager.ItemDataManager idm = plugin.getItemDataManager();
     if (idm == null)
       return;
-    for (org.bg52.curiospaper.data.ItemData data : idm.getAllItems().values()) {
-      String slotType = data.getSlotType();
-      if (slotType != null && !slotType.isEmpty()) {
-        // Items may declare multiple slots via comma-separation
-        for (String s : slotType.split(",\\s*")) {
-          String normalized = s.trim().toLowerCase();
-          if (!normalized.isEmpty()) {
-            markSlotActive(normalized);
-          }
-        }
-      }
+    // Already split on commas and lower-cased by the item index
+    for (String slotType : idm.getUsedSlotTypes()) {
+      markSlotActive(slotType);
     }
   }
 
@@ -0,0 +1,53 @@
+package org.bg52.curiospaper.event;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event fired once when an accessory transaction changes several slots of an
+ * online player. It is called after all changes have been applied, and is
+ * followed by each contained {@link AccessoryEquipEvent}, which are marked
+ * {@link AccessoryEquipEvent#isBatched() batched}. Listen to this event to
+ * react once per transaction, and skip batched equip events if you do.
+ */
+public class AccessoryBatchEquipEvent extends Event {
+  private static final HandlerList HANDLERS = new HandlerList();
+
+  private final Player player;
+  private final List<AccessoryEquipEvent> changes;
+
+  public AccessoryBatchEquipEvent(Player player, List<AccessoryEquipEvent> changes) {
+    this.player = player;
+    this.changes = Collections.unmodifiableList(changes);
+    for (AccessoryEquipEvent change : changes) {
+      change.markBatched();
+    }
+  }
+
+  /**
+   * Gets the player whose accessories changed
+   */
+  public Player getPlayer() {
+    return player;
+  }
+
+  /**
+   * Gets one entry per changed slot index, in the order they were applied
+   */
+  public List<AccessoryEquipEvent> getChanges() {
+    return changes;
+  }
+
+  @Override
+  public HandlerList getHandlers() {
+    return HANDLERS;
+  }
+
+  public static HandlerList getHandlerList() {
+    return HANDLERS;
+  }
+}
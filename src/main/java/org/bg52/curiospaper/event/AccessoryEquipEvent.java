@@ -13,6 +13,7 @@ import org.bukkit.inventory.ItemStack;
 public class AccessoryEquipEvent extends Event implements Cancellable {
   private static final HandlerList HANDLERS = new HandlerList();
   private boolean cancelled = false;
+  private boolean batched = false;
 
   private final Player player;
   private final String slotType;
@@ -79,6 +80,19 @@ public class AccessoryEquipEvent extends Event implements Cancellable {
     return action;
   }
 
+  /**
+   * Whether this change was made by an accessory transaction. It was then also
+   * listed in an {@link AccessoryBatchEquipEvent} called just before this one,
+   * so listeners that handle the batch can skip it.
+   */
+  public boolean isBatched() {
+    return batched;
+  }
+
+  void markBatched() {
+    batched = true;
+  }
+
   @Override
   public boolean isCancelled() {
     return cancelled;
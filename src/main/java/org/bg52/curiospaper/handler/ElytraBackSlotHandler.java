@@ -2,6 +2,7 @@ package org.bg52.curiospaper.handler;
 
 import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.config.SlotConfiguration;
+import org.bg52.curiospaper.event.AccessoryBatchEquipEvent;
 import org.bg52.curiospaper.event.AccessoryEquipEvent;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -12,19 +13,19 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.EntityToggleGlideEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerItemDamageEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.Damageable;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
-// import javax.annotation.Nullable;
-// import javax.annotation.Nullable;
-
 import java.util.*;
 
 /**
@@ -34,16 +35,57 @@ import java.util.*;
  * - If player has a chestplate: adds glider component to chestplate
  * - If player has no chestplate: secretly equips elytra with invisible item
  * model
+ *
+ * The current setup of each player is kept in a {@link BackSlotState} that is
+ * only changed by equip, chestplate, join, death and quit events, so gliding
+ * damage and armor clicks don't need to work out the setup again. Gliding
+ * damage is counted in the state and written to the back-slot elytra when the
+ * setup changes, the player stops gliding or quits.
  */
 public class ElytraBackSlotHandler implements Listener {
+  /** What currently lets the player glide with their back-slot elytra. */
+  private enum GlideMode {
+    NONE, GLIDER_CHESTPLATE, SECRET_ELYTRA
+  }
+
+  private static final class BackSlotState {
+    GlideMode mode = GlideMode.NONE;
+    // The elytra in back slot 0 as last read or written
+    ItemStack backElytra;
+    // Its damage including gliding damage not written back yet
+    int damage;
+    boolean dirty;
+  }
+
   private final CuriosPaper plugin;
   private final NamespacedKey secretElytraKey;
-  private final Set<UUID> playersWithSecretElytra;
+  private final Map<UUID, BackSlotState> states;
+
+  // "Slot: <Back Name>" lore line, rebuilt only when the back slot name changes
+  private String requiredLineName;
+  private String requiredLine;
 
   public ElytraBackSlotHandler(CuriosPaper plugin) {
     this.plugin = plugin;
     this.secretElytraKey = new NamespacedKey(plugin, "secret_elytra");
-    this.playersWithSecretElytra = new HashSet<>();
+    this.states = new HashMap<>();
+  }
+
+  private GlideMode modeOf(Player player) {
+    BackSlotState state = states.get(player.getUniqueId());
+    return state == null ? GlideMode.NONE : state.mode;
+  }
+
+  private void setMode(Player player, GlideMode mode) {
+    if (mode == GlideMode.NONE) {
+      BackSlotState state = states.remove(player.getUniqueId());
+      if (state != null) {
+        flushDamage(player, state);
+      }
+      return;
+    }
+    BackSlotState state = states.computeIfAbsent(player.getUniqueId(), k -> new BackSlotState());
+    state.mode = mode;
   }
 
   /**
@@ -62,8 +104,11 @@ public class ElytraBackSlotHandler implements Listener {
       return stack; // no back slot defined, bail out
     }
 
-    String pName = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&', backConfig.getName()));
-    String requiredLine = ChatColor.GOLD + "Slot: " + ChatColor.YELLOW + pName;
+    if (!backConfig.getName().equals(requiredLineName)) {
+      String pName = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&', backConfig.getName()));
+      requiredLine = ChatColor.GOLD + "Slot: " + ChatColor.YELLOW + pName;
+      requiredLineName = backConfig.getName();
+    }
 
     ItemMeta meta = stack.getItemMeta();
     if (meta != null) {
@@ -97,41 +142,22 @@ public class ElytraBackSlotHandler implements Listener {
   }
 
   /**
-   * Scan the player's inventory + armor/offhand and ensure all Elytras are tagged
-   * for the back slot.
+   * Ensure all Elytras in the player's inventory (including armor and offhand)
+   * are tagged for the back slot. Only slots holding an elytra are visited and
+   * only retagged ones are written back.
    * Idempotent: safe to call often.
    */
   private void retagAllPlayerElytras(Player player) {
-    // Main inventory, hotbar, armor, etc. in one go
-    ItemStack[] contents = player.getInventory().getContents();
-    boolean changed = false;
-
-    for (int i = 0; i < contents.length; i++) {
-      ItemStack original = contents[i];
+    for (Map.Entry<Integer, ? extends ItemStack> entry : player.getInventory().all(Material.ELYTRA).entrySet()) {
+      ItemStack original = entry.getValue();
+      if (isSecretElytra(original)) {
+        continue;
+      }
       ItemStack updated = ensureBackTaggedElytra(original);
       if (updated != original) {
-        contents[i] = updated;
-        changed = true;
+        player.getInventory().setItem(entry.getKey(), updated);
       }
     }
-
-    if (changed) {
-      player.getInventory().setContents(contents);
-    }
-
-    // Offhand
-    ItemStack off = player.getInventory().getItemInOffHand();
-    ItemStack updatedOff = ensureBackTaggedElytra(off);
-    if (updatedOff != off) {
-      player.getInventory().setItemInOffHand(updatedOff);
-    }
-
-    // Chest slot (in case Elytra is there)
-    ItemStack chest = player.getInventory().getChestplate();
-    ItemStack updatedChest = ensureBackTaggedElytra(chest);
-    if (updatedChest != chest) {
-      player.getInventory().setChestplate(updatedChest);
-    }
   }
 
   @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -152,6 +178,20 @@ public class ElytraBackSlotHandler implements Listener {
 
   @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
   public void onAccessoryEquip(AccessoryEquipEvent event) {
+    // Transaction changes are handled through their batch event
+    if (!event.isBatched()) {
+      applyEquipChange(event);
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onAccessoryBatchEquip(AccessoryBatchEquipEvent event) {
+    for (AccessoryEquipEvent change : event.getChanges()) {
+      applyEquipChange(change);
+    }
+  }
+
+  private void applyEquipChange(AccessoryEquipEvent event) {
     // Only process back slot events
     if (!"back".equalsIgnoreCase(event.getSlotType())) {
       return;
@@ -166,6 +206,11 @@ public class ElytraBackSlotHandler implements Listener {
     ItemStack newItem = event.getNewItem();
     ItemStack previousItem = event.getPreviousItem();
 
+    // Only the first back slot drives gliding
+    if (event.getSlotIndex() != 0) {
+      return;
+    }
+
     // Handle elytra being equipped
     if (newItem != null && newItem.getType() == Material.ELYTRA) {
       handleElytraEquipped(player);
@@ -191,24 +236,19 @@ public class ElytraBackSlotHandler implements Listener {
   }
 
   /**
-   * Called when an elytra is equipped in the back slot
+   * Called when an elytra is equipped in the back slot, and on join for a
+   * player who already has one there
    */
   private void handleElytraEquipped(Player player) {
-    // Check the durability of the back-slot elytra: if it's at 1, treat as broken
     ItemStack back = getBackSlotElytra(player);
-    if (back != null) {
-      ItemMeta meta = back.getItemMeta();
-      if (meta instanceof Damageable) {
-        Damageable dmgMeta = (Damageable) meta;
-        int max = back.getType().getMaxDurability();
-        int maxUsableDamage = max - 1;
-        if (dmgMeta.getDamage() >= maxUsableDamage) {
-          // Elytra is effectively broken; don't enable any gliding
-          // plugin.getLogger().info("Back-slot elytra for " + player.getName()
-          // + " is already at 1 durability; not enabling glider/secret elytra.");
-          return;
-        }
-      }
+    if (back == null) {
+      return;
+    }
+
+    // Check the durability of the back-slot elytra: if it's at 1, treat as broken
+    if (damageOf(back) >= maxUsableDamage(back)) {
+      // Elytra is effectively broken; don't enable any gliding
+      return;
     }
 
     ItemStack chestplate = player.getInventory().getChestplate();
@@ -220,6 +260,49 @@ public class ElytraBackSlotHandler implements Listener {
       // No chestplate - equip secret elytra with invisible item model
       equipSecretElytra(player);
     }
+
+    BackSlotState state = states.get(player.getUniqueId());
+    if (state != null) {
+      state.backElytra = back.clone();
+      state.damage = damageOf(back);
+      state.dirty = false;
+    }
+  }
+
+  private static int maxUsableDamage(ItemStack elytra) {
+    // Max usable damage is maxDurability - 1 (item disabled but not broken)
+    return elytra.getType().getMaxDurability() - 1;
+  }
+
+  private static int damageOf(ItemStack elytra) {
+    ItemMeta meta = elytra.getItemMeta();
+    return meta instanceof Damageable ? ((Damageable) meta).getDamage() : 0;
+  }
+
+  /**
+   * Writes the gliding damage counted in the state to the back-slot elytra.
+   * The damage is dropped if the back slot was changed through the API in the
+   * meantime, since it belongs to the elytra that was there before.
+   */
+  private void flushDamage(Player player, BackSlotState state) {
+    if (!state.dirty) {
+      return;
+    }
+    state.dirty = false;
+
+    ItemStack stored = getBackSlotElytra(player);
+    if (stored == null || !stored.isSimilar(state.backElytra)) {
+      return;
+    }
+    ItemStack backElytra = stored.clone();
+    ItemMeta meta = backElytra.getItemMeta();
+    if (!(meta instanceof Damageable)) {
+      return; // shouldn't happen for Elytra
+    }
+    ((Damageable) meta).setDamage(state.damage);
+    backElytra.setItemMeta(meta);
+    setBackSlotElytra(player, backElytra);
+    state.backElytra = backElytra.clone();
   }
 
   /**
@@ -255,13 +338,9 @@ public class ElytraBackSlotHandler implements Listener {
       return;
     }
 
-    // Only relevant if this player currently has our secret elytra equipped
-    if (!playersWithSecretElytra.contains(player.getUniqueId())) {
-      return;
-    }
-
-    // And only if the system is actually active (elytra in back slot)
-    if (!hasElytraInBackSlot(player)) {
+    // Only relevant if this player currently has our secret elytra equipped,
+    // which also means the system is active (elytra in back slot)
+    if (modeOf(player) != GlideMode.SECRET_ELYTRA) {
       return;
     }
 
@@ -271,7 +350,7 @@ public class ElytraBackSlotHandler implements Listener {
       if (chestplate != null && isChestplate(chestplate.getType())) {
         // Remove all traces of secret elytra (including the one that got dumped into
         // inventory)
-        playersWithSecretElytra.remove(player.getUniqueId());
+        setMode(player, GlideMode.NONE);
         wipeSecretElytra(player);
 
         // Re-read chestplate in case anything changed
@@ -279,6 +358,7 @@ public class ElytraBackSlotHandler implements Listener {
         if (currentChest != null && isChestplate(currentChest.getType())) {
           addGliderToChestplate(player, currentChest);
         }
+        refreshBackElytra(player);
       }
     }, 1L);
   }
@@ -295,6 +375,22 @@ public class ElytraBackSlotHandler implements Listener {
 
     // Remove secret elytra if equipped
     removeSecretElytra(player);
+    setMode(player, GlideMode.NONE);
+  }
+
+  /**
+   * Re-reads the back-slot elytra into the player's state after a mode change
+   * that replaced it.
+   */
+  private void refreshBackElytra(Player player) {
+    BackSlotState state = states.get(player.getUniqueId());
+    if (state == null) {
+      return;
+    }
+    flushDamage(player, state);
+    ItemStack back = getBackSlotElytra(player);
+    state.backElytra = back == null ? null : back.clone();
+    state.damage = back == null ? 0 : damageOf(back);
   }
 
   private boolean isSecretElytra(ItemStack stack) {
@@ -313,12 +409,21 @@ public class ElytraBackSlotHandler implements Listener {
       player.getInventory().setChestplate(null);
     }
 
-    // Main + armor + offhand inventory contents
+    // Main + armor + offhand inventory contents: drop stray secret elytras and
+    // strip the glider from chestplates we no longer fly with. The glider check
+    // goes through reflection, so it's only made for chestplates.
     ItemStack[] contents = player.getInventory().getContents();
     boolean changed = false;
     for (int i = 0; i < contents.length; i++) {
-      if (org.bg52.curiospaper.util.VersionUtil.hasGlider(contents[i])) {
-        org.bg52.curiospaper.util.VersionUtil.removeGlider(contents[i]);
+      ItemStack stack = contents[i];
+      if (stack == null || stack.getType() == Material.AIR) {
+        continue;
+      }
+      if (isSecretElytra(stack)) {
+        contents[i] = null;
+        changed = true;
+      } else if (isChestplate(stack.getType()) && org.bg52.curiospaper.util.VersionUtil.hasGlider(stack)) {
+        org.bg52.curiospaper.util.VersionUtil.removeGlider(stack);
       }
     }
     if (changed) {
@@ -404,8 +509,7 @@ public class ElytraBackSlotHandler implements Listener {
       }
 
       player.getInventory().setChestplate(chestplate);
-      // plugin.getLogger().info("Added glider + wings asset (by material) to " +
-      // player.getName() + "'s chestplate");
+      setMode(player, GlideMode.GLIDER_CHESTPLATE);
     } catch (Exception e) {
       plugin.getLogger()
           .warning("Failed to add glider to chestplate for " + player.getName() + ": " + e.getMessage());
@@ -431,13 +535,20 @@ public class ElytraBackSlotHandler implements Listener {
   /**
    * Redirect durability damage from chestplate/secret-elytra to the back-slot
    * elytra.
-   * Caps at 1 durability (vanilla Elytra behavior).
+   * Caps at 1 durability (vanilla Elytra behavior). The damage is only counted
+   * here and written back by {@link #flushDamage}.
    */
   @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
   public void onItemDamage(PlayerItemDamageEvent event) {
+    if (!plugin.getConfig().getBoolean("features.allow-elytra-on-back-slot", false)) {
+      return;
+    }
+
     Player player = event.getPlayer();
 
-    if (!plugin.getConfig().getBoolean("features.allow-elytra-on-back-slot", false)) {
+    // Nothing to redirect unless a back-slot elytra is currently providing flight
+    BackSlotState state = states.get(player.getUniqueId());
+    if (state == null || state.backElytra == null) {
       return;
     }
 
@@ -456,44 +567,23 @@ public class ElytraBackSlotHandler implements Listener {
     // We only want to redirect if:
     // - This item is our GLIDER chestplate, OR
     // - This item is our secret elytra
-    boolean isGliderChestplate = isChestplate(damagedItem.getType()) &&
-        org.bg52.curiospaper.util.VersionUtil.hasGlider(damagedItem);
-    boolean isOurSecretElytra = isSecretElytra(damagedItem);
+    // The mode is checked first so the item checks only run while flying
+    boolean isGliderChestplate = state.mode == GlideMode.GLIDER_CHESTPLATE
+        && isChestplate(damagedItem.getType())
+        && org.bg52.curiospaper.util.VersionUtil.hasGlider(damagedItem);
+    boolean isOurSecretElytra = state.mode == GlideMode.SECRET_ELYTRA
+        && isSecretElytra(damagedItem);
 
     if (!isGliderChestplate && !isOurSecretElytra) {
       return;
     }
 
-    // And only if we actually have a back-slot elytra
-    ItemStack backElytra = getBackSlotElytra(player);
-    if (backElytra == null) {
-      return;
-    }
-
-    int damage = event.getDamage();
     event.setCancelled(true); // don't damage the chest/secret item
 
-    ItemMeta meta = backElytra.getItemMeta();
-    if (!(meta instanceof Damageable)) {
-      return; // shouldn't happen for Elytra
-    }
-    Damageable dmgMeta = (Damageable) meta;
-
-    int currentDamage = dmgMeta.getDamage();
-    int max = backElytra.getType().getMaxDurability();
-
-    // Max usable damage is maxDurability - 1 (item disabled but not broken)
-    int maxUsableDamage = max - 1;
-
-    int newDamage = currentDamage + damage;
-    if (newDamage > maxUsableDamage) {
-      newDamage = maxUsableDamage;
-    }
-
-    // Apply capped damage
-    dmgMeta.setDamage(newDamage);
-    backElytra.setItemMeta(meta);
-    setBackSlotElytra(player, backElytra);
+    int maxUsableDamage = maxUsableDamage(state.backElytra);
+    int newDamage = Math.min(state.damage + event.getDamage(), maxUsableDamage);
+    state.damage = newDamage;
+    state.dirty = true;
 
     // If we've hit "broken but not destroyed" state -> disable gliding
     if (newDamage >= maxUsableDamage) {
@@ -503,15 +593,32 @@ public class ElytraBackSlotHandler implements Listener {
         if (chestplateNow != null && isChestplate(chestplateNow.getType())) {
           removeGliderFromChestplate(player, chestplateNow);
         }
-      } else if (isOurSecretElytra) {
+      } else {
         removeSecretElytra(player);
       }
+      // Writes the capped damage back
+      setMode(player, GlideMode.NONE);
 
       plugin.getLogger().info("Back-slot elytra for " + player.getName()
           + " reached 1 durability; gliding disabled but item kept.");
     }
   }
 
+  /**
+   * Write back the damage of a flight once it ends
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onToggleGlide(EntityToggleGlideEvent event) {
+    if (event.isGliding() || !(event.getEntity() instanceof Player)) {
+      return;
+    }
+    Player player = (Player) event.getEntity();
+    BackSlotState state = states.get(player.getUniqueId());
+    if (state != null) {
+      flushDamage(player, state);
+    }
+  }
+
   /**
    * Removes the glider component from a chestplate
    */
@@ -519,8 +626,6 @@ public class ElytraBackSlotHandler implements Listener {
     try {
       org.bg52.curiospaper.util.VersionUtil.removeGlider(chestplate);
       player.getInventory().setChestplate(chestplate);
-      // plugin.getLogger().info("Removed glider + reset asset for " +
-      // player.getName() + "'s chestplate");
     } catch (Exception e) {
       plugin.getLogger()
           .warning("Failed to remove glider from chestplate for " + player.getName() + ": " + e.getMessage());
@@ -532,12 +637,27 @@ public class ElytraBackSlotHandler implements Listener {
    * Removed clearGliderComponents as it's handled by VersionUtil.removeGlider
    */
 
+  /**
+   * Write back gliding damage before PlayerDeathListener drops the accessories
+   */
+  @EventHandler(priority = EventPriority.LOWEST)
+  public void onPlayerDeathFlush(PlayerDeathEvent event) {
+    Player player = event.getEntity();
+    BackSlotState state = states.get(player.getUniqueId());
+    if (state != null) {
+      flushDamage(player, state);
+    }
+  }
+
   @EventHandler(priority = EventPriority.HIGHEST)
   public void onPlayerDeath(PlayerDeathEvent event) {
     Player player = event.getEntity();
 
-    // Stop tracking this player
-    playersWithSecretElytra.remove(player.getUniqueId());
+    // The secret elytra never survives death, and neither does the glider on a
+    // dropped chestplate
+    if (modeOf(player) == GlideMode.SECRET_ELYTRA || !event.getKeepInventory()) {
+      setMode(player, GlideMode.NONE);
+    }
 
     // Clean up drops:
     // - Remove secret (invisible) elytra entirely
@@ -584,16 +704,14 @@ public class ElytraBackSlotHandler implements Listener {
     }
 
     player.getInventory().setChestplate(secretElytra);
-    playersWithSecretElytra.add(player.getUniqueId());
-    // plugin.getLogger().info("Equipped secret elytra (invisible in inventory) for
-    // " + player.getName());
+    setMode(player, GlideMode.SECRET_ELYTRA);
   }
 
   /**
    * Removes the secret elytra from the chest slot
    */
   private void removeSecretElytra(Player player) {
-    if (!playersWithSecretElytra.contains(player.getUniqueId())) {
+    if (modeOf(player) != GlideMode.SECRET_ELYTRA) {
       return;
     }
 
@@ -603,9 +721,8 @@ public class ElytraBackSlotHandler implements Listener {
       if (meta != null && meta.getPersistentDataContainer().has(secretElytraKey, PersistentDataType.BYTE)) {
         // This is our secret elytra - remove it
         player.getInventory().setChestplate(null);
-        playersWithSecretElytra.remove(player.getUniqueId());
+        setMode(player, GlideMode.NONE);
         wipeSecretElytra(player);
-        // plugin.getLogger().info("Removed secret elytra from " + player.getName());
       }
     }
   }
@@ -633,11 +750,13 @@ public class ElytraBackSlotHandler implements Listener {
       return;
     }
 
-    // Check if they're interacting with their chest armor slot
-    if (event.getSlot() == 38 && event.getClickedInventory() == player.getInventory()) {
+    // Check if they're interacting with their chest armor slot, while gliding
+    // is set up through it
+    if (event.getSlot() == 38 && event.getClickedInventory() == player.getInventory()
+        && modeOf(player) != GlideMode.NONE) {
       // Delay the check slightly to allow the item to be placed first
       plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-        if (hasElytraInBackSlot(player)) {
+        if (modeOf(player) != GlideMode.NONE) {
           handleChestplateChange(player);
         }
       }, 1L);
@@ -651,10 +770,10 @@ public class ElytraBackSlotHandler implements Listener {
     ItemStack chestplate = player.getInventory().getChestplate();
 
     // Check if secret elytra was replaced with a chestplate
-    if (playersWithSecretElytra.contains(player.getUniqueId())) {
+    if (modeOf(player) == GlideMode.SECRET_ELYTRA) {
       if (chestplate != null && isChestplate(chestplate.getType())) {
         // Remove ALL secret elytra traces (including cursor) first
-        playersWithSecretElytra.remove(player.getUniqueId());
+        setMode(player, GlideMode.NONE);
         wipeSecretElytra(player);
 
         // Re-read chestplate (in case chest slot was cleared during wipe)
@@ -675,6 +794,7 @@ public class ElytraBackSlotHandler implements Listener {
         addGliderToChestplate(player, chestplate);
       }
     }
+    refreshBackElytra(player);
   }
 
   /**
@@ -690,9 +810,34 @@ public class ElytraBackSlotHandler implements Listener {
   }
 
   /**
-   * Clean up secret elytra tracking when player quits
+   * Rebuild the state of a player who joins with an elytra in the back slot.
+   * Runs after PlayerListener has loaded their accessories.
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerJoin(PlayerJoinEvent event) {
+    Player player = event.getPlayer();
+    if (!plugin.getConfig().getBoolean("features.allow-elytra-on-back-slot", false)) {
+      return;
+    }
+
+    if (hasElytraInBackSlot(player)) {
+      handleElytraEquipped(player);
+    } else if (isSecretElytra(player.getInventory().getChestplate())) {
+      // Left over from a back-slot elytra that is gone now
+      player.getInventory().setChestplate(null);
+    }
+  }
+
+  /**
+   * Clean up elytra state when player quits, before PlayerListener saves and
+   * unloads their accessories
    */
-  public void onPlayerQuit(UUID playerId) {
-    playersWithSecretElytra.remove(playerId);
+  @EventHandler(priority = EventPriority.LOWEST)
+  public void onPlayerQuit(PlayerQuitEvent event) {
+    Player player = event.getPlayer();
+    BackSlotState state = states.remove(player.getUniqueId());
+    if (state != null) {
+      flushDamage(player, state);
+    }
   }
 }
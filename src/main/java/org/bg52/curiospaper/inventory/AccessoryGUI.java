@@ -2,7 +2,6 @@ package org.bg52.curiospaper.inventory;
 
 import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.config.SlotConfiguration;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
@@ -29,6 +28,60 @@ public class AccessoryGUI {
   // Store slot positions for each slot type (tier-2 GUI)
   private final Map<String, int[]> slotPositionCache = new HashMap<>();
 
+  // ── Prebuilt GUI contents ────────────────────────────────────────────────
+  // Buttons, fillers and placeholders are built once and copied into each new
+  // inventory. A template is rebuilt when the SlotConfiguration instances or
+  // the custom layout it was built from are replaced (config reloads create
+  // new instances), or after invalidateTemplates().
+
+  /** Main GUI contents for one set of active slot configs and layout. */
+  private static final class MainTemplate {
+    final List<SlotConfiguration> configs;
+    final Map<String, Integer> layout;
+    final ItemStack[] contents;
+
+    MainTemplate(List<SlotConfiguration> configs, Map<String, Integer> layout, ItemStack[] contents) {
+      this.configs = configs;
+      this.layout = layout;
+      this.contents = contents;
+    }
+
+    boolean isFor(List<SlotConfiguration> current, Map<String, Integer> currentLayout) {
+      if (layout != currentLayout || configs.size() != current.size())
+        return false;
+      for (int i = 0; i < configs.size(); i++) {
+        if (configs.get(i) != current.get(i))
+          return false;
+      }
+      return true;
+    }
+  }
+
+  /** Tier-2 contents without the player's accessories. */
+  private static final class SlotTemplate {
+    final SlotConfiguration config;
+    final boolean showEmpty;
+    final int[] positions;
+    final int[] indexByRawSlot;
+    final ItemStack[] contents;
+    final String title;
+
+    SlotTemplate(SlotConfiguration config, boolean showEmpty, int[] positions, ItemStack[] contents,
+        String title) {
+      this.config = config;
+      this.showEmpty = showEmpty;
+      this.positions = positions;
+      this.indexByRawSlot = CuriosInventoryHolder.indexTable(positions, contents.length);
+      this.contents = contents;
+      this.title = title;
+    }
+  }
+
+  private MainTemplate mainTemplate;
+  private final Map<String, SlotTemplate> slotTemplates = new HashMap<>();
+  private org.bukkit.Sound guiSound;
+  private boolean guiSoundResolved;
+
   // ── Custom layout override ───────────────────────────────────────────────
   // Set by editmenu on close; saved to config.yml
   private Map<String, Integer> customLayout = null; // null = use preset
@@ -54,7 +107,26 @@ public class AccessoryGUI {
    */
   public void openMainGUI(Player player) {
     List<String> activeKeys = plugin.getConfigManager().getActiveSlotKeys();
+    List<SlotConfiguration> configs = new ArrayList<>(activeKeys.size());
+    for (String key : activeKeys) {
+      configs.add(plugin.getConfigManager().getSlotConfiguration(key));
+    }
+
+    MainTemplate template = mainTemplate;
+    if (template == null || !template.isFor(configs, customLayout)) {
+      template = buildMainTemplate(activeKeys, configs);
+      mainTemplate = template;
+    }
+
+    Inventory mainGUI = CuriosInventoryHolder.createInventory(
+        CuriosInventoryHolder.of(CuriosInventoryHolder.Kind.MAIN), template.contents.length, MAIN_GUI_TITLE);
+    mainGUI.setContents(template.contents);
 
+    playGuiSound(player);
+    player.openInventory(mainGUI);
+  }
+
+  private MainTemplate buildMainTemplate(List<String> activeKeys, List<SlotConfiguration> configs) {
     int size;
     Map<String, Integer> layout;
 
@@ -68,42 +140,66 @@ public class AccessoryGUI {
       layout = computeMainGUILayout(activeKeys, size);
     }
 
-    Inventory mainGUI = Bukkit.createInventory(null, size, MAIN_GUI_TITLE);
-
-    for (String key : activeKeys) {
-      SlotConfiguration config = plugin.getConfigManager().getSlotConfiguration(key);
+    ItemStack[] contents = new ItemStack[size];
+    for (int k = 0; k < activeKeys.size(); k++) {
+      SlotConfiguration config = configs.get(k);
       if (config == null)
         continue;
 
-      ItemStack button = createSlotButton(config);
+      String key = activeKeys.get(k);
       int pos = layout.getOrDefault(key.toLowerCase(), -1);
-
-      if (pos >= 0 && pos < size && isFillerOrEmpty(mainGUI.getItem(pos))) {
-        mainGUI.setItem(pos, button);
-      } else {
+      if (pos < 0 || pos >= size || contents[pos] != null) {
         // Fallback: first empty slot
-        boolean placed = false;
+        pos = -1;
         for (int i = 0; i < size; i++) {
-          if (isFillerOrEmpty(mainGUI.getItem(i))) {
-            mainGUI.setItem(i, button);
-            placed = true;
+          if (contents[i] == null) {
+            pos = i;
             break;
           }
         }
-        if (!placed) {
-          plugin.getLogger().warning("Could not place slot button '" + key + "' — main GUI is full!");
-        }
+      }
+
+      if (pos >= 0) {
+        contents[pos] = createSlotButton(config);
+      } else {
+        plugin.getLogger().warning("Could not place slot button '" + key + "' — main GUI is full!");
       }
     }
 
-    fillInventory(mainGUI, FILLER_MATERIAL);
-    if (plugin.getConfig().getBoolean("features.play-gui-sound", true)) {
-      try {
-        org.bukkit.Sound sound = org.bukkit.Sound.valueOf(plugin.getConfig().getString("features.gui-sound", "BLOCK_CHEST_OPEN").toUpperCase());
-        player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
-      } catch (Exception ignored) {}
+    ItemStack filler = createFillerItem(FILLER_MATERIAL);
+    for (int i = 0; i < size; i++) {
+      if (contents[i] == null)
+        contents[i] = filler;
     }
-    player.openInventory(mainGUI);
+    return new MainTemplate(configs, customLayout, contents);
+  }
+
+  private void playGuiSound(Player player) {
+    if (!guiSoundResolved) {
+      guiSound = null;
+      if (plugin.getConfig().getBoolean("features.play-gui-sound", true)) {
+        try {
+          guiSound = org.bukkit.Sound.valueOf(
+              plugin.getConfig().getString("features.gui-sound", "BLOCK_CHEST_OPEN").toUpperCase());
+        } catch (IllegalArgumentException ignored) {
+        }
+      }
+      guiSoundResolved = true;
+    }
+    if (guiSound != null) {
+      player.playSound(player.getLocation(), guiSound, 1.0f, 1.0f);
+    }
+  }
+
+  /**
+   * Drops the prebuilt GUI contents and the resolved GUI sound, so they are
+   * rebuilt from the current config and messages on the next open. Templates
+   * also rebuild by themselves when a slot configuration is replaced.
+   */
+  public void invalidateTemplates() {
+    mainTemplate = null;
+    slotTemplates.clear();
+    guiSoundResolved = false;
   }
 
   // ── Custom layout saved API ──────────────────────────────────────────────
@@ -125,6 +221,7 @@ public class AccessoryGUI {
   }
 
   public void loadCustomLayout() {
+    invalidateTemplates();
     if (plugin.getConfig().contains("gui.custom-size") && plugin.getConfig().contains("gui.layout")) {
       this.customGuiSize = plugin.getConfig().getInt("gui.custom-size");
       org.bukkit.configuration.ConfigurationSection section = plugin.getConfig().getConfigurationSection("gui.layout");
@@ -285,13 +382,6 @@ public class AccessoryGUI {
     return positions.stream().mapToInt(Integer::intValue).toArray();
   }
 
-  private boolean isFillerOrEmpty(ItemStack item) {
-    if (item == null || item.getType() == Material.AIR)
-      return true;
-    ItemMeta meta = item.getItemMeta();
-    return meta != null && FILLER_NAME.equals(meta.getDisplayName());
-  }
-
   // =========================================================================
   // Tier-2 slot items GUI
   // =========================================================================
@@ -307,41 +397,67 @@ public class AccessoryGUI {
       return;
     }
 
+    String typeKey = slotType.toLowerCase();
+    boolean showEmpty = plugin.getConfigManager().isShowEmptySlots();
+    SlotTemplate template = slotTemplates.get(typeKey);
+    if (template == null || template.config != config || template.showEmpty != showEmpty) {
+      template = buildSlotTemplate(config, showEmpty);
+      slotTemplates.put(typeKey, template);
+      // Cache positions for use by InventoryListener
+      slotPositionCache.put(typeKey, template.positions);
+    }
+
+    CuriosInventoryHolder holder = CuriosInventoryHolder.withSlots(CuriosInventoryHolder.Kind.SLOTS,
+        typeKey, template.positions, template.indexByRawSlot);
+    Inventory slotsGUI = CuriosInventoryHolder.createInventory(holder, template.contents.length, template.title);
+    slotsGUI.setContents(template.contents);
+
+    // Only the equipped items differ between players
+    int[] slotPositions = template.positions;
+    List<ItemStack> currentItems = plugin.getSlotManager().getAccessoriesView(player.getUniqueId(), slotType);
+    for (int i = 0; i < currentItems.size() && i < slotPositions.length; i++) {
+      ItemStack item = currentItems.get(i);
+      if (item != null && item.getType() != Material.AIR) {
+        slotsGUI.setItem(slotPositions[i], item);
+      }
+    }
+
+    player.openInventory(slotsGUI);
+  }
+
+  private SlotTemplate buildSlotTemplate(SlotConfiguration config, boolean showEmpty) {
     int slotAmount = config.getAmount();
     int size = calculateSlotGUISize(slotAmount);
     int[] slotPositions = calculateSlotPositions(slotAmount, size);
 
-    // Cache positions for use by InventoryListener
-    slotPositionCache.put(slotType.toLowerCase(), slotPositions);
-
-    Inventory slotsGUI = Bukkit.createInventory(null, size,
-        SLOTS_GUI_PREFIX + ChatColor.YELLOW + config.getName());
+    ItemStack[] contents = new ItemStack[size];
+    ItemStack border = createFillerItem(BORDER_MATERIAL);
+    for (int i = 0; i < 9; i++)
+      contents[i] = border;
+    for (int i = size - 9; i < size; i++)
+      contents[i] = border;
+    for (int row = 1; row < (size / 9) - 1; row++) {
+      contents[row * 9] = border;
+      contents[row * 9 + 8] = border;
+    }
 
-    createBorder(slotsGUI);
-    fillInventory(slotsGUI, FILLER_MATERIAL);
+    ItemStack filler = createFillerItem(FILLER_MATERIAL);
+    for (int i = 0; i < size; i++) {
+      if (contents[i] == null)
+        contents[i] = filler;
+    }
 
     // Back button — first slot of last row
-    slotsGUI.setItem(size - 9, createBackButton());
+    contents[size - 9] = createBackButton();
 
-    // Load accessory slot positions
+    // Accessory slot positions
+    ItemStack placeholder = showEmpty ? createSlotPlaceholder(config) : null;
     for (int slot : slotPositions) {
-      if (plugin.getConfigManager().isShowEmptySlots()) {
-        slotsGUI.setItem(slot, createSlotPlaceholder(config));
-      } else {
-        slotsGUI.setItem(slot, null);
-      }
+      contents[slot] = placeholder;
     }
 
-    // Load equipped items
-    List<ItemStack> currentItems = plugin.getSlotManager().getAccessories(player.getUniqueId(), slotType);
-    for (int i = 0; i < currentItems.size() && i < slotPositions.length; i++) {
-      ItemStack item = currentItems.get(i);
-      if (item != null && item.getType() != Material.AIR) {
-        slotsGUI.setItem(slotPositions[i], item);
-      }
-    }
-
-    player.openInventory(slotsGUI);
+    return new SlotTemplate(config, showEmpty, slotPositions, contents,
+        SLOTS_GUI_PREFIX + ChatColor.YELLOW + config.getName());
   }
 
   private int calculateSlotGUISize(int slotAmount) {
@@ -413,19 +529,6 @@ public class AccessoryGUI {
   // Borders, fillers, buttons
   // =========================================================================
 
-  private void createBorder(Inventory inv) {
-    ItemStack border = createFillerItem(BORDER_MATERIAL);
-    int size = inv.getSize();
-    for (int i = 0; i < 9; i++)
-      inv.setItem(i, border);
-    for (int i = size - 9; i < size; i++)
-      inv.setItem(i, border);
-    for (int row = 1; row < (size / 9) - 1; row++) {
-      inv.setItem(row * 9, border);
-      inv.setItem(row * 9 + 8, border);
-    }
-  }
-
   private ItemStack createSlotButton(SlotConfiguration config) {
     Material material = config.getIcon();
 
@@ -524,14 +627,6 @@ public class AccessoryGUI {
     return filler;
   }
 
-  private void fillInventory(Inventory inv, Material material) {
-    ItemStack filler = createFillerItem(material);
-    for (int i = 0; i < inv.getSize(); i++) {
-      if (inv.getItem(i) == null)
-        inv.setItem(i, filler);
-    }
-  }
-
   // =========================================================================
   // Utility: slot checks
   // =========================================================================
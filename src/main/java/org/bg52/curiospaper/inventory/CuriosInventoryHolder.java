@@ -0,0 +1,162 @@
+package org.bg52.curiospaper.inventory;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Holder of every CuriosPaper GUI inventory. Identifies the GUI without
+ * comparing titles and, for GUIs with accessory cells, maps raw slots to
+ * accessory indexes with a single array lookup.
+ *
+ * <p>
+ * It also remembers which accessory cells were touched while the GUI was open,
+ * so only those have to be compared and saved when it closes.
+ */
+public final class CuriosInventoryHolder implements InventoryHolder {
+
+  public enum Kind {
+    MAIN, SLOTS, EDIT_MENU, INSPECT_OVERVIEW, INSPECT_SLOT
+  }
+
+  private final Kind kind;
+  private final String slotType;
+  private final int[] positions;
+  private final int[] indexByRawSlot;
+  private final BitSet touched = new BitSet();
+  private Inventory inventory;
+
+  private CuriosInventoryHolder(Kind kind, String slotType, int[] positions, int[] indexByRawSlot) {
+    this.kind = kind;
+    this.slotType = slotType;
+    this.positions = positions;
+    this.indexByRawSlot = indexByRawSlot;
+  }
+
+  /**
+   * Holder for a GUI without accessory cells.
+   */
+  public static CuriosInventoryHolder of(Kind kind) {
+    return new CuriosInventoryHolder(kind, null, new int[0], new int[0]);
+  }
+
+  /**
+   * Holder for a GUI with accessory cells at the given positions.
+   *
+   * @param indexByRawSlot from {@link #indexTable}, may be shared between
+   *                       holders of the same layout
+   */
+  public static CuriosInventoryHolder withSlots(Kind kind, String slotType, int[] positions, int[] indexByRawSlot) {
+    return new CuriosInventoryHolder(kind, slotType, positions, indexByRawSlot);
+  }
+
+  /**
+   * Builds the raw slot -> accessory index table for a layout; -1 marks cells
+   * that aren't accessory slots.
+   */
+  public static int[] indexTable(int[] positions, int inventorySize) {
+    int[] table = new int[inventorySize];
+    Arrays.fill(table, -1);
+    for (int i = 0; i < positions.length; i++) {
+      if (positions[i] >= 0 && positions[i] < inventorySize) {
+        table[positions[i]] = i;
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Returns the CuriosPaper holder of an inventory, or null. Block inventories
+   * are skipped before asking for the holder, as that takes a block state
+   * snapshot.
+   */
+  public static CuriosInventoryHolder get(Inventory inventory) {
+    if (inventory == null || inventory.getType() != InventoryType.CHEST || inventory.getLocation() != null) {
+      return null;
+    }
+    InventoryHolder holder = inventory.getHolder();
+    return holder instanceof CuriosInventoryHolder ? (CuriosInventoryHolder) holder : null;
+  }
+
+  /**
+   * @return the holder's GUI kind, or null if the inventory isn't a
+   *         CuriosPaper GUI
+   */
+  public static Kind kindOf(Inventory inventory) {
+    CuriosInventoryHolder holder = get(inventory);
+    return holder == null ? null : holder.kind;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * @return the slot type shown, or null for GUIs that show several
+   */
+  public String getSlotType() {
+    return slotType;
+  }
+
+  /**
+   * @return accessory index -> raw slot; shared, do not modify
+   */
+  public int[] getPositions() {
+    return positions;
+  }
+
+  /**
+   * @return the accessory index at a raw slot of the top inventory, or -1
+   */
+  public int slotIndex(int rawSlot) {
+    return rawSlot >= 0 && rawSlot < indexByRawSlot.length ? indexByRawSlot[rawSlot] : -1;
+  }
+
+  public void touch(int index) {
+    if (index >= 0 && index < positions.length) {
+      touched.set(index);
+    }
+  }
+
+  public void touchAll() {
+    touched.set(0, positions.length);
+  }
+
+  /**
+   * @return the accessory indexes touched since the last call, clearing them
+   */
+  public int[] drainTouched() {
+    int[] indexes = touched.stream().toArray();
+    touched.clear();
+    return indexes;
+  }
+
+  /**
+   * @return the accessory indexes touched so far
+   */
+  public int[] peekTouched() {
+    return touched.stream().toArray();
+  }
+
+  void setInventory(Inventory inventory) {
+    this.inventory = inventory;
+  }
+
+  /**
+   * Creates an inventory owned by a new holder.
+   */
+  public static Inventory createInventory(CuriosInventoryHolder holder, int size, String title) {
+    Inventory inventory = Bukkit.createInventory(holder, size, title);
+    holder.setInventory(inventory);
+    return inventory;
+  }
+
+  @Override
+  public Inventory getInventory() {
+    return inventory;
+  }
+}
@@ -2,7 +2,6 @@ package org.bg52.curiospaper.inventory;
 
 import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.config.SlotConfiguration;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
@@ -49,7 +48,8 @@ public class EditMenuGUI {
     // Only show active slots — same filter as the main GUI
     List<String> activeKeys = plugin.getConfigManager().getActiveSlotKeys();
 
-    Inventory inv = Bukkit.createInventory(null, size, EDIT_MENU_TITLE);
+    Inventory inv = CuriosInventoryHolder.createInventory(
+        CuriosInventoryHolder.of(CuriosInventoryHolder.Kind.EDIT_MENU), size, EDIT_MENU_TITLE);
 
     // Fill with gray glass
     ItemStack filler = createFillerItem(FILLER_MATERIAL);
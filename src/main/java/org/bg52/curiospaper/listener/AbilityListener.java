@@ -4,8 +4,10 @@ package org.bg52.curiospaper.listener;
 import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.data.AbilityData;
 import org.bg52.curiospaper.data.ItemData;
+import org.bg52.curiospaper.event.AccessoryBatchEquipEvent;
 import org.bg52.curiospaper.event.AccessoryEquipEvent;
 import org.bg52.curiospaper.manager.ItemDataManager;
+import org.bg52.curiospaper.util.Timings;
 import org.bukkit.NamespacedKey;
 import org.bukkit.attribute.Attribute;
 import org.bukkit.attribute.AttributeInstance;
@@ -43,8 +45,22 @@ public class AbilityListener implements Listener {
     startModifierReconciliationTask();
   }
 
+  @EventHandler(priority = EventPriority.NORMAL)
+  public void onAccessoryBatchEquip(AccessoryBatchEquipEvent event) {
+    for (AccessoryEquipEvent change : event.getChanges()) {
+      applyEquipChange(change);
+    }
+  }
+
   @EventHandler(priority = EventPriority.NORMAL)
   public void onAccessoryEquip(AccessoryEquipEvent event) {
+    // Transaction changes are handled through their batch event
+    if (!event.isBatched()) {
+      applyEquipChange(event);
+    }
+  }
+
+  private void applyEquipChange(AccessoryEquipEvent event) {
     Player player = event.getPlayer();
     ItemStack previousItem = event.getPreviousItem();
     ItemStack newItem = event.getNewItem();
@@ -102,6 +118,7 @@ public class AbilityListener implements Listener {
    * Applies a single ability to a player
    */
   private void applyAbility(Player player, AbilityData ability, String itemId) {
+    plugin.getMetricsRegistry().abilityApplied();
     if (ability.getEffectType() == AbilityData.EffectType.POTION_EFFECT) {
       applyPotionEffect(player, ability);
     } else if (ability.getEffectType() == AbilityData.EffectType.PLAYER_MODIFIER) {
@@ -228,8 +245,13 @@ public class AbilityListener implements Listener {
     whileEquippedTask = new BukkitRunnable() {
       @Override
       public void run() {
-        for (Player player : plugin.getServer().getOnlinePlayers()) {
-          processWhileEquippedAbilities(player);
+        long start = Timings.start();
+        try {
+          for (Player player : plugin.getServer().getOnlinePlayers()) {
+            processWhileEquippedAbilities(player);
+          }
+        } finally {
+          Timings.stop(Timings.Section.ABILITY_TICK, start);
         }
       }
     };
@@ -247,8 +269,13 @@ public class AbilityListener implements Listener {
     reconciliationTask = new BukkitRunnable() {
       @Override
       public void run() {
-        for (Player player : plugin.getServer().getOnlinePlayers()) {
-          reconcileModifiers(player);
+        long start = Timings.start();
+        try {
+          for (Player player : plugin.getServer().getOnlinePlayers()) {
+            reconcileModifiers(player);
+          }
+        } finally {
+          Timings.stop(Timings.Section.RECONCILIATION, start);
         }
       }
     };
@@ -436,10 +463,9 @@ public class AbilityListener implements Listener {
     // Fallback: Try to find matching item by display name (legacy items)
     String displayName = itemStack.getItemMeta().getDisplayName();
     if (displayName != null && !displayName.isEmpty()) {
-      for (ItemData data : itemDataManager.getAllItems().values()) {
-        if (displayName.equals(data.getDisplayName())) {
-          return data.getItemId();
-        }
+      ItemData data = itemDataManager.getItemByDisplayName(displayName);
+      if (data != null) {
+        return data.getItemId();
       }
     }
 
@@ -0,0 +1,256 @@
+package org.bg52.curiospaper.listener;
+
+import org.bg52.curiospaper.data.RecipeData;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A registered custom recipe with every ingredient resolved up front, so the
+ * crafting grid can be validated without looking items up by name on each
+ * PrepareItemCraftEvent.
+ */
+class CompiledRecipe {
+
+  /**
+   * One resolved ingredient requirement: either a custom item id or a vanilla
+   * material. Requirements that resolve to neither never match.
+   */
+  static final class Ingredient {
+    static final Ingredient NONE = new Ingredient(null, null);
+
+    private final String customId;
+    private final Material material;
+
+    private Ingredient(String customId, Material material) {
+      this.customId = customId;
+      this.material = material;
+    }
+
+    static Ingredient custom(String itemId) {
+      return new Ingredient(itemId, null);
+    }
+
+    static Ingredient material(Material material) {
+      return new Ingredient(null, material);
+    }
+
+    /**
+     * @param itemCustomId the custom item id stored on the stack, or null
+     */
+    boolean matches(ItemStack item, String itemCustomId) {
+      if (isAir(item)) {
+        return false;
+      }
+      if (customId != null) {
+        return customId.equals(itemCustomId);
+      }
+      return material != null && item.getType() == material;
+    }
+
+    /**
+     * @return the identity used in lookup indexes: the custom item id or the
+     *         material, null if unresolved
+     */
+    Object key() {
+      return customId != null ? customId : material;
+    }
+  }
+
+  private final String itemId;
+  private final RecipeData data;
+  private final ItemStack result;
+
+  // Lookup key for cooking, smithing and anvil recipes, null if not indexed
+  private final Object indexKey;
+
+  // Shaped: 3x3 row-major grid (null = must be empty) and its bounding box
+  private final Ingredient[] grid;
+  private int minRow = 3, maxRow = -1, minCol = 3, maxCol = -1;
+
+  // Shapeless
+  private final Ingredient[] ingredients;
+
+  /**
+   * @param resolver resolves ingredient strings as the recipe was registered
+   */
+  CompiledRecipe(String itemId, RecipeData data, ItemStack result, Function<String, Ingredient> resolver) {
+    this.itemId = itemId;
+    this.data = data;
+    this.result = result;
+    this.indexKey = compileIndexKey(data, resolver);
+
+    if (data.getType() == RecipeData.RecipeType.SHAPED) {
+      grid = new Ingredient[9];
+      ingredients = null;
+      String[] shape = data.getShape();
+      Map<Character, String> keys = data.getIngredients();
+      for (int r = 0; r < 3; r++) {
+        String row = shape != null && r < shape.length && shape[r] != null ? shape[r] : "";
+        for (int c = 0; c < 3 && c < row.length(); c++) {
+          String requirement = keys.get(row.charAt(c));
+          if (requirement == null) {
+            continue;
+          }
+          grid[r * 3 + c] = resolver.apply(requirement);
+          minRow = Math.min(minRow, r);
+          maxRow = Math.max(maxRow, r);
+          minCol = Math.min(minCol, c);
+          maxCol = Math.max(maxCol, c);
+        }
+      }
+    } else if (data.getType() == RecipeData.RecipeType.SHAPELESS) {
+      grid = null;
+      ingredients = data.getIngredients().values().stream().map(resolver).toArray(Ingredient[]::new);
+    } else {
+      grid = null;
+      ingredients = null;
+    }
+  }
+
+  String getItemId() {
+    return itemId;
+  }
+
+  RecipeData getData() {
+    return data;
+  }
+
+  /**
+   * @return a fresh copy of the result built at registration
+   */
+  ItemStack createResult() {
+    return result.clone();
+  }
+
+  /**
+   * @return the input key this recipe is found by: the input's key for cooking,
+   *         [template, base, addition] for smithing (template null if the
+   *         recipe has none), [left, right] for anvil; null for crafting
+   *         recipes or when an input did not resolve
+   */
+  Object getIndexKey() {
+    return indexKey;
+  }
+
+  private static Object compileIndexKey(RecipeData data, Function<String, Ingredient> resolver) {
+    RecipeData.RecipeType type = data.getType();
+    if (isCooking(type)) {
+      return resolver.apply(data.getInputItem()).key();
+    }
+
+    if (type == RecipeData.RecipeType.SMITHING) {
+      Object template = null;
+      if (data.getTemplateItem() != null && !data.getTemplateItem().isEmpty()) {
+        template = resolver.apply(data.getTemplateItem()).key();
+        if (template == null) {
+          return null;
+        }
+      }
+      Object base = resolver.apply(data.getBaseItem()).key();
+      Object addition = resolver.apply(data.getAdditionItem()).key();
+      return base == null || addition == null ? null : Arrays.asList(template, base, addition);
+    }
+
+    if (type == RecipeData.RecipeType.ANVIL) {
+      Object left = resolver.apply(data.getLeftInput()).key();
+      Object right = resolver.apply(data.getRightInput()).key();
+      return left == null || right == null ? null : Arrays.asList(left, right);
+    }
+    return null;
+  }
+
+  /**
+   * Strictly checks a crafting matrix (2x2 or 3x3, row-major) against this
+   * recipe. Non-crafting recipes always pass.
+   *
+   * @param customIds custom item id per matrix slot, or null entries
+   */
+  boolean matches(ItemStack[] matrix, String[] customIds) {
+    if (grid != null) {
+      return matchesShaped(matrix, customIds);
+    }
+    if (ingredients != null) {
+      return matchesShapeless(matrix, customIds);
+    }
+    return true;
+  }
+
+  private boolean matchesShaped(ItemStack[] matrix, String[] customIds) {
+    if (maxRow < 0) {
+      return false;
+    }
+
+    int width = matrix.length == 4 ? 2 : 3;
+    int top = width, bottom = -1, left = width, right = -1;
+    for (int i = 0; i < matrix.length; i++) {
+      if (!isAir(matrix[i])) {
+        int r = i / width;
+        int c = i % width;
+        top = Math.min(top, r);
+        bottom = Math.max(bottom, r);
+        left = Math.min(left, c);
+        right = Math.max(right, c);
+      }
+    }
+
+    // The items' bounding box has to line up with the shape's exactly, which
+    // fixes the only offset that can match
+    if (bottom < 0 || bottom - top != maxRow - minRow || right - left != maxCol - minCol) {
+      return false;
+    }
+
+    for (int r = 0; r <= maxRow - minRow; r++) {
+      for (int c = 0; c <= maxCol - minCol; c++) {
+        Ingredient required = grid[(minRow + r) * 3 + minCol + c];
+        int slot = (top + r) * width + left + c;
+        if (required == null ? !isAir(matrix[slot]) : !required.matches(matrix[slot], customIds[slot])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean matchesShapeless(ItemStack[] matrix, String[] customIds) {
+    boolean[] used = new boolean[ingredients.length];
+    int provided = 0;
+
+    for (int i = 0; i < matrix.length; i++) {
+      if (isAir(matrix[i])) {
+        continue;
+      }
+      if (++provided > ingredients.length) {
+        return false;
+      }
+
+      // Greedy: ingredients are interchangeable, take the first unused match
+      boolean matched = false;
+      for (int j = 0; j < ingredients.length; j++) {
+        if (!used[j] && ingredients[j].matches(matrix[i], customIds[i])) {
+          used[j] = true;
+          matched = true;
+          break;
+        }
+      }
+      if (!matched) {
+        return false;
+      }
+    }
+    return provided == ingredients.length;
+  }
+
+  static boolean isCooking(RecipeData.RecipeType type) {
+    return type == RecipeData.RecipeType.FURNACE
+        || type == RecipeData.RecipeType.BLAST_FURNACE
+        || type == RecipeData.RecipeType.SMOKER
+        || type == RecipeData.RecipeType.CAMPFIRE;
+  }
+
+  static boolean isAir(ItemStack item) {
+    return item == null || item.getType() == Material.AIR;
+  }
+}
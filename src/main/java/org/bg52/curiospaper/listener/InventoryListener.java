@@ -3,11 +3,13 @@ package org.bg52.curiospaper.listener;
 import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.event.AccessoryEquipEvent;
 import org.bg52.curiospaper.inventory.AccessoryGUI;
+import org.bg52.curiospaper.inventory.CuriosInventoryHolder;
 import org.bg52.curiospaper.inventory.EditMenuGUI;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryAction;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
@@ -25,7 +27,6 @@ import java.util.UUID;
 public class InventoryListener implements Listener {
   private final CuriosPaper plugin;
   private final AccessoryGUI gui;
-  private final Map<Player, Map<String, List<ItemStack>>> previousInventoryState;
 
   // Edit menu selection state: tracks selected slot index per player
   private final Map<Player, Integer> editMenuSelectedSlot = new HashMap<>();
@@ -35,7 +36,6 @@ public class InventoryListener implements Listener {
   public InventoryListener(CuriosPaper plugin, AccessoryGUI gui) {
     this.plugin = plugin;
     this.gui = gui;
-    this.previousInventoryState = new HashMap<>();
   }
 
   @EventHandler
@@ -45,16 +45,25 @@ public class InventoryListener implements Listener {
     }
     Player player = (Player) event.getWhoClicked();
 
-    String title = event.getView().getTitle();
+    CuriosInventoryHolder holder = CuriosInventoryHolder.get(event.getView().getTopInventory());
+    if (holder == null) {
+      return;
+    }
 
-    if (AccessoryGUI.isMainGUI(title)) {
-      handleMainGUIClick(event, player);
-    } else if (AccessoryGUI.isSlotsGUI(title)) {
-      handleSlotsGUIClick(event, player, title);
-    } else if (EditMenuGUI.isEditMenu(title)) {
-      handleEditMenuClick(event, player);
-    } else if (org.bg52.curiospaper.command.CuriosCommand.isInspectGUI(title)) {
-      handleInspectGUIClick(event, player);
+    switch (holder.getKind()) {
+      case MAIN:
+        handleMainGUIClick(event, player);
+        break;
+      case SLOTS:
+        handleSlotsGUIClick(event, player, holder);
+        break;
+      case EDIT_MENU:
+        handleEditMenuClick(event, player);
+        break;
+      case INSPECT_OVERVIEW:
+      case INSPECT_SLOT:
+        handleInspectGUIClick(event, player, holder);
+        break;
     }
   }
 
@@ -123,11 +132,9 @@ public class InventoryListener implements Listener {
 
   // ---- Inspect GUI handling (admin view — overview read-only, slot GUI editable) ----
 
-  private void handleInspectGUIClick(InventoryClickEvent event, Player player) {
-    String title = event.getView().getTitle();
-
+  private void handleInspectGUIClick(InventoryClickEvent event, Player player, CuriosInventoryHolder holder) {
     // Overview GUI is always read-only (navigation only)
-    if (org.bg52.curiospaper.command.CuriosCommand.isInspectOverviewGUI(title)) {
+    if (holder.getKind() == CuriosInventoryHolder.Kind.INSPECT_OVERVIEW) {
       event.setCancelled(true);
 
       ItemStack clicked = event.getCurrentItem();
@@ -149,7 +156,7 @@ public class InventoryListener implements Listener {
     }
 
     // Slot GUI is editable — only restrict non-accessory slots
-    if (org.bg52.curiospaper.command.CuriosCommand.isInspectSlotGUI(title)) {
+    if (holder.getKind() == CuriosInventoryHolder.Kind.INSPECT_SLOT) {
       int rawSlot = event.getRawSlot();
       org.bukkit.inventory.Inventory topInv = event.getView().getTopInventory();
 
@@ -186,21 +193,8 @@ public class InventoryListener implements Listener {
       }
 
       // Allow clicks in accessory slots and player inventory
-      if (rawSlot < topInv.getSize()) {
-        int[] accessoryPositions = org.bg52.curiospaper.command.CuriosCommand.getActiveInspectSlotPositions()
-            .get(player.getUniqueId());
-        if (accessoryPositions != null) {
-          boolean isAccessorySlot = false;
-          for (int pos : accessoryPositions) {
-            if (rawSlot == pos) { isAccessorySlot = true; break; }
-          }
-          if (!isAccessorySlot) {
-            event.setCancelled(true); // Block clicks on border/filler
-          }
-          // Accessory slots are free for interaction
-        } else {
-          event.setCancelled(true);
-        }
+      if (rawSlot < topInv.getSize() && holder.slotIndex(rawSlot) < 0) {
+        event.setCancelled(true); // Block clicks on border/filler
       }
       // Clicks in player inventory area are always allowed
     }
@@ -243,9 +237,15 @@ public class InventoryListener implements Listener {
       }
     }
 
-    // Save the new state to SlotManager
-    plugin.getSlotManager().setAccessories(targetUUID, slotType, newItems);
-    plugin.getSlotManager().savePlayerData(targetUUID);
+    // Save the new state to SlotManager, or straight to disk for an offline
+    // target so it doesn't stay loaded
+    if (plugin.getSlotManager().hasPlayerData(targetUUID)) {
+      plugin.getSlotManager().setAccessories(targetUUID, slotType, newItems);
+      plugin.getSlotManager().savePlayerData(targetUUID);
+    } else {
+      plugin.getSlotManager().editOfflineAccessories(targetUUID,
+          accessories -> accessories.put(slotType.toLowerCase(), newItems));
+    }
 
     // Fire equip/unequip events for any changes (target player as the event subject)
     Player targetPlayer = Bukkit.getPlayer(targetUUID);
@@ -316,23 +316,21 @@ public class InventoryListener implements Listener {
         .get(plugin.getSlotTypeKey(), PersistentDataType.STRING);
 
     if (slotType != null) {
-      // Store current state before opening Tier 2 GUI
-      storeInventoryState(player, slotType);
       gui.openSlotItemsGUI(player, slotType);
     }
   }
 
-  private void handleSlotsGUIClick(InventoryClickEvent event, Player player, String title) {
-    String slotType = AccessoryGUI.extractSlotTypeFromTitle(title);
-    if (slotType == null) {
-      return;
-    }
+  private void handleSlotsGUIClick(InventoryClickEvent event, Player player, CuriosInventoryHolder holder) {
+    String slotType = holder.getSlotType();
 
     int rawSlot = event.getRawSlot();
     if (rawSlot < 0) {
       return;
     }
     Inventory topInventory = event.getView().getTopInventory();
+    int[] positions = holder.getPositions();
+    // Accessory index of the clicked cell, -1 outside the accessory cells
+    int index = holder.slotIndex(rawSlot);
 
     // Check if clicking in the top (accessory) inventory
     if (rawSlot < topInventory.getSize()) {
@@ -342,14 +340,7 @@ public class InventoryListener implements Listener {
         event.setCancelled(true);
 
         // Save current accessories before going back
-        int[] accessorySlots = gui.getAccessorySlots(slotType);
-        java.util.List<ItemStack> currentItems = new java.util.ArrayList<>();
-        for (int slot : accessorySlots) {
-          ItemStack item = topInventory.getItem(slot);
-          currentItems.add(item != null && item.getType() != org.bukkit.Material.AIR ? item.clone() : null);
-        }
-        plugin.getSlotManager().setAccessories(player.getUniqueId(), slotType, currentItems);
-        plugin.getSlotManager().savePlayerData(player);
+        commitTouchedSlots(player, holder);
 
         // Re-open the main GUI on next tick to avoid close-event conflicts
         Bukkit.getScheduler().runTask(plugin, () -> gui.openMainGUI(player));
@@ -357,7 +348,7 @@ public class InventoryListener implements Listener {
       }
 
       // Check if this is a valid accessory slot or a filler slot
-      if (!gui.isAccessorySlot(topInventory, rawSlot)) {
+      if (index < 0) {
         event.setCancelled(true);
         return;
       }
@@ -389,7 +380,7 @@ public class InventoryListener implements Listener {
     if (event.isRightClick() && !event.isShiftClick()
         && clickedInventory == topInventory
         && clickedItem != null && clickedItem.getType() != org.bukkit.Material.AIR
-        && gui.isAccessorySlot(topInventory, rawSlot)
+        && index >= 0
         && (cursorItem == null || cursorItem.getType() == org.bukkit.Material.AIR)) {
 
       // Only allow toggle if the item actually has a 3D model defined
@@ -402,6 +393,9 @@ public class InventoryListener implements Listener {
         if (itemId != null) {
           org.bg52.curiospaper.data.ItemData itemData = plugin.getCuriosPaperAPI().getItemData(itemId);
           if (itemData != null && itemData.isModelEnabled()) {
+            // Commit earlier moves first, so the toggle itself isn't reported as a swap
+            commitTouchedSlots(player, holder);
+
             org.bukkit.NamespacedKey modelHiddenKey = new org.bukkit.NamespacedKey(plugin, "curios_model_hidden");
             boolean isHidden = pdc.getOrDefault(modelHiddenKey, PersistentDataType.BYTE, (byte) 0) == 1;
             if (isHidden) {
@@ -414,13 +408,7 @@ public class InventoryListener implements Listener {
             clickedItem.setItemMeta(meta);
 
             // Save immediately so the toggle persists across restarts
-            int[] accessorySlots = gui.getAccessorySlots(slotType);
-            List<ItemStack> currentItems = new ArrayList<>();
-            for (int slot : accessorySlots) {
-              ItemStack item = topInventory.getItem(slot);
-              currentItems.add(item != null && item.getType() != org.bukkit.Material.AIR ? item.clone() : null);
-            }
-            plugin.getSlotManager().setAccessories(player.getUniqueId(), slotType, currentItems);
+            plugin.getSlotManager().setAccessoryItem(player.getUniqueId(), slotType, index, clickedItem.clone());
             plugin.getSlotManager().savePlayerData(player);
 
             // Immediately update 3D model stands so the change is visible right away
@@ -444,37 +432,36 @@ public class InventoryListener implements Listener {
           return;
         }
 
-        // Check if there's space in accessory slots (including placeholders)
-        if (!gui.hasEmptyAccessorySlot(topInventory)) {
-          event.setCancelled(true);
-          player.sendMessage(plugin.getMessagesManager().get("inventory.no-empty-slots"));
-          return;
-        }
-
         // Manual shift-click to handle placeholders
-        int targetSlot = -1;
-        for (int slot : gui.getAccessorySlots(slotType)) {
-          ItemStack item = topInventory.getItem(slot);
+        int target = -1;
+        for (int i = 0; i < positions.length; i++) {
+          ItemStack item = topInventory.getItem(positions[i]);
           if (item == null || item.getType() == Material.AIR || gui.isPlaceholder(item)) {
-            targetSlot = slot;
+            target = i;
             break;
           }
         }
 
-        if (targetSlot != -1) {
+        // Check if there's space in accessory slots (including placeholders)
+        if (target == -1) {
           event.setCancelled(true);
-          ItemStack toMove = clickedItem.clone();
-          toMove.setAmount(1);
-          topInventory.setItem(targetSlot, toMove);
-          clickedItem.setAmount(clickedItem.getAmount() - 1);
-          player.updateInventory();
+          player.sendMessage(plugin.getMessagesManager().get("inventory.no-empty-slots"));
+          return;
         }
+
+        event.setCancelled(true);
+        ItemStack toMove = clickedItem.clone();
+        toMove.setAmount(1);
+        topInventory.setItem(positions[target], toMove);
+        clickedItem.setAmount(clickedItem.getAmount() - 1);
+        player.updateInventory();
+        holder.touch(target);
       }
     }
 
     // Handle placing item from cursor into accessory GUI
     if (cursorItem != null && cursorItem.getType() != org.bukkit.Material.AIR && clickedInventory == topInventory) {
-      if (!gui.isAccessorySlot(topInventory, rawSlot)) {
+      if (index < 0) {
         event.setCancelled(true);
         return;
       }
@@ -501,7 +488,7 @@ public class InventoryListener implements Listener {
 
     // Handle hotbar swapping
     if (event.getClick().isKeyboardClick() && clickedInventory == topInventory) {
-      if (!gui.isAccessorySlot(topInventory, rawSlot)) {
+      if (index < 0) {
         event.setCancelled(true);
         return;
       }
@@ -516,20 +503,26 @@ public class InventoryListener implements Listener {
       }
     }
 
-    Bukkit.getScheduler().runTask(plugin, () -> {
-      Inventory topInventoryAfter = event.getView().getTopInventory();
-      enforceSingleItemPerAccessorySlot(player, topInventoryAfter, slotType);
-    });
+    // Remember which cells may have changed; only those are compared on close.
+    // Collecting and shift-clicking can pull from or push into any accessory
+    // cell, whichever inventory was clicked.
+    if (event.getAction() == InventoryAction.COLLECT_TO_CURSOR
+        || (event.isShiftClick() && !event.isCancelled())) {
+      holder.touchAll();
+    } else if (clickedInventory == topInventory && index >= 0) {
+      holder.touch(index);
+    }
+
+    Bukkit.getScheduler().runTask(plugin, () -> enforceSingleItemPerAccessorySlot(player, holder));
   }
 
-  private void enforceSingleItemPerAccessorySlot(Player player, Inventory topInventory, String slotType) {
-    // Get the real accessory slot positions for this slot type
-    int[] accessorySlots = gui.getAccessorySlots(slotType);
-    if (accessorySlots == null || accessorySlots.length == 0) {
-      return;
-    }
+  private void enforceSingleItemPerAccessorySlot(Player player, CuriosInventoryHolder holder) {
+    Inventory topInventory = holder.getInventory();
+    int[] positions = holder.getPositions();
 
-    for (int slot : accessorySlots) {
+    // Only cells touched this session can hold a new stack
+    for (int index : holder.peekTouched()) {
+      int slot = positions[index];
       if (slot < 0 || slot >= topInventory.getSize())
         continue;
 
@@ -566,64 +559,55 @@ public class InventoryListener implements Listener {
     }
     Player player = (Player) event.getWhoClicked();
 
-    String title = event.getView().getTitle();
+    CuriosInventoryHolder holder = CuriosInventoryHolder.get(event.getView().getTopInventory());
+    if (holder == null) {
+      return;
+    }
 
-    if (AccessoryGUI.isMainGUI(title)) {
-      event.setCancelled(true);
-    } else if (EditMenuGUI.isEditMenu(title)) {
-      event.setCancelled(true);
-    } else if (org.bg52.curiospaper.command.CuriosCommand.isInspectOverviewGUI(title)) {
-      event.setCancelled(true);
-    } else if (org.bg52.curiospaper.command.CuriosCommand.isInspectSlotGUI(title)) {
-      // Block drags to non-accessory slots in inspect slot GUI
-      Inventory topInventory = event.getView().getTopInventory();
-      int[] accessoryPositions = org.bg52.curiospaper.command.CuriosCommand.getActiveInspectSlotPositions()
-          .get(player.getUniqueId());
-      if (accessoryPositions != null) {
+    switch (holder.getKind()) {
+      case MAIN:
+      case EDIT_MENU:
+      case INSPECT_OVERVIEW:
+        event.setCancelled(true);
+        break;
+
+      case INSPECT_SLOT: {
+        // Block drags to non-accessory slots in inspect slot GUI
+        int topSize = event.getView().getTopInventory().getSize();
         for (int rawSlot : event.getRawSlots()) {
-          if (rawSlot < topInventory.getSize()) {
-            boolean isAccessorySlot = false;
-            for (int pos : accessoryPositions) {
-              if (rawSlot == pos) { isAccessorySlot = true; break; }
-            }
-            if (!isAccessorySlot) {
-              event.setCancelled(true);
-              return;
-            }
+          if (rawSlot < topSize && holder.slotIndex(rawSlot) < 0) {
+            event.setCancelled(true);
+            return;
           }
         }
-      } else {
-        event.setCancelled(true);
-      }
-    } else if (AccessoryGUI.isSlotsGUI(title)) {
-      String slotType = AccessoryGUI.extractSlotTypeFromTitle(title);
-      if (slotType == null) {
-        return;
+        break;
       }
 
-      Inventory topInventory = event.getView().getTopInventory();
-      ItemStack draggedItem = event.getOldCursor();
+      case SLOTS: {
+        String slotType = holder.getSlotType();
+        int topSize = event.getView().getTopInventory().getSize();
+        ItemStack draggedItem = event.getOldCursor();
 
-      // Check if any dragged slots are filler slots or invalid
-      for (int rawSlot : event.getRawSlots()) {
-        if (rawSlot < topInventory.getSize()) {
-          if (!gui.isAccessorySlot(topInventory, rawSlot)) {
+        // Check if any dragged slots are filler slots or invalid
+        for (int rawSlot : event.getRawSlots()) {
+          if (rawSlot < topSize && holder.slotIndex(rawSlot) < 0) {
             event.setCancelled(true);
             return;
           }
         }
-      }
 
-      if (draggedItem != null && draggedItem.getType() != org.bukkit.Material.AIR) {
-        if (!plugin.getCuriosPaperAPI().isValidAccessory(draggedItem, slotType)) {
-          event.setCancelled(true);
-          player.sendMessage(plugin.getMessagesManager().get("inventory.invalid-item"));
+        if (draggedItem != null && draggedItem.getType() != org.bukkit.Material.AIR) {
+          if (!plugin.getCuriosPaperAPI().isValidAccessory(draggedItem, slotType)) {
+            event.setCancelled(true);
+            player.sendMessage(plugin.getMessagesManager().get("inventory.invalid-item"));
+          }
         }
+        for (int rawSlot : event.getRawSlots()) {
+          holder.touch(holder.slotIndex(rawSlot));
+        }
+        Bukkit.getScheduler().runTask(plugin, () -> enforceSingleItemPerAccessorySlot(player, holder));
+        break;
       }
-      Bukkit.getScheduler().runTask(plugin, () -> {
-        Inventory topInventoryAfter = event.getView().getTopInventory();
-        enforceSingleItemPerAccessorySlot(player, topInventoryAfter, slotType);
-      });
     }
   }
 
@@ -634,52 +618,60 @@ public class InventoryListener implements Listener {
     }
     Player player = (Player) event.getPlayer();
 
-    String title = event.getView().getTitle();
-
-    if (AccessoryGUI.isSlotsGUI(title)) {
-      String slotType = AccessoryGUI.extractSlotTypeFromTitle(title);
-      if (slotType == null) {
-        return;
-      }
-
-      Inventory inventory = event.getInventory();
+    CuriosInventoryHolder holder = CuriosInventoryHolder.get(event.getInventory());
+    if (holder == null) {
+      return;
+    }
 
-      // Get only the actual accessory slots (not filler items)
-      int[] accessorySlots = gui.getAccessorySlots(slotType);
-      List<ItemStack> newItems = new ArrayList<>();
+    switch (holder.getKind()) {
+      case SLOTS:
+        commitTouchedSlots(player, holder);
+        break;
+      case EDIT_MENU:
+        handleEditMenuClose(event);
+        break;
+      case INSPECT_SLOT:
+        // Save changes when admin closes the inspect slot GUI
+        saveInspectSlotGUI(player, event.getInventory());
+        break;
+      case INSPECT_OVERVIEW:
+        // Clean up session data when overview is closed directly
+        org.bg52.curiospaper.command.CuriosCommand.getActiveInspectSessions().remove(player.getUniqueId());
+        break;
+      default:
+        break;
+    }
+  }
 
-      for (int slot : accessorySlots) {
-        ItemStack item = inventory.getItem(slot);
-        newItems.add(item != null && item.getType() != org.bukkit.Material.AIR && !gui.isPlaceholder(item) ? item.clone() : null);
+  /**
+   * Copies the accessory cells touched since the last commit back into the
+   * player's data, fires equip events for those that changed and saves the
+   * player if any did. Untouched cells are neither compared nor rewritten.
+   */
+  private void commitTouchedSlots(Player player, CuriosInventoryHolder holder) {
+    String slotType = holder.getSlotType();
+    Inventory inventory = holder.getInventory();
+    int[] positions = holder.getPositions();
+    UUID playerId = player.getUniqueId();
+
+    boolean changed = false;
+    for (int index : holder.drainTouched()) {
+      ItemStack item = inventory.getItem(positions[index]);
+      ItemStack newItem = item != null && item.getType() != Material.AIR && !gui.isPlaceholder(item)
+          ? item.clone()
+          : null;
+      ItemStack oldItem = plugin.getSlotManager().getAccessoryItem(playerId, slotType, index);
+      if (isEmpty(oldItem) && newItem == null || oldItem != null && oldItem.equals(newItem)) {
+        continue;
       }
 
-      // Get previous state to detect changes
-      Map<String, List<ItemStack>> previousState = previousInventoryState.get(player);
-      List<ItemStack> previousItems = null;
-      if (previousState != null && previousState.containsKey(slotType)) {
-        previousItems = previousState.get(slotType);
-      } else {
-        List<ItemStack> saved = plugin.getSlotManager().getAccessories(player.getUniqueId(), slotType);
-        previousItems = saved != null ? new ArrayList<>(saved) : new ArrayList<>();
-      }
+      plugin.getSlotManager().setAccessoryItem(playerId, slotType, index, newItem);
+      fireEquipEvent(player, slotType, index, oldItem, newItem);
+      changed = true;
+    }
 
-      // Save the new state
-      plugin.getSlotManager().setAccessories(player.getUniqueId(), slotType, newItems);
+    if (changed) {
       plugin.getSlotManager().savePlayerData(player);
-
-      // Fire events for changes
-      fireEquipEvents(player, slotType, previousItems, newItems);
-
-      // Clean up stored state
-      previousInventoryState.remove(player);
-    } else if (EditMenuGUI.isEditMenu(title)) {
-      handleEditMenuClose(event);
-    } else if (org.bg52.curiospaper.command.CuriosCommand.isInspectSlotGUI(title)) {
-      // Save changes when admin closes the inspect slot GUI
-      saveInspectSlotGUI(player, event.getInventory());
-    } else if (org.bg52.curiospaper.command.CuriosCommand.isInspectOverviewGUI(title)) {
-      // Clean up session data when overview is closed directly
-      org.bg52.curiospaper.command.CuriosCommand.getActiveInspectSessions().remove(player.getUniqueId());
     }
   }
 
@@ -726,8 +718,8 @@ public class InventoryListener implements Listener {
     // updated layout
     Bukkit.getScheduler().runTask(plugin, () -> {
       for (Player online : Bukkit.getOnlinePlayers()) {
-        if (online.getOpenInventory() != null
-            && AccessoryGUI.isMainGUI(online.getOpenInventory().getTitle())) {
+        if (online.getOpenInventory() != null && CuriosInventoryHolder
+            .kindOf(online.getOpenInventory().getTopInventory()) == CuriosInventoryHolder.Kind.MAIN) {
           online.closeInventory();
           online.sendMessage(plugin.getMessagesManager().get("gui.layout-updated"));
         }
@@ -735,56 +727,62 @@ public class InventoryListener implements Listener {
     });
   }
 
-  private void storeInventoryState(Player player, String slotType) {
-    List<ItemStack> currentItems = plugin.getSlotManager().getAccessories(player.getUniqueId(), slotType);
-    Map<String, List<ItemStack>> stateMap = previousInventoryState.computeIfAbsent(player, k -> new HashMap<>());
-    stateMap.put(slotType.toLowerCase(), new ArrayList<>(currentItems));
+  private void fireEquipEvent(Player player, String slotType, int index, ItemStack oldItem, ItemStack newItem) {
+    // Normalize nulls and air
+    boolean oldEmpty = isEmpty(oldItem);
+    boolean newEmpty = isEmpty(newItem);
+
+    if (oldEmpty && newEmpty) {
+      return; // No change
+    }
+
+    if (!oldEmpty && newEmpty) {
+      // Item was unequipped
+      AccessoryEquipEvent equipEvent = new AccessoryEquipEvent(
+          player, slotType, index, oldItem, null, AccessoryEquipEvent.Action.UNEQUIP);
+      Bukkit.getPluginManager().callEvent(equipEvent);
+    } else if (oldEmpty) {
+      // Item was equipped
+      AccessoryEquipEvent equipEvent = new AccessoryEquipEvent(
+          player, slotType, index, null, newItem, AccessoryEquipEvent.Action.EQUIP);
+      Bukkit.getPluginManager().callEvent(equipEvent);
+    } else if (!oldItem.equals(newItem)) {
+      // Item was swapped
+      AccessoryEquipEvent equipEvent = new AccessoryEquipEvent(
+          player, slotType, index, oldItem, newItem, AccessoryEquipEvent.Action.SWAP);
+      Bukkit.getPluginManager().callEvent(equipEvent);
+    }
   }
 
-  private void fireEquipEvents(Player player, String slotType, List<ItemStack> oldItems, List<ItemStack> newItems) {
-    if (oldItems == null)
-      oldItems = new ArrayList<>();
-    if (newItems == null)
-      newItems = new ArrayList<>();
-    int maxSize = Math.max(oldItems.size(), newItems.size());
-
-    for (int i = 0; i < maxSize; i++) {
-      ItemStack oldItem = i < oldItems.size() ? oldItems.get(i) : null;
-      ItemStack newItem = i < newItems.size() ? newItems.get(i) : null;
-
-      // Normalize nulls and air
-      boolean oldEmpty = oldItem == null || oldItem.getType() == org.bukkit.Material.AIR;
-      boolean newEmpty = newItem == null || newItem.getType() == org.bukkit.Material.AIR;
+  private static boolean isEmpty(ItemStack item) {
+    return item == null || item.getType() == Material.AIR;
+  }
 
-      if (oldEmpty && newEmpty) {
-        continue; // No change
-      }
+  @EventHandler
+  public void onAccessoryEquipEvent(AccessoryEquipEvent event) {
+    // Transactions play one sound for the whole batch
+    if (event.isCancelled() || event.isBatched()) return;
+    playEquipSounds(event.getPlayer(), event.getAction());
+  }
 
-      if (!oldEmpty && newEmpty) {
-        // Item was unequipped
-        AccessoryEquipEvent equipEvent = new AccessoryEquipEvent(
-            player, slotType, i, oldItem, null, AccessoryEquipEvent.Action.UNEQUIP);
-        Bukkit.getPluginManager().callEvent(equipEvent);
-      } else if (oldEmpty && !newEmpty) {
-        // Item was equipped
-        AccessoryEquipEvent equipEvent = new AccessoryEquipEvent(
-            player, slotType, i, null, newItem, AccessoryEquipEvent.Action.EQUIP);
-        Bukkit.getPluginManager().callEvent(equipEvent);
-      } else if (!oldItem.equals(newItem)) {
-        // Item was swapped
-        AccessoryEquipEvent equipEvent = new AccessoryEquipEvent(
-            player, slotType, i, oldItem, newItem, AccessoryEquipEvent.Action.SWAP);
-        Bukkit.getPluginManager().callEvent(equipEvent);
-      }
+  @EventHandler
+  public void onAccessoryBatchEquipEvent(org.bg52.curiospaper.event.AccessoryBatchEquipEvent event) {
+    // One sound per batch, not one per changed slot
+    boolean equipped = false;
+    boolean unequipped = false;
+    for (AccessoryEquipEvent change : event.getChanges()) {
+      equipped |= change.getAction() != AccessoryEquipEvent.Action.UNEQUIP;
+      unequipped |= change.getAction() != AccessoryEquipEvent.Action.EQUIP;
+    }
+    if (equipped && unequipped) {
+      playEquipSounds(event.getPlayer(), AccessoryEquipEvent.Action.SWAP);
+    } else {
+      playEquipSounds(event.getPlayer(), equipped ? AccessoryEquipEvent.Action.EQUIP : AccessoryEquipEvent.Action.UNEQUIP);
     }
   }
 
-  @EventHandler
-  public void onAccessoryEquipEvent(AccessoryEquipEvent event) {
-    if (event.isCancelled()) return;
-    org.bukkit.entity.Player player = event.getPlayer();
-    
-    if (event.getAction() == AccessoryEquipEvent.Action.EQUIP || event.getAction() == AccessoryEquipEvent.Action.SWAP) {
+  private void playEquipSounds(org.bukkit.entity.Player player, AccessoryEquipEvent.Action action) {
+    if (action == AccessoryEquipEvent.Action.EQUIP || action == AccessoryEquipEvent.Action.SWAP) {
       if (plugin.getConfig().getBoolean("features.play-equip-sound", true)) {
         try {
           org.bukkit.Sound sound = org.bukkit.Sound.valueOf(plugin.getConfig().getString("features.equip-sound", "ENTITY_ITEM_PICKUP").toUpperCase());
@@ -793,7 +791,7 @@ public class InventoryListener implements Listener {
       }
     }
     
-    if (event.getAction() == AccessoryEquipEvent.Action.UNEQUIP || event.getAction() == AccessoryEquipEvent.Action.SWAP) {
+    if (action == AccessoryEquipEvent.Action.UNEQUIP || action == AccessoryEquipEvent.Action.SWAP) {
       if (plugin.getConfig().getBoolean("features.play-unequip-sound", true)) {
         try {
           org.bukkit.Sound sound = org.bukkit.Sound.valueOf(plugin.getConfig().getString("features.unequip-sound", "ENTITY_ITEM_PICKUP").toUpperCase());
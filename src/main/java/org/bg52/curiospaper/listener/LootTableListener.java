@@ -4,6 +4,7 @@ import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.data.ItemData;
 import org.bg52.curiospaper.data.LootTableData;
 import org.bg52.curiospaper.manager.ItemDataManager;
+import org.bg52.curiospaper.util.Timings;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.event.EventPriority;
@@ -77,8 +78,14 @@ public class LootTableListener implements Listener {
         plugin.getServer().getPluginManager().registerEvent(
             evtClass, this, EventPriority.HIGH,
             (l, e) -> {
-              if (evtClass.isInstance(e))
-                handleLootGenerate(e);
+              if (evtClass.isInstance(e)) {
+                long start = Timings.start();
+                try {
+                  handleLootGenerate(e);
+                } finally {
+                  Timings.stop(Timings.Section.LOOT, start);
+                }
+              }
             },
             plugin, true
         );
@@ -98,8 +105,14 @@ public class LootTableListener implements Listener {
         plugin.getServer().getPluginManager().registerEvent(
             evtClass, this, EventPriority.HIGH,
             (l, e) -> {
-              if (evtClass.isInstance(e))
-                handleArchaeologyDrop(e);
+              if (evtClass.isInstance(e)) {
+                long start = Timings.start();
+                try {
+                  handleArchaeologyDrop(e);
+                } finally {
+                  Timings.stop(Timings.Section.LOOT, start);
+                }
+              }
             },
             plugin, true
         );
@@ -208,7 +221,7 @@ public class LootTableListener implements Listener {
    */
   private ItemStack selectOneItem(String keyStr, boolean debug) {
     List<CandidateItem> candidates = new ArrayList<>();
-    for (ItemData itemData : itemDataManager.getAllItems().values()) {
+    for (ItemData itemData : itemDataManager.getItemsByLootTable(keyStr)) {
       for (LootTableData lootData : itemData.getLootTables()) {
         if (matchesLootTable(keyStr, lootData.getLootTableType())) {
           candidates.add(new CandidateItem(itemData, lootData));
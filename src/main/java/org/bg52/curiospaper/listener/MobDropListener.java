@@ -4,6 +4,7 @@ import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.data.ItemData;
 import org.bg52.curiospaper.data.MobDropData;
 import org.bg52.curiospaper.manager.ItemDataManager;
+import org.bg52.curiospaper.util.Timings;
 import org.bukkit.Material;
 import org.bukkit.entity.EntityType;
 import org.bukkit.event.EventHandler;
@@ -36,31 +37,49 @@ public class MobDropListener implements Listener {
 
     // Repeating task to sync the passenger armor stand rotation
     org.bukkit.Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-      Iterator<Map.Entry<org.bukkit.entity.LivingEntity, org.bukkit.entity.ArmorStand>> it = trackedModels.entrySet()
-          .iterator();
-      while (it.hasNext()) {
-        Map.Entry<org.bukkit.entity.LivingEntity, org.bukkit.entity.ArmorStand> entry = it.next();
-        org.bukkit.entity.LivingEntity mob = entry.getKey();
-        org.bukkit.entity.ArmorStand stand = entry.getValue();
-
-        if (mob == null || stand == null || !mob.isValid() || !stand.isValid()
-            || !mob.getPassengers().contains(stand)) {
-          it.remove();
-          continue;
-        }
-
-        // Sync yaw but keep pitch at 0 (flat)
-        float targetYaw = mob.getLocation().getYaw();
-        float currentYaw = stand.getLocation().getYaw();
-        if (Math.abs(targetYaw - currentYaw) > 1.0f) {
-          stand.setRotation(targetYaw, 0f);
-        }
+      long start = Timings.start();
+      try {
+        syncModelRotations();
+      } finally {
+        Timings.stop(Timings.Section.MOB_MODEL_SYNC, start);
       }
     }, 20L, 5L); // Run every tick
   }
 
+  private void syncModelRotations() {
+    Iterator<Map.Entry<org.bukkit.entity.LivingEntity, org.bukkit.entity.ArmorStand>> it = trackedModels.entrySet()
+        .iterator();
+    while (it.hasNext()) {
+      Map.Entry<org.bukkit.entity.LivingEntity, org.bukkit.entity.ArmorStand> entry = it.next();
+      org.bukkit.entity.LivingEntity mob = entry.getKey();
+      org.bukkit.entity.ArmorStand stand = entry.getValue();
+
+      if (mob == null || stand == null || !mob.isValid() || !stand.isValid()
+          || !mob.getPassengers().contains(stand)) {
+        it.remove();
+        continue;
+      }
+
+      // Sync yaw but keep pitch at 0 (flat)
+      float targetYaw = mob.getLocation().getYaw();
+      float currentYaw = stand.getLocation().getYaw();
+      if (Math.abs(targetYaw - currentYaw) > 1.0f) {
+        stand.setRotation(targetYaw, 0f);
+      }
+    }
+  }
+
   @EventHandler(priority = EventPriority.HIGH)
   public void onEntityDeath(EntityDeathEvent event) {
+    long start = Timings.start();
+    try {
+      handleEntityDeath(event);
+    } finally {
+      Timings.stop(Timings.Section.MOB_DROP, start);
+    }
+  }
+
+  private void handleEntityDeath(EntityDeathEvent event) {
     org.bukkit.entity.LivingEntity entity = event.getEntity();
     EntityType entityType = event.getEntityType();
     boolean debug = plugin.getConfig().getBoolean("debug.log-inventory-events", false);
@@ -117,9 +136,24 @@ public class MobDropListener implements Listener {
       return;
     }
 
+    ItemStack selected = selectOneDrop(entity, entityType, debug);
+    if (selected != null) {
+      event.getDrops().add(selected);
+    }
+  }
+
+  /**
+   * Selects at most ONE custom drop for a mob that died without an equipped
+   * model. Collects all items that drop from this entity type, shuffles them
+   * and picks the first one that passes its chance roll.
+   *
+   * @return the item to drop, or null if none was selected or the drop event
+   *         was cancelled
+   */
+  private ItemStack selectOneDrop(org.bukkit.entity.LivingEntity entity, EntityType entityType, boolean debug) {
     // Collect all candidates that match this entity type
     List<CandidateItem> candidates = new ArrayList<>();
-    for (ItemData itemData : itemDataManager.getAllItems().values()) {
+    for (ItemData itemData : itemDataManager.getItemsByMobDrop(entityType)) {
       for (MobDropData mobDrop : itemData.getMobDrops()) {
         if (matchesEntityType(entityType, mobDrop.getEntityType())) {
           candidates.add(new CandidateItem(itemData, mobDrop));
@@ -128,7 +162,7 @@ public class MobDropListener implements Listener {
     }
 
     if (candidates.isEmpty())
-      return;
+      return null;
 
     if (debug) {
       plugin.getLogger().info("[MobDrop] " + candidates.size() + " candidate(s) for " + entityType.name());
@@ -144,14 +178,15 @@ public class MobDropListener implements Listener {
               entity, c.itemData.getItemId(), item);
           plugin.getServer().getPluginManager().callEvent(dropEvent);
           if (!dropEvent.isCancelled() && dropEvent.getItem() != null) {
-            event.getDrops().add(dropEvent.getItem());
             if (debug) {
               plugin.getLogger().info("[MobDrop] => Selected: " + c.itemData.getItemId());
             }
-          } else if (debug) {
+            return dropEvent.getItem();
+          }
+          if (debug) {
             plugin.getLogger().info("[MobDrop] => Drop cancelled: " + c.itemData.getItemId());
           }
-          return; // At most ONE custom drop per death
+          return null; // At most ONE custom drop per death
         }
       } else if (debug) {
         plugin.getLogger().info("[MobDrop] => Chance roll failed for: " + c.itemData.getItemId());
@@ -161,6 +196,7 @@ public class MobDropListener implements Listener {
     if (debug) {
       plugin.getLogger().info("[MobDrop] => No item passed its chance roll");
     }
+    return null;
   }
 
   @EventHandler(priority = EventPriority.NORMAL)
@@ -171,7 +207,7 @@ public class MobDropListener implements Listener {
     EntityType entityType = entity.getType();
 
     // Custom mobs might have model items configured
-    for (ItemData itemData : itemDataManager.getAllItems().values()) {
+    for (ItemData itemData : itemDataManager.getItemsByMobDrop(entityType)) {
       for (MobDropData mobDrop : itemData.getMobDrops()) {
         if (mobDrop.isModelEnabled() && matchesEntityType(entityType, mobDrop.getEntityType())) {
           if (mobDrop.getModelItem() == null)
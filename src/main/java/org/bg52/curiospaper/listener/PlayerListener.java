@@ -27,12 +27,12 @@ public class PlayerListener implements Listener {
     // Send resource pack if mode is not NONE
     org.bg52.curiospaper.resourcepack.ResourcePackManager.HostingMode mode = plugin.getResourcePackManager().getHostingMode();
     if (mode != org.bg52.curiospaper.resourcepack.ResourcePackManager.HostingMode.NONE) {
-      String url = plugin.getResourcePackManager().getPackUrl();
+      String url = plugin.getResourcePackManager().getPackUrl(player);
       if (url == null || url.isEmpty()) {
         plugin.getLogger().warning("Resource pack mode is set to LINK, but resource-pack.url is empty!");
         return;
       }
-      String hash = plugin.getResourcePackManager().getPackHash();
+      String hash = plugin.getResourcePackManager().getPackHash(player);
 
       try {
         // Append hash as query param to bust client cache on pack rebuild.
@@ -66,7 +66,7 @@ public class QuickEquipListener implements Listener {
         continue;
       }
 
-      List<ItemStack> currentItems = plugin.getSlotManager().getAccessories(player.getUniqueId(), slotType);
+      List<ItemStack> currentItems = plugin.getSlotManager().getAccessoriesView(player.getUniqueId(), slotType);
       int slotAmount = config.getAmount();
 
       // Find the first empty slot
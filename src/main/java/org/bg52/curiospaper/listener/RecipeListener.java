@@ -6,6 +6,7 @@ import org.bg52.curiospaper.data.RecipeData;
 import org.bg52.curiospaper.event.CuriosCraftEvent;
 import org.bg52.curiospaper.event.CuriosRecipeTransferEvent;
 import org.bg52.curiospaper.manager.ItemDataManager;
+import org.bg52.curiospaper.util.Timings;
 import org.bg52.curiospaper.util.VersionUtil;
 import org.bukkit.Keyed;
 import org.bukkit.Material;
@@ -23,11 +24,21 @@ import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.inventory.ShapelessRecipe;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 /**
@@ -38,36 +49,110 @@ public class RecipeListener implements Listener {
   private final CuriosPaper plugin;
   private final ItemDataManager itemDataManager;
   private static final Pattern VALID_KEY_PATTERN = Pattern.compile("[a-z0-9/._-]+");
+  // The recipeIndex buckets a cooking block can use
+  private static final RecipeData.RecipeType[] COOKING_STATIONS = {
+      RecipeData.RecipeType.FURNACE, RecipeData.RecipeType.BLAST_FURNACE,
+      RecipeData.RecipeType.SMOKER, RecipeData.RecipeType.CAMPFIRE };
+
+  // Every recipe registered by us, with ingredients resolved for validation
+  private final Map<NamespacedKey, CompiledRecipe> compiledRecipes = new HashMap<>();
+  // The same keys grouped by item ID, so removal never has to guess key names
+  private final Map<String, Set<NamespacedKey>> keysByItem = new HashMap<>();
+
+  // Cooking, smithing and anvil recipes by type, then by input key (see
+  // CompiledRecipe#getIndexKey)
+  private final Map<RecipeData.RecipeType, Map<Object, List<CompiledRecipe>>> recipeIndex = new EnumMap<>(
+      RecipeData.RecipeType.class);
+
+  // PrepareSmithingEvent accessors, resolved once (the event is not in the 1.14 API)
+  private java.lang.reflect.Method smithingGetInventory;
+  private java.lang.reflect.Method smithingSetResult;
+
+  // Server#removeRecipe(NamespacedKey), 1.15+; null on 1.14
+  private java.lang.reflect.Method removeRecipeMethod;
+
+  private RegistrationTask registrationTask;
 
   public RecipeListener(CuriosPaper plugin, ItemDataManager itemDataManager) {
     this.plugin = plugin;
     this.itemDataManager = itemDataManager;
+    try {
+      removeRecipeMethod = org.bukkit.Server.class.getMethod("removeRecipe", NamespacedKey.class);
+    } catch (NoSuchMethodException e) {
+      // 1.14: fall back to a pass over the server's recipe list
+    }
     registerPrepareSmithingHandler();
   }
 
   /**
-   * Registers all recipes from loaded items
+   * Registers all recipes from loaded items. Registration is spread over
+   * several ticks, spending at most performance.recipe-registration-budget-ms
+   * per tick; a call while a previous run is pending restarts it.
    */
   public void registerAllRecipes() {
-    int registered = 0;
-    int failed = 0;
-
-    for (ItemData itemData : itemDataManager.getAllItems().values()) {
-      List<RecipeData> recipes = itemData.getRecipes();
-      for (int i = 0; i < recipes.size(); i++) {
-        RecipeData rd = recipes.get(i);
-        if (registerRecipe(itemData, rd, i, recipes.size() > 1)) {
-          registered++;
-        } else {
-          failed++;
+    cancelPendingRegistration();
+    long budgetMs = Math.max(1, plugin.getConfig().getLong("performance.recipe-registration-budget-ms", 10));
+    registrationTask = new RegistrationTask(new ArrayList<>(itemDataManager.getAllItems().values()),
+        TimeUnit.MILLISECONDS.toNanos(budgetMs));
+    registrationTask.runTaskTimer(plugin, 0L, 1L);
+  }
+
+  private void cancelPendingRegistration() {
+    if (registrationTask != null) {
+      registrationTask.cancel();
+      registrationTask = null;
+    }
+  }
+
+  /**
+   * Registers queued items' recipes until the tick budget is spent, always
+   * making progress on at least one item per tick.
+   */
+  private class RegistrationTask extends BukkitRunnable {
+    private final Iterator<ItemData> pending;
+    private final long budgetNanos;
+    private int registered = 0;
+    private int failed = 0;
+    private int ticks = 0;
+
+    RegistrationTask(List<ItemData> items, long budgetNanos) {
+      this.pending = items.iterator();
+      this.budgetNanos = budgetNanos;
+    }
+
+    @Override
+    public void run() {
+      long deadline = System.nanoTime() + budgetNanos;
+      ticks++;
+      do {
+        if (!pending.hasNext()) {
+          finish();
+          return;
         }
-      }
+
+        ItemData itemData = pending.next();
+        List<RecipeData> recipes = itemData.getRecipes();
+        for (int i = 0; i < recipes.size(); i++) {
+          RecipeData rd = recipes.get(i);
+          if (registerRecipe(itemData, rd, i, recipes.size() > 1)) {
+            registered++;
+          } else {
+            failed++;
+          }
+        }
+      } while (System.nanoTime() < deadline);
     }
 
-    plugin.getLogger().info("Recipe registration complete.");
-    plugin.getLogger().info(" Successfully registered: " + registered);
-    if (failed > 0) {
-      plugin.getLogger().info(" Failed to register: " + failed);
+    private void finish() {
+      cancel();
+      if (registrationTask == this) {
+        registrationTask = null;
+      }
+      plugin.getLogger().info("Recipe registration complete (" + ticks + " tick(s)).");
+      plugin.getLogger().info(" Successfully registered: " + registered);
+      if (failed > 0) {
+        plugin.getLogger().info(" Failed to register: " + failed);
+      }
     }
   }
 
@@ -80,29 +165,8 @@ public class RecipeListener implements Listener {
     if (itemData == null)
       return;
 
-    // 1. Calculate all potential keys for this item and remove them
-    String owningPlugin = itemData.getOwningPlugin();
-    if (owningPlugin == null || owningPlugin.isEmpty()) {
-      owningPlugin = "curiospaper";
-    }
-    owningPlugin = sanitizeKey(owningPlugin);
-    String safeItemId = sanitizeKey(itemId);
-
-    // We clean up both "single" style key and "variant" style keys
-    // Logic: just iterate server recipes once and remove any that match our prefix
-    // pattern for this item
-    String baseKey = "custom_" + owningPlugin + "_" + safeItemId;
-
-    Iterator<Recipe> it = plugin.getServer().recipeIterator();
-    while (it.hasNext()) {
-      Recipe r = it.next();
-      if (r instanceof Keyed) {
-        String key = ((Keyed) r).getKey().getKey();
-        if (key.equals(baseKey) || key.startsWith(baseKey + "_variant")) {
-          it.remove();
-        }
-      }
-    }
+    // 1. Remove every recipe we registered for this item
+    unregisterTrackedRecipes(itemData.getItemId());
 
     // 2. Register new recipes without trying to remove (since we just did)
     List<RecipeData> recipes = itemData.getRecipes();
@@ -152,42 +216,47 @@ public class RecipeListener implements Listener {
 
       NamespacedKey key = new NamespacedKey(plugin, keyString);
 
-      if (!skipRemoval) {
+      if (!skipRemoval && compiledRecipes.containsKey(key)) {
         // Remove existing if any
-        // plugin.getServer().removeRecipe(key); // Missing in 1.14
-        Iterator<Recipe> it = plugin.getServer().recipeIterator();
-        while (it.hasNext()) {
-          Recipe r = it.next();
-          if (r instanceof Keyed) {
-            if (((Keyed) r).getKey().equals(key)) {
-              it.remove();
-              break;
-            }
-          }
-        }
+        removeServerRecipes(Collections.singleton(key));
+        removeCompiled(key);
       }
 
+      boolean registered;
       switch (recipeData.getType()) {
         case SHAPED:
-          return registerShapedRecipe(key, result, recipeData);
+          registered = registerShapedRecipe(key, result, recipeData);
+          break;
         case SHAPELESS:
-          return registerShapelessRecipe(key, result, recipeData);
+          registered = registerShapelessRecipe(key, result, recipeData);
+          break;
         case FURNACE:
-          return registerFurnaceRecipe(key, result, recipeData, false, false);
+          registered = registerFurnaceRecipe(key, result, recipeData, false, false);
+          break;
         case BLAST_FURNACE:
-          return registerFurnaceRecipe(key, result, recipeData, true, false);
+          registered = registerFurnaceRecipe(key, result, recipeData, true, false);
+          break;
         case SMOKER:
-          return registerFurnaceRecipe(key, result, recipeData, false, true);
+          registered = registerFurnaceRecipe(key, result, recipeData, false, true);
+          break;
         case CAMPFIRE:
-          return registerCampfireRecipe(key, result, recipeData);
+          registered = registerCampfireRecipe(key, result, recipeData);
+          break;
         case SMITHING:
-          return registerSmithingRecipe(key, result, recipeData);
+          registered = registerSmithingRecipe(key, result, recipeData);
+          break;
         case ANVIL:
-          return true;
+          registered = true;
+          break;
         default:
-          return false;
+          registered = false;
       }
 
+      if (registered) {
+        addCompiled(key, new CompiledRecipe(itemData.getItemId(), recipeData, result, this::compileIngredient));
+      }
+      return registered;
+
     } catch (Exception e) {
       plugin.getLogger().severe("Error registering recipe for " + itemData.getItemId() + ": " + e.getMessage());
       e.printStackTrace();
@@ -340,6 +409,9 @@ public class RecipeListener implements Listener {
           .forName(
               "org.bukkit.event.inventory.PrepareSmithingEvent");
 
+      smithingGetInventory = prepareClass.getMethod("getInventory");
+      smithingSetResult = prepareClass.getMethod("setResult", ItemStack.class);
+
       org.bukkit.event.Listener dummyListener = new org.bukkit.event.Listener() {
       };
       RecipeListener self = this;
@@ -371,8 +443,7 @@ public class RecipeListener implements Listener {
    */
   private void handlePrepareSmithing(org.bukkit.event.Event event) throws Exception {
     // Get the inventory via reflection to avoid compile-time dependency
-    java.lang.reflect.Method getInventory = event.getClass().getMethod("getInventory");
-    org.bukkit.inventory.Inventory inv = (org.bukkit.inventory.Inventory) getInventory.invoke(event);
+    org.bukkit.inventory.Inventory inv = (org.bukkit.inventory.Inventory) smithingGetInventory.invoke(event);
 
     // Determine slot layout based on version
     // 1.20+ (with template): slot 0=template, 1=base, 2=addition
@@ -388,44 +459,80 @@ public class RecipeListener implements Listener {
     if (base == null || addition == null)
       return;
 
-    // Search all registered custom items for a matching smithing recipe
-    for (ItemData itemData : itemDataManager.getAllItems().values()) {
-      for (RecipeData recipe : itemData.getRecipes()) {
-        if (recipe.getType() != RecipeData.RecipeType.SMITHING)
-          continue;
+    CompiledRecipe recipe = findSmithingRecipe(template, base, addition);
+    if (recipe == null)
+      return;
 
-        if (matchesSmithing(recipe, template, base, addition)) {
-          // Create the correct result item
-          ItemStack result = createResultItem(itemData);
-          if (result == null)
-            continue;
+    // Create the correct result item
+    ItemStack result = recipe.createResult();
 
-          // Fire transfer event so plugins can copy data (e.g. backpack UUID)
-          CuriosRecipeTransferEvent transferEvent = new CuriosRecipeTransferEvent(inv, result, base);
-          plugin.getServer().getPluginManager().callEvent(transferEvent);
+    // Fire transfer event so plugins can copy data (e.g. backpack UUID)
+    CuriosRecipeTransferEvent transferEvent = new CuriosRecipeTransferEvent(inv, result, base);
+    plugin.getServer().getPluginManager().callEvent(transferEvent);
 
-          if (!transferEvent.isCancelled()) {
-            result = transferEvent.getResult();
-            result = ensureItemTags(result);
-          }
+    if (!transferEvent.isCancelled()) {
+      result = transferEvent.getResult();
+      result = ensureItemTags(result);
+    }
 
-          // Fire CuriosCraftEvent
-          CuriosCraftEvent craftEvent = new CuriosCraftEvent(inv, itemData.getItemId(), result);
-          plugin.getServer().getPluginManager().callEvent(craftEvent);
+    // Fire CuriosCraftEvent
+    CuriosCraftEvent craftEvent = new CuriosCraftEvent(inv, recipe.getItemId(), result);
+    plugin.getServer().getPluginManager().callEvent(craftEvent);
 
-          if (craftEvent.isCancelled()) {
-            result = null;
-          } else {
-            result = craftEvent.getResult();
-          }
+    if (craftEvent.isCancelled()) {
+      result = null;
+    } else {
+      result = craftEvent.getResult();
+    }
 
-          // Set result via reflection
-          java.lang.reflect.Method setResult = event.getClass().getMethod("setResult", ItemStack.class);
-          setResult.invoke(event, result);
-          return;
+    // Set result via reflection
+    smithingSetResult.invoke(event, result);
+  }
+
+  /**
+   * Finds a smithing recipe by trying each slot's possible keys, custom item
+   * ID before material. A recipe without template matches any template.
+   */
+  private CompiledRecipe findSmithingRecipe(ItemStack template, ItemStack base, ItemStack addition) {
+    Map<Object, List<CompiledRecipe>> byInput = recipeIndex.get(RecipeData.RecipeType.SMITHING);
+    if (byInput == null) {
+      return null;
+    }
+
+    Object[] templateKeys = lookupKeys(template, true);
+    Object[] baseKeys = lookupKeys(base, false);
+    Object[] additionKeys = lookupKeys(addition, false);
+    for (Object t : templateKeys) {
+      for (Object b : baseKeys) {
+        for (Object a : additionKeys) {
+          List<CompiledRecipe> recipes = byInput.get(Arrays.asList(t, b, a));
+          if (recipes != null) {
+            return recipes.get(0);
+          }
         }
       }
     }
+    return null;
+  }
+
+  /**
+   * @param wildcard also yield null, which matches recipes leaving the slot
+   *                 unspecified
+   * @return the keys an item can be indexed under, most specific first
+   */
+  private Object[] lookupKeys(ItemStack item, boolean wildcard) {
+    List<Object> keys = new ArrayList<>(3);
+    if (!CompiledRecipe.isAir(item)) {
+      String customId = getCustomItemId(item);
+      if (customId != null) {
+        keys.add(customId);
+      }
+      keys.add(item.getType());
+    }
+    if (wildcard) {
+      keys.add(null);
+    }
+    return keys.toArray();
   }
 
   private RecipeChoice resolveIngredient(String ingredient, boolean allowExact) {
@@ -437,16 +544,7 @@ public class RecipeListener implements Listener {
       return new RecipeChoice.MaterialChoice(material);
     } catch (IllegalArgumentException e) {
       // Not a vanilla material, check if it's a custom item ID
-      ItemData data = itemDataManager.getItemData(ingredient);
-      if (data == null) {
-        // Try case-insensitive lookup
-        for (ItemData idata : itemDataManager.getAllItems().values()) {
-          if (idata.getItemId().equalsIgnoreCase(ingredient)) {
-            data = idata;
-            break;
-          }
-        }
-      }
+      ItemData data = itemDataManager.getItemDataIgnoreCase(ingredient);
 
       if (data != null) {
         if (allowExact) {
@@ -484,14 +582,7 @@ public class RecipeListener implements Listener {
       plugin.getServer().addRecipe(testRecipe);
       
       // Clean up test recipe
-      Iterator<Recipe> it = plugin.getServer().recipeIterator();
-      while (it.hasNext()) {
-        Recipe r = it.next();
-        if (r instanceof Keyed && ((Keyed) r).getKey().equals(testKey)) {
-          it.remove();
-          break;
-        }
-      }
+      removeServerRecipes(Collections.singleton(testKey));
       exactChoiceSupportedForShapeless = true;
     } catch (Throwable t) {
       plugin.getLogger().info("ExactChoice on shapeless recipes is not supported by this server: " + t.getMessage());
@@ -506,10 +597,20 @@ public class RecipeListener implements Listener {
 
   @EventHandler
   public void onPrepareCraft(PrepareItemCraftEvent event) {
+    long start = Timings.start();
+    try {
+      prepareCraft(event);
+    } finally {
+      Timings.stop(Timings.Section.RECIPE_PREPARE, start);
+    }
+  }
+
+  private void prepareCraft(PrepareItemCraftEvent event) {
     ItemStack[] matrix = event.getInventory().getMatrix();
+    String[] customIds = getCustomItemIds(matrix);
     boolean containsCustomItem = false;
-    for (ItemStack item : matrix) {
-      if (item != null && getCustomItemId(item) != null) {
+    for (String id : customIds) {
+      if (id != null) {
         containsCustomItem = true;
         break;
       }
@@ -534,21 +635,17 @@ public class RecipeListener implements Listener {
     }
 
     // Strict Validation Logic
-    if (!validateCustomIngredients(key, matrix)) {
+    if (!validateCustomIngredients(key, matrix, customIds)) {
       event.getInventory().setResult(null); // Invalid craft
       return;
     }
 
     // Use the first valid custom item as the transfer source
     ItemStack sourceForTransfer = null;
-    for (ItemStack item : matrix) {
-      if (item != null && item.hasItemMeta()) {
-        PersistentDataContainer itemPdc = item.getItemMeta().getPersistentDataContainer();
-        if (itemPdc.has(plugin.getCuriosPaperAPI().getItemIdKey(), PersistentDataType.STRING)) {
-          if (sourceForTransfer == null) {
-            sourceForTransfer = item;
-          }
-        }
+    for (int i = 0; i < matrix.length; i++) {
+      if (customIds[i] != null) {
+        sourceForTransfer = matrix[i];
+        break;
       }
     }
 
@@ -586,9 +683,10 @@ public class RecipeListener implements Listener {
   @EventHandler
   public void onCraftItem(CraftItemEvent event) {
     ItemStack[] matrix = event.getInventory().getMatrix();
+    String[] customIds = getCustomItemIds(matrix);
     boolean containsCustomItem = false;
-    for (ItemStack item : matrix) {
-      if (item != null && getCustomItemId(item) != null) {
+    for (String id : customIds) {
+      if (id != null) {
         containsCustomItem = true;
         break;
       }
@@ -613,272 +711,87 @@ public class RecipeListener implements Listener {
     }
 
     // Also check if validation passes
-    if (!validateCustomIngredients(key, matrix)) {
+    if (!validateCustomIngredients(key, matrix, customIds)) {
       event.setCancelled(true);
     }
   }
 
   /**
-   * Strictly validates that the framing matrix matches the custom requirements
+   * Strictly validates that the crafting matrix matches the custom requirements
    */
-  private boolean validateCustomIngredients(NamespacedKey recipeKey, ItemStack[] matrix) {
-    // 1. Identify the recipe definition from the key
-    RecipeDefinition definition = parseRecipeDefinition(recipeKey);
-    if (definition == null || definition.recipeData == null) {
+  private boolean validateCustomIngredients(NamespacedKey recipeKey, ItemStack[] matrix, String[] customIds) {
+    CompiledRecipe recipe = compiledRecipes.get(recipeKey);
+    if (recipe == null) {
       // Should not happen if key is ours, unless data reload removed it
       return false;
     }
-
-    RecipeData data = definition.recipeData;
-
-    if (data.getType() == RecipeData.RecipeType.SHAPED) {
-      return validateShaped(data, matrix);
-    } else if (data.getType() == RecipeData.RecipeType.SHAPELESS) {
-      return validateShapeless(data, matrix);
-    }
-
-    return true;
+    return recipe.matches(matrix, customIds);
   }
 
-  private boolean validateShapeless(RecipeData data, ItemStack[] matrix) {
-    // Create a list of required ingredients
-    List<String> requirements = new ArrayList<>(data.getIngredients().values());
-
-    // Create a list of provided items
-    List<ItemStack> provided = new ArrayList<>();
-    for (ItemStack is : matrix) {
-      if (is != null && is.getType() != Material.AIR) {
-        provided.add(is);
-      }
+  private void addCompiled(NamespacedKey key, CompiledRecipe recipe) {
+    CompiledRecipe previous = compiledRecipes.put(key, recipe);
+    if (previous != null) {
+      unindex(key, previous);
     }
+    keysByItem.computeIfAbsent(recipe.getItemId(), id -> new LinkedHashSet<>()).add(key);
 
-    if (provided.size() != requirements.size()) {
-      return false; // Mismatch in count
+    Object inputKey = recipe.getIndexKey();
+    if (inputKey != null) {
+      recipeIndex.computeIfAbsent(recipe.getData().getType(), t -> new HashMap<>())
+          .computeIfAbsent(inputKey, k -> new ArrayList<>(1))
+          .add(recipe);
     }
-
-    // Match provided items to requirements
-    // We use a simple greedy match (since ingredients are interchangeable in
-    // shapeless)
-    // But we must respect custom IDs.
-
-    // Create a temp copy of requirements to tick off
-    List<String> remainingReqs = new ArrayList<>(requirements);
-
-    for (ItemStack item : provided) {
-      boolean matched = false;
-      for (int i = 0; i < remainingReqs.size(); i++) {
-        String req = remainingReqs.get(i);
-        if (matchesRequirement(req, item)) {
-          remainingReqs.remove(i);
-          matched = true;
-          break;
-        }
-      }
-      if (!matched) {
-        return false; // Item in matrix that matches no requirement
-      }
-    }
-
-    return remainingReqs.isEmpty();
   }
 
-  private boolean validateShaped(RecipeData data, ItemStack[] matrix) {
-    // Need to find the bounds of the items in the matrix to align with recipe shape
-    int minRow = 2, maxRow = 0, minCol = 2, maxCol = 0;
-    boolean empty = true;
-
-    for (int r = 0; r < 3; r++) {
-      for (int c = 0; c < 3; c++) {
-        if (matrix[r * 3 + c] != null && matrix[r * 3 + c].getType() != Material.AIR) {
-          empty = false;
-          if (r < minRow)
-            minRow = r;
-          if (r > maxRow)
-            maxRow = r;
-          if (c < minCol)
-            minCol = c;
-          if (c > maxCol)
-            maxCol = c;
-        }
-      }
+  private void removeCompiled(NamespacedKey key) {
+    CompiledRecipe recipe = compiledRecipes.remove(key);
+    if (recipe != null) {
+      unindex(key, recipe);
     }
-
-    if (empty)
-      return false;
-
-    return checkShapedMatch(data, matrix);
   }
 
-  // Checks if the matrix matches the shape definition strictly
-  private boolean checkShapedMatch(RecipeData data, ItemStack[] matrix) {
-    String[] shape = data.getShape();
-    Map<Character, String> ingredients = data.getIngredients();
-
-    // Converting shape to a character grid for easier handling
-    char[][] shapeGrid = new char[3][3];
-    for (int r = 0; r < 3; r++) {
-      String row = (shape[r] != null) ? shape[r] : "  ";
-      // Pad to 3
-      while (row.length() < 3)
-        row += " ";
-      shapeGrid[r] = row.toCharArray();
-    }
-
-    // Locate top-left non-air item in matrix
-    // We iterate offsets to align the shape on top of the matrix items.
-
-    for (int rowOffset = -2; rowOffset <= 2; rowOffset++) {
-      for (int colOffset = -2; colOffset <= 2; colOffset++) {
-        if (matchesAtOffset(matrix, shapeGrid, ingredients, rowOffset, colOffset)) {
-          return true;
-        }
+  private void unindex(NamespacedKey key, CompiledRecipe recipe) {
+    Set<NamespacedKey> itemKeys = keysByItem.get(recipe.getItemId());
+    if (itemKeys != null) {
+      itemKeys.remove(key);
+      if (itemKeys.isEmpty()) {
+        keysByItem.remove(recipe.getItemId());
       }
     }
-    return false;
-  }
-
-  private boolean matchesAtOffset(ItemStack[] matrix, char[][] shapeGrid, Map<Character, String> ingredients,
-      int rowOffset, int colOffset) {
-
-    // First, verify that all matrix cells match the recipe's requirement at this
-    // offset
-    for (int r = 0; r < 3; r++) {
-      for (int c = 0; c < 3; c++) {
-        int shapeR = r - rowOffset;
-        int shapeC = c - colOffset;
-
-        ItemStack item = matrix[r * 3 + c];
-        boolean itemIsAir = (item == null || item.getType() == Material.AIR);
-
-        char requiredChar = ' ';
-        if (shapeR >= 0 && shapeR < 3 && shapeC >= 0 && shapeC < 3) {
-          requiredChar = shapeGrid[shapeR][shapeC];
-        }
 
-        // If ingredient is defined
-        if (ingredients.containsKey(requiredChar)) {
-          String reqString = ingredients.get(requiredChar);
-          if (!matchesRequirement(reqString, item)) {
-            return false;
-          }
-        } else {
-          // Expecting Air (Empty slot in recipe)
-          if (!itemIsAir) {
-            return false;
-          }
-        }
-      }
+    Object inputKey = recipe.getIndexKey();
+    Map<Object, List<CompiledRecipe>> byInput = recipeIndex.get(recipe.getData().getType());
+    if (inputKey == null || byInput == null) {
+      return;
     }
-
-    // SECOND: Crucially verify that we haven't "pushed" any required ingredients
-    // out of the 3x3 crafting grid via the offset.
-    for (int sr = 0; sr < 3; sr++) {
-      for (int sc = 0; sc < 3; sc++) {
-        char c = shapeGrid[sr][sc];
-        if (c != ' ' && ingredients.containsKey(c)) {
-          // This cell of the recipe HAS an ingredient. Its position in the matrix must be
-          // valid.
-          int matrixR = sr + rowOffset;
-          int matrixC = sc + colOffset;
-
-          if (matrixR < 0 || matrixR >= 3 || matrixC < 0 || matrixC >= 3) {
-            // A required ingredient was pushed outside the matrix bounds!
-            return false;
-          }
-        }
+    List<CompiledRecipe> recipes = byInput.get(inputKey);
+    if (recipes != null) {
+      recipes.remove(recipe);
+      if (recipes.isEmpty()) {
+        byInput.remove(inputKey);
       }
     }
-
-    return true;
   }
 
-  private boolean matchesRequirement(String reqString, ItemStack item) {
-    if (item == null || item.getType() == Material.AIR)
-      return false;
-
-    // Check if requirement is a Custom Item ID
-    ItemData customData = itemDataManager.getItemData(reqString);
-    if (customData == null) {
-      // Case-insensitive lookup for custom item ID
-      for (ItemData idata : itemDataManager.getAllItems().values()) {
-        if (idata.getItemId().equalsIgnoreCase(reqString)) {
-          customData = idata;
-          break;
-        }
-      }
+  /**
+   * Resolves an ingredient string once, at registration: custom item IDs
+   * (case-insensitive) take precedence over vanilla material names.
+   */
+  private CompiledRecipe.Ingredient compileIngredient(String reqString) {
+    if (reqString == null) {
+      return CompiledRecipe.Ingredient.NONE;
     }
 
+    ItemData customData = itemDataManager.getItemDataIgnoreCase(reqString);
     if (customData != null) {
-      return isCustomItem(item, customData.getItemId());
-    } else {
-      // Requirement is a vanilla material, verify item material matches
-      try {
-        Material reqMat = Material.valueOf(reqString.toUpperCase());
-        return item.getType() == reqMat;
-      } catch (Exception e) {
-        return false;
-      }
+      return CompiledRecipe.Ingredient.custom(customData.getItemId());
     }
-  }
-
-  private boolean isCustomItem(ItemStack item, String targetId) {
-    if (item == null || !item.hasItemMeta())
-      return false;
-    PersistentDataContainer pdc = item.getItemMeta().getPersistentDataContainer();
-    NamespacedKey idKey = plugin.getCuriosPaperAPI().getItemIdKey();
-    if (!pdc.has(idKey, PersistentDataType.STRING))
-      return false;
-    String id = pdc.get(idKey, PersistentDataType.STRING);
-    return id != null && id.equals(targetId);
-  }
-
-  private static class RecipeDefinition {
-    RecipeData recipeData;
-  }
-
-  private RecipeDefinition parseRecipeDefinition(NamespacedKey key) {
-    // Format: custom_<plugin>_<itemid>[_variantN]
-    String keyStr = key.getKey();
-    if (!keyStr.startsWith("custom_"))
-      return null;
 
-    String remaining = keyStr.substring(7); // <plugin>_<itemid>[_variantN]
-
-    // Since both plugin and itemid can contain underscores, we iterate all items
-    // and find which one produces a key that matches this one.
-    for (ItemData data : itemDataManager.getAllItems().values()) {
-      String owningPlugin = data.getOwningPlugin();
-      if (owningPlugin == null || owningPlugin.isEmpty()) {
-        owningPlugin = "curiospaper";
-      }
-      String safePlugin = sanitizeKey(owningPlugin.toLowerCase());
-      String safeItem = sanitizeKey(data.getItemId().toLowerCase());
-
-      String baseKey = safePlugin + "_" + safeItem;
-      if (remaining.startsWith(baseKey)) {
-        String suffix = remaining.substring(baseKey.length());
-        int variantIndex = 0;
-
-        if (suffix.startsWith("_variant")) {
-          try {
-            variantIndex = Integer.parseInt(suffix.substring(8));
-          } catch (NumberFormatException ignored) {
-          }
-        } else if (!suffix.isEmpty()) {
-          // Some other suffix, doesn't match this item
-          continue;
-        }
-
-        List<RecipeData> recipes = data.getRecipes();
-        if (variantIndex >= 0 && variantIndex < recipes.size()) {
-          RecipeDefinition def = new RecipeDefinition();
-          def.recipeData = recipes.get(variantIndex);
-          return def;
-        }
-      }
+    try {
+      return CompiledRecipe.Ingredient.material(Material.valueOf(reqString.toUpperCase()));
+    } catch (IllegalArgumentException e) {
+      return CompiledRecipe.Ingredient.NONE;
     }
-
-    return null;
   }
 
   @EventHandler
@@ -942,18 +855,6 @@ public class RecipeListener implements Listener {
     }
   }
 
-  private boolean matchesSmithing(RecipeData recipe, ItemStack template, ItemStack base, ItemStack addition) {
-    if (recipe.getTemplateItem() != null && !recipe.getTemplateItem().isEmpty()) {
-      if (!matchesRequirement(recipe.getTemplateItem(), template))
-        return false;
-    }
-    if (!matchesRequirement(recipe.getBaseItem(), base))
-      return false;
-    if (!matchesRequirement(recipe.getAdditionItem(), addition))
-      return false;
-    return true;
-  }
-
   @EventHandler
   public void onFurnaceSmelt(FurnaceSmeltEvent event) {
     handleCooking(event, event.getSource(), event.getResult());
@@ -969,30 +870,26 @@ public class RecipeListener implements Listener {
   private void handleCooking(org.bukkit.event.block.BlockCookEvent event, ItemStack source, ItemStack result) {
     String sourceId = getCustomItemId(source);
     String resultId = getCustomItemId(result);
+    if (sourceId == null && resultId == null) {
+      // Case 3: Both are vanilla - let Bukkit handle it normally
+      return;
+    }
+
+    RecipeData.RecipeType station = cookingTypeOf(event.getBlock());
 
     // Case 1: Source is a custom item
     if (sourceId != null) {
-      ItemData matchedItemData = null;
-      // Search for a custom recipe that accepts this specific custom item
-      for (ItemData itemData : itemDataManager.getAllItems().values()) {
-        for (RecipeData recipe : itemData.getRecipes()) {
-          if (isFurnaceType(recipe.getType()) && matchesRequirement(recipe.getInputItem(), source)) {
-            matchedItemData = itemData;
-            break;
-          }
-        }
-        if (matchedItemData != null)
-          break;
-      }
+      // Find a custom recipe that accepts this specific custom item
+      CompiledRecipe matched = findCookingRecipe(station, source, sourceId, null);
 
-      if (matchedItemData != null) {
+      if (matched != null) {
         // We found a valid custom recipe for this custom source.
         // Ensure the result is set to the correct custom result.
-        if (resultId == null || !resultId.equals(matchedItemData.getItemId())) {
-          ItemStack newResult = createResultItem(matchedItemData);
+        if (resultId == null || !resultId.equals(matched.getItemId())) {
+          ItemStack newResult = matched.createResult();
           event.setResult(newResult);
           result = newResult;
-          resultId = matchedItemData.getItemId();
+          resultId = matched.getItemId();
         }
       } else {
         // Strict mode: A custom item was cooked but no custom recipe exists.
@@ -1002,31 +899,16 @@ public class RecipeListener implements Listener {
       }
     }
     // Case 2: Source is vanilla, but result is custom
-    else if (resultId != null) {
-      ItemData resultData = itemDataManager.getItemData(resultId);
-      boolean isValid = false;
-      if (resultData != null) {
-        for (RecipeData recipe : resultData.getRecipes()) {
-          if (isFurnaceType(recipe.getType()) && matchesRequirement(recipe.getInputItem(), source)) {
-            isValid = true;
-            break;
-          }
-        }
-      }
-
-      if (!isValid) {
-        event.setCancelled(true);
-        return;
-      }
+    else if (findCookingRecipe(station, source, null, resultId) == null) {
+      event.setCancelled(true);
+      return;
     }
 
-    // Case 3: Both are vanilla - let Bukkit handle it normally (do nothing)
-
     // Data transfer for custom results
     if (resultId != null && result != null) {
-      if (event.getBlock().getState() instanceof org.bukkit.inventory.InventoryHolder) {
-        org.bukkit.inventory.Inventory inv = ((org.bukkit.inventory.InventoryHolder) event.getBlock()
-            .getState()).getInventory();
+      org.bukkit.block.BlockState state = event.getBlock().getState();
+      if (state instanceof org.bukkit.inventory.InventoryHolder) {
+        org.bukkit.inventory.Inventory inv = ((org.bukkit.inventory.InventoryHolder) state).getInventory();
         CuriosRecipeTransferEvent transferEvent = new CuriosRecipeTransferEvent(inv, result, source);
         plugin.getServer().getPluginManager().callEvent(transferEvent);
 
@@ -1048,6 +930,77 @@ public class RecipeListener implements Listener {
     }
   }
 
+  /**
+   * Looks up a cooking recipe for the given input in the station's index.
+   *
+   * @param station  the cooking station, or null to search all cooking stations
+   * @param sourceId the source's custom item ID, or null if it is vanilla
+   * @param resultId only accept recipes producing this item, or null for any
+   */
+  private CompiledRecipe findCookingRecipe(RecipeData.RecipeType station, ItemStack source, String sourceId,
+      String resultId) {
+    if (station == null) {
+      for (RecipeData.RecipeType type : COOKING_STATIONS) {
+        CompiledRecipe recipe = findCookingRecipe(type, source, sourceId, resultId);
+        if (recipe != null) {
+          return recipe;
+        }
+      }
+      return null;
+    }
+
+    Map<Object, List<CompiledRecipe>> byInput = recipeIndex.get(station);
+    if (byInput == null) {
+      return null;
+    }
+
+    // A custom input is more specific than a material input of the same type
+    if (sourceId != null) {
+      CompiledRecipe recipe = firstProducing(byInput.get(sourceId), resultId);
+      if (recipe != null) {
+        return recipe;
+      }
+    }
+    return firstProducing(byInput.get(source.getType()), resultId);
+  }
+
+  private CompiledRecipe firstProducing(List<CompiledRecipe> recipes, String resultId) {
+    if (recipes == null) {
+      return null;
+    }
+    for (CompiledRecipe recipe : recipes) {
+      if (resultId == null || resultId.equals(recipe.getItemId())) {
+        return recipe;
+      }
+    }
+    return null;
+  }
+
+  private RecipeData.RecipeType cookingTypeOf(org.bukkit.block.Block block) {
+    // Matched by name: SOUL_CAMPFIRE is not in the 1.14 API
+    switch (block.getType().name()) {
+      case "FURNACE":
+        return RecipeData.RecipeType.FURNACE;
+      case "BLAST_FURNACE":
+        return RecipeData.RecipeType.BLAST_FURNACE;
+      case "SMOKER":
+        return RecipeData.RecipeType.SMOKER;
+      case "CAMPFIRE":
+      case "SOUL_CAMPFIRE":
+        return RecipeData.RecipeType.CAMPFIRE;
+      default:
+        return null;
+    }
+  }
+
+  private String[] getCustomItemIds(ItemStack[] items) {
+    String[] ids = new String[items.length];
+    for (int i = 0; i < items.length; i++) {
+      ids[i] = getCustomItemId(items[i]);
+    }
+    return ids;
+  }
+
   private String getCustomItemId(ItemStack item) {
     if (item == null || !item.hasItemMeta())
       return null;
@@ -1056,13 +1009,6 @@ public class RecipeListener implements Listener {
     return pdc.get(key, PersistentDataType.STRING);
   }
 
-  private boolean isFurnaceType(RecipeData.RecipeType type) {
-    return type == RecipeData.RecipeType.FURNACE ||
-        type == RecipeData.RecipeType.BLAST_FURNACE ||
-        type == RecipeData.RecipeType.SMOKER ||
-        type == RecipeData.RecipeType.CAMPFIRE;
-  }
-
   @EventHandler
   public void onPrepareAnvil(org.bukkit.event.inventory.PrepareAnvilEvent event) {
     org.bukkit.inventory.AnvilInventory inv = event.getInventory();
@@ -1072,82 +1018,112 @@ public class RecipeListener implements Listener {
     if (left == null || right == null)
       return;
 
-    for (ItemData itemData : itemDataManager.getAllItems().values()) {
-      for (RecipeData recipe : itemData.getRecipes()) {
-        if (recipe.getType() == RecipeData.RecipeType.ANVIL) {
-          if (matchesAnvil(recipe, left, right)) {
-            ItemStack result = createResultItem(itemData);
-
-            CuriosRecipeTransferEvent transferEvent = new CuriosRecipeTransferEvent(inv, result, left);
-            plugin.getServer().getPluginManager().callEvent(transferEvent);
-
-            if (!transferEvent.isCancelled()) {
-              ItemStack resultItem = transferEvent.getResult();
-              resultItem = ensureItemTags(resultItem);
-
-              // Fire CuriosCraftEvent
-              CuriosCraftEvent craftEvent = new CuriosCraftEvent(inv, itemData.getItemId(), resultItem);
-              plugin.getServer().getPluginManager().callEvent(craftEvent);
-
-              if (craftEvent.isCancelled()) {
-                event.setResult(null);
-              } else {
-                event.setResult(craftEvent.getResult());
-              }
-
-              plugin.getServer().getScheduler().runTask(plugin, () -> {
-                if (event.getView() != null) {
-                  event.getInventory().setRepairCost((int) recipe.getExperience());
-                }
-              });
-            }
-            return;
-          }
-        }
+    CompiledRecipe recipe = findAnvilRecipe(left, right);
+    if (recipe == null)
+      return;
+
+    ItemStack result = recipe.createResult();
+
+    CuriosRecipeTransferEvent transferEvent = new CuriosRecipeTransferEvent(inv, result, left);
+    plugin.getServer().getPluginManager().callEvent(transferEvent);
+
+    if (!transferEvent.isCancelled()) {
+      ItemStack resultItem = transferEvent.getResult();
+      resultItem = ensureItemTags(resultItem);
+
+      // Fire CuriosCraftEvent
+      CuriosCraftEvent craftEvent = new CuriosCraftEvent(inv, recipe.getItemId(), resultItem);
+      plugin.getServer().getPluginManager().callEvent(craftEvent);
+
+      if (craftEvent.isCancelled()) {
+        event.setResult(null);
+      } else {
+        event.setResult(craftEvent.getResult());
       }
+
+      int repairCost = (int) recipe.getData().getExperience();
+      plugin.getServer().getScheduler().runTask(plugin, () -> {
+        if (event.getView() != null) {
+          event.getInventory().setRepairCost(repairCost);
+        }
+      });
     }
   }
 
-  private boolean matchesAnvil(RecipeData recipe, ItemStack left, ItemStack right) {
-    return matchesRequirement(recipe.getLeftInput(), left) && matchesRequirement(recipe.getRightInput(), right);
+  private CompiledRecipe findAnvilRecipe(ItemStack left, ItemStack right) {
+    Map<Object, List<CompiledRecipe>> byInput = recipeIndex.get(RecipeData.RecipeType.ANVIL);
+    if (byInput == null) {
+      return null;
+    }
+
+    for (Object l : lookupKeys(left, false)) {
+      for (Object r : lookupKeys(right, false)) {
+        List<CompiledRecipe> recipes = byInput.get(Arrays.asList(l, r));
+        if (recipes != null) {
+          return recipes.get(0);
+        }
+      }
+    }
+    return null;
   }
 
   public boolean unregisterRecipe(String itemId) {
     ItemData data = itemDataManager.getItemData(itemId);
-    if (data != null) {
-      String owningPlugin = data.getOwningPlugin();
-      if (owningPlugin == null || owningPlugin.isEmpty()) {
-        owningPlugin = "curiospaper";
-      }
-      owningPlugin = sanitizeKey(owningPlugin);
-      String safeItemId = sanitizeKey(itemId);
-
-      List<RecipeData> recipes = data.getRecipes();
-      for (int i = 0; i < recipes.size(); i++) {
-        String keyString = "custom_" + owningPlugin + "_" + safeItemId;
-        if (recipes.size() > 1) {
-          keyString += "_variant" + i;
-        }
-        NamespacedKey key = new NamespacedKey(plugin, keyString);
-        // plugin.getServer().removeRecipe(key); // Missing in 1.14
-        Iterator<Recipe> it = plugin.getServer().recipeIterator();
-        while (it.hasNext()) {
-          Recipe r = it.next();
-          if (r instanceof Keyed && ((Keyed) r).getKey().equals(key)) {
-            it.remove();
-          }
+    boolean removed = unregisterTrackedRecipes(data != null ? data.getItemId() : itemId);
+    return removed || data != null;
+  }
+
+  public void unregisterAllRecipes() {
+    cancelPendingRegistration();
+    removeServerRecipes(compiledRecipes.keySet());
+    compiledRecipes.clear();
+    keysByItem.clear();
+    recipeIndex.clear();
+    plugin.getLogger().info("Unregistered all custom recipes");
+  }
+
+  private boolean unregisterTrackedRecipes(String itemId) {
+    Set<NamespacedKey> keys = keysByItem.get(itemId);
+    if (keys == null) {
+      return false;
+    }
+    List<NamespacedKey> snapshot = new ArrayList<>(keys);
+    removeServerRecipes(snapshot);
+    for (NamespacedKey key : snapshot) {
+      removeCompiled(key);
+    }
+    return true;
+  }
+
+  /**
+   * Removes recipes from the server by key: directly on 1.15+, otherwise in a
+   * single pass over the server's recipes for the whole batch.
+   */
+  private void removeServerRecipes(Collection<NamespacedKey> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+
+    if (removeRecipeMethod != null) {
+      try {
+        for (NamespacedKey key : keys) {
+          removeRecipeMethod.invoke(plugin.getServer(), key);
         }
+        return;
+      } catch (Exception e) {
+        plugin.getLogger().warning("Server#removeRecipe failed, falling back to recipe iteration: " + e.getMessage());
+        removeRecipeMethod = null;
       }
-      return true;
     }
-    return false;
-  }
 
-  public void unregisterAllRecipes() {
-    for (String itemId : itemDataManager.getAllItemIds()) {
-      unregisterRecipe(itemId);
+    Set<NamespacedKey> remaining = new HashSet<>(keys);
+    Iterator<Recipe> it = plugin.getServer().recipeIterator();
+    while (it.hasNext() && !remaining.isEmpty()) {
+      Recipe r = it.next();
+      if (r instanceof Keyed && remaining.remove(((Keyed) r).getKey())) {
+        it.remove();
+      }
     }
-    plugin.getLogger().info("Unregistered all custom recipes");
   }
 
   private ItemStack ensureItemTags(ItemStack item) {
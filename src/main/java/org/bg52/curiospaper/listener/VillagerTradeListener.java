@@ -5,6 +5,7 @@ import org.bg52.curiospaper.data.ItemData;
 import org.bg52.curiospaper.data.VillagerTradeData;
 import org.bg52.curiospaper.data.VillagerTradeData.TradeCost;
 import org.bg52.curiospaper.manager.ItemDataManager;
+import org.bg52.curiospaper.manager.VillagerTradeCandidate;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Villager;
@@ -27,13 +28,17 @@ public class VillagerTradeListener implements Listener {
   private final CuriosPaper plugin;
   private final ItemDataManager itemDataManager;
   private final Random random;
+  // Legacy marker: comma-joined item IDs
   private final NamespacedKey CUSTOM_TRADES_KEY;
+  // Marker: bit set of item ordinals (ItemDataManager#getItemOrdinal)
+  private final NamespacedKey CUSTOM_TRADE_BITS_KEY;
 
   public VillagerTradeListener(CuriosPaper plugin, ItemDataManager itemDataManager) {
     this.plugin = plugin;
     this.itemDataManager = itemDataManager;
     this.random = new Random();
     this.CUSTOM_TRADES_KEY = new NamespacedKey(plugin, "custom_trades");
+    this.CUSTOM_TRADE_BITS_KEY = new NamespacedKey(plugin, "custom_trade_bits");
   }
 
   @EventHandler(priority = EventPriority.HIGH)
@@ -62,77 +67,66 @@ public class VillagerTradeListener implements Listener {
       level = getVillagerLevel(villager);
     }
 
-    // Get all items that can have villager trades
-    for (ItemData itemData : itemDataManager.getAllItems().values()) {
-      for (VillagerTradeData tradeData : itemData.getVillagerTrades()) {
-        // Check if this trade applies to this villager/wandering trader
-        if (!tradeData.appliesToProfession(professionName)) {
-          continue;
-        }
+    // Get the trades indexed for this profession and level
+    List<VillagerTradeCandidate> candidates = itemDataManager.getTradeCandidates(professionName, level);
+    if (candidates.isEmpty()) {
+      return;
+    }
 
-        // Check if this trade applies to this level
-        if (!tradeData.appliesToLevel(level)) {
-          continue;
-        }
+    // Read the villager's markers once for all candidates
+    BitSet received = getCustomTrades(abstractVillager);
+    List<MerchantRecipe> added = null;
 
-        // Check if villager already has this trade (duplicate prevention)
-        if (hasCustomTrade(abstractVillager, itemData.getItemId())) {
-          continue;
-        }
+    for (VillagerTradeCandidate candidate : candidates) {
+      ItemData itemData = candidate.getItem();
+      VillagerTradeData tradeData = candidate.getTrade();
 
-        // Roll for chance
-        if (random.nextDouble() < tradeData.getChance()) {
-          // Create and add the trade
-          MerchantRecipe recipe = createTradeRecipe(itemData, tradeData);
-          if (recipe != null) {
-            // Add trade to villager/wandering trader
-            List<MerchantRecipe> recipes = new ArrayList<>(abstractVillager.getRecipes());
-            recipes.add(recipe);
-            abstractVillager.setRecipes(recipes);
-
-            // Mark that this villager has received this trade
-            markCustomTrade(abstractVillager, itemData.getItemId());
-
-            if (plugin.getConfig().getBoolean("debug.log-inventory-events", false)) {
-              plugin.getLogger().info("Added custom trade for item " + itemData.getItemId() +
-                  " to " + (isWanderingTrader ? "wandering trader" : "villager at level " + level));
-            }
+      // Check if villager already has this trade (duplicate prevention)
+      if (received.get(candidate.getItemOrdinal())) {
+        continue;
+      }
+
+      // Roll for chance
+      if (random.nextDouble() < tradeData.getChance()) {
+        // Create and add the trade
+        MerchantRecipe recipe = createTradeRecipe(candidate);
+        if (recipe != null) {
+          if (added == null) {
+            added = new ArrayList<>();
           }
+          added.add(recipe);
+
+          // Mark that this villager has received this trade
+          received.set(candidate.getItemOrdinal());
 
+          if (plugin.getConfig().getBoolean("debug.log-inventory-events", false)) {
+            plugin.getLogger().info("Added custom trade for item " + itemData.getItemId() +
+                " to " + (isWanderingTrader ? "wandering trader" : "villager at level " + level));
+          }
         }
       }
     }
+
+    if (added != null) {
+      // Add trades to villager/wandering trader
+      List<MerchantRecipe> recipes = new ArrayList<>(abstractVillager.getRecipes());
+      recipes.addAll(added);
+      abstractVillager.setRecipes(recipes);
+      setCustomTrades(abstractVillager, received);
+    }
   }
 
   /**
    * Creates a MerchantRecipe from trade data
    */
-  private MerchantRecipe createTradeRecipe(ItemData itemData, VillagerTradeData tradeData) {
+  private MerchantRecipe createTradeRecipe(VillagerTradeCandidate candidate) {
+    ItemData itemData = candidate.getItem();
+    VillagerTradeData tradeData = candidate.getTrade();
     try {
-      // Create the result item
-      Material material = Material.valueOf(itemData.getMaterial().toUpperCase());
-      ItemStack result = new ItemStack(material, 1);
-
-      // Set display name, lore, and item model
-      if (itemData.getDisplayName() != null) {
-        org.bukkit.inventory.meta.ItemMeta meta = result.getItemMeta();
-        if (meta != null) {
-          meta.setDisplayName(itemData.getDisplayName());
-          if (!itemData.getLore().isEmpty()) {
-            meta.setLore(itemData.getLore());
-          }
-          // Apply item model if specified (version-aware)
-          if (itemData.getItemModel() != null && !itemData.getItemModel().isEmpty()) {
-            org.bg52.curiospaper.util.VersionUtil.setItemModelSafe(meta, itemData.getItemModel(),
-                itemData.getCustomModelData());
-          }
-          result.setItemMeta(meta);
-        }
-      }
-
-      // Tag the item for the appropriate slot if specified
-      if (itemData.getSlotType() != null && !itemData.getSlotType().isEmpty()) {
-        result = plugin.getCuriosPaperAPI().tagAccessoryItem(result, itemData.getSlotType());
+      // The result item is built once per trade and copied from then on
+      ItemStack result = candidate.createResult(this::createTradeResult);
+      if (result == null) {
+        return null;
       }
 
       // Create the cost items
@@ -171,6 +165,43 @@ public class VillagerTradeListener implements Listener {
     }
   }
 
+  /**
+   * Creates the result item of an item's trades
+   */
+  private ItemStack createTradeResult(ItemData itemData) {
+    try {
+      // Create the result item
+      Material material = Material.valueOf(itemData.getMaterial().toUpperCase());
+      ItemStack result = new ItemStack(material, 1);
+
+      // Set display name, lore, and item model
+      if (itemData.getDisplayName() != null) {
+        org.bukkit.inventory.meta.ItemMeta meta = result.getItemMeta();
+        if (meta != null) {
+          meta.setDisplayName(itemData.getDisplayName());
+          if (!itemData.getLore().isEmpty()) {
+            meta.setLore(itemData.getLore());
+          }
+          // Apply item model if specified (version-aware)
+          if (itemData.getItemModel() != null && !itemData.getItemModel().isEmpty()) {
+            org.bg52.curiospaper.util.VersionUtil.setItemModelSafe(meta, itemData.getItemModel(),
+                itemData.getCustomModelData());
+          }
+          result.setItemMeta(meta);
+        }
+      }
+
+      // Tag the item for the appropriate slot if specified
+      if (itemData.getSlotType() != null && !itemData.getSlotType().isEmpty()) {
+        result = plugin.getCuriosPaperAPI().tagAccessoryItem(result, itemData.getSlotType());
+      }
+      return result;
+    } catch (IllegalArgumentException e) {
+      plugin.getLogger().warning("Invalid material in trade configuration for item " + itemData.getItemId());
+      return null;
+    }
+  }
+
   /**
    * Gets the villager's profession level
    */
@@ -194,31 +225,34 @@ public class VillagerTradeListener implements Listener {
   }
 
   /**
-   * Checks if a villager/wandering trader already has a custom trade for a
-   * specific item
+   * Reads the items a villager/wandering trader has already received a custom
+   * trade for, as a set of item ordinals. Villagers still carrying the old
+   * comma-joined ID list are converted on the way.
    */
-  private boolean hasCustomTrade(org.bukkit.entity.AbstractVillager abstractVillager, String itemId) {
+  private BitSet getCustomTrades(org.bukkit.entity.AbstractVillager abstractVillager) {
     PersistentDataContainer container = abstractVillager.getPersistentDataContainer();
-    String[] trades = container.getOrDefault(CUSTOM_TRADES_KEY, PersistentDataType.STRING, "").split(",");
-    return Arrays.asList(trades).contains(itemId);
+    long[] bits = container.get(CUSTOM_TRADE_BITS_KEY, PersistentDataType.LONG_ARRAY);
+    BitSet received = bits == null ? new BitSet() : BitSet.valueOf(bits);
+
+    String legacy = container.get(CUSTOM_TRADES_KEY, PersistentDataType.STRING);
+    if (legacy != null) {
+      for (String itemId : legacy.split(",")) {
+        if (!itemId.isEmpty()) {
+          received.set(itemDataManager.getItemOrdinal(itemId));
+        }
+      }
+      container.remove(CUSTOM_TRADES_KEY);
+      setCustomTrades(abstractVillager, received);
+    }
+    return received;
   }
 
   /**
-   * Marks that a villager/wandering trader has received a custom trade for a
-   * specific item
+   * Stores the items a villager/wandering trader has received a custom trade for
    */
-  private void markCustomTrade(org.bukkit.entity.AbstractVillager abstractVillager, String itemId) {
-    PersistentDataContainer container = abstractVillager.getPersistentDataContainer();
-    String existing = container.getOrDefault(CUSTOM_TRADES_KEY, PersistentDataType.STRING, "");
-
-    List<String> trades = new ArrayList<>(Arrays.asList(existing.split(",")));
-    trades.removeIf(String::isEmpty);
-
-    if (!trades.contains(itemId)) {
-      trades.add(itemId);
-    }
-
-    container.set(CUSTOM_TRADES_KEY, PersistentDataType.STRING, String.join(",", trades));
+  private void setCustomTrades(org.bukkit.entity.AbstractVillager abstractVillager, BitSet received) {
+    abstractVillager.getPersistentDataContainer().set(CUSTOM_TRADE_BITS_KEY, PersistentDataType.LONG_ARRAY,
+        received.toLongArray());
   }
 
   /**
@@ -0,0 +1,118 @@
+package org.bg52.curiospaper.manager;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The stored items of one slot type of one player, by slot index. Every write
+ * goes through set/add/remove, which keep the number of non-empty slots up to
+ * date, so counting equipped items never scans or copies the list. Main thread
+ * only, like the rest of SlotManager.
+ */
+final class AccessoryList extends AbstractList<ItemStack> implements RandomAccess {
+  private ItemStack[] items;
+  private int size;
+  private int occupied;
+  private List<ItemStack> view;
+
+  AccessoryList(int capacity) {
+    items = new ItemStack[Math.max(capacity, 1)];
+  }
+
+  AccessoryList(Collection<? extends ItemStack> items) {
+    this(items.size());
+    addAll(items);
+  }
+
+  @Override
+  public ItemStack get(int index) {
+    checkIndex(index);
+    return items[index];
+  }
+
+  @Override
+  public ItemStack set(int index, ItemStack item) {
+    checkIndex(index);
+    ItemStack old = items[index];
+    items[index] = item;
+    occupied += (isOccupied(item) ? 1 : 0) - (isOccupied(old) ? 1 : 0);
+    return old;
+  }
+
+  @Override
+  public void add(int index, ItemStack item) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (size == items.length) {
+      items = Arrays.copyOf(items, size * 2);
+    }
+    System.arraycopy(items, index, items, index + 1, size - index);
+    items[index] = item;
+    size++;
+    modCount++;
+    if (isOccupied(item)) {
+      occupied++;
+    }
+  }
+
+  @Override
+  public ItemStack remove(int index) {
+    checkIndex(index);
+    ItemStack old = items[index];
+    System.arraycopy(items, index + 1, items, index, size - index - 1);
+    items[--size] = null;
+    modCount++;
+    if (isOccupied(old)) {
+      occupied--;
+    }
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(items, 0, size, null);
+    size = 0;
+    occupied = 0;
+    modCount++;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of non-empty slots
+   */
+  int occupied() {
+    return occupied;
+  }
+
+  /**
+   * @return a read-only view of this list, created once
+   */
+  List<ItemStack> view() {
+    if (view == null) {
+      view = Collections.unmodifiableList(this);
+    }
+    return view;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  static boolean isOccupied(ItemStack item) {
+    return item != null && item.getType() != Material.AIR;
+  }
+}
@@ -0,0 +1,367 @@
+package org.bg52.curiospaper.manager;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.data.ItemData;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Hot reload for items/*.yml and the slots section of config.yml
+ * (features.hot-reload). A background thread waits for file changes, lets a
+ * burst of them settle, parses only the files that changed and hands the
+ * results to the main thread, which applies each changed item or slot on its
+ * own: the item index is updated in place, and recipes are only re-registered
+ * for items whose recipes or result item changed.
+ */
+public class ContentWatcher {
+  /** How long the files must be quiet before a batch of changes is applied. */
+  private static final long SETTLE_MILLIS = 500;
+
+  /** Item file sections that don't affect the item's recipes or their result. */
+  private static final Set<String> NON_RECIPE_KEYS = new HashSet<>(
+      Arrays.asList("loot-tables", "mob-drops", "villager-trades", "abilities"));
+
+  private final CuriosPaper plugin;
+  private final ItemDataManager itemDataManager;
+  private final File configFile;
+
+  private WatchService watchService;
+  private Path itemsPath;
+  private Thread thread;
+
+  // Watcher thread only: slot leaf values as last applied
+  private Map<String, Map<String, Object>> lastSlots = new LinkedHashMap<>();
+
+  /** An item file as parsed off the main thread. */
+  private static class ItemChange {
+    final String fileName;
+    final boolean deleted;
+    final long checksum;
+    final ItemData data;
+    final Map<String, Object> values;
+
+    ItemChange(String fileName, boolean deleted, long checksum, ItemData data, Map<String, Object> values) {
+      this.fileName = fileName;
+      this.deleted = deleted;
+      this.checksum = checksum;
+      this.data = data;
+      this.values = values;
+    }
+  }
+
+  public ContentWatcher(CuriosPaper plugin, ItemDataManager itemDataManager) {
+    this.plugin = plugin;
+    this.itemDataManager = itemDataManager;
+    this.configFile = new File(plugin.getDataFolder(), "config.yml");
+  }
+
+  /**
+   * Starts watching if features.hot-reload is enabled. Must be called on the
+   * main thread.
+   */
+  public void start() {
+    if (!plugin.getConfig().getBoolean("features.hot-reload", false) || thread != null) {
+      return;
+    }
+
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      itemsPath = itemDataManager.getItemsFolder().toPath();
+      itemsPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+      plugin.getDataFolder().toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException e) {
+      plugin.getLogger().warning("Could not start hot reload: " + e.getMessage());
+      return;
+    }
+
+    lastSlots = slotValues(plugin.getConfig().getConfigurationSection("slots"));
+    thread = new Thread(this::run, "CuriosPaper-Watcher");
+    thread.setDaemon(true);
+    thread.start();
+    plugin.getLogger().info("Hot reload enabled for items and slots.");
+  }
+
+  public void stop() {
+    if (thread == null) {
+      return;
+    }
+    try {
+      watchService.close();
+    } catch (IOException ignored) {
+    }
+    thread.interrupt();
+    thread = null;
+  }
+
+  private void run() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        Set<String> changedItems = new LinkedHashSet<>();
+        boolean configChanged = collect(watchService.take(), changedItems);
+
+        // Editors often save in several steps; wait for the burst to end
+        WatchKey key;
+        while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          configChanged |= collect(key, changedItems);
+        }
+
+        process(changedItems, configChanged);
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // Stopped
+    }
+  }
+
+  /**
+   * @return whether config.yml was among the events
+   */
+  private boolean collect(WatchKey key, Set<String> changedItems) {
+    boolean configChanged = false;
+    boolean inItems = itemsPath.equals(key.watchable());
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        continue;
+      }
+      String name = event.context().toString();
+      if (inItems && name.endsWith(".yml")) {
+        changedItems.add(name);
+      } else if (!inItems && name.equals("config.yml")) {
+        configChanged = true;
+      }
+    }
+    key.reset();
+    return configChanged;
+  }
+
+  private void process(Set<String> changedItems, boolean configChanged) {
+    List<ItemChange> items = new ArrayList<>();
+    for (String name : changedItems) {
+      ItemChange change = parseItem(name);
+      if (change != null) {
+        items.add(change);
+      }
+    }
+
+    Map<String, ConfigurationSection> changedSlots = new LinkedHashMap<>();
+    Set<String> removedSlots = new LinkedHashSet<>();
+    if (configChanged) {
+      diffSlots(changedSlots, removedSlots);
+    }
+
+    if (items.isEmpty() && changedSlots.isEmpty() && removedSlots.isEmpty()) {
+      return;
+    }
+    if (!plugin.isEnabled()) {
+      return;
+    }
+    plugin.getServer().getScheduler().runTask(plugin, () -> {
+      if (!changedSlots.isEmpty() || !removedSlots.isEmpty()) {
+        // Keep getConfig() in step with the file, or the next saveConfig()
+        // would write the old slots back
+        plugin.reloadConfig();
+        plugin.getConfigManager().applySlotChanges(changedSlots, removedSlots);
+      }
+      boolean slotsAffected = false;
+      for (ItemChange change : items) {
+        slotsAffected |= applyItem(change);
+      }
+      if (slotsAffected) {
+        plugin.getConfigManager().recalculateSlotActivityFromItems();
+      }
+    });
+  }
+
+  private ItemChange parseItem(String fileName) {
+    File file = new File(itemDataManager.getItemsFolder(), fileName);
+    if (!file.exists()) {
+      return new ItemChange(fileName, true, 0, null, null);
+    }
+
+    try {
+      byte[] bytes = Files.readAllBytes(file.toPath());
+      CRC32 crc = new CRC32();
+      crc.update(bytes, 0, bytes.length);
+
+      YamlConfiguration config = new YamlConfiguration();
+      config.loadFromString(new String(bytes, StandardCharsets.UTF_8));
+      ItemData data = ItemData.loadFromConfig(config);
+      if (data == null || !data.isValid()) {
+        plugin.getLogger().warning("✗ Invalid item data in file: " + fileName + " (not reloaded)");
+        return null;
+      }
+      return new ItemChange(fileName, false, crc.getValue(), data, values(data));
+    } catch (IOException | InvalidConfigurationException e) {
+      plugin.getLogger().warning("✗ Failed to reload item from " + fileName + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  private void diffSlots(Map<String, ConfigurationSection> changed, Set<String> removed) {
+    YamlConfiguration config = new YamlConfiguration();
+    try {
+      config.load(configFile);
+    } catch (IOException | InvalidConfigurationException e) {
+      plugin.getLogger().warning("Could not reload slots from config.yml: " + e.getMessage());
+      return;
+    }
+
+    ConfigurationSection slots = config.getConfigurationSection("slots");
+    Map<String, Map<String, Object>> current = slotValues(slots);
+    for (Map.Entry<String, Map<String, Object>> entry : current.entrySet()) {
+      if (!entry.getValue().equals(lastSlots.get(entry.getKey()))) {
+        changed.put(entry.getKey(), slots.getConfigurationSection(entry.getKey()));
+      }
+    }
+    for (String key : lastSlots.keySet()) {
+      if (!current.containsKey(key)) {
+        removed.add(key);
+      }
+    }
+    lastSlots = current;
+  }
+
+  /**
+   * Applies one changed item file on the main thread.
+   *
+   * @return whether slot activity has to be recalculated
+   */
+  private boolean applyItem(ItemChange change) {
+    if (change.deleted) {
+      // The file may have declared an ID other than its name
+      String itemId = itemDataManager.getFileItemId(change.fileName);
+      if (itemId == null || itemDataManager.isWritePending(itemId)) {
+        return false;
+      }
+      return unloadFileItem(change.fileName, itemId);
+    }
+
+    ItemData data = change.data;
+    String itemId = data.getItemId();
+    // Our own write, or the in-memory copy has newer edits still to be written
+    if (itemDataManager.isOwnWrite(change.fileName, change.checksum) || itemDataManager.isWritePending(itemId)) {
+      return false;
+    }
+    if (data.getOwningPlugin() != null
+        && plugin.getServer().getPluginManager().getPlugin(data.getOwningPlugin()) == null) {
+      plugin.getLogger().warning("Skipping item '" + itemId + "' because owning plugin '"
+          + data.getOwningPlugin() + "' is missing.");
+      return false;
+    }
+
+    // The file used to declare another ID: that item is gone now
+    boolean unloaded = false;
+    String previousId = itemDataManager.getFileItemId(change.fileName);
+    boolean renamed = previousId != null && !previousId.equals(itemId);
+    if (renamed && !itemDataManager.isWritePending(previousId)) {
+      unloaded = unloadFileItem(change.fileName, previousId);
+    }
+
+    ItemData previous = itemDataManager.getItemData(itemId);
+    Set<String> changedKeys = previous == null ? change.values.keySet() : changedKeys(values(previous), change.values);
+    if (changedKeys.isEmpty()) {
+      if (renamed) {
+        // Same as the loaded item, but now declared by this file
+        itemDataManager.putLoadedItem(change.fileName, data);
+      }
+      return unloaded;
+    }
+
+    itemDataManager.putLoadedItem(change.fileName, data);
+    boolean recipesAffected = previous == null || !NON_RECIPE_KEYS.containsAll(changedKeys);
+    if (recipesAffected && plugin.getRecipeListener() != null) {
+      plugin.getRecipeListener().reloadItemRecipes(itemId);
+    }
+    plugin.getLogger().info("✓ Hot-reload: " + (previous == null ? "loaded" : "updated") + " item " + itemId
+        + (previous == null ? "" : " (" + String.join(", ", changedKeys) + ")"));
+    return unloaded || previous == null || changedKeys.contains("slot-type");
+  }
+
+  /**
+   * @return whether an item was unloaded
+   */
+  private boolean unloadFileItem(String fileName, String itemId) {
+    if (itemDataManager.unloadItemFile(fileName) == null) {
+      return false;
+    }
+    if (plugin.getRecipeListener() != null) {
+      plugin.getRecipeListener().unregisterRecipe(itemId);
+    }
+    plugin.getLogger().info("✓ Hot-reload: unloaded item " + itemId);
+    return true;
+  }
+
+  /**
+   * @return the top-level keys whose values differ
+   */
+  private static Set<String> changedKeys(Map<String, Object> before, Map<String, Object> after) {
+    Set<String> keys = new LinkedHashSet<>();
+    Set<String> paths = new HashSet<>(before.keySet());
+    paths.addAll(after.keySet());
+    for (String path : paths) {
+      Object a = before.get(path);
+      Object b = after.get(path);
+      if (a == null ? b != null : !a.equals(b)) {
+        int dot = path.indexOf('.');
+        keys.add(dot < 0 ? path : path.substring(0, dot));
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * The item's saved form as leaf path -> value, so an edited file can be
+   * compared field by field with the loaded item.
+   */
+  private static Map<String, Object> values(ItemData data) {
+    YamlConfiguration config = new YamlConfiguration();
+    data.saveToConfig(config);
+    return leaves(config);
+  }
+
+  private static Map<String, Map<String, Object>> slotValues(ConfigurationSection slots) {
+    Map<String, Map<String, Object>> values = new LinkedHashMap<>();
+    if (slots != null) {
+      for (String key : slots.getKeys(false)) {
+        ConfigurationSection section = slots.getConfigurationSection(key);
+        values.put(key, section == null ? new HashMap<>() : leaves(section));
+      }
+    }
+    return values;
+  }
+
+  private static Map<String, Object> leaves(ConfigurationSection section) {
+    Map<String, Object> leaves = new HashMap<>();
+    for (Map.Entry<String, Object> entry : section.getValues(true).entrySet()) {
+      if (!(entry.getValue() instanceof ConfigurationSection)) {
+        leaves.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return leaves;
+  }
+}
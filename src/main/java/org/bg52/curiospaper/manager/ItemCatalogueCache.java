@@ -0,0 +1,271 @@
+package org.bg52.curiospaper.manager;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Binary copy of the parsed items/*.yml files, so a warm restart only runs the
+ * YAML parser on files that changed. Each record holds the file's size, a
+ * CRC32 of its bytes, a CRC32 of the payload and the parsed document encoded
+ * as a plain tree. The modification time isn't trusted, since copying or
+ * restoring files can keep it while the content changes. Stale, corrupt or
+ * unknown records are ignored and the file is parsed normally.
+ *
+ * <p>
+ * {@link #get} and {@link #put} may be called from loader threads.
+ */
+class ItemCatalogueCache {
+  private static final int MAGIC = 0x43504943; // "CPIC"
+  private static final int VERSION = 2;
+
+  private static final byte NULL = 0, STRING = 1, INT = 2, LONG = 3, DOUBLE = 4, BOOLEAN = 5, LIST = 6, MAP = 7;
+
+  private static class Record {
+    final long size;
+    final long sourceHash;
+    final long checksum;
+    final byte[] payload;
+
+    Record(long size, long sourceHash, long checksum, byte[] payload) {
+      this.size = size;
+      this.sourceHash = sourceHash;
+      this.checksum = checksum;
+      this.payload = payload;
+    }
+  }
+
+  private final File file;
+  private final Logger logger;
+  private final Map<String, Record> previous = new ConcurrentHashMap<>();
+  private final Map<String, Record> current = new ConcurrentHashMap<>();
+  private volatile boolean changed;
+
+  ItemCatalogueCache(File file, Logger logger) {
+    this.file = file;
+    this.logger = logger;
+  }
+
+  /**
+   * Reads the cache file, if any. A missing or unreadable file just means
+   * every item gets parsed.
+   */
+  void load() {
+    previous.clear();
+    current.clear();
+    changed = false;
+    if (!file.isFile()) {
+      return;
+    }
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        long size = in.readLong();
+        long sourceHash = in.readLong();
+        long checksum = in.readLong();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        previous.put(name, new Record(size, sourceHash, checksum, payload));
+      }
+    } catch (EOFException e) {
+      logger.warning("Item cache is truncated, affected items will be re-parsed.");
+    } catch (IOException e) {
+      logger.warning("Could not read item cache: " + e.getMessage());
+    }
+  }
+
+  /**
+   * @param content the current bytes of the file
+   * @return the cached document for this file, or null if it has to be parsed
+   */
+  YamlConfiguration get(File source, byte[] content) {
+    Record record = previous.get(source.getName());
+    if (record == null || record.size != content.length || record.sourceHash != checksum(content)) {
+      return null;
+    }
+    if (checksum(record.payload) != record.checksum) {
+      return null;
+    }
+
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.payload))) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> root = (Map<String, Object>) readValue(in);
+      YamlConfiguration config = new YamlConfiguration();
+      for (Map.Entry<String, Object> entry : root.entrySet()) {
+        if (entry.getValue() instanceof Map) {
+          config.createSection(entry.getKey(), (Map<?, ?>) entry.getValue());
+        } else {
+          config.set(entry.getKey(), entry.getValue());
+        }
+      }
+      current.put(source.getName(), record);
+      return config;
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Stores a freshly parsed document. Documents holding values the cache can't
+   * encode (serialized objects, dates...) are left out and parsed every time.
+   */
+  void put(File source, byte[] content, YamlConfiguration config) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        writeValue(out, config);
+      }
+      byte[] payload = bytes.toByteArray();
+      current.put(source.getName(),
+          new Record(content.length, checksum(content), checksum(payload), payload));
+      changed = true;
+    } catch (IOException | IllegalArgumentException e) {
+      // Not cacheable
+    }
+  }
+
+  /**
+   * Writes the records used by this load, replacing the file atomically.
+   */
+  void save() {
+    if (!changed && current.size() == previous.size()) {
+      return;
+    }
+
+    File temp = new File(file.getPath() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(current.size());
+        for (Map.Entry<String, Record> entry : current.entrySet()) {
+          Record record = entry.getValue();
+          out.writeUTF(entry.getKey());
+          out.writeLong(record.size);
+          out.writeLong(record.sourceHash);
+          out.writeLong(record.checksum);
+          out.writeInt(record.payload.length);
+          out.write(record.payload);
+        }
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warning("Could not write item cache: " + e.getMessage());
+      temp.delete();
+    }
+  }
+
+  private static long checksum(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload, 0, payload.length);
+    return crc.getValue();
+  }
+
+  private static void writeValue(DataOutputStream out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof String) {
+      byte[] utf8 = ((String) value).getBytes(StandardCharsets.UTF_8);
+      out.writeByte(STRING);
+      out.writeInt(utf8.length);
+      out.write(utf8);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      out.writeByte(LIST);
+      out.writeInt(list.size());
+      for (Object element : list) {
+        writeValue(out, element);
+      }
+    } else if (value instanceof ConfigurationSection) {
+      writeValue(out, ((ConfigurationSection) value).getValues(false));
+    } else if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      out.writeByte(MAP);
+      out.writeInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        writeValue(out, String.valueOf(entry.getKey()));
+        writeValue(out, entry.getValue());
+      }
+    } else {
+      throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+    }
+  }
+
+  private static Object readValue(DataInputStream in) throws IOException {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case STRING: {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+      }
+      case INT:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case DOUBLE:
+        return in.readDouble();
+      case BOOLEAN:
+        return in.readBoolean();
+      case LIST: {
+        int size = in.readInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(in));
+        }
+        return list;
+      }
+      case MAP: {
+        int size = in.readInt();
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+          map.put((String) readValue(in), readValue(in));
+        }
+        return map;
+      }
+      default:
+        throw new IOException("Unknown tag " + tag);
+    }
+  }
+}
@@ -3,12 +3,22 @@ package org.bg52.curiospaper.manager;
 import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.data.ItemData;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.EntityType;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages custom item data including recipes, loot tables, and mob drops.
@@ -18,11 +28,28 @@ public class ItemDataManager {
   private final CuriosPaper plugin;
   private final File itemsFolder;
   private final Map<String, ItemData> loadedItems;
+  // File name -> ID of the item it declares, so a file removed on disk unloads
+  // the item it held even when the ID doesn't match the file name
+  private final Map<String, String> itemFiles;
+  // Stable item numbers for compact markers, see ItemOrdinals
+  private final ItemOrdinals ordinals;
+  // Secondary lookups, kept in step with loadedItems on load, save and delete
+  private final ItemIndex index;
+  // Parsed copies of unchanged item files, for faster restarts
+  private final ItemCatalogueCache catalogueCache;
+  // Coalesced off-thread writes of item files
+  private final ItemWriteQueue writeQueue;
 
   public ItemDataManager(CuriosPaper plugin) {
     this.plugin = plugin;
     this.itemsFolder = new File(plugin.getDataFolder(), "items");
     this.loadedItems = new HashMap<>();
+    this.itemFiles = new HashMap<>();
+    this.ordinals = new ItemOrdinals(plugin, new File(plugin.getDataFolder(), "item-ordinals.yml"));
+    this.index = new ItemIndex(ordinals::ordinalOf);
+    this.catalogueCache = new ItemCatalogueCache(new File(plugin.getDataFolder(), "item-cache.bin"),
+        plugin.getLogger());
+    this.writeQueue = new ItemWriteQueue(plugin);
 
     // Create items folder if it doesn't exist
     if (!itemsFolder.exists()) {
@@ -35,10 +62,15 @@ public class ItemDataManager {
   }
 
   /**
-   * Loads all item data files from the items folder
+   * Loads all item data files from the items folder. Files are parsed in
+   * parallel (or taken from the item cache when unchanged) and then applied in
+   * file name order on the calling thread, so the result doesn't depend on
+   * which parse finishes first.
    */
   public void loadAllItems() {
     loadedItems.clear();
+    itemFiles.clear();
+    index.clear();
 
     if (!itemsFolder.exists() || !itemsFolder.isDirectory()) {
       plugin.getLogger().warning("Items folder does not exist or is not a directory!");
@@ -50,49 +82,65 @@ public class ItemDataManager {
       plugin.getLogger().info("No custom items found in items folder.");
       return;
     }
+    Arrays.sort(files, Comparator.comparing(File::getName));
+
+    boolean useCache = plugin.getConfig().getBoolean("performance.item-cache", true);
+    if (useCache) {
+      catalogueCache.load();
+    }
+    ParsedItem[] parsed = parseAll(files, useCache);
 
     int loaded = 0;
     int failed = 0;
     int skipped = 0;
 
-    for (File file : files) {
-      try {
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-        ItemData data = ItemData.loadFromConfig(config);
-
-        if (data != null && data.isValid()) {
-          // Check for owning plugin dependency
-          if (data.getOwningPlugin() != null) {
-            if (plugin.getServer().getPluginManager().getPlugin(data.getOwningPlugin()) == null) {
-              // Owning plugin is missing
-              plugin.getLogger().warning("Skipping item '" + data.getItemId()
-                  + "' because owning plugin '" + data.getOwningPlugin() + "' is missing.");
-
-              // Delete the file as requested
-              if (file.delete()) {
-                plugin.getLogger().info("Deleted orphan item file: " + file.getName());
-              } else {
-                plugin.getLogger().warning("Failed to delete orphan item file: " + file.getName());
-              }
-
-              skipped++;
-              continue;
+    for (ParsedItem result : parsed) {
+      File file = result.file;
+      if (result.error != null) {
+        plugin.getLogger().severe("✗ Failed to load item from " + file.getName() + ": " + result.error);
+        failed++;
+        continue;
+      }
+
+      ItemData data = result.data;
+      if (data != null && data.isValid()) {
+        // Check for owning plugin dependency
+        if (data.getOwningPlugin() != null) {
+          if (plugin.getServer().getPluginManager().getPlugin(data.getOwningPlugin()) == null) {
+            // Owning plugin is missing
+            plugin.getLogger().warning("Skipping item '" + data.getItemId()
+                + "' because owning plugin '" + data.getOwningPlugin() + "' is missing.");
+
+            // Delete the file as requested
+            if (file.delete()) {
+              plugin.getLogger().info("Deleted orphan item file: " + file.getName());
+            } else {
+              plugin.getLogger().warning("Failed to delete orphan item file: " + file.getName());
             }
+
+            skipped++;
+            continue;
           }
+        }
 
-          loadedItems.put(data.getItemId(), data);
-          loaded++;
-          plugin.getLogger().info("✓ Loaded item: " + data.getItemId());
-        } else {
-          plugin.getLogger().warning("✗ Invalid item data in file: " + file.getName());
-          failed++;
+        ItemData previous = loadedItems.put(data.getItemId(), data);
+        if (previous != null) {
+          index.remove(previous);
         }
-      } catch (Exception e) {
-        plugin.getLogger().severe("✗ Failed to load item from " + file.getName() + ": " + e.getMessage());
+        index.add(data);
+        itemFiles.put(file.getName(), data.getItemId());
+        loaded++;
+        plugin.getLogger().info("✓ Loaded item: " + data.getItemId());
+      } else {
+        plugin.getLogger().warning("✗ Invalid item data in file: " + file.getName());
         failed++;
       }
     }
 
+    if (useCache) {
+      catalogueCache.save();
+    }
+
     plugin.getLogger().info("Item data loading complete:");
     plugin.getLogger().info(" Successfully loaded: " + loaded);
     if (skipped > 0) {
@@ -103,6 +151,102 @@ public class ItemDataManager {
     }
   }
 
+  /** Outcome of parsing one item file off the main thread. */
+  private static class ParsedItem {
+    final File file;
+    ItemData data;
+    String error;
+    volatile boolean done;
+
+    ParsedItem(File file) {
+      this.file = file;
+    }
+  }
+
+  /**
+   * Parses the given files on a bounded pool sized by
+   * performance.item-load-threads. Parsing only touches the file and
+   * configuration API; everything that needs the server happens afterwards on
+   * the calling thread.
+   *
+   * @return one result per file, in the same order
+   */
+  private ParsedItem[] parseAll(File[] files, boolean useCache) {
+    ParsedItem[] results = new ParsedItem[files.length];
+    for (int i = 0; i < files.length; i++) {
+      results[i] = new ParsedItem(files[i]);
+    }
+
+    int threads = plugin.getConfig().getInt("performance.item-load-threads", 0);
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    threads = Math.min(threads, files.length);
+
+    if (threads <= 1) {
+      for (ParsedItem result : results) {
+        parse(result, useCache);
+      }
+      return results;
+    }
+
+    AtomicInteger threadId = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "CuriosPaper-ItemLoader-" + threadId.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<?>> futures = new ArrayList<>(results.length);
+      for (ParsedItem result : results) {
+        futures.add(pool.submit(() -> parse(result, useCache)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // parse() records its own failures
+      plugin.getLogger().severe("Item loader failed: " + e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+
+    for (ParsedItem result : results) {
+      // Left over after an interrupt or a failed task
+      if (!result.done) {
+        parse(result, useCache);
+      }
+    }
+    return results;
+  }
+
+  private void parse(ParsedItem result, boolean useCache) {
+    try {
+      // Read once: the cache compares a hash of these bytes, and a miss
+      // parses them
+      byte[] content = java.nio.file.Files.readAllBytes(result.file.toPath());
+      YamlConfiguration config = useCache ? catalogueCache.get(result.file, content) : null;
+      boolean cached = config != null;
+      if (useCache) {
+        plugin.getMetricsRegistry().itemCacheLookup(cached);
+      }
+      if (!cached) {
+        config = new YamlConfiguration();
+        config.loadFromString(new String(content, java.nio.charset.StandardCharsets.UTF_8));
+      }
+      result.data = ItemData.loadFromConfig(config);
+      if (useCache && !cached && result.data != null && result.data.isValid()) {
+        catalogueCache.put(result.file, content, config);
+      }
+    } catch (Exception e) {
+      result.error = String.valueOf(e.getMessage());
+    } finally {
+      result.done = true;
+    }
+  }
+
   /**
    * Creates a new item with the given ID
    */
@@ -128,6 +272,7 @@ public class ItemDataManager {
     }
 
     loadedItems.put(itemId, data);
+    index.add(data);
 
     return data;
   }
@@ -146,7 +291,8 @@ public class ItemDataManager {
   }
 
   /**
-   * Saves item data to disk
+   * Saves item data to disk. The file is written shortly after on a background
+   * thread; repeated saves of the same item in the meantime are written once.
    */
   public boolean saveItemData(ItemData data) {
     if (!data.isValid()) {
@@ -154,21 +300,34 @@ public class ItemDataManager {
       return false;
     }
 
-    File file = new File(itemsFolder, data.getItemId() + ".yml");
+    writeQueue.schedule(data, new File(itemsFolder, data.getItemId() + ".yml"));
+    itemFiles.put(data.getItemId() + ".yml", data.getItemId());
 
-    try {
-      YamlConfiguration config = new YamlConfiguration();
-      data.saveToConfig(config);
-      config.save(file);
+    // The data may have been edited in place, re-index under its current keys
+    if (loadedItems.get(data.getItemId()) == data) {
+      index.add(data);
+    }
 
-      // Recalculate active slots so GUI updates immediately
-      plugin.getConfigManager().recalculateSlotActivityFromItems();
+    // Recalculate active slots so GUI updates immediately
+    plugin.getConfigManager().recalculateSlotActivityFromItems();
 
-      return true;
-    } catch (IOException e) {
-      plugin.getLogger().severe("✗ Failed to save item " + data.getItemId() + ": " + e.getMessage());
-      return false;
-    }
+    return true;
+  }
+
+  /**
+   * Writes all pending item saves and waits for them to finish
+   */
+  public void flushPendingSaves() {
+    writeQueue.flush();
+  }
+
+  /**
+   * Writes all pending item saves and stops the writer thread. Called on
+   * disable, after which saves are written synchronously.
+   */
+  public void shutdown() {
+    writeQueue.shutdown();
+    ordinals.save();
   }
 
   /**
@@ -191,6 +350,8 @@ public class ItemDataManager {
 
       if (data != null && data.isValid()) {
         loadedItems.put(itemId, data);
+        index.add(data);
+        itemFiles.put(file.getName(), itemId);
         return data;
       }
     } catch (Exception e) {
@@ -207,6 +368,84 @@ public class ItemDataManager {
     return loadedItems.get(itemId);
   }
 
+  /**
+   * Gets item data by ID, falling back to a case-insensitive match
+   */
+  public ItemData getItemDataIgnoreCase(String itemId) {
+    ItemData data = loadedItems.get(itemId);
+    return data != null ? data : index.getByIdIgnoreCase(itemId);
+  }
+
+  /**
+   * Gets the first item with exactly this display name (color codes included)
+   */
+  public ItemData getItemByDisplayName(String displayName) {
+    return index.getByDisplayName(displayName);
+  }
+
+  /**
+   * Gets all items that can be equipped in the given slot type
+   */
+  public Collection<ItemData> getItemsBySlot(String slotType) {
+    return index.getBySlot(slotType);
+  }
+
+  /**
+   * Gets every slot type (lower-cased) used by at least one item
+   */
+  public Set<String> getUsedSlotTypes() {
+    return index.getSlotTypes();
+  }
+
+  /**
+   * Gets all items with a mob drop entry for the given entity type
+   */
+  public Collection<ItemData> getItemsByMobDrop(EntityType entityType) {
+    return index.getByEntity(entityType);
+  }
+
+  /**
+   * Gets all items with a loot table entry that may match the given loot table
+   * key. Entries match on the full path or a trailing segment of it, so callers
+   * still check each entry of the returned items.
+   */
+  public Collection<ItemData> getItemsByLootTable(String lootTableKey) {
+    return index.getByLootTable(lootTableKey);
+  }
+
+  /**
+   * Gets all items with a villager trade for the given profession, including
+   * trades that apply to every profession
+   */
+  public Collection<ItemData> getItemsByTradeProfession(String profession) {
+    return index.getByProfession(profession);
+  }
+
+  /**
+   * Gets the villager trades that a villager of the given profession can be
+   * offered at the given level (1-5), including trades that apply to every
+   * profession
+   */
+  public List<VillagerTradeCandidate> getTradeCandidates(String profession, int level) {
+    return index.getByTrade(profession, level);
+  }
+
+  /**
+   * Gets the stable number of an item ID, assigning one on first use. Numbers
+   * are never reused, so they can stand in for the ID in stored markers.
+   */
+  public int getItemOrdinal(String itemId) {
+    return ordinals.ordinalOf(itemId);
+  }
+
+  /**
+   * Gets all items with a recipe that uses the given material or custom item
+   * ID (case-insensitive) as an ingredient
+   */
+  public Collection<ItemData> getItemsByRecipeInput(String input) {
+    return index.getByRecipeInput(input);
+  }
+
   /**
    * Checks if an item exists
    */
@@ -222,6 +461,9 @@ public class ItemDataManager {
     if (data == null) {
       return false;
     }
+    index.remove(data);
+    writeQueue.discard(itemId);
+    itemFiles.values().remove(itemId);
 
     File file = new File(itemsFolder, itemId + ".yml");
     if (file.exists()) {
@@ -236,6 +478,7 @@ public class ItemDataManager {
         plugin.getLogger().warning("Failed to unload item file: " + itemId + ".yml");
         // Re-add to loaded items since file deletion failed
         loadedItems.put(itemId, data);
+        index.add(data);
         return false;
       }
     } else {
@@ -246,6 +489,66 @@ public class ItemDataManager {
     return true;
   }
 
+  /**
+   * Replaces or adds a loaded item in memory only, as read from a file changed
+   * on disk.
+   *
+   * @return the previously loaded item with that ID, or null
+   */
+  ItemData putLoadedItem(String fileName, ItemData data) {
+    ItemData previous = loadedItems.put(data.getItemId(), data);
+    if (previous != null) {
+      index.remove(previous);
+    }
+    index.add(data);
+    itemFiles.put(fileName, data.getItemId());
+    return previous;
+  }
+
+  /**
+   * @return the ID of the item last loaded from this file, or null
+   */
+  String getFileItemId(String fileName) {
+    return itemFiles.get(fileName);
+  }
+
+  /**
+   * Drops the item a file declared from memory only, after the file was
+   * removed on disk or now declares another ID. The item stays loaded if
+   * another file declares the same ID.
+   *
+   * @return the unloaded item, or null if nothing was unloaded
+   */
+  ItemData unloadItemFile(String fileName) {
+    String itemId = itemFiles.remove(fileName);
+    if (itemId == null || itemFiles.containsValue(itemId)) {
+      return null;
+    }
+    ItemData data = loadedItems.remove(itemId);
+    if (data != null) {
+      index.remove(data);
+    }
+    return data;
+  }
+
+  /**
+   * @return whether the item has unsaved in-memory changes queued for writing
+   */
+  boolean isWritePending(String itemId) {
+    return writeQueue.isPending(itemId);
+  }
+
+  /**
+   * @return whether an item file's content is what the plugin last wrote
+   */
+  boolean isOwnWrite(String fileName, long checksum) {
+    return writeQueue.isOwnWrite(fileName, checksum);
+  }
+
+  File getItemsFolder() {
+    return itemsFolder;
+  }
+
   /**
    * Gets all loaded item IDs
    */
@@ -304,6 +607,7 @@ public class ItemDataManager {
    */
   public void reload() {
     plugin.getLogger().info("Reloading item data...");
+    writeQueue.flush();
     loadAllItems();
   }
 }
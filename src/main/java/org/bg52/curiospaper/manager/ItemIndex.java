@@ -0,0 +1,297 @@
+package org.bg52.curiospaper.manager;
+
+import org.bg52.curiospaper.data.ItemData;
+import org.bg52.curiospaper.data.LootTableData;
+import org.bg52.curiospaper.data.MobDropData;
+import org.bg52.curiospaper.data.RecipeData;
+import org.bg52.curiospaper.data.VillagerTradeData;
+import org.bukkit.entity.EntityType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Secondary lookups over the loaded items, so listeners don't have to scan the
+ * whole catalogue per event. Each item is indexed under the keys it had when it
+ * was last added, which are remembered so it can be removed again after its
+ * data has been edited in place.
+ */
+class ItemIndex {
+  /** Profession key for trades that apply to every profession. */
+  private static final String ANY_PROFESSION = "*";
+
+  private final Map<String, Set<ItemData>> bySlot = new HashMap<>();
+  private final Map<EntityType, Set<ItemData>> byEntity = new HashMap<>();
+  private final Map<String, Set<ItemData>> byLootTable = new HashMap<>();
+  private final Map<String, Set<ItemData>> byProfession = new HashMap<>();
+  // "PROFESSION#level" -> trades, with ANY_PROFESSION for trades open to all
+  private final Map<String, List<VillagerTradeCandidate>> byTrade = new HashMap<>();
+  private final Map<String, Set<ItemData>> byRecipeInput = new HashMap<>();
+  private final Map<String, Set<ItemData>> byDisplayName = new HashMap<>();
+  private final Map<String, ItemData> byLowerId = new HashMap<>();
+
+  private final Map<ItemData, Keys> indexed = new HashMap<>();
+  private final ToIntFunction<String> ordinals;
+
+  ItemIndex(ToIntFunction<String> ordinals) {
+    this.ordinals = ordinals;
+  }
+
+  /** The keys an item was indexed under. */
+  private static class Keys {
+    final List<String> slots = new ArrayList<>();
+    final List<EntityType> entities = new ArrayList<>();
+    final List<String> lootTables = new ArrayList<>();
+    final List<String> professions = new ArrayList<>();
+    final List<String> recipeInputs = new ArrayList<>();
+    // Parallel lists: a trade candidate and one key it was added under
+    final List<String> tradeKeys = new ArrayList<>();
+    final List<VillagerTradeCandidate> tradeCandidates = new ArrayList<>();
+    String displayName;
+    String lowerId;
+  }
+
+  void add(ItemData data) {
+    remove(data);
+
+    Keys keys = new Keys();
+    String slotType = data.getSlotType();
+    if (slotType != null) {
+      // Items may declare multiple slots via comma-separation
+      for (String s : slotType.split(",\\s*")) {
+        String normalized = s.trim().toLowerCase();
+        if (!normalized.isEmpty()) {
+          keys.slots.add(normalized);
+        }
+      }
+    }
+    for (MobDropData drop : data.getMobDrops()) {
+      try {
+        keys.entities.add(EntityType.valueOf(drop.getEntityType().toUpperCase()));
+      } catch (IllegalArgumentException | NullPointerException ignored) {
+        // Unknown entity type, it can never match
+      }
+    }
+    for (LootTableData loot : data.getLootTables()) {
+      if (loot.getLootTableType() != null) {
+        keys.lootTables.add(normalizeLootTable(loot.getLootTableType()));
+      }
+    }
+    for (VillagerTradeData trade : data.getVillagerTrades()) {
+      List<String> professions = trade.appliesToAllProfessions()
+          ? Collections.singletonList(ANY_PROFESSION)
+          : trade.getProfessions();
+      keys.professions.addAll(professions);
+
+      VillagerTradeCandidate candidate = new VillagerTradeCandidate(data, trade,
+          ordinals.applyAsInt(data.getItemId()));
+      Set<String> tradeKeys = new LinkedHashSet<>();
+      for (String profession : professions) {
+        for (Integer level : trade.getTradeLevels()) {
+          tradeKeys.add(tradeKey(profession, level));
+        }
+      }
+      for (String tradeKey : tradeKeys) {
+        keys.tradeKeys.add(tradeKey);
+        keys.tradeCandidates.add(candidate);
+      }
+    }
+    for (RecipeData recipe : data.getRecipes()) {
+      addRecipeInputs(recipe, keys.recipeInputs);
+    }
+    keys.displayName = data.getDisplayName();
+    keys.lowerId = data.getItemId().toLowerCase();
+
+    keys.slots.forEach(k -> put(bySlot, k, data));
+    keys.entities.forEach(k -> put(byEntity, k, data));
+    keys.lootTables.forEach(k -> put(byLootTable, k, data));
+    keys.professions.forEach(k -> put(byProfession, k, data));
+    keys.recipeInputs.forEach(k -> put(byRecipeInput, k, data));
+    for (int i = 0; i < keys.tradeKeys.size(); i++) {
+      byTrade.computeIfAbsent(keys.tradeKeys.get(i), k -> new ArrayList<>()).add(keys.tradeCandidates.get(i));
+    }
+    if (keys.displayName != null) {
+      put(byDisplayName, keys.displayName, data);
+    }
+    byLowerId.putIfAbsent(keys.lowerId, data);
+
+    indexed.put(data, keys);
+  }
+
+  void remove(ItemData data) {
+    Keys keys = indexed.remove(data);
+    if (keys == null) {
+      return;
+    }
+    keys.slots.forEach(k -> take(bySlot, k, data));
+    keys.entities.forEach(k -> take(byEntity, k, data));
+    keys.lootTables.forEach(k -> take(byLootTable, k, data));
+    keys.professions.forEach(k -> take(byProfession, k, data));
+    keys.recipeInputs.forEach(k -> take(byRecipeInput, k, data));
+    for (int i = 0; i < keys.tradeKeys.size(); i++) {
+      List<VillagerTradeCandidate> bucket = byTrade.get(keys.tradeKeys.get(i));
+      if (bucket != null) {
+        bucket.remove(keys.tradeCandidates.get(i));
+        if (bucket.isEmpty()) {
+          byTrade.remove(keys.tradeKeys.get(i));
+        }
+      }
+    }
+    if (keys.displayName != null) {
+      take(byDisplayName, keys.displayName, data);
+    }
+    if (byLowerId.get(keys.lowerId) == data) {
+      byLowerId.remove(keys.lowerId);
+      // Another item may share the lower-cased ID
+      for (ItemData other : indexed.keySet()) {
+        if (other.getItemId().equalsIgnoreCase(keys.lowerId)) {
+          byLowerId.put(keys.lowerId, other);
+          break;
+        }
+      }
+    }
+  }
+
+  void clear() {
+    bySlot.clear();
+    byEntity.clear();
+    byLootTable.clear();
+    byProfession.clear();
+    byTrade.clear();
+    byRecipeInput.clear();
+    byDisplayName.clear();
+    byLowerId.clear();
+    indexed.clear();
+  }
+
+  Set<String> getSlotTypes() {
+    return new LinkedHashSet<>(bySlot.keySet());
+  }
+
+  Collection<ItemData> getBySlot(String slotType) {
+    return view(bySlot.get(slotType.toLowerCase()));
+  }
+
+  Collection<ItemData> getByEntity(EntityType type) {
+    return view(byEntity.get(type));
+  }
+
+  /**
+   * Items with a loot table entry that may match the given key: the full path
+   * or any trailing segment of it, with the minecraft: prefix ignored.
+   */
+  Collection<ItemData> getByLootTable(String key) {
+    String path = normalizeLootTable(key);
+    Set<ItemData> result = new LinkedHashSet<>();
+    int slash = -1;
+    do {
+      Set<ItemData> bucket = byLootTable.get(path.substring(slash + 1));
+      if (bucket != null) {
+        result.addAll(bucket);
+      }
+      slash = path.indexOf('/', slash + 1);
+    } while (slash >= 0);
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Items with a trade for the given profession, including trades open to
+   * every profession.
+   */
+  Collection<ItemData> getByProfession(String profession) {
+    Set<ItemData> result = new LinkedHashSet<>();
+    Set<ItemData> specific = byProfession.get(profession.toUpperCase());
+    if (specific != null) {
+      result.addAll(specific);
+    }
+    Set<ItemData> any = byProfession.get(ANY_PROFESSION);
+    if (any != null) {
+      result.addAll(any);
+    }
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Trades that can be offered by a villager of the given profession at the
+   * given level, including trades open to every profession.
+   */
+  List<VillagerTradeCandidate> getByTrade(String profession, int level) {
+    List<VillagerTradeCandidate> specific = byTrade.get(tradeKey(profession.toUpperCase(), level));
+    List<VillagerTradeCandidate> any = byTrade.get(tradeKey(ANY_PROFESSION, level));
+    List<VillagerTradeCandidate> result = new ArrayList<>(
+        (specific == null ? 0 : specific.size()) + (any == null ? 0 : any.size()));
+    if (specific != null) {
+      result.addAll(specific);
+    }
+    if (any != null) {
+      result.addAll(any);
+    }
+    return result;
+  }
+
+  Collection<ItemData> getByRecipeInput(String input) {
+    return view(byRecipeInput.get(input.toLowerCase()));
+  }
+
+  ItemData getByDisplayName(String displayName) {
+    Set<ItemData> bucket = byDisplayName.get(displayName);
+    return bucket == null ? null : bucket.iterator().next();
+  }
+
+  ItemData getByIdIgnoreCase(String itemId) {
+    return byLowerId.get(itemId.toLowerCase());
+  }
+
+  private static void addRecipeInputs(RecipeData recipe, List<String> into) {
+    List<String> inputs = new ArrayList<>();
+    if (recipe.getIngredients() != null) {
+      inputs.addAll(recipe.getIngredients().values());
+    }
+    inputs.add(recipe.getInputItem());
+    inputs.add(recipe.getBaseItem());
+    inputs.add(recipe.getAdditionItem());
+    inputs.add(recipe.getTemplateItem());
+    inputs.add(recipe.getLeftInput());
+    inputs.add(recipe.getRightInput());
+    for (String input : inputs) {
+      if (input != null && !input.isEmpty() && !into.contains(input.toLowerCase())) {
+        into.add(input.toLowerCase());
+      }
+    }
+  }
+
+  private static String tradeKey(String profession, int level) {
+    return profession + '#' + level;
+  }
+
+  private static String normalizeLootTable(String key) {
+    String lower = key.toLowerCase();
+    return lower.startsWith("minecraft:") ? lower.substring("minecraft:".length()) : lower;
+  }
+
+  private static <K> void put(Map<K, Set<ItemData>> index, K key, ItemData data) {
+    index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(data);
+  }
+
+  private static <K> void take(Map<K, Set<ItemData>> index, K key, ItemData data) {
+    Set<ItemData> bucket = index.get(key);
+    if (bucket != null) {
+      bucket.remove(data);
+      if (bucket.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  // Copies, so callers may save or delete items while iterating
+  private static Collection<ItemData> view(Set<ItemData> bucket) {
+    return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket);
+  }
+}
@@ -0,0 +1,116 @@
+package org.bg52.curiospaper.manager;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stable small numbers for item IDs (item-ordinals.yml), so per-entity markers
+ * can be stored as bits instead of ID strings. An ID keeps its number for good,
+ * even after the item is deleted, so stored markers never point at another
+ * item. Main thread only.
+ */
+class ItemOrdinals {
+  private final CuriosPaper plugin;
+  private final File file;
+  private final Map<String, Integer> ordinals = new HashMap<>();
+  private int next;
+  private boolean changed;
+  private boolean saveScheduled;
+
+  ItemOrdinals(CuriosPaper plugin, File file) {
+    this.plugin = plugin;
+    this.file = file;
+    load();
+  }
+
+  private void load() {
+    if (!file.exists()) {
+      return;
+    }
+    YamlConfiguration config = newConfig();
+    try {
+      config.load(file);
+    } catch (IOException | InvalidConfigurationException e) {
+      plugin.getLogger().warning("Failed to load " + file.getName() + ": " + e.getMessage());
+      return;
+    }
+    ConfigurationSection section = config.getConfigurationSection("ordinals");
+    if (section == null) {
+      return;
+    }
+    for (String itemId : section.getKeys(false)) {
+      int ordinal = section.getInt(itemId, -1);
+      if (ordinal >= 0) {
+        ordinals.put(itemId, ordinal);
+        next = Math.max(next, ordinal + 1);
+      }
+    }
+  }
+
+  /**
+   * @return the item's number, assigning the next free one on first use
+   */
+  int ordinalOf(String itemId) {
+    Integer ordinal = ordinals.get(itemId);
+    if (ordinal != null) {
+      return ordinal;
+    }
+    ordinals.put(itemId, next);
+    changed = true;
+    scheduleSave();
+    return next++;
+  }
+
+  private void scheduleSave() {
+    if (saveScheduled || !plugin.isEnabled()) {
+      return;
+    }
+    saveScheduled = true;
+    // New IDs usually come in bursts (load, reload), so save once after them
+    plugin.getServer().getScheduler().runTask(plugin, () -> {
+      saveScheduled = false;
+      save();
+    });
+  }
+
+  // Item IDs are file names and may contain dots, but never slashes
+  private static YamlConfiguration newConfig() {
+    YamlConfiguration config = new YamlConfiguration();
+    config.options().pathSeparator('/');
+    return config;
+  }
+
+  void save() {
+    if (!changed) {
+      return;
+    }
+    YamlConfiguration config = newConfig();
+    config.options().header("Stable numbers for item IDs, used by compact per-entity markers. Do not edit.");
+    ordinals.forEach((itemId, ordinal) -> config.set("ordinals/" + itemId, ordinal));
+
+    File temp = new File(file.getPath() + ".tmp");
+    try {
+      Files.write(temp.toPath(), config.saveToString().getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      changed = false;
+    } catch (IOException e) {
+      plugin.getLogger().warning("Failed to save " + file.getName() + ": " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package org.bg52.curiospaper.manager;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.data.ItemData;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind queue for item files. Saves of the same item within the delay
+ * (performance.item-save-delay-ticks) are coalesced into one write. When the
+ * delay is up the item is serialized on the main thread, since the editors
+ * keep mutating the same ItemData, and the resulting text is written to a
+ * temporary file and renamed over the item file on a single writer thread.
+ */
+class ItemWriteQueue {
+  private final CuriosPaper plugin;
+
+  private static class Pending {
+    final ItemData data;
+    final File file;
+
+    Pending(ItemData data, File file) {
+      this.data = data;
+      this.file = file;
+    }
+  }
+
+  // Main thread only
+  private final Map<String, Pending> dirty = new LinkedHashMap<>();
+  private final Map<String, Future<?>> inFlight = new HashMap<>();
+  private BukkitTask drainTask;
+
+  // File name -> CRC32 of the text last written to it, so the content watcher
+  // can tell our own writes apart from external edits
+  private final Map<String, Long> written = new ConcurrentHashMap<>();
+
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "CuriosPaper-ItemWriter");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  ItemWriteQueue(CuriosPaper plugin) {
+    this.plugin = plugin;
+  }
+
+  /**
+   * Marks an item as needing a write. Writes synchronously once the plugin is
+   * disabled, as no more tasks can be scheduled.
+   */
+  void schedule(ItemData data, File file) {
+    if (!plugin.isEnabled()) {
+      dirty.remove(data.getItemId());
+      awaitItem(data.getItemId());
+      write(data.getItemId(), file, serialize(data));
+      return;
+    }
+
+    dirty.put(data.getItemId(), new Pending(data, file));
+    if (drainTask == null) {
+      long delay = Math.max(1, plugin.getConfig().getLong("performance.item-save-delay-ticks", 20));
+      drainTask = plugin.getServer().getScheduler().runTaskLater(plugin, this::drain, delay);
+    }
+  }
+
+  /**
+   * Drops a pending write and waits for one already being written, so the
+   * item file can be deleted without being recreated.
+   */
+  void discard(String itemId) {
+    dirty.remove(itemId);
+    awaitItem(itemId);
+  }
+
+  /**
+   * @return whether the item has a write queued or in progress, i.e. the
+   *         in-memory copy is newer than its file
+   */
+  boolean isPending(String itemId) {
+    if (dirty.containsKey(itemId)) {
+      return true;
+    }
+    Future<?> pending = inFlight.get(itemId);
+    return pending != null && !pending.isDone();
+  }
+
+  /**
+   * @return whether the file's current content is what this queue last wrote
+   */
+  boolean isOwnWrite(String fileName, long checksum) {
+    Long last = written.get(fileName);
+    return last != null && last == checksum;
+  }
+
+  /**
+   * Writes everything pending and waits for the writer to finish.
+   */
+  void flush() {
+    drain();
+    try {
+      writer.submit(() -> {
+      }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // Nothing to report for an empty task
+    }
+  }
+
+  /**
+   * Flushes and stops the writer thread.
+   */
+  void shutdown() {
+    flush();
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+        plugin.getLogger().warning("Timed out waiting for item files to be written.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drain() {
+    if (drainTask != null) {
+      drainTask.cancel();
+      drainTask = null;
+    }
+
+    inFlight.values().removeIf(Future::isDone);
+    for (Map.Entry<String, Pending> entry : dirty.entrySet()) {
+      String itemId = entry.getKey();
+      File file = entry.getValue().file;
+      String yaml = serialize(entry.getValue().data);
+      inFlight.put(itemId, writer.submit(() -> write(itemId, file, yaml)));
+    }
+    dirty.clear();
+  }
+
+  private void awaitItem(String itemId) {
+    Future<?> pending = inFlight.get(itemId);
+    if (pending == null) {
+      return;
+    }
+    try {
+      pending.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // Logged by write()
+    }
+  }
+
+  private static String serialize(ItemData data) {
+    YamlConfiguration config = new YamlConfiguration();
+    data.saveToConfig(config);
+    return config.saveToString();
+  }
+
+  private void write(String itemId, File file, String yaml) {
+    File temp = new File(file.getPath() + ".tmp");
+    try {
+      byte[] bytes = yaml.getBytes(StandardCharsets.UTF_8);
+      Files.write(temp.toPath(), bytes);
+      CRC32 crc = new CRC32();
+      crc.update(bytes, 0, bytes.length);
+      written.put(file.getName(), crc.getValue());
+      try {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      plugin.getLogger().severe("✗ Failed to save item " + itemId + ": " + e.getMessage());
+      temp.delete();
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package org.bg52.curiospaper.manager;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.metrics.MetricsRegistry;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes the accessory files of players whose data isn't loaded in
+ * SlotManager, on a background thread, so admin tools and addons neither block
+ * the main thread on disk nor keep offline players loaded. The players read or
+ * written last are kept in a small LRU (performance.offline-cache-size), so
+ * going back and forth in /curios inspect doesn't read the file every time.
+ *
+ * <p>
+ * Futures complete on the main thread. Items are serialized and deserialized
+ * on the main thread; only the file I/O runs in the background. The YAML is
+ * parsed on the main thread as well, since Bukkit builds the ItemStacks while
+ * parsing.
+ */
+class OfflinePlayerStore {
+  private final CuriosPaper plugin;
+  private final SlotManager slotManager;
+  private final File dataFolder;
+
+  // Main thread only, least recently used first
+  private final LinkedHashMap<UUID, Map<String, List<ItemStack>>> recent = new LinkedHashMap<>(16, 0.75f, true);
+
+  // Text queued for writing per player, so loading a player who joins in the
+  // meantime doesn't read the older file
+  private final Map<UUID, String> pendingWrites = new ConcurrentHashMap<>();
+  // Held while writing a player file, by this store and by SlotManager
+  private final Object fileLock = new Object();
+
+  private final ExecutorService io = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "CuriosPaper-PlayerData");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  OfflinePlayerStore(CuriosPaper plugin, SlotManager slotManager, File dataFolder) {
+    this.plugin = plugin;
+    this.slotManager = slotManager;
+    this.dataFolder = dataFolder;
+  }
+
+  CompletableFuture<Map<String, List<ItemStack>>> load(UUID playerId) {
+    MetricsRegistry metrics = plugin.getMetricsRegistry();
+    if (slotManager.hasPlayerData(playerId)) {
+      metrics.offlineCacheLookup(true);
+      return CompletableFuture.completedFuture(copy(slotManager.getPlayerAccessoriesMap(playerId)));
+    }
+    Map<String, List<ItemStack>> cached = recent.get(playerId);
+    if (cached != null) {
+      metrics.offlineCacheLookup(true);
+      return CompletableFuture.completedFuture(copy(cached));
+    }
+    metrics.offlineCacheLookup(false);
+
+    CompletableFuture<Map<String, List<ItemStack>>> result = new CompletableFuture<>();
+    io.execute(() -> {
+      String text;
+      try {
+        text = read(playerId);
+      } catch (IOException e) {
+        plugin.getLogger().warning("Failed to read accessory data for player " + playerId + ": " + e.getMessage());
+        onMainThread(() -> result.completeExceptionally(e));
+        return;
+      }
+      onMainThread(() -> {
+        // The player may have joined while the file was read
+        if (slotManager.hasPlayerData(playerId)) {
+          result.complete(copy(slotManager.getPlayerAccessoriesMap(playerId)));
+          return;
+        }
+        Map<String, List<ItemStack>> loaded;
+        try {
+          loaded = parse(text);
+        } catch (InvalidConfigurationException e) {
+          plugin.getLogger().warning("Failed to read accessory data for player " + playerId + ": " + e.getMessage());
+          result.completeExceptionally(e);
+          return;
+        }
+        remember(playerId, loaded);
+        result.complete(copy(loaded));
+      });
+    });
+    return result;
+  }
+
+  CompletableFuture<Void> save(UUID playerId, Map<String, List<ItemStack>> accessories) {
+    if (slotManager.hasPlayerData(playerId)) {
+      slotManager.replaceAccessories(playerId, accessories);
+      return CompletableFuture.completedFuture(null);
+    }
+
+    Map<String, List<ItemStack>> saved = copy(accessories);
+    YamlConfiguration config = new YamlConfiguration();
+    slotManager.writeAccessories(saved, config);
+    String text = config.saveToString();
+    remember(playerId, saved);
+    pendingWrites.put(playerId, text);
+
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    io.execute(() -> {
+      try {
+        write(playerId, text);
+        onMainThread(() -> result.complete(null));
+      } catch (IOException e) {
+        plugin.getLogger().severe("Failed to save accessory data for player " + playerId + ": " + e.getMessage());
+        onMainThread(() -> result.completeExceptionally(e));
+      }
+    });
+    return result;
+  }
+
+  /**
+   * @return the text queued for the player's file, or null if none
+   */
+  String pendingText(UUID playerId) {
+    return pendingWrites.get(playerId);
+  }
+
+  /**
+   * Drops the cached copy of a player, once their data is loaded and
+   * SlotManager's copy is the current one.
+   */
+  void forget(UUID playerId) {
+    recent.remove(playerId);
+  }
+
+  Object fileLock() {
+    return fileLock;
+  }
+
+  /**
+   * Cancels a queued write, as the caller is about to write the file itself.
+   * Must hold {@link #fileLock()}.
+   */
+  void cancelPendingWrite(UUID playerId) {
+    pendingWrites.remove(playerId);
+  }
+
+  /**
+   * Waits for queued writes and stops the I/O thread.
+   */
+  void shutdown() {
+    io.shutdown();
+    try {
+      if (!io.awaitTermination(10, TimeUnit.SECONDS)) {
+        plugin.getLogger().warning("Timed out waiting for offline player data to be written.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return the text of the player's file, or null if there is none
+   */
+  private String read(UUID playerId) throws IOException {
+    // Held so a write by this store or SlotManager is never read half done
+    synchronized (fileLock) {
+      File file = new File(dataFolder, playerId + ".yml");
+      if (!file.exists()) {
+        return null;
+      }
+      return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Main thread only
+   */
+  private Map<String, List<ItemStack>> parse(String text) throws InvalidConfigurationException {
+    if (text == null) {
+      return new HashMap<>();
+    }
+    // Unlike loadConfiguration, loadFromString throws on a broken file, so it
+    // is never read as empty and then written back over
+    YamlConfiguration config = new YamlConfiguration();
+    config.loadFromString(text);
+    return slotManager.readAccessories(config, false);
+  }
+
+  private void write(UUID playerId, String text) throws IOException {
+    synchronized (fileLock) {
+      // Identity check: a newer write or a save by SlotManager replaced this one
+      if (pendingWrites.get(playerId) != text) {
+        return;
+      }
+      File file = new File(dataFolder, playerId + ".yml");
+      File temp = new File(dataFolder, playerId + ".yml.tmp");
+      Files.write(temp.toPath(), text.getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      pendingWrites.remove(playerId, text);
+    }
+  }
+
+  private void remember(UUID playerId, Map<String, List<ItemStack>> accessories) {
+    int capacity = plugin.getConfig().getInt("performance.offline-cache-size", 32);
+    if (capacity <= 0) {
+      recent.clear();
+      return;
+    }
+    recent.put(playerId, accessories);
+    while (recent.size() > capacity) {
+      recent.remove(recent.keySet().iterator().next());
+    }
+  }
+
+  private void onMainThread(Runnable task) {
+    if (plugin.isEnabled()) {
+      plugin.getServer().getScheduler().runTask(plugin, task);
+    } else {
+      task.run();
+    }
+  }
+
+  /**
+   * Deep copy, items included, so callers can't change cached or loaded data
+   * behind the store's back
+   */
+  private static Map<String, List<ItemStack>> copy(Map<String, List<ItemStack>> accessories) {
+    Map<String, List<ItemStack>> copy = new HashMap<>();
+    for (Map.Entry<String, List<ItemStack>> entry : accessories.entrySet()) {
+      List<ItemStack> items = new ArrayList<>(entry.getValue().size());
+      for (ItemStack item : entry.getValue()) {
+        items.add(item == null ? null : item.clone());
+      }
+      copy.put(entry.getKey(), items);
+    }
+    return copy;
+  }
+}
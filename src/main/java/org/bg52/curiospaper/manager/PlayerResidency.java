@@ -0,0 +1,93 @@
+package org.bg52.curiospaper.manager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tracks why each player's data is loaded in SlotManager. Online players stay
+ * loaded until they quit. Pinned players stay loaded until unpinned. Anyone
+ * else is an offline entry (data changed through the API by UUID, or a pinned
+ * player who quit), kept by last access and evicted once idle. Also records
+ * which players changed since their last save, so clean offline entries
+ * aren't rewritten on every autosave. Main thread only.
+ */
+class PlayerResidency {
+  private final Map<UUID, Integer> pins = new HashMap<>();
+  private final Set<UUID> dirty = new HashSet<>();
+  // Offline entries -> last access (ms), least recently used first
+  private final LinkedHashMap<UUID, Long> offline = new LinkedHashMap<>(16, 0.75f, true);
+
+  void loadedOnline(UUID playerId) {
+    offline.remove(playerId);
+  }
+
+  void loadedOffline(UUID playerId) {
+    offline.put(playerId, System.currentTimeMillis());
+  }
+
+  /**
+   * Records an access, which restarts an offline entry's idle time
+   */
+  void touch(UUID playerId) {
+    if (!offline.isEmpty() && offline.containsKey(playerId)) {
+      offline.put(playerId, System.currentTimeMillis());
+    }
+  }
+
+  boolean isOffline(UUID playerId) {
+    return offline.containsKey(playerId);
+  }
+
+  int offlineCount() {
+    return offline.size();
+  }
+
+  void pin(UUID playerId) {
+    pins.merge(playerId, 1, Integer::sum);
+  }
+
+  /**
+   * @return whether the player is still pinned by someone else
+   */
+  boolean unpin(UUID playerId) {
+    Integer remaining = pins.computeIfPresent(playerId, (id, count) -> count > 1 ? count - 1 : null);
+    return remaining != null;
+  }
+
+  boolean isPinned(UUID playerId) {
+    return pins.containsKey(playerId);
+  }
+
+  void markDirty(UUID playerId) {
+    dirty.add(playerId);
+  }
+
+  void markClean(UUID playerId) {
+    dirty.remove(playerId);
+  }
+
+  boolean isDirty(UUID playerId) {
+    return dirty.contains(playerId);
+  }
+
+  /**
+   * Forgets everything but pins, which outlive unloading
+   */
+  void unloaded(UUID playerId) {
+    offline.remove(playerId);
+    dirty.remove(playerId);
+  }
+
+  /**
+   * @return the offline entries, least recently used first, for eviction.
+   *         Removing through the iterator stops tracking the entry.
+   */
+  Iterator<Map.Entry<UUID, Long>> offlineByAge() {
+    return offline.entrySet().iterator();
+  }
+}
@@ -10,11 +10,16 @@ import org.bukkit.inventory.ItemStack;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class SlotManager {
   private final CuriosPaper plugin;
   private final Map<UUID, Map<String, List<ItemStack>>> playerAccessories;
   private final File dataFolder;
+  private final OfflinePlayerStore offlineStore;
+  private final PlayerResidency residency = new PlayerResidency();
+  private final org.bukkit.scheduler.BukkitTask evictionTask;
 
   public SlotManager(CuriosPaper plugin) {
     this.plugin = plugin;
@@ -27,6 +32,9 @@ public class SlotManager {
         plugin.getLogger().severe("Failed to create playerdata directory!");
       }
     }
+    this.offlineStore = new OfflinePlayerStore(plugin, this, dataFolder);
+    this.evictionTask = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> evictIdlePlayers(null),
+        1200L, 1200L);
   }
 
   public void loadPlayerData(Player player) {
@@ -35,31 +43,51 @@ public class SlotManager {
 
   /**
    * Loads player accessory data from disk by UUID.
-   * Works for both online and offline players.
+   * Works for both online and offline players. Data of an offline player
+   * stays loaded only until it has been idle for
+   * performance.resident-offline-idle-seconds, unless pinned.
    */
   public void loadPlayerData(UUID playerId) {
+    boolean online = plugin.getServer().getPlayer(playerId) != null;
+    if (playerAccessories.containsKey(playerId)) {
+      // Already loaded, e.g. changed through the API while offline; rereading
+      // the file could drop changes that weren't saved yet
+      if (online) {
+        residency.loadedOnline(playerId);
+      }
+      return;
+    }
+    if (online) {
+      residency.loadedOnline(playerId);
+    } else {
+      residency.loadedOffline(playerId);
+      if (residency.offlineCount() > maxResidentOffline()) {
+        evictIdlePlayers(playerId);
+      }
+    }
+
     File playerFile = new File(dataFolder, playerId.toString() + ".yml");
+    // Once loaded, this copy is the current one
+    offlineStore.forget(playerId);
+    String pending = offlineStore.pendingText(playerId);
 
-    if (!playerFile.exists()) {
+    if (pending == null && !playerFile.exists()) {
       playerAccessories.put(playerId, new HashMap<>());
       plugin.getLogger().fine("No existing data for player: " + playerId);
       return;
     }
 
     try {
-      YamlConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
-      Map<String, List<ItemStack>> accessories = new HashMap<>();
-
-      ConfigurationSection accessoriesSection = config.getConfigurationSection("accessories");
-      if (accessoriesSection != null) {
-        for (String slotType : accessoriesSection.getKeys(false)) {
-          List<ItemStack> items = loadSlotItems(slotType,
-              accessoriesSection.getConfigurationSection(slotType));
-          accessories.put(slotType.toLowerCase(), items);
-        }
+      YamlConfiguration config;
+      if (pending != null) {
+        // An offline edit of this player hasn't been written yet
+        config = new YamlConfiguration();
+        config.loadFromString(pending);
+      } else {
+        config = YamlConfiguration.loadConfiguration(playerFile);
       }
 
-      playerAccessories.put(playerId, accessories);
+      playerAccessories.put(playerId, readAccessories(config, true));
       plugin.getLogger().info("Loaded accessory data for player: " + playerId);
     } catch (Exception e) {
       plugin.getLogger().severe("Failed to load player data for " + playerId + ": " + e.getMessage());
@@ -69,14 +97,33 @@ public class SlotManager {
     }
   }
 
-  private List<ItemStack> loadSlotItems(String slotType, ConfigurationSection section) {
-    List<ItemStack> items = new ArrayList<>();
+  /**
+   * Reads the accessories section of a player file.
+   *
+   * @param trim whether to drop items past the configured amounts; off the main
+   *             thread this must be false, as it reads the slot configuration
+   */
+  Map<String, List<ItemStack>> readAccessories(YamlConfiguration config, boolean trim) {
+    Map<String, List<ItemStack>> accessories = new HashMap<>();
+    ConfigurationSection accessoriesSection = config.getConfigurationSection("accessories");
+    if (accessoriesSection != null) {
+      for (String slotType : accessoriesSection.getKeys(false)) {
+        List<ItemStack> items = loadSlotItems(slotType,
+            accessoriesSection.getConfigurationSection(slotType), trim);
+        accessories.put(slotType.toLowerCase(), items);
+      }
+    }
+    return accessories;
+  }
+
+  private List<ItemStack> loadSlotItems(String slotType, ConfigurationSection section, boolean trim) {
+    AccessoryList items = new AccessoryList(section != null ? section.getKeys(false).size() : 0);
 
     if (section == null) {
       return items;
     }
 
-    SlotConfiguration config = plugin.getConfigManager().getSlotConfiguration(slotType);
+    SlotConfiguration config = trim ? plugin.getConfigManager().getSlotConfiguration(slotType) : null;
     int maxSlots = config != null ? config.getAmount() : Integer.MAX_VALUE;
 
     // Sort keys numerically
@@ -115,7 +162,7 @@ public class SlotManager {
     if (items.size() > maxSlots) {
       plugin.getLogger().warning("Player data for slot type '" + slotType + "' has " + items.size() +
           " items but only " + maxSlots + " are configured. Truncating excess items.");
-      items = new ArrayList<>(items.subList(0, maxSlots));
+      items.subList(maxSlots, items.size()).clear();
     }
 
     plugin.getLogger().fine("Loaded " + loadedCount + " items for slot type: " + slotType);
@@ -127,14 +174,44 @@ public class SlotManager {
   }
 
   public void savePlayerData(UUID playerId) {
+    writePlayerFile(playerId);
+  }
+
+  /**
+   * @return the size of the written file, or 0 if nothing was written
+   */
+  private long writePlayerFile(UUID playerId) {
     Map<String, List<ItemStack>> accessories = playerAccessories.get(playerId);
     if (accessories == null) {
-      return;
+      return 0L;
     }
 
     File playerFile = new File(dataFolder, playerId.toString() + ".yml");
     YamlConfiguration config = new YamlConfiguration();
+    int totalSaved = writeAccessories(accessories, config);
 
+    try {
+      synchronized (offlineStore.fileLock()) {
+        // This save is newer than any queued offline write
+        offlineStore.cancelPendingWrite(playerId);
+        config.save(playerFile);
+      }
+      residency.markClean(playerId);
+      plugin.getLogger().fine("Saved " + totalSaved + " items for player: " + playerId);
+      return playerFile.length();
+    } catch (IOException e) {
+      plugin.getLogger().severe("Failed to save accessory data for player: " + playerId);
+      e.printStackTrace();
+      return 0L;
+    }
+  }
+
+  /**
+   * Writes accessories into a player file's configuration. Main thread only.
+   *
+   * @return the number of items written
+   */
+  int writeAccessories(Map<String, List<ItemStack>> accessories, YamlConfiguration config) {
     int totalSaved = 0;
     for (Map.Entry<String, List<ItemStack>> entry : accessories.entrySet()) {
       String slotType = entry.getKey();
@@ -153,52 +230,144 @@ public class SlotManager {
         }
       }
     }
+    return totalSaved;
+  }
 
-    try {
-      config.save(playerFile);
-      plugin.getLogger().fine("Saved " + totalSaved + " items for player: " + playerId);
-    } catch (IOException e) {
-      plugin.getLogger().severe("Failed to save accessory data for player: " + playerId);
-      e.printStackTrace();
+  /**
+   * Loads a copy of a player's accessories (slot type -> items) without
+   * keeping it loaded. Unless the player is loaded or was read recently, the
+   * file is read on a background thread. Completes on the main thread.
+   */
+  public CompletableFuture<Map<String, List<ItemStack>>> loadOfflineAccessories(UUID playerId) {
+    return offlineStore.load(playerId);
+  }
+
+  /**
+   * Replaces all of a player's accessories. If the player is loaded, this is
+   * done in memory and saved as usual; otherwise the file is written on a
+   * background thread. Main thread only; completes on the main thread.
+   */
+  public CompletableFuture<Void> saveOfflineAccessories(UUID playerId, Map<String, List<ItemStack>> accessories) {
+    return offlineStore.save(playerId, accessories);
+  }
+
+  /**
+   * Loads a player's accessories, lets the editor change them and saves them
+   * back, all without keeping the player loaded.
+   */
+  public CompletableFuture<Void> editOfflineAccessories(UUID playerId,
+      Consumer<Map<String, List<ItemStack>>> editor) {
+    return loadOfflineAccessories(playerId).thenCompose(accessories -> {
+      editor.accept(accessories);
+      return saveOfflineAccessories(playerId, accessories);
+    });
+  }
+
+  void replaceAccessories(UUID playerId, Map<String, List<ItemStack>> accessories) {
+    Map<String, List<ItemStack>> replaced = new HashMap<>();
+    for (Map.Entry<String, List<ItemStack>> entry : accessories.entrySet()) {
+      replaced.put(entry.getKey().toLowerCase(), new AccessoryList(entry.getValue()));
     }
+    playerAccessories.put(playerId, replaced);
+    residency.markDirty(playerId);
+  }
+
+  /**
+   * Waits for background writes of offline players and stops their thread.
+   */
+  public void shutdown() {
+    evictionTask.cancel();
+    offlineStore.shutdown();
   }
 
+  /**
+   * Saves every online player, and offline entries that changed since their
+   * last save.
+   */
   public void saveAllPlayerData() {
-    int saved = 0;
-    int failed = 0;
+    long start = System.nanoTime();
+    long bytes = 0L;
 
     for (UUID playerId : new HashSet<>(playerAccessories.keySet())) {
+      if (residency.isOffline(playerId) && !residency.isDirty(playerId)) {
+        continue;
+      }
       try {
-        savePlayerData(playerId);
-        saved++;
+        bytes += writePlayerFile(playerId);
       } catch (Exception e) {
         plugin.getLogger().severe("Failed to save data for player " + playerId + ": " + e.getMessage());
-        failed++;
       }
     }
+    plugin.getMetricsRegistry().recordAutosave(System.nanoTime() - start, bytes);
   }
 
   public List<ItemStack> getAccessories(UUID playerId, String slotType) {
-    Map<String, List<ItemStack>> accessories = playerAccessories.get(playerId);
-    if (accessories == null) {
-      return new ArrayList<>();
+    List<ItemStack> items = getAccessoriesView(playerId, slotType);
+    return items.isEmpty() ? new ArrayList<>() : new ArrayList<>(items);
+  }
+
+  /**
+   * Gets a read-only live view of a slot type's items, without copying. Empty
+   * slots are null (or air). Main thread only.
+   *
+   * @return an empty list if nothing is stored
+   */
+  public List<ItemStack> getAccessoriesView(UUID playerId, String slotType) {
+    List<ItemStack> items = peekAccessories(playerId, slotType);
+    if (items == null) {
+      return Collections.emptyList();
     }
+    trimToConfiguredAmount(playerId, slotType, items);
+    return items instanceof AccessoryList ? ((AccessoryList) items).view() : Collections.unmodifiableList(items);
+  }
 
-    List<ItemStack> items = accessories.get(slotType.toLowerCase());
+  /**
+   * Counts the non-empty slots of a slot type. Doesn't scan the items: the
+   * count is kept up to date as they are set.
+   */
+  public int countAccessories(UUID playerId, String slotType) {
+    List<ItemStack> items = peekAccessories(playerId, slotType);
     if (items == null) {
-      return new ArrayList<>();
+      return 0;
     }
+    trimToConfiguredAmount(playerId, slotType, items);
+    if (items instanceof AccessoryList) {
+      return ((AccessoryList) items).occupied();
+    }
+    int count = 0;
+    for (ItemStack item : items) {
+      if (AccessoryList.isOccupied(item)) {
+        count++;
+      }
+    }
+    return count;
+  }
 
-    // Validate against current configuration
+  /**
+   * Counts the non-empty slots over all configured slot types
+   */
+  public int countAccessories(UUID playerId) {
+    Map<String, List<ItemStack>> accessories = playerAccessories.get(playerId);
+    if (accessories == null) {
+      return 0;
+    }
+    int count = 0;
+    for (String slotType : accessories.keySet()) {
+      if (plugin.getConfigManager().hasSlotType(slotType)) {
+        count += countAccessories(playerId, slotType);
+      }
+    }
+    return count;
+  }
+
+  // Drops items past the configured amount in place, once, after the amount shrank
+  private void trimToConfiguredAmount(UUID playerId, String slotType, List<ItemStack> items) {
     SlotConfiguration config = plugin.getConfigManager().getSlotConfiguration(slotType);
     if (config != null && items.size() > config.getAmount()) {
       plugin.getLogger().warning("Player " + playerId + " has more items than configured for slot type '" +
           slotType + "'. Truncating.");
-      items = new ArrayList<>(items.subList(0, config.getAmount()));
-      accessories.put(slotType.toLowerCase(), items);
+      items.subList(config.getAmount(), items.size()).clear();
     }
-
-    return new ArrayList<>(items);
   }
 
   public void setAccessories(UUID playerId, String slotType, List<ItemStack> items) {
@@ -215,8 +384,8 @@ public class SlotManager {
       items = new ArrayList<>(items.subList(0, config.getAmount()));
     }
 
-    Map<String, List<ItemStack>> accessories = playerAccessories.computeIfAbsent(playerId, k -> new HashMap<>());
-    accessories.put(slotType.toLowerCase(), new ArrayList<>(items));
+    Map<String, List<ItemStack>> accessories = loadForWrite(playerId);
+    accessories.put(slotType.toLowerCase(), new AccessoryList(items));
   }
 
   public void setAccessoryItem(UUID playerId, String slotType, int index, ItemStack item) {
@@ -232,8 +401,8 @@ public class SlotManager {
       return;
     }
 
-    Map<String, List<ItemStack>> accessories = playerAccessories.computeIfAbsent(playerId, k -> new HashMap<>());
-    List<ItemStack> items = accessories.computeIfAbsent(slotType.toLowerCase(), k -> new ArrayList<>());
+    Map<String, List<ItemStack>> accessories = loadForWrite(playerId);
+    List<ItemStack> items = accessories.computeIfAbsent(slotType.toLowerCase(), k -> new AccessoryList(index + 1));
 
     while (items.size() <= index) {
       items.add(null);
@@ -242,20 +411,142 @@ public class SlotManager {
     items.set(index, item);
   }
 
+  /**
+   * Gets the stored list of a slot type without copying or validating it.
+   * Callers must not modify it.
+   *
+   * @return null if nothing is stored for the player or slot type
+   */
+  public List<ItemStack> peekAccessories(UUID playerId, String slotType) {
+    residency.touch(playerId);
+    Map<String, List<ItemStack>> accessories = playerAccessories.get(playerId);
+    return accessories == null ? null : accessories.get(slotType.toLowerCase());
+  }
+
+  /**
+   * Gets the stored list of a slot type for in-place edits, creating it and
+   * padding it with nulls up to the given amount. The caller is responsible
+   * for validating against the slot configuration.
+   */
+  public List<ItemStack> getMutableAccessories(UUID playerId, String slotType, int amount) {
+    Map<String, List<ItemStack>> accessories = loadForWrite(playerId);
+    List<ItemStack> items = accessories.computeIfAbsent(slotType.toLowerCase(), k -> new AccessoryList(amount));
+    while (items.size() < amount) {
+      items.add(null);
+    }
+    return items;
+  }
+
   public ItemStack getAccessoryItem(UUID playerId, String slotType, int index) {
-    List<ItemStack> items = getAccessories(playerId, slotType);
+    List<ItemStack> items = getAccessoriesView(playerId, slotType);
     if (index >= 0 && index < items.size()) {
       return items.get(index);
     }
     return null;
   }
 
+  /**
+   * Returns the player's loaded data for a change, loading it from disk first
+   * if needed, so changing an offline player by UUID never replaces their
+   * saved accessories with an empty set.
+   */
+  private Map<String, List<ItemStack>> loadForWrite(UUID playerId) {
+    Map<String, List<ItemStack>> accessories = playerAccessories.get(playerId);
+    if (accessories == null) {
+      loadPlayerData(playerId);
+      accessories = playerAccessories.get(playerId);
+    }
+    residency.touch(playerId);
+    residency.markDirty(playerId);
+    return accessories;
+  }
+
+  /**
+   * Unloads a player's data when they quit. A pinned player is kept loaded as
+   * an offline entry instead.
+   */
   public void unloadPlayerData(UUID playerId) {
+    if (residency.isPinned(playerId) && playerAccessories.containsKey(playerId)) {
+      residency.loadedOffline(playerId);
+      return;
+    }
     playerAccessories.remove(playerId);
+    residency.unloaded(playerId);
     plugin.getLogger().fine("Unloaded data for player: " + playerId);
   }
 
+  /**
+   * Keeps a player's data loaded, loading it if needed, until a matching
+   * {@link #unpinPlayerData}. Pins are counted, so several users can pin the
+   * same player.
+   */
+  public void pinPlayerData(UUID playerId) {
+    if (!playerAccessories.containsKey(playerId)) {
+      loadPlayerData(playerId);
+    }
+    residency.pin(playerId);
+  }
+
+  /**
+   * Releases a pin. Once no pins are left, an offline player's data is evicted
+   * like any other idle entry.
+   */
+  public void unpinPlayerData(UUID playerId) {
+    if (!residency.unpin(playerId)) {
+      residency.touch(playerId);
+    }
+  }
+
+  /**
+   * Saves and unloads offline entries that have been idle longer than
+   * performance.resident-offline-idle-seconds, then the least recently used
+   * ones while more than performance.max-resident-offline-players are loaded.
+   * Pinned entries and entries that failed to save are kept.
+   *
+   * @param keep a player never to evict, or null
+   */
+  private void evictIdlePlayers(UUID keep) {
+    long idleMillis = plugin.getConfig().getLong("performance.resident-offline-idle-seconds", 300) * 1000L;
+    int excess = residency.offlineCount() - maxResidentOffline();
+    long now = System.currentTimeMillis();
+    List<UUID> evicted = new ArrayList<>();
+
+    Iterator<Map.Entry<UUID, Long>> entries = residency.offlineByAge();
+    while (entries.hasNext()) {
+      Map.Entry<UUID, Long> entry = entries.next();
+      // Oldest first: once one is still fresh and we're within bounds, all are
+      if (now - entry.getValue() < idleMillis && excess <= 0) {
+        break;
+      }
+      UUID playerId = entry.getKey();
+      if (playerId.equals(keep) || residency.isPinned(playerId)) {
+        continue;
+      }
+      if (residency.isDirty(playerId)) {
+        savePlayerData(playerId);
+        if (residency.isDirty(playerId)) {
+          continue;
+        }
+      }
+      evicted.add(playerId);
+      excess--;
+    }
+
+    for (UUID playerId : evicted) {
+      playerAccessories.remove(playerId);
+      residency.unloaded(playerId);
+    }
+    if (!evicted.isEmpty()) {
+      plugin.getLogger().fine("Unloaded " + evicted.size() + " idle offline player(s)");
+    }
+  }
+
+  private int maxResidentOffline() {
+    return Math.max(1, plugin.getConfig().getInt("performance.max-resident-offline-players", 200));
+  }
+
   public Map<String, List<ItemStack>> getPlayerAccessoriesMap(UUID playerId) {
+    residency.touch(playerId);
     return playerAccessories.getOrDefault(playerId, new HashMap<>());
   }
 
@@ -263,6 +554,7 @@ public class SlotManager {
     Map<String, List<ItemStack>> accessories = playerAccessories.get(playerId);
     if (accessories != null) {
       accessories.clear();
+      residency.markDirty(playerId);
     }
   }
 
@@ -277,6 +569,13 @@ public class SlotManager {
     return playerAccessories.size();
   }
 
+  /**
+   * Gets the number of loaded entries for players who are offline
+   */
+  public int getResidentOfflineCount() {
+    return residency.offlineCount();
+  }
+
   /**
    * Cleans up orphaned player data files (optional maintenance method)
    */
@@ -0,0 +1,56 @@
+package org.bg52.curiospaper.manager;
+
+import org.bg52.curiospaper.data.ItemData;
+import org.bg52.curiospaper.data.VillagerTradeData;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.function.Function;
+
+/**
+ * One villager trade of a loaded item, as indexed under each profession and
+ * level it applies to. Candidates are rebuilt whenever the item is indexed
+ * again (saved, reloaded or hot-reloaded), so the result stack cached here
+ * never outlives the item data it was built from.
+ */
+public final class VillagerTradeCandidate {
+  private final ItemData item;
+  private final VillagerTradeData trade;
+  private final int itemOrdinal;
+  private ItemStack resultTemplate;
+  private boolean resultBuilt;
+
+  VillagerTradeCandidate(ItemData item, VillagerTradeData trade, int itemOrdinal) {
+    this.item = item;
+    this.trade = trade;
+    this.itemOrdinal = itemOrdinal;
+  }
+
+  public ItemData getItem() {
+    return item;
+  }
+
+  public VillagerTradeData getTrade() {
+    return trade;
+  }
+
+  /**
+   * @return the item's stable number, see {@link ItemDataManager#getItemOrdinal}
+   */
+  public int getItemOrdinal() {
+    return itemOrdinal;
+  }
+
+  /**
+   * Returns a copy of the trade's result stack, built by the factory on first
+   * use and cached. Main thread only.
+   *
+   * @return null if the factory returned null
+   */
+  public ItemStack createResult(Function<ItemData, ItemStack> factory) {
+    if (!resultBuilt) {
+      resultTemplate = factory.apply(item);
+      resultBuilt = true;
+    }
+    return resultTemplate == null ? null : resultTemplate.clone();
+  }
+}
@@ -0,0 +1,40 @@
+package org.bg52.curiospaper.metrics;
+
+/**
+ * Subsystem metrics published over JMX as org.bg52.curiospaper:type=Metrics.
+ * Gauges are sampled on the main thread once per second.
+ */
+public interface CuriosPaperMetricsMBean {
+
+  int getLoadedPlayers();
+
+  int getResidentOfflinePlayers();
+
+  long getAutosaveCount();
+
+  double getLastAutosaveMillis();
+
+  long getLastAutosaveBytes();
+
+  long getPackBuildCount();
+
+  double getLastPackBuildMillis();
+
+  long getPackSizeBytes();
+
+  int getActiveDownloads();
+
+  long getCompletedDownloads();
+
+  long getPackBytesServed();
+
+  int getModelStandCount();
+
+  long getAbilityApplications();
+
+  double getAbilityApplicationsPerSecond();
+
+  double getItemCacheHitRatio();
+
+  double getOfflineCacheHitRatio();
+}
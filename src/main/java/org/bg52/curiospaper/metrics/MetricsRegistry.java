@@ -0,0 +1,481 @@
+package org.bg52.curiospaper.metrics;
+
+import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.resourcepack.DownloadTracker;
+import org.bg52.curiospaper.resourcepack.ResourcePackHost;
+import org.bg52.curiospaper.util.Timings;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operational metrics of CuriosPaper's subsystems, for monitoring beyond the
+ * anonymous bStats charts. Published as JMX MBeans (metrics.jmx) and, if
+ * enabled, as Prometheus text on the resource pack host
+ * (metrics.prometheus).
+ *
+ * <p>
+ * Subsystems report events through the record methods, from any thread.
+ * Gauges backed by main-thread state (loaded players, model stands, the pack
+ * host) are sampled by a task once per second, so scrapes and JMX reads from
+ * other threads never touch that state.
+ */
+public class MetricsRegistry implements CuriosPaperMetricsMBean {
+  /** Outcome of {@link #checkScrape}. */
+  public enum ScrapeAccess {
+    ALLOWED, FORBIDDEN, UNAUTHORIZED
+  }
+
+  public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  public static final String CACHE_ITEMS = "item-cache";
+  public static final String CACHE_OFFLINE_PLAYERS = "offline-players";
+
+  private static final String DOMAIN = "org.bg52.curiospaper";
+
+  private final CuriosPaper plugin;
+  private final List<ObjectName> registered = new ArrayList<>();
+  private BukkitTask samplerTask;
+  private volatile String prometheusPath;
+  // Empty allows every address
+  private volatile Set<InetAddress> allowedAddresses = Collections.emptySet();
+  // Null when no token is required
+  private volatile byte[] scrapeToken;
+
+  // Autosave
+  private final LongAdder autosaves = new LongAdder();
+  private final LongAdder autosaveNanosTotal = new LongAdder();
+  private final LongAdder autosaveBytesTotal = new LongAdder();
+  private volatile long lastAutosaveNanos;
+  private volatile long lastAutosaveBytes;
+
+  // Resource pack builds
+  private final LongAdder packBuilds = new LongAdder();
+  private volatile long lastPackBuildNanos;
+  private volatile long packSizeBytes;
+
+  // Abilities
+  private final LongAdder abilityApplications = new LongAdder();
+  private long sampledApplications;
+  private long sampledApplicationsNanos = System.nanoTime();
+  private volatile double abilityApplicationsPerSecond;
+
+  // Caches
+  private final LongAdder itemCacheHits = new LongAdder();
+  private final LongAdder itemCacheMisses = new LongAdder();
+  private final LongAdder offlineCacheHits = new LongAdder();
+  private final LongAdder offlineCacheMisses = new LongAdder();
+
+  // Sampled on the main thread
+  private volatile int loadedPlayers;
+  private volatile int residentOfflinePlayers;
+  private volatile int modelStands;
+  private volatile int activeDownloads;
+  private volatile long completedDownloads;
+  private volatile long packBytesServed;
+  // Reloading the pack host replaces its tracker: carry the finished
+  // tracker's totals over so the exported counters never go down
+  private DownloadTracker sampledTracker;
+  private long completedDownloadsBase;
+  private long packBytesServedBase;
+
+  public MetricsRegistry(CuriosPaper plugin) {
+    this.plugin = plugin;
+  }
+
+  /**
+   * Reads the metrics settings, starts sampling and registers the MBeans
+   */
+  public void start() {
+    reload();
+    samplerTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::sample, 20L, 20L);
+    if (plugin.getConfig().getBoolean("metrics.jmx", true)) {
+      registerMBeans();
+    }
+  }
+
+  public void reload() {
+    if (plugin.getConfig().getBoolean("metrics.prometheus.enabled", false)) {
+      String path = plugin.getConfig().getString("metrics.prometheus.path", "/metrics");
+      prometheusPath = path.startsWith("/") ? path : "/" + path;
+    } else {
+      prometheusPath = null;
+    }
+
+    Set<InetAddress> allowed = new HashSet<>();
+    for (String entry : plugin.getConfig().getStringList("metrics.prometheus.allowed-addresses")) {
+      try {
+        allowed.add(InetAddress.getByName(entry.trim()));
+      } catch (UnknownHostException e) {
+        plugin.getLogger().warning("Ignoring unknown address in metrics.prometheus.allowed-addresses: " + entry);
+      }
+    }
+    allowedAddresses = allowed;
+
+    String token = plugin.getConfig().getString("metrics.prometheus.token", "");
+    scrapeToken = token == null || token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+  }
+
+  public void shutdown() {
+    if (samplerTask != null) {
+      samplerTask.cancel();
+      samplerTask = null;
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName name : registered) {
+      try {
+        server.unregisterMBean(name);
+      } catch (JMException ignored) {
+        // Already gone
+      }
+    }
+    registered.clear();
+  }
+
+  /**
+   * @return the path the pack host serves Prometheus metrics on, or null if
+   *         the endpoint is disabled
+   */
+  public String getPrometheusPath() {
+    return prometheusPath;
+  }
+
+  /**
+   * Checks a scrape of the Prometheus endpoint against the address allowlist
+   * and the bearer token. Thread-safe.
+   *
+   * @param address       the client address, or null if unknown
+   * @param authorization the Authorization header, or null if absent
+   */
+  public ScrapeAccess checkScrape(InetAddress address, String authorization) {
+    Set<InetAddress> allowed = allowedAddresses;
+    if (!allowed.isEmpty() && (address == null || !allowed.contains(address))) {
+      return ScrapeAccess.FORBIDDEN;
+    }
+    byte[] token = scrapeToken;
+    if (token != null) {
+      String given = authorization != null && authorization.startsWith("Bearer ")
+          ? authorization.substring("Bearer ".length()).trim()
+          : "";
+      // Constant-time comparison, so the token can't be guessed from timing
+      if (!MessageDigest.isEqual(token, given.getBytes(StandardCharsets.UTF_8))) {
+        return ScrapeAccess.UNAUTHORIZED;
+      }
+    }
+    return ScrapeAccess.ALLOWED;
+  }
+
+  // ========== RECORDING ==========
+
+  public void recordAutosave(long nanos, long bytes) {
+    autosaves.increment();
+    autosaveNanosTotal.add(nanos);
+    autosaveBytesTotal.add(bytes);
+    lastAutosaveNanos = nanos;
+    lastAutosaveBytes = bytes;
+  }
+
+  public void recordPackBuild(long nanos, long sizeBytes) {
+    packBuilds.increment();
+    lastPackBuildNanos = nanos;
+    packSizeBytes = sizeBytes;
+  }
+
+  public void abilityApplied() {
+    abilityApplications.increment();
+  }
+
+  public void itemCacheLookup(boolean hit) {
+    (hit ? itemCacheHits : itemCacheMisses).increment();
+  }
+
+  public void offlineCacheLookup(boolean hit) {
+    (hit ? offlineCacheHits : offlineCacheMisses).increment();
+  }
+
+  private void sample() {
+    if (plugin.getSlotManager() != null) {
+      loadedPlayers = plugin.getSlotManager().getLoadedPlayerCount();
+      residentOfflinePlayers = plugin.getSlotManager().getResidentOfflineCount();
+    }
+    if (plugin.getModelStandManager() != null) {
+      modelStands = plugin.getModelStandManager().getStandCount();
+    }
+    ResourcePackHost host = plugin.getResourcePackManager() != null
+        ? plugin.getResourcePackManager().getHost()
+        : null;
+    if (host != null) {
+      DownloadTracker tracker = host.getDownloadTracker();
+      if (tracker != sampledTracker) {
+        completedDownloadsBase = completedDownloads;
+        packBytesServedBase = packBytesServed;
+        sampledTracker = tracker;
+      }
+      activeDownloads = tracker.getActiveDownloads();
+      completedDownloads = completedDownloadsBase + tracker.getCompletedDownloads();
+      packBytesServed = packBytesServedBase + tracker.getTotalBytesSent();
+    } else {
+      activeDownloads = 0;
+    }
+
+    long now = System.nanoTime();
+    long applications = abilityApplications.sum();
+    abilityApplicationsPerSecond = (applications - sampledApplications) * 1e9
+        / Math.max(1L, now - sampledApplicationsNanos);
+    sampledApplications = applications;
+    sampledApplicationsNanos = now;
+  }
+
+  // ========== JMX ==========
+
+  private void registerMBeans() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      register(server, new ObjectName(DOMAIN + ":type=Metrics"),
+          new StandardMBean(this, CuriosPaperMetricsMBean.class));
+      for (Timings.Section section : Timings.Section.values()) {
+        register(server, new ObjectName(DOMAIN + ":type=Timings,name=" + section.getId()),
+            new StandardMBean(new TimingsSection(section), TimingsSectionMBean.class));
+      }
+    } catch (JMException e) {
+      plugin.getLogger().warning("Failed to register JMX metrics: " + e.getMessage());
+    }
+  }
+
+  private void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+    // Left over from a reload of this plugin
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+    server.registerMBean(bean, name);
+    registered.add(name);
+  }
+
+  @Override
+  public int getLoadedPlayers() {
+    return loadedPlayers;
+  }
+
+  @Override
+  public int getResidentOfflinePlayers() {
+    return residentOfflinePlayers;
+  }
+
+  @Override
+  public long getAutosaveCount() {
+    return autosaves.sum();
+  }
+
+  @Override
+  public double getLastAutosaveMillis() {
+    return Timings.toMillis(lastAutosaveNanos);
+  }
+
+  @Override
+  public long getLastAutosaveBytes() {
+    return lastAutosaveBytes;
+  }
+
+  @Override
+  public long getPackBuildCount() {
+    return packBuilds.sum();
+  }
+
+  @Override
+  public double getLastPackBuildMillis() {
+    return Timings.toMillis(lastPackBuildNanos);
+  }
+
+  @Override
+  public long getPackSizeBytes() {
+    return packSizeBytes;
+  }
+
+  @Override
+  public int getActiveDownloads() {
+    return activeDownloads;
+  }
+
+  @Override
+  public long getCompletedDownloads() {
+    return completedDownloads;
+  }
+
+  @Override
+  public long getPackBytesServed() {
+    return packBytesServed;
+  }
+
+  @Override
+  public int getModelStandCount() {
+    return modelStands;
+  }
+
+  @Override
+  public long getAbilityApplications() {
+    return abilityApplications.sum();
+  }
+
+  @Override
+  public double getAbilityApplicationsPerSecond() {
+    return abilityApplicationsPerSecond;
+  }
+
+  @Override
+  public double getItemCacheHitRatio() {
+    return ratio(itemCacheHits.sum(), itemCacheMisses.sum());
+  }
+
+  @Override
+  public double getOfflineCacheHitRatio() {
+    return ratio(offlineCacheHits.sum(), offlineCacheMisses.sum());
+  }
+
+  private static double ratio(long hits, long misses) {
+    long total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  private static class TimingsSection implements TimingsSectionMBean {
+    private final Timings.Section section;
+
+    TimingsSection(Timings.Section section) {
+      this.section = section;
+    }
+
+    @Override
+    public long getCalls() {
+      return Timings.getStats(section).getCount();
+    }
+
+    @Override
+    public double getCallsPerSecond() {
+      return Timings.getStats(section).getCallsPerSecond(Timings.getElapsedNanos());
+    }
+
+    @Override
+    public double getMeanMillis() {
+      return Timings.toMillis(Timings.getStats(section).getMeanNanos());
+    }
+
+    @Override
+    public double getP50Millis() {
+      return Timings.toMillis(Timings.getStats(section).getPercentileNanos(50));
+    }
+
+    @Override
+    public double getP95Millis() {
+      return Timings.toMillis(Timings.getStats(section).getPercentileNanos(95));
+    }
+
+    @Override
+    public double getP99Millis() {
+      return Timings.toMillis(Timings.getStats(section).getPercentileNanos(99));
+    }
+
+    @Override
+    public double getMaxMillis() {
+      return Timings.toMillis(Timings.getStats(section).getMaxNanos());
+    }
+  }
+
+  // ========== PROMETHEUS ==========
+
+  /**
+   * Formats all metrics in the Prometheus text exposition format (0.0.4).
+   * Thread-safe.
+   */
+  public String toPrometheus() {
+    StringBuilder out = new StringBuilder(4096);
+    gauge(out, "curiospaper_loaded_players", "Players whose accessory data is loaded", loadedPlayers);
+    gauge(out, "curiospaper_resident_offline_players", "Offline players whose accessory data is loaded",
+        residentOfflinePlayers);
+
+    counter(out, "curiospaper_autosave_total", "Completed player data saves", autosaves.sum());
+    counter(out, "curiospaper_autosave_seconds_total", "Time spent saving player data",
+        autosaveNanosTotal.sum() / 1e9);
+    counter(out, "curiospaper_autosave_bytes_total", "Bytes of player data written", autosaveBytesTotal.sum());
+    gauge(out, "curiospaper_autosave_last_seconds", "Duration of the last player data save", lastAutosaveNanos / 1e9);
+    gauge(out, "curiospaper_autosave_last_bytes", "Bytes written by the last player data save", lastAutosaveBytes);
+
+    counter(out, "curiospaper_pack_builds_total", "Resource pack builds", packBuilds.sum());
+    gauge(out, "curiospaper_pack_build_last_seconds", "Duration of the last resource pack build",
+        lastPackBuildNanos / 1e9);
+    gauge(out, "curiospaper_pack_size_bytes", "Size of the resource pack", packSizeBytes);
+    gauge(out, "curiospaper_pack_active_downloads", "Resource pack downloads in progress", activeDownloads);
+    counter(out, "curiospaper_pack_downloads_total", "Completed resource pack downloads", completedDownloads);
+    counter(out, "curiospaper_pack_sent_bytes_total", "Bytes of resource pack sent", packBytesServed);
+
+    gauge(out, "curiospaper_model_stands", "3D model stands worn by players", modelStands);
+    counter(out, "curiospaper_ability_applications_total", "Abilities applied to players",
+        abilityApplications.sum());
+
+    header(out, "curiospaper_cache_hits_total", "Cache lookups answered from the cache", "counter");
+    sample(out, "curiospaper_cache_hits_total", "cache=\"" + CACHE_ITEMS + "\"", itemCacheHits.sum());
+    sample(out, "curiospaper_cache_hits_total", "cache=\"" + CACHE_OFFLINE_PLAYERS + "\"", offlineCacheHits.sum());
+    header(out, "curiospaper_cache_misses_total", "Cache lookups that had to load the data", "counter");
+    sample(out, "curiospaper_cache_misses_total", "cache=\"" + CACHE_ITEMS + "\"", itemCacheMisses.sum());
+    sample(out, "curiospaper_cache_misses_total", "cache=\"" + CACHE_OFFLINE_PLAYERS + "\"",
+        offlineCacheMisses.sum());
+    header(out, "curiospaper_cache_hit_ratio", "Share of cache lookups answered from the cache", "gauge");
+    sample(out, "curiospaper_cache_hit_ratio", "cache=\"" + CACHE_ITEMS + "\"", getItemCacheHitRatio());
+    sample(out, "curiospaper_cache_hit_ratio", "cache=\"" + CACHE_OFFLINE_PLAYERS + "\"", getOfflineCacheHitRatio());
+
+    String handler = "curiospaper_handler_duration_seconds";
+    // Quantiles cover the time since the last /curios timings reset; the sum
+    // and count are counters, so they cover the time since startup
+    header(out, handler, "Duration of CuriosPaper listeners and tasks", "summary");
+    for (Timings.Section section : Timings.Section.values()) {
+      Timings.Stats stats = Timings.getStats(section);
+      String label = "section=\"" + section.getId() + "\"";
+      sample(out, handler, label + ",quantile=\"0.5\"", stats.getPercentileNanos(50) / 1e9);
+      sample(out, handler, label + ",quantile=\"0.95\"", stats.getPercentileNanos(95) / 1e9);
+      sample(out, handler, label + ",quantile=\"0.99\"", stats.getPercentileNanos(99) / 1e9);
+      sample(out, handler + "_sum", label, Timings.getLifetimeTotalNanos(section) / 1e9);
+      sample(out, handler + "_count", label, Timings.getLifetimeCount(section));
+    }
+    return out.toString();
+  }
+
+  private static void gauge(StringBuilder out, String name, String help, double value) {
+    header(out, name, help, "gauge");
+    sample(out, name, null, value);
+  }
+
+  private static void counter(StringBuilder out, String name, String help, double value) {
+    header(out, name, help, "counter");
+    sample(out, name, null, value);
+  }
+
+  private static void header(StringBuilder out, String name, String help, String type) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, double value) {
+    out.append(name);
+    if (labels != null) {
+      out.append('{').append(labels).append('}');
+    }
+    out.append(' ');
+    if (value == Math.rint(value) && !Double.isInfinite(value)) {
+      out.append((long) value);
+    } else {
+      out.append(value);
+    }
+    out.append('\n');
+  }
+}
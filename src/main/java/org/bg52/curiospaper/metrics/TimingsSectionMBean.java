@@ -0,0 +1,23 @@
+package org.bg52.curiospaper.metrics;
+
+/**
+ * One {@link org.bg52.curiospaper.util.Timings} section over JMX, as
+ * org.bg52.curiospaper:type=Timings,name=&lt;section&gt;. Durations are in
+ * milliseconds and cover the time since the last /curios timings reset.
+ */
+public interface TimingsSectionMBean {
+
+  long getCalls();
+
+  double getCallsPerSecond();
+
+  double getMeanMillis();
+
+  double getP50Millis();
+
+  double getP95Millis();
+
+  double getP99Millis();
+
+  double getMaxMillis();
+}
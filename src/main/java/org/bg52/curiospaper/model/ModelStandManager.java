@@ -2,8 +2,10 @@ package org.bg52.curiospaper.model;
 
 import org.bg52.curiospaper.CuriosPaper;
 import org.bg52.curiospaper.data.ItemData;
+import org.bg52.curiospaper.event.AccessoryBatchEquipEvent;
 import org.bg52.curiospaper.event.AccessoryEquipEvent;
 import org.bg52.curiospaper.event.CuriosModelEquipEvent;
+import org.bg52.curiospaper.util.Timings;
 import org.bg52.curiospaper.util.VersionUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -99,8 +101,13 @@ public class ModelStandManager implements Listener {
 
     // Periodic sync task for scale and visibility
     Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-      for (Player player : Bukkit.getOnlinePlayers()) {
-        updateStandsForPlayer(player, false);
+      long start = Timings.start();
+      try {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+          updateStandsForPlayer(player, false);
+        }
+      } finally {
+        Timings.stop(Timings.Section.MODEL_STAND_SYNC, start);
       }
     }, 20L, 20L);
   }
@@ -119,10 +126,35 @@ public class ModelStandManager implements Listener {
     activeTridentUsers.clear();
   }
 
+  /**
+   * @return the number of model stands currently spawned for all players
+   */
+  public int getStandCount() {
+    int count = 0;
+    for (Map<String, Entity> stands : activeStands.values()) {
+      count += stands.size();
+    }
+    return count;
+  }
+
   // ========== EVENT HANDLERS ==========
 
   @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
   public void onAccessoryEquip(AccessoryEquipEvent event) {
+    // Transaction changes are handled through their batch event
+    if (!event.isBatched()) {
+      applyEquipChange(event);
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onAccessoryBatchEquip(AccessoryBatchEquipEvent event) {
+    for (AccessoryEquipEvent change : event.getChanges()) {
+      applyEquipChange(change);
+    }
+  }
+
+  private void applyEquipChange(AccessoryEquipEvent event) {
     Player player = event.getPlayer();
     String slotKey = event.getSlotType() + ":" + event.getSlotIndex();
 
@@ -0,0 +1,128 @@
+package org.bg52.curiospaper.resourcepack;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-IP download limits and transfer metrics shared by the pack hosts.
+ * All methods are thread-safe; hosts call them from their I/O threads.
+ */
+public class DownloadTracker {
+  private final int maxConnectionsPerIp;
+  private final Map<InetAddress, Integer> connectionsPerIp = new ConcurrentHashMap<>();
+
+  private final AtomicInteger activeDownloads = new AtomicInteger();
+  private final AtomicInteger queuedRequests = new AtomicInteger();
+  private final AtomicLong totalBytesSent = new AtomicLong();
+  private final AtomicLong completedDownloads = new AtomicLong();
+  private final AtomicLong rejectedRequests = new AtomicLong();
+
+  private long sampleBytes;
+  private long sampleNanos = System.nanoTime();
+  private long lastBytesPerSecond;
+
+  public DownloadTracker(int maxConnectionsPerIp) {
+    this.maxConnectionsPerIp = Math.max(0, maxConnectionsPerIp);
+  }
+
+  /**
+   * Reserves a download slot for the given address.
+   *
+   * @return false if the address already has the maximum number of downloads
+   *         running; the request is counted as rejected
+   */
+  public boolean tryAcquire(InetAddress address) {
+    if (maxConnectionsPerIp <= 0 || address == null) {
+      return true;
+    }
+    boolean[] acquired = new boolean[1];
+    connectionsPerIp.compute(address, (k, count) -> {
+      int current = count == null ? 0 : count;
+      if (current >= maxConnectionsPerIp) {
+        return count;
+      }
+      acquired[0] = true;
+      return current + 1;
+    });
+    if (!acquired[0]) {
+      rejectedRequests.incrementAndGet();
+    }
+    return acquired[0];
+  }
+
+  public void release(InetAddress address) {
+    if (maxConnectionsPerIp <= 0 || address == null) {
+      return;
+    }
+    connectionsPerIp.computeIfPresent(address, (k, count) -> count <= 1 ? null : count - 1);
+  }
+
+  public void requestQueued() {
+    queuedRequests.incrementAndGet();
+  }
+
+  public void requestDequeued() {
+    queuedRequests.decrementAndGet();
+  }
+
+  public void downloadStarted() {
+    activeDownloads.incrementAndGet();
+  }
+
+  public void downloadFinished(boolean success) {
+    activeDownloads.decrementAndGet();
+    if (success) {
+      completedDownloads.incrementAndGet();
+    }
+  }
+
+  public void bytesSent(long bytes) {
+    totalBytesSent.addAndGet(bytes);
+  }
+
+  // --- Metrics ---
+
+  public int getMaxConnectionsPerIp() {
+    return maxConnectionsPerIp;
+  }
+
+  public int getActiveDownloads() {
+    return activeDownloads.get();
+  }
+
+  public int getQueuedRequests() {
+    return queuedRequests.get();
+  }
+
+  public long getTotalBytesSent() {
+    return totalBytesSent.get();
+  }
+
+  public long getCompletedDownloads() {
+    return completedDownloads.get();
+  }
+
+  public long getRejectedRequests() {
+    return rejectedRequests.get();
+  }
+
+  /**
+   * Outgoing throughput averaged since the previous call (at most once per
+   * second; more frequent calls return the last sample).
+   */
+  public synchronized long getBytesPerSecond() {
+    long now = System.nanoTime();
+    long elapsed = now - sampleNanos;
+    if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+      long total = totalBytesSent.get();
+      lastBytesPerSecond = (total - sampleBytes) * TimeUnit.SECONDS.toNanos(1) / elapsed;
+      sampleBytes = total;
+      sampleNanos = now;
+    }
+    return lastBytesPerSecond;
+  }
+}
@@ -1,51 +1,85 @@
 package org.bg52.curiospaper.resourcepack;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedFile;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
 import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.metrics.MetricsRegistry;
+import org.bg52.curiospaper.util.Timings;
 
 import java.io.File;
-import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.charset.StandardCharsets;
-
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * First handler on every game-port connection when hosting mode is NETTY.
+ * Looks at the first bytes: HTTP requests are switched over to an HTTP
+ * pipeline serving the pack, anything else is left to Minecraft untouched.
+ */
 public class HttpPacketHandler extends ChannelInboundHandlerAdapter {
 
   private final CuriosPaper plugin;
-  private final File packFile;
+  private final Function<String, File> packResolver;
+  private final DownloadTracker tracker;
 
-  public HttpPacketHandler(CuriosPaper plugin, File packFile) {
+  public HttpPacketHandler(CuriosPaper plugin, Function<String, File> packResolver, DownloadTracker tracker) {
     this.plugin = plugin;
-    this.packFile = packFile;
+    this.packResolver = packResolver;
+    this.tracker = tracker;
   }
 
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-    if (msg instanceof ByteBuf) {
-      ByteBuf buf = (ByteBuf) msg;
-
-      // Check for HTTP GET request (G = 71, E = 69, T = 84)
-      if (buf.readableBytes() > 3 && buf.getByte(buf.readerIndex()) == 'G'
-          && buf.getByte(buf.readerIndex() + 1) == 'E'
-          && buf.getByte(buf.readerIndex() + 2) == 'T') {
-
-        // It's likely an HTTP request.
-        // Remove this handler to prevent re-entry issues if we re-inject
-        ctx.pipeline().remove(this);
-
-        // Add HTTP codecs
-        ctx.pipeline().addFirst("http-codec", new HttpServerCodec());
-        ctx.pipeline().addAfter("http-codec", "http-chunked", new ChunkedWriteHandler());
-        ctx.pipeline().addAfter("http-chunked", "http-handler", new SimpleHttpHandler(plugin, packFile));
-
-        // Fire the message again so the new handlers pick it up
-        // We need to retain the buffer because we are passing it on
-        buf.retain();
-        ctx.fireChannelRead(buf);
-        return;
+    if (msg instanceof ByteBuf && isHttpRequest((ByteBuf) msg)) {
+      ChannelPipeline pipeline = ctx.pipeline();
+
+      // Strip the Minecraft handlers: their read timeout would cut long
+      // downloads and their decoders have no business seeing HTTP objects.
+      for (String name : pipeline.names()) {
+        ChannelHandler handler = pipeline.get(name);
+        if (handler != null && handler != this) {
+          try {
+            pipeline.remove(handler);
+          } catch (NoSuchElementException ignored) {
+            // Already removed concurrently
+          }
+        }
       }
+
+      // Idle timeouts that allow for long downloads take the read timeout's
+      // place, so a client can't hold the connection and its download slot
+      // by going quiet. Output progress counts as activity.
+      int requestTimeout = Math.max(1,
+          plugin.getConfig().getInt("resource-pack.server.request-timeout-seconds", 30));
+      int transferTimeout = Math.max(1,
+          plugin.getConfig().getInt("resource-pack.server.transfer-idle-timeout-seconds", 60));
+      pipeline.addLast("http-idle",
+          new IdleStateHandler(true, requestTimeout, transferTimeout, 0, TimeUnit.SECONDS));
+      pipeline.addLast("http-codec", new HttpServerCodec());
+      pipeline.addLast("http-chunked", new ChunkedWriteHandler());
+      pipeline.addLast("http-handler", new SimpleHttpHandler(plugin, packResolver, tracker));
+      pipeline.remove(this);
+
+      // Re-fire from the head so the codec sees the request bytes
+      pipeline.fireChannelRead(msg);
+      return;
     }
 
     // Not HTTP, pass it along and remove self
@@ -53,47 +87,157 @@ public class HttpPacketHandler extends ChannelInboundHandlerAdapter {
     ctx.fireChannelRead(msg);
   }
 
+  private static boolean isHttpRequest(ByteBuf buf) {
+    int i = buf.readerIndex();
+    if (buf.readableBytes() < 4) {
+      return false;
+    }
+    // "GET " or "HEAD"
+    return (buf.getByte(i) == 'G' && buf.getByte(i + 1) == 'E' && buf.getByte(i + 2) == 'T'
+        && buf.getByte(i + 3) == ' ')
+        || (buf.getByte(i) == 'H' && buf.getByte(i + 1) == 'E' && buf.getByte(i + 2) == 'A'
+            && buf.getByte(i + 3) == 'D');
+  }
+
   private static class SimpleHttpHandler extends io.netty.channel.SimpleChannelInboundHandler<HttpRequest> {
     private final CuriosPaper plugin;
-    private final File packFile;
+    private final Function<String, File> packResolver;
+    private final DownloadTracker tracker;
+    // Whether a pack is being sent on this connection
+    private boolean transferring;
 
-    public SimpleHttpHandler(CuriosPaper plugin, File packFile) {
+    public SimpleHttpHandler(CuriosPaper plugin, Function<String, File> packResolver, DownloadTracker tracker) {
       this.plugin = plugin;
-      this.packFile = packFile;
+      this.packResolver = packResolver;
+      this.tracker = tracker;
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, HttpRequest request) throws Exception {
-      if (request.uri().equals("/pack.zip") && request.method() == HttpMethod.GET) {
-        if (!packFile.exists()) {
-          sendError(ctx, HttpResponseStatus.NOT_FOUND);
-          return;
-        }
+      boolean head = request.method() == HttpMethod.HEAD;
+      boolean keepAlive = HttpUtil.isKeepAlive(request);
+
+      // The join URL carries ?v=<hash> for cache busting, so match on path only
+      String path = new QueryStringDecoder(request.uri()).path();
+      String metricsPath = plugin.getMetricsRegistry().getPrometheusPath();
+      if (metricsPath != null && metricsPath.equals(path) && request.method() == HttpMethod.GET) {
+        sendMetrics(ctx, request, keepAlive);
+        return;
+      }
 
-        RandomAccessFile raf = new RandomAccessFile(packFile, "r");
-        long fileLength = raf.length();
+      File packFile = packResolver.apply(path);
+      if (packFile == null || !(head || request.method() == HttpMethod.GET)) {
+        sendError(ctx, HttpResponseStatus.NOT_FOUND, keepAlive);
+        return;
+      }
 
-        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
-        HttpUtil.setContentLength(response, fileLength);
-        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/zip");
-        response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+      if (!packFile.exists()) {
+        sendError(ctx, HttpResponseStatus.NOT_FOUND, keepAlive);
+        return;
+      }
 
-        ctx.write(response);
-        ctx.write(new io.netty.handler.stream.ChunkedFile(raf, 0, fileLength, 8192),
-            ctx.newProgressivePromise());
-        ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT)
-            .addListener(io.netty.channel.ChannelFutureListener.CLOSE);
+      InetAddress address = remoteAddress(ctx);
+      if (!tracker.tryAcquire(address)) {
+        FullHttpResponse response = errorResponse(HttpResponseStatus.TOO_MANY_REQUESTS);
+        response.headers().set(HttpHeaderNames.RETRY_AFTER, 5);
+        writeAndMaybeClose(ctx, response, keepAlive);
+        return;
+      }
+
+      long fileLength = packFile.length();
+      HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+      HttpUtil.setContentLength(response, fileLength);
+      HttpUtil.setKeepAlive(response, keepAlive);
+      response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/zip");
+      ctx.write(response);
+
+      tracker.downloadStarted();
+      transferring = true;
+      long start = Timings.start();
+      ChannelFuture lastFuture;
+      if (head) {
+        lastFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+      } else if (ctx.pipeline().get(SslHandler.class) == null) {
+        // Zero-copy: the transport uses sendfile/transferTo for FileRegions
+        ctx.write(new DefaultFileRegion(packFile, 0, fileLength));
+        lastFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
       } else {
-        sendError(ctx, HttpResponseStatus.NOT_FOUND);
+        // TLS needs the bytes in user space, stream through the chunked writer
+        lastFuture = ctx.writeAndFlush(new HttpChunkedInput(new ChunkedFile(packFile, 8192)));
+      }
+
+      lastFuture.addListener((ChannelFutureListener) future -> {
+        transferring = false;
+        Timings.stop(Timings.Section.PACK_SERVE, start);
+        tracker.downloadFinished(future.isSuccess());
+        if (future.isSuccess() && !head) {
+          tracker.bytesSent(fileLength);
+        }
+        tracker.release(address);
+        if (!keepAlive) {
+          future.channel().close();
+        }
+      });
+    }
+
+    private InetAddress remoteAddress(ChannelHandlerContext ctx) {
+      SocketAddress address = ctx.channel().remoteAddress();
+      return address instanceof InetSocketAddress ? ((InetSocketAddress) address).getAddress() : null;
+    }
+
+    private void sendMetrics(ChannelHandlerContext ctx, HttpRequest request, boolean keepAlive) {
+      MetricsRegistry metrics = plugin.getMetricsRegistry();
+      switch (metrics.checkScrape(remoteAddress(ctx), request.headers().get(HttpHeaderNames.AUTHORIZATION))) {
+        case FORBIDDEN:
+          sendError(ctx, HttpResponseStatus.FORBIDDEN, keepAlive);
+          break;
+        case UNAUTHORIZED:
+          FullHttpResponse denied = errorResponse(HttpResponseStatus.UNAUTHORIZED);
+          denied.headers().set(HttpHeaderNames.WWW_AUTHENTICATE, "Bearer");
+          writeAndMaybeClose(ctx, denied, keepAlive);
+          break;
+        default:
+          FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+              io.netty.buffer.Unpooled.copiedBuffer(metrics.toPrometheus(), StandardCharsets.UTF_8));
+          response.headers().set(HttpHeaderNames.CONTENT_TYPE, MetricsRegistry.PROMETHEUS_CONTENT_TYPE);
+          HttpUtil.setContentLength(response, response.content().readableBytes());
+          writeAndMaybeClose(ctx, response, keepAlive);
       }
     }
 
-    private void sendError(ChannelHandlerContext ctx, HttpResponseStatus status) {
+    private FullHttpResponse errorResponse(HttpResponseStatus status) {
       FullHttpResponse response = new DefaultFullHttpResponse(
           HttpVersion.HTTP_1_1, status,
           io.netty.buffer.Unpooled.copiedBuffer("Failure: " + status + "\r\n", StandardCharsets.UTF_8));
       response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=UTF-8");
-      ctx.writeAndFlush(response).addListener(io.netty.channel.ChannelFutureListener.CLOSE);
+      HttpUtil.setContentLength(response, response.content().readableBytes());
+      return response;
+    }
+
+    private void sendError(ChannelHandlerContext ctx, HttpResponseStatus status, boolean keepAlive) {
+      writeAndMaybeClose(ctx, errorResponse(status), keepAlive);
+    }
+
+    private void writeAndMaybeClose(ChannelHandlerContext ctx, FullHttpResponse response, boolean keepAlive) {
+      HttpUtil.setKeepAlive(response, keepAlive);
+      ChannelFuture future = ctx.writeAndFlush(response);
+      if (!keepAlive) {
+        future.addListener(ChannelFutureListener.CLOSE);
+      }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+      if (evt instanceof IdleStateEvent) {
+        IdleState state = ((IdleStateEvent) evt).state();
+        // Clients send nothing while downloading, so silence only counts
+        // between requests, and a stalled write only during a transfer
+        if (transferring ? state == IdleState.WRITER_IDLE : state == IdleState.READER_IDLE) {
+          ctx.close();
+        }
+        return;
+      }
+      super.userEventTriggered(ctx, evt);
     }
 
     @Override
@@ -102,4 +246,4 @@ public class HttpPacketHandler extends ChannelInboundHandlerAdapter {
       ctx.close();
     }
   }
-}
\ No newline at end of file
+}
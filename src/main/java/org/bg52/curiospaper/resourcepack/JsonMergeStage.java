@@ -0,0 +1,278 @@
+package org.bg52.curiospaper.resourcepack;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Collects every contribution to a mergeable JSON path during a pack build and
+ * writes each merged file once at the end of the copy stage.
+ *
+ * <p>
+ * Merge rules, applied in source registration order (CuriosPaper first, then
+ * addons, then external packs):
+ * <ul>
+ * <li>Objects merge recursively; keys missing from the result are added.</li>
+ * <li>Conflicting primitives or mismatched types keep the earlier value, so the
+ * base file's core properties (like its parent model) survive.</li>
+ * <li>Arrays are appended as they are. Repeated elements can be intended, like
+ * two identical cubes in a model's {@code elements} or sources in an atlas,
+ * so they are not removed.</li>
+ * <li>{@code overrides} arrays are keyed by predicate: they keep the earlier
+ * entry for an identical predicate and are stably sorted by
+ * {@code custom_model_data}, since the client applies the last matching
+ * override.</li>
+ * </ul>
+ *
+ * <p>
+ * Parsed trees are cached by source identity (path and modification stamp),
+ * so unchanged files are not reparsed on the next rebuild.
+ */
+class JsonMergeStage {
+  private static class CachedTree {
+    final long stamp;
+    final JsonElement tree;
+
+    CachedTree(long stamp, JsonElement tree) {
+      this.stamp = stamp;
+      this.tree = tree;
+    }
+  }
+
+  private static class SourceRef {
+    final String key;
+    final long stamp;
+
+    SourceRef(String key, long stamp) {
+      this.key = key;
+      this.stamp = stamp;
+    }
+  }
+
+  private final Gson gson;
+  private final Logger logger;
+
+  private final Map<String, CachedTree> parseCache = new HashMap<>();
+  private final Set<String> usedKeys = new HashSet<>();
+
+  // Per build: the first contributor (already copied into place) and the rest
+  private final Map<File, SourceRef> bases = new HashMap<>();
+  private final Map<File, List<JsonElement>> pending = new LinkedHashMap<>();
+
+  JsonMergeStage(Gson gson, Logger logger) {
+    this.gson = gson;
+    this.logger = logger;
+  }
+
+  /**
+   * Starts a new build; previous per-build state is discarded, the parse
+   * cache is kept.
+   */
+  void begin() {
+    bases.clear();
+    pending.clear();
+    usedKeys.clear();
+  }
+
+  /**
+   * Records the source of a mergeable file that was copied into place as-is.
+   * It is only parsed if a later source contributes to the same path.
+   */
+  void recordBase(File dest, String sourceKey, long stamp) {
+    bases.put(dest, new SourceRef(sourceKey, stamp));
+  }
+
+  /**
+   * Queues a later source's version of an existing mergeable file. The stream
+   * is read (unless the cache already holds this source) but not closed.
+   */
+  void contribute(File dest, String sourceKey, long stamp, InputStream in) throws IOException {
+    JsonElement tree = parseCached(sourceKey, stamp, in);
+    pending.computeIfAbsent(dest, k -> new ArrayList<>()).add(tree);
+  }
+
+  /**
+   * Merges and writes every path that received contributions, then drops
+   * cache entries for sources that are gone.
+   *
+   * @return the number of contributions merged
+   */
+  int apply() {
+    int merged = 0;
+    for (Map.Entry<File, List<JsonElement>> entry : pending.entrySet()) {
+      File dest = entry.getKey();
+      try {
+        SourceRef base = bases.get(dest);
+        JsonElement baseTree;
+        if (base != null) {
+          try (InputStream in = new FileInputStream(dest)) {
+            baseTree = parseCached(base.key, base.stamp, in);
+          }
+        } else {
+          try (InputStream in = new FileInputStream(dest)) {
+            baseTree = parse(in);
+          }
+        }
+
+        if (!baseTree.isJsonObject()) {
+          logger.warning("Cannot merge JSON (non-object): " + dest.getPath());
+          continue;
+        }
+
+        // Cached trees are shared across builds, merge into a private copy
+        JsonObject result = deepCopy(baseTree).getAsJsonObject();
+        for (JsonElement contribution : entry.getValue()) {
+          if (!contribution.isJsonObject()) {
+            logger.warning("Cannot merge JSON (non-object): " + dest.getPath());
+            continue;
+          }
+          deepMerge(result, contribution.getAsJsonObject());
+          merged++;
+        }
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(dest), StandardCharsets.UTF_8)) {
+          gson.toJson(result, writer);
+        }
+      } catch (Exception e) {
+        logger.severe("Failed to merge JSON " + dest.getPath() + ": " + e.getMessage());
+      }
+    }
+
+    parseCache.keySet().retainAll(usedKeys);
+    return merged;
+  }
+
+  int getMergedFileCount() {
+    return pending.size();
+  }
+
+  private JsonElement parseCached(String key, long stamp, InputStream in) throws IOException {
+    usedKeys.add(key);
+    CachedTree cached = parseCache.get(key);
+    if (cached != null && cached.stamp == stamp) {
+      return cached.tree;
+    }
+    JsonElement tree = parse(in);
+    parseCache.put(key, new CachedTree(stamp, tree));
+    return tree;
+  }
+
+  private JsonElement parse(InputStream in) throws IOException {
+    try {
+      return new JsonParser().parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+    } catch (RuntimeException e) {
+      throw new IOException("Invalid JSON: " + e.getMessage(), e);
+    }
+  }
+
+  private void deepMerge(JsonObject dest, JsonObject src) {
+    for (Map.Entry<String, JsonElement> entry : src.entrySet()) {
+      String key = entry.getKey();
+      JsonElement value = entry.getValue();
+
+      if (!dest.has(key)) {
+        dest.add(key, deepCopy(value));
+        continue;
+      }
+
+      JsonElement destValue = dest.get(key);
+      if (destValue.isJsonObject() && value.isJsonObject()) {
+        deepMerge(destValue.getAsJsonObject(), value.getAsJsonObject());
+      } else if (destValue.isJsonArray() && value.isJsonArray()) {
+        if (key.equals("overrides")) {
+          mergeOverrides(destValue.getAsJsonArray(), value.getAsJsonArray());
+        } else {
+          mergeArray(destValue.getAsJsonArray(), value.getAsJsonArray());
+        }
+      }
+      // Primitives or mismatched types: keep the earlier value
+    }
+  }
+
+  private void mergeArray(JsonArray dest, JsonArray src) {
+    for (JsonElement element : src) {
+      dest.add(deepCopy(element));
+    }
+  }
+
+  private void mergeOverrides(JsonArray dest, JsonArray src) {
+    Map<JsonElement, JsonElement> byPredicate = new LinkedHashMap<>();
+    List<JsonElement> withoutPredicate = new ArrayList<>();
+    for (JsonArray array : new JsonArray[] { dest, src }) {
+      for (JsonElement element : array) {
+        JsonElement predicate = element.isJsonObject() ? element.getAsJsonObject().get("predicate") : null;
+        if (predicate == null) {
+          // No key to compare by, keep it like any other array element
+          withoutPredicate.add(array == src ? deepCopy(element) : element);
+        } else if (!byPredicate.containsKey(predicate)) {
+          byPredicate.put(predicate, array == src ? deepCopy(element) : element);
+        }
+      }
+    }
+
+    List<JsonElement> ordered = new ArrayList<>(withoutPredicate);
+    List<JsonElement> predicated = new ArrayList<>(byPredicate.values());
+    predicated.sort((a, b) -> Double.compare(customModelData(a), customModelData(b)));
+    ordered.addAll(predicated);
+
+    while (dest.size() > 0) {
+      dest.remove(dest.size() - 1);
+    }
+    for (JsonElement element : ordered) {
+      dest.add(element);
+    }
+  }
+
+  private double customModelData(JsonElement override) {
+    JsonElement predicate = override.getAsJsonObject().get("predicate");
+    if (predicate != null && predicate.isJsonObject()) {
+      JsonElement cmd = predicate.getAsJsonObject().get("custom_model_data");
+      if (cmd != null && cmd.isJsonPrimitive() && cmd.getAsJsonPrimitive().isNumber()) {
+        return cmd.getAsDouble();
+      }
+    }
+    return Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Gson only exposes deepCopy() publicly from 2.8.2, older servers ship 2.8.0.
+   */
+  private static JsonElement deepCopy(JsonElement element) {
+    if (element.isJsonObject()) {
+      JsonObject copy = new JsonObject();
+      for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+        copy.add(entry.getKey(), deepCopy(entry.getValue()));
+      }
+      return copy;
+    }
+    if (element.isJsonArray()) {
+      JsonArray copy = new JsonArray();
+      for (JsonElement child : element.getAsJsonArray()) {
+        copy.add(deepCopy(child));
+      }
+      return copy;
+    }
+    // Primitives and null are immutable
+    return element;
+  }
+}
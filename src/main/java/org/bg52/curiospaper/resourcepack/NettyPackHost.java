@@ -0,0 +1,150 @@
+package org.bg52.curiospaper.resourcepack;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.bg52.curiospaper.CuriosPaper;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Serves the pack on the Minecraft game port by hooking the server's own Netty
+ * listener, so no extra port has to be opened. Each accepted connection gets an
+ * {@link HttpPacketHandler} in front of the Minecraft handlers which diverts
+ * HTTP requests and leaves game traffic alone.
+ */
+public class NettyPackHost implements ResourcePackHost {
+  private static final String ACCEPTOR_NAME = "curiospaper_rp_acceptor";
+  private static final String HANDLER_NAME = "curiospaper_rp_http";
+
+  private final CuriosPaper plugin;
+  private final Function<String, File> packResolver;
+  private final DownloadTracker tracker;
+  private final List<Channel> serverChannels = new ArrayList<>();
+
+  /**
+   * @param packResolver maps a request path to the pack zip to serve, or null
+   */
+  public NettyPackHost(CuriosPaper plugin, Function<String, File> packResolver) {
+    this.plugin = plugin;
+    this.packResolver = packResolver;
+    this.tracker = new DownloadTracker(plugin.getConfig().getInt("resource-pack.server.max-connections-per-ip", 0));
+  }
+
+  @Override
+  public void start() {
+    List<ChannelFuture> futures;
+    try {
+      futures = findServerChannels();
+    } catch (Exception e) {
+      plugin.getLogger().severe("Failed to locate the server's network listener: " + e.getMessage());
+      return;
+    }
+
+    if (futures.isEmpty()) {
+      plugin.getLogger().severe("Server network listener is not bound yet; NETTY resource pack hosting is unavailable.");
+      return;
+    }
+
+    for (ChannelFuture future : futures) {
+      Channel channel = future.channel();
+      if (channel.pipeline().get(ACCEPTOR_NAME) != null) {
+        continue;
+      }
+      channel.pipeline().addFirst(ACCEPTOR_NAME, new AcceptorHandler());
+      serverChannels.add(channel);
+    }
+
+    plugin.getLogger().info("Resource pack is served on the game port " + getPort() + " (zero-copy).");
+  }
+
+  @Override
+  public void stop() {
+    for (Channel channel : serverChannels) {
+      try {
+        channel.pipeline().remove(ACCEPTOR_NAME);
+      } catch (NoSuchElementException ignored) {
+        // Listener already closed
+      }
+    }
+    if (!serverChannels.isEmpty()) {
+      plugin.getLogger().info("Resource pack game-port hosting stopped.");
+    }
+    serverChannels.clear();
+  }
+
+  @Override
+  public int getPort() {
+    return plugin.getServer().getPort();
+  }
+
+  @Override
+  public DownloadTracker getDownloadTracker() {
+    return tracker;
+  }
+
+  /**
+   * Walks CraftServer -> MinecraftServer -> ServerConnection(Listener) and
+   * returns its list of bound channel futures. Field and method names differ
+   * between versions and mappings, so everything is matched by type.
+   */
+  @SuppressWarnings("unchecked")
+  private List<ChannelFuture> findServerChannels() throws Exception {
+    Object craftServer = plugin.getServer();
+    Object minecraftServer = craftServer.getClass().getMethod("getServer").invoke(craftServer);
+
+    Object connection = null;
+    for (Class<?> type = minecraftServer.getClass(); type != null && connection == null; type = type.getSuperclass()) {
+      for (Method method : type.getDeclaredMethods()) {
+        String returnType = method.getReturnType().getSimpleName();
+        if (method.getParameterCount() == 0
+            && (returnType.equals("ServerConnection") || returnType.equals("ServerConnectionListener"))) {
+          method.setAccessible(true);
+          connection = method.invoke(minecraftServer);
+          break;
+        }
+      }
+    }
+    if (connection == null) {
+      throw new IllegalStateException("ServerConnection not found on " + minecraftServer.getClass().getName());
+    }
+
+    for (Field field : connection.getClass().getDeclaredFields()) {
+      if (!List.class.isAssignableFrom(field.getType())) {
+        continue;
+      }
+      field.setAccessible(true);
+      List<?> list = (List<?>) field.get(connection);
+      if (list == null) {
+        continue;
+      }
+      synchronized (list) {
+        if (!list.isEmpty() && list.get(0) instanceof ChannelFuture) {
+          return new ArrayList<>((List<ChannelFuture>) list);
+        }
+      }
+    }
+    return new ArrayList<>();
+  }
+
+  /**
+   * Sits on the listening channel and prepends the HTTP sniffer to each
+   * accepted child before Minecraft's initializer runs.
+   */
+  private class AcceptorHandler extends ChannelInboundHandlerAdapter {
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+      if (msg instanceof Channel) {
+        ((Channel) msg).pipeline().addFirst(HANDLER_NAME, new HttpPacketHandler(plugin, packResolver, tracker));
+      }
+      ctx.fireChannelRead(msg);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package org.bg52.curiospaper.resourcepack;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A reduced copy of the generated pack for a subset of clients, configured
+ * under resource-pack.variants. A variant is the full pack minus the entries
+ * matched by its exclude globs, and is given to players matching its protocol
+ * range and permission.
+ */
+public class PackVariant {
+  private static final Pattern VALID_NAME = Pattern.compile("[a-z0-9_-]+");
+
+  private final String name;
+  private final String permission;
+  private final int minProtocol;
+  private final int maxProtocol;
+  private final List<PathMatcher> excludes;
+
+  private PackVariant(String name, String permission, int minProtocol, int maxProtocol, List<PathMatcher> excludes) {
+    this.name = name;
+    this.permission = permission;
+    this.minProtocol = minProtocol;
+    this.maxProtocol = maxProtocol;
+    this.excludes = excludes;
+  }
+
+  /**
+   * Parses a variant from its config section.
+   *
+   * @return the variant, or null if the name is not usable in a URL/file name
+   */
+  public static PackVariant loadFromConfig(String name, ConfigurationSection section) {
+    if (!VALID_NAME.matcher(name).matches()) {
+      return null;
+    }
+    List<PathMatcher> excludes = new ArrayList<>();
+    for (String glob : section.getStringList("exclude")) {
+      excludes.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+    }
+    return new PackVariant(name,
+        section.getString("permission"),
+        section.getInt("min-protocol", -1),
+        section.getInt("max-protocol", -1),
+        excludes);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Whether the given player should receive this variant.
+   *
+   * @param protocol the client's protocol version, or -1 if unknown; variants
+   *                 with a protocol range never match unknown clients
+   */
+  public boolean matches(Player player, int protocol) {
+    if (minProtocol >= 0 || maxProtocol >= 0) {
+      if (protocol < 0) {
+        return false;
+      }
+      if (minProtocol >= 0 && protocol < minProtocol) {
+        return false;
+      }
+      if (maxProtocol >= 0 && protocol > maxProtocol) {
+        return false;
+      }
+    }
+    return permission == null || permission.isEmpty() || player.hasPermission(permission);
+  }
+
+  /**
+   * Whether a pack entry (relative path with '/' separators) is left out of
+   * this variant.
+   */
+  public boolean excludes(String entryPath) {
+    if (excludes.isEmpty()) {
+      return false;
+    }
+    java.nio.file.Path path = Paths.get(entryPath);
+    for (PathMatcher matcher : excludes) {
+      if (matcher.matches(path)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
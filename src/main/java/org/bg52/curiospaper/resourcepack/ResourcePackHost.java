@@ -6,4 +6,6 @@ public interface ResourcePackHost {
   void stop();
 
   int getPort();
+
+  DownloadTracker getDownloadTracker();
 }
@@ -1,27 +1,28 @@
 package org.bg52.curiospaper.resourcepack;
 
 import org.bg52.curiospaper.CuriosPaper;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.util.*;
 import java.util.Arrays;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
 
 public class ResourcePackManager {
   public enum HostingMode {
     SELF,
+    NETTY,
     LINK,
     NONE
   }
@@ -34,11 +35,42 @@ public class ResourcePackManager {
 
   public static class SourceEntry {
     public final Plugin plugin;
+    /** Source folder, or the zip file itself for archive sources. */
     public final File folder;
+    /** Zip read in place during the build, or null for folder sources. */
+    public final File archive;
+    /** Path inside the archive that contains assets/ ("" for the zip root). */
+    public final String archiveRoot;
+    private final Set<String> archiveEntries;
 
     public SourceEntry(Plugin plugin, File folder) {
       this.plugin = plugin;
       this.folder = folder;
+      this.archive = null;
+      this.archiveRoot = null;
+      this.archiveEntries = Collections.emptySet();
+    }
+
+    private SourceEntry(Plugin plugin, File archive, String archiveRoot, Set<String> archiveEntries) {
+      this.plugin = plugin;
+      this.folder = archive;
+      this.archive = archive;
+      this.archiveRoot = archiveRoot;
+      this.archiveEntries = archiveEntries;
+    }
+
+    public boolean isArchive() {
+      return archive != null;
+    }
+
+    /**
+     * Whether this source provides the given pack-relative path.
+     */
+    boolean provides(String relativePath) {
+      if (isArchive()) {
+        return archiveEntries.contains(relativePath);
+      }
+      return new File(folder, relativePath).exists();
     }
   }
 
@@ -47,6 +79,7 @@ public class ResourcePackManager {
   private String packHash;
 
   private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+  private final JsonMergeStage jsonMerge;
 
   // Dirty build flag
   private boolean dirty = false;
@@ -63,6 +96,10 @@ public class ResourcePackManager {
   private boolean allowMinecraftNamespace;
   private boolean allowNamespaceConflicts;
 
+  // Per-client variants, built alongside the full pack
+  private final List<PackVariant> variants = new ArrayList<>();
+  private final Map<String, String> variantHashes = new HashMap<>();
+
   public ResourcePackManager(CuriosPaper plugin) {
     this.plugin = plugin;
     this.resourcePackDir = new File(plugin.getDataFolder(), "resource-pack-build");
@@ -70,6 +107,7 @@ public class ResourcePackManager {
     this.externalPacksDir = new File(plugin.getDataFolder(), "external-resource-packs");
     this.tempDir = new File(this.externalPacksDir, "temp");
     this.registeredSources = new ArrayList<>();
+    this.jsonMerge = new JsonMergeStage(gson, plugin.getLogger());
   }
 
   // --- Exposed for commands / debugging ---
@@ -94,6 +132,38 @@ public class ResourcePackManager {
     return packFile;
   }
 
+  /**
+   * The zip built for the given variant, or the full pack for null.
+   */
+  public File getPackFile(PackVariant variant) {
+    if (variant == null) {
+      return packFile;
+    }
+    return new File(plugin.getDataFolder(), "resource-pack-" + variant.getName() + ".zip");
+  }
+
+  public List<PackVariant> getVariants() {
+    return Collections.unmodifiableList(variants);
+  }
+
+  /**
+   * Maps a request path from a pack host to the zip it should serve:
+   * /pack.zip is the full pack, /pack-&lt;variant&gt;.zip a configured variant.
+   *
+   * @return the file, or null if the path names no pack
+   */
+  public File resolvePackRequest(String path) {
+    if (path.equals("/pack.zip")) {
+      return packFile;
+    }
+    for (PackVariant variant : variants) {
+      if (path.equals("/pack-" + variant.getName() + ".zip")) {
+        return getPackFile(variant);
+      }
+    }
+    return null;
+  }
+
   public boolean isDirty() {
     return dirty;
   }
@@ -120,9 +190,81 @@ public class ResourcePackManager {
       return;
     }
 
+    List<String> namespaceNames = new ArrayList<>();
     for (File nsFolder : namespaces) {
-      String namespace = nsFolder.getName().toLowerCase(Locale.ROOT);
+      namespaceNames.add(nsFolder.getName().toLowerCase(Locale.ROOT));
+    }
+    if (!claimNamespaces(plugin, namespaceNames)) {
+      return;
+    }
+
+    registeredSources.add(new SourceEntry(plugin, sourceFolder));
+    dirty = true;
+  }
+
+  /**
+   * Registers a resource pack zip as a source that is read in place during the
+   * build. Only the central directory is scanned here; nothing is extracted.
+   *
+   * @return false if the zip has no assets folder or was rejected
+   */
+  private boolean registerArchive(Plugin plugin, File zipFile) throws IOException {
+    List<String> names = new ArrayList<>();
+    String root = null;
+    try (ZipFile zip = new ZipFile(zipFile)) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.isDirectory()) {
+          continue;
+        }
+        String name = entry.getName().replace('\\', '/');
+        names.add(name);
+
+        // The shallowest folder containing assets/ is the pack root
+        String prefix = name.startsWith("assets/") ? ""
+            : name.contains("/assets/") ? name.substring(0, name.indexOf("/assets/") + 1) : null;
+        if (prefix != null && (root == null || prefix.length() < root.length())) {
+          root = prefix;
+        }
+      }
+    }
+    if (root == null) {
+      return false;
+    }
+
+    Set<String> relativeEntries = new HashSet<>();
+    Set<String> namespaces = new LinkedHashSet<>();
+    for (String name : names) {
+      if (!name.startsWith(root)) {
+        continue;
+      }
+      String relative = name.substring(root.length());
+      relativeEntries.add(relative);
+      if (relative.startsWith("assets/")) {
+        int slash = relative.indexOf('/', "assets/".length());
+        if (slash > "assets/".length()) {
+          namespaces.add(relative.substring("assets/".length(), slash).toLowerCase(Locale.ROOT));
+        }
+      }
+    }
+    if (namespaces.isEmpty() || !claimNamespaces(plugin, new ArrayList<>(namespaces))) {
+      return false;
+    }
 
+    registeredSources.add(new SourceEntry(plugin, zipFile, root, relativeEntries));
+    dirty = true;
+    return true;
+  }
+
+  /**
+   * Applies the reserved/minecraft/ownership rules to the namespaces a source
+   * provides and records ownership.
+   *
+   * @return false if the source must not be registered at all
+   */
+  private boolean claimNamespaces(Plugin plugin, List<String> namespaces) {
+    for (String namespace : namespaces) {
       // Reserved namespace check
       if (reservedNamespaces.contains(namespace)) {
         if (plugin == this.plugin) {
@@ -139,7 +281,7 @@ public class ResourcePackManager {
         namespaceConflictLog.add("RESERVED NAMESPACE: plugin=" + plugin.getName()
             + " namespace=" + namespace);
 
-        return; // abort registration for this plugin
+        return false; // abort registration for this plugin
       }
 
       // Minecraft namespace check
@@ -184,7 +326,7 @@ public class ResourcePackManager {
               + " owner=" + owner.getName()
               + " conflicting=" + plugin.getName());
 
-          return;
+          return false;
         }
 
         if (owner != plugin && allowNamespaceConflicts) {
@@ -201,8 +343,7 @@ public class ResourcePackManager {
       }
     }
 
-    registeredSources.add(new SourceEntry(plugin, sourceFolder));
-    dirty = true;
+    return true;
   }
 
   public void initialize() {
@@ -211,6 +352,8 @@ public class ResourcePackManager {
 
     this.allowNamespaceConflicts = plugin.getConfig().getBoolean("resource-pack.allow-namespace-conflicts", false);
 
+    loadVariants();
+
     // Target: <plugin data folder>/resources
     File ownResources = new File(plugin.getDataFolder(), "resources");
     if (!ownResources.exists()) {
@@ -249,10 +392,22 @@ public class ResourcePackManager {
         generatePack();
     }, 200L); // 10 seconds
 
-    // Start server if mode is SELF
-    if (getHostingMode() == HostingMode.SELF) {
+    startHost();
+  }
+
+  /**
+   * Starts the pack host for SELF (separate port) or NETTY (game port) mode.
+   */
+  private void startHost() {
+    server = null;
+    HostingMode mode = getHostingMode();
+    if (mode == HostingMode.SELF) {
       int port = plugin.getConfig().getInt("resource-pack.port", 8080);
-      server = new ResourcePackServer(plugin, port, packFile);
+      server = new ResourcePackServer(plugin, port, this::resolvePackRequest);
+    } else if (mode == HostingMode.NETTY) {
+      server = new NettyPackHost(plugin, this::resolvePackRequest);
+    }
+    if (server != null) {
       server.start();
     }
   }
@@ -348,25 +503,15 @@ public class ResourcePackManager {
 
     plugin.getLogger().info("Found " + zipFiles.length + " external resource pack(s). Processing...");
 
-    // Clean up temp dir if it exists from a previous bad run
+    // Older versions extracted packs here; the zips are now read in place
     if (tempDir.exists()) {
       deleteDirectory(tempDir);
     }
-    tempDir.mkdirs();
 
     for (File zipFile : zipFiles) {
       try {
-        String folderName = zipFile.getName().substring(0, zipFile.getName().length() - 4);
-        File extractDir = new File(tempDir, folderName);
-
-        plugin.getLogger().info("Extracting external pack: " + zipFile.getName());
-        unzip(zipFile, extractDir);
-
-        File validRoot = findAssetsFolder(extractDir);
-        if (validRoot != null) {
-          // Register the extracted resource pack using CuriosPaper as the 'owner' plugin
-          // wrapper
-          registerResource(plugin, validRoot);
+        // Register the pack using CuriosPaper as the 'owner' plugin wrapper
+        if (registerArchive(plugin, zipFile)) {
           plugin.getLogger().info("Successfully registered external pack: " + zipFile.getName());
         } else {
           plugin.getLogger().warning("Failed to find 'assets' folder in external pack: " + zipFile.getName());
@@ -388,6 +533,13 @@ public class ResourcePackManager {
     return packHash;
   }
 
+  /**
+   * The running pack host, or null when mode is LINK or NONE.
+   */
+  public ResourcePackHost getHost() {
+    return server;
+  }
+
   public HostingMode getHostingMode() {
     String modeStr = plugin.getConfig().getString("resource-pack.mode");
     if (modeStr != null) {
@@ -405,11 +557,71 @@ public class ResourcePackManager {
     shutdown();
     this.allowMinecraftNamespace = plugin.getConfig().getBoolean("resource-pack.allow-minecraft-namespace", false);
     this.allowNamespaceConflicts = plugin.getConfig().getBoolean("resource-pack.allow-namespace-conflicts", false);
-    if (getHostingMode() == HostingMode.SELF) {
-      int port = plugin.getConfig().getInt("resource-pack.port", 8080);
-      server = new ResourcePackServer(plugin, port, packFile);
-      server.start();
+    loadVariants();
+    startHost();
+  }
+
+  private void loadVariants() {
+    variants.clear();
+    ConfigurationSection section = plugin.getConfig().getConfigurationSection("resource-pack.variants");
+    if (section == null) {
+      return;
+    }
+    for (String name : section.getKeys(false)) {
+      ConfigurationSection variantSection = section.getConfigurationSection(name);
+      if (variantSection == null) {
+        continue;
+      }
+      PackVariant variant = PackVariant.loadFromConfig(name, variantSection);
+      if (variant == null) {
+        plugin.getLogger().warning("Ignoring resource pack variant '" + name
+            + "': names may only contain a-z, 0-9, '_' and '-'.");
+        continue;
+      }
+      variants.add(variant);
+    }
+    if (!variants.isEmpty()) {
+      plugin.getLogger().info("Loaded " + variants.size() + " resource pack variant(s).");
+    }
+  }
+
+  /**
+   * Picks the pack variant for a player: the first configured variant whose
+   * conditions match, or null for the full pack. Variants only apply when the
+   * pack is hosted by this server.
+   */
+  public PackVariant selectVariant(Player player) {
+    HostingMode mode = getHostingMode();
+    if (variants.isEmpty() || (mode != HostingMode.SELF && mode != HostingMode.NETTY)) {
+      return null;
+    }
+    int protocol = org.bg52.curiospaper.util.VersionUtil.getClientProtocolVersion(player);
+    for (PackVariant variant : variants) {
+      if (variant.matches(player, protocol) && variantHashes.containsKey(variant.getName())) {
+        return variant;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Pack URL for this player's variant (without the cache-busting query).
+   */
+  public String getPackUrl(Player player) {
+    String url = getPackUrl();
+    PackVariant variant = selectVariant(player);
+    if (variant == null || !url.endsWith("/pack.zip")) {
+      return url;
     }
+    return url.substring(0, url.length() - "/pack.zip".length()) + "/pack-" + variant.getName() + ".zip";
+  }
+
+  /**
+   * SHA-1 of this player's variant zip.
+   */
+  public String getPackHash(Player player) {
+    PackVariant variant = selectVariant(player);
+    return variant == null ? packHash : variantHashes.get(variant.getName());
   }
 
   public String getPackUrl() {
@@ -419,7 +631,9 @@ public class ResourcePackManager {
     }
 
     String host = plugin.getConfig().getString("resource-pack.host-ip", "localhost");
-    int port = plugin.getConfig().getInt("resource-pack.port", 8080);
+    int port = mode == HostingMode.NETTY
+        ? plugin.getServer().getPort()
+        : plugin.getConfig().getInt("resource-pack.port", 8080);
 
     if (port == -1 && server != null) {
       port = server.getPort();
@@ -429,6 +643,7 @@ public class ResourcePackManager {
   }
 
   public void generatePack() {
+    long start = System.nanoTime();
     dirty = false;
     conflictLog.clear();
 
@@ -437,33 +652,39 @@ public class ResourcePackManager {
     if (resourcePackDir.exists())
       deleteDirectory(resourcePackDir);
     resourcePackDir.mkdirs();
+    jsonMerge.begin();
 
     for (SourceEntry entry : registeredSources) {
       Plugin pl = entry.plugin;
       File src = entry.folder;
 
       try {
-        copyFolderStrict(pl, src, resourcePackDir);
+        if (entry.isArchive()) {
+          copyArchiveStrict(entry, resourcePackDir);
+        } else {
+          copyFolderStrict(pl, src, resourcePackDir);
+        }
       } catch (Exception e) {
         plugin.getLogger().severe("Failed while copying " + pl.getName() + ": " + e.getMessage());
       }
     }
 
+    // Every source is in place: merge shared JSON files once each
+    int contributions = jsonMerge.apply();
+    if (contributions > 0) {
+      plugin.getLogger().info("Merged " + jsonMerge.getMergedFileCount() + " JSON file(s) from "
+          + contributions + " contribution(s).");
+    }
+
     // Ensure mcmeta exists
     if (!new File(resourcePackDir, "pack.mcmeta").exists()) {
       createDefaultMcmeta(resourcePackDir);
     }
 
     try {
-      zipDirectory(resourcePackDir, packFile);
-      this.packHash = calculateSha1(packFile);
-      plugin.getLogger().info("Pack built. Hash: " + this.packHash);
-
-      // Clean up extracted temp resource packs to save space
-      if (tempDir.exists()) {
-        deleteDirectory(tempDir);
-        plugin.getLogger().info("Cleaned up temporary extracted resource pack files.");
-      }
+      zipVariants(resourcePackDir);
+      plugin.getLogger().info("Pack built. Hash: " + this.packHash
+          + (variants.isEmpty() ? "" : " (+" + variantHashes.size() + " variant(s))"));
     } catch (Exception e) {
       plugin.getLogger().severe("Failed to zip pack: " + e.getMessage());
     }
@@ -472,6 +693,7 @@ public class ResourcePackManager {
       plugin.getLogger().warning("=== CuriosPaper Resource Pack Conflicts ===");
       conflictLog.forEach(plugin.getLogger()::warning);
     }
+    plugin.getMetricsRegistry().recordPackBuild(System.nanoTime() - start, packFile.length());
   }
 
   private void createDefaultMcmeta(File dir) {
@@ -515,20 +737,70 @@ public class ResourcePackManager {
     }
 
     // File
+    String sourceKey = source.getAbsolutePath();
+    long stamp = source.lastModified() * 31 + source.length();
     if (target.exists()) {
-      handleConflict(plugin, source, target);
+      try (InputStream in = new FileInputStream(source)) {
+        handleConflict(plugin, sourceKey, stamp, in, target);
+      }
       return;
     }
 
     Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    if (isMergeableJson(target.getPath().replace("\\", "/"))) {
+      jsonMerge.recordBase(target, sourceKey, stamp);
+    }
+  }
+
+  /**
+   * Streams an archive source's entries straight into the build folder;
+   * conflicting JSON is merged from the entry stream.
+   */
+  private void copyArchiveStrict(SourceEntry source, File target) throws IOException {
+    try (ZipFile zip = new ZipFile(source.archive)) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        String name = entry.getName().replace('\\', '/');
+        if (entry.isDirectory() || !name.startsWith(source.archiveRoot)) {
+          continue;
+        }
+
+        File dest = newFile(target, name.substring(source.archiveRoot.length()));
+        String sourceKey = source.archive.getAbsolutePath() + "!" + name;
+        long stamp = entry.getCrc();
+        try (InputStream in = zip.getInputStream(entry)) {
+          if (dest.exists()) {
+            handleConflict(source.plugin, sourceKey, stamp, in, dest);
+            continue;
+          }
+
+          File parent = dest.getParentFile();
+          if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory " + parent);
+          }
+          Files.copy(in, dest.toPath());
+          if (isMergeableJson(dest.getPath().replace("\\", "/"))) {
+            jsonMerge.recordBase(dest, sourceKey, stamp);
+          }
+        }
+      }
+    }
   }
 
-  private void handleConflict(Plugin conflictingPlugin, File src, File dest) throws IOException {
+  /**
+   * @param sourceKey identity of the conflicting source file, used to cache its
+   *                  parsed JSON between builds
+   * @param stamp     changes whenever that source file's content changes
+   */
+  private void handleConflict(Plugin conflictingPlugin, String sourceKey, long stamp, InputStream src, File dest)
+      throws IOException {
     String path = dest.getPath().replace("\\", "/");
 
     // Reject everything EXCEPT curated mergeable files
     if (isMergeableJson(path)) {
-      mergeJsonFiles(src, dest);
+      // Queued; written once after all sources are copied
+      jsonMerge.contribute(dest, sourceKey, stamp, src);
       return;
     }
 
@@ -545,60 +817,6 @@ public class ResourcePackManager {
         || (path.contains("/assets/minecraft/") && path.endsWith(".json"));
   }
 
-  private void mergeJsonFiles(File src, File dest) throws IOException {
-    JsonElement destJson;
-    JsonElement srcJson;
-
-    try (Reader destReader = new FileReader(dest);
-        Reader srcReader = new FileReader(src)) {
-
-      destJson = new com.google.gson.JsonParser().parse(destReader);
-      srcJson = new com.google.gson.JsonParser().parse(srcReader);
-    }
-
-    if (!destJson.isJsonObject() || !srcJson.isJsonObject()) {
-      plugin.getLogger().warning("Cannot merge JSON (non-object): " + dest.getPath());
-      return;
-    }
-
-    JsonObject destObj = destJson.getAsJsonObject();
-    JsonObject srcObj = srcJson.getAsJsonObject();
-
-    deepMerge(destObj, srcObj);
-
-    try (Writer writer = new FileWriter(dest)) {
-      gson.toJson(destObj, writer);
-    }
-
-    plugin.getLogger().info("Merged JSON file: " + dest.getPath());
-  }
-
-  private void deepMerge(JsonObject dest, JsonObject src) {
-    for (Map.Entry<String, JsonElement> entry : src.entrySet()) {
-      String key = entry.getKey();
-      JsonElement value = entry.getValue();
-
-      if (!dest.has(key)) {
-        dest.add(key, value);
-      } else {
-        JsonElement destValue = dest.get(key);
-
-        if (destValue.isJsonObject() && value.isJsonObject()) {
-          deepMerge(destValue.getAsJsonObject(), value.getAsJsonObject());
-        } else if (destValue.isJsonArray() && value.isJsonArray()) {
-          JsonArray destArray = destValue.getAsJsonArray();
-          for (JsonElement el : value.getAsJsonArray()) {
-            destArray.add(el);
-          }
-        } else {
-          // If primitives or mismatched types, we could overwrite or keep dest.
-          // Keeping destination is usually safer to maintain the base file's core
-          // properties (like parent model).
-        }
-      }
-    }
-  }
-
   /**
    * Try to find which plugin owns the existing file at 'path' by matching
    * relative paths against each registered source.
@@ -617,12 +835,8 @@ public class ResourcePackManager {
       }
 
       for (SourceEntry entry : registeredSources) {
-        Plugin pl = entry.plugin;
-        File srcRoot = entry.folder;
-
-        File candidate = new File(srcRoot, rel.toString());
-        if (candidate.exists()) {
-          return pl.getName();
+        if (entry.provides(rel.toString().replace("\\", "/"))) {
+          return entry.plugin.getName();
         }
       }
     } catch (Exception e) {
@@ -631,23 +845,78 @@ public class ResourcePackManager {
     return "Unknown";
   }
 
-  private void zipDirectory(File sourceDir, File zipFile) throws IOException {
-    try (FileOutputStream fos = new FileOutputStream(zipFile);
-        ZipOutputStream zos = new ZipOutputStream(fos)) {
+  /**
+   * Zips the build folder into the full pack and every configured variant in a
+   * single walk: each file is read once and written to all zips that keep it.
+   */
+  private void zipVariants(File sourceDir) throws IOException {
+    List<PackVariant> targets = new ArrayList<>();
+    targets.add(null); // full pack
+    targets.addAll(variants);
+
+    List<ZipOutputStream> outputs = new ArrayList<>();
+    try {
+      for (PackVariant variant : targets) {
+        outputs.add(new ZipOutputStream(new FileOutputStream(getPackFile(variant))));
+      }
 
       Path sourcePath = sourceDir.toPath();
       Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
         @Override
         public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-          zos.putNextEntry(new ZipEntry(sourcePath
+          String entryName = sourcePath
               .relativize(file)
               .toString()
-              .replace("\\", "/")));
-          Files.copy(file, zos);
-          zos.closeEntry();
+              .replace("\\", "/");
+          byte[] data = null;
+          for (int i = 0; i < targets.size(); i++) {
+            PackVariant variant = targets.get(i);
+            if (variant != null && variant.excludes(entryName)) {
+              continue;
+            }
+            if (data == null) {
+              data = Files.readAllBytes(file);
+            }
+            ZipOutputStream zos = outputs.get(i);
+            zos.putNextEntry(new ZipEntry(entryName));
+            zos.write(data);
+            zos.closeEntry();
+          }
           return FileVisitResult.CONTINUE;
         }
       });
+    } finally {
+      for (ZipOutputStream zos : outputs) {
+        try {
+          zos.close();
+        } catch (IOException ignored) {
+          // Keep closing the rest
+        }
+      }
+    }
+
+    this.packHash = calculateSha1(packFile);
+    variantHashes.clear();
+    for (PackVariant variant : variants) {
+      String hash = calculateSha1(getPackFile(variant));
+      if (hash != null) {
+        variantHashes.put(variant.getName(), hash);
+      }
+    }
+    deleteStaleVariantFiles();
+  }
+
+  private void deleteStaleVariantFiles() {
+    File[] files = plugin.getDataFolder()
+        .listFiles((dir, name) -> name.startsWith("resource-pack-") && name.endsWith(".zip"));
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      String name = file.getName().substring("resource-pack-".length(), file.getName().length() - 4);
+      if (!variantHashes.containsKey(name)) {
+        file.delete();
+      }
     }
   }
 
@@ -674,71 +943,16 @@ public class ResourcePackManager {
     }
   }
 
-  private void unzip(File zipFile, File destDir) throws IOException {
-    if (!destDir.exists()) {
-      destDir.mkdirs();
-    }
-    try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
-      ZipEntry zipEntry = zis.getNextEntry();
-      while (zipEntry != null) {
-        File newFile = newFile(destDir, zipEntry);
-        if (zipEntry.isDirectory()) {
-          if (!newFile.isDirectory() && !newFile.mkdirs()) {
-            throw new IOException("Failed to create directory " + newFile);
-          }
-        } else {
-          File parent = newFile.getParentFile();
-          if (!parent.isDirectory() && !parent.mkdirs()) {
-            throw new IOException("Failed to create directory " + parent);
-          }
-          try (FileOutputStream fos = new FileOutputStream(newFile)) {
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = zis.read(buffer)) > 0) {
-              fos.write(buffer, 0, len);
-            }
-          }
-        }
-        zipEntry = zis.getNextEntry();
-      }
-      zis.closeEntry();
-    }
-  }
-
-  private File newFile(File destinationDir, ZipEntry zipEntry) throws IOException {
-    File destFile = new File(destinationDir, zipEntry.getName());
+  private File newFile(File destinationDir, String entryName) throws IOException {
+    File destFile = new File(destinationDir, entryName);
 
     String destDirPath = destinationDir.getCanonicalPath();
     String destFilePath = destFile.getCanonicalPath();
 
     if (!destFilePath.startsWith(destDirPath + File.separator)) {
-      throw new IOException("Entry is outside of the target dir: " + zipEntry.getName());
+      throw new IOException("Entry is outside of the target dir: " + entryName);
     }
 
     return destFile;
   }
-
-  private File findAssetsFolder(File root) {
-    if (root == null || !root.exists() || !root.isDirectory())
-      return null;
-
-    File assetsFolder = new File(root, "assets");
-    if (assetsFolder.exists() && assetsFolder.isDirectory()) {
-      return root; // Return the folder that CONTAINS assets, as that's what registerResource
-                   // expects
-    }
-
-    File[] files = root.listFiles();
-    if (files != null) {
-      for (File file : files) {
-        if (file.isDirectory()) {
-          File found = findAssetsFolder(file);
-          if (found != null) {
-            return found;
-          }
-        }
-      }
-    }
-    return null;
-  }
 }
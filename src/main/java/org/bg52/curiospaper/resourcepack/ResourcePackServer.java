@@ -4,32 +4,72 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.bg52.curiospaper.CuriosPaper;
+import org.bg52.curiospaper.metrics.MetricsRegistry;
+import org.bg52.curiospaper.util.Timings;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public class ResourcePackServer implements ResourcePackHost {
+  private static final int BUFFER_SIZE = 0x10000;
+
   private final CuriosPaper plugin;
   private final int port;
-  private final File packFile;
+  private final Function<String, File> packResolver;
   private HttpServer server;
+  private ExecutorService executor;
+
+  // Limits (read from resource-pack.server.* on construction)
+  private final int workerThreads;
+  private final boolean useVirtualThreads;
+  private final long maxBytesPerSecond;
+
+  // Bounds concurrent downloads even when virtual threads make workers free
+  private final Semaphore downloadSlots;
+  private final DownloadTracker tracker;
 
-  public ResourcePackServer(CuriosPaper plugin, int port, File packFile) {
+  /**
+   * @param packResolver maps a request path to the pack zip to serve, or null
+   */
+  public ResourcePackServer(CuriosPaper plugin, int port, Function<String, File> packResolver) {
     this.plugin = plugin;
     this.port = port;
-    this.packFile = packFile;
+    this.packResolver = packResolver;
+    this.workerThreads = Math.max(1, plugin.getConfig().getInt("resource-pack.server.worker-threads", 4));
+    this.useVirtualThreads = plugin.getConfig().getBoolean("resource-pack.server.use-virtual-threads", true);
+    this.maxBytesPerSecond = Math.max(0L, plugin.getConfig().getLong("resource-pack.server.max-bandwidth-kbps", 0L)) * 1024L;
+    this.downloadSlots = new Semaphore(workerThreads, true);
+    this.tracker = new DownloadTracker(plugin.getConfig().getInt("resource-pack.server.max-connections-per-ip", 0));
   }
 
   public void start() {
     try {
       server = HttpServer.create(new InetSocketAddress(port), 0);
-      server.createContext("/pack.zip", new PackHandler());
-      server.setExecutor(null); // creates a default executor
+      server.createContext("/", new PackHandler());
+
+      executor = createExecutor();
+      // Count requests from the moment the dispatcher hands them over until a
+      // download slot is free, so the queue length reflects real waiting time.
+      server.setExecutor(command -> {
+        tracker.requestQueued();
+        executor.execute(command);
+      });
       server.start();
-      plugin.getLogger().info("Resource pack server started on port " + port);
+      plugin.getLogger().info("Resource pack server started on port " + port + " ("
+          + workerThreads + (executor instanceof ThreadPoolExecutor ? " worker threads" : " virtual-thread slots")
+          + (maxBytesPerSecond > 0 ? ", " + (maxBytesPerSecond / 1024L) + " KiB/s cap" : "") + ")");
     } catch (IOException e) {
       plugin.getLogger().severe("Failed to start resource pack server: " + e.getMessage());
       e.printStackTrace();
@@ -41,36 +81,151 @@ public class ResourcePackServer implements ResourcePackHost {
       server.stop(0);
       plugin.getLogger().info("Resource pack server stopped.");
     }
+    if (executor != null) {
+      executor.shutdownNow();
+    }
   }
 
   public int getPort() {
     return port;
   }
 
+  public DownloadTracker getDownloadTracker() {
+    return tracker;
+  }
+
+  private ExecutorService createExecutor() {
+    if (useVirtualThreads) {
+      // Java 21+: one cheap virtual thread per request, concurrency is still
+      // bounded by downloadSlots. Resolved reflectively since we target Java 8.
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException | RuntimeException ignored) {
+        // Older runtime, fall back to platform threads
+      }
+    }
+
+    AtomicInteger threadId = new AtomicInteger();
+    return new ThreadPoolExecutor(workerThreads, workerThreads, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), runnable -> {
+          Thread thread = new Thread(runnable, "CuriosPaper-RP-Worker-" + threadId.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Sleeps long enough that this download stays within its fair share of the
+   * global bandwidth cap, i.e. the cap divided by the number of active downloads.
+   */
+  private void throttle(int bytes, long chunkStartNanos) throws InterruptedException {
+    if (maxBytesPerSecond <= 0) {
+      return;
+    }
+    long share = Math.max(1L, maxBytesPerSecond / Math.max(1, tracker.getActiveDownloads()));
+    long targetNanos = bytes * TimeUnit.SECONDS.toNanos(1) / share;
+    long remaining = targetNanos - (System.nanoTime() - chunkStartNanos);
+    if (remaining > 0) {
+      TimeUnit.NANOSECONDS.sleep(remaining);
+    }
+  }
+
   private class PackHandler implements HttpHandler {
     @Override
     public void handle(HttpExchange t) throws IOException {
-      if (!packFile.exists()) {
-        String response = "Resource pack not found.";
-        t.sendResponseHeaders(404, response.length());
-        OutputStream os = t.getResponseBody();
-        os.write(response.getBytes());
-        os.close();
+      InetAddress address = t.getRemoteAddress() != null ? t.getRemoteAddress().getAddress() : null;
+
+      String metricsPath = plugin.getMetricsRegistry().getPrometheusPath();
+      if (metricsPath != null && metricsPath.equals(t.getRequestURI().getPath())) {
+        tracker.requestDequeued();
+        sendMetrics(t, address);
         return;
       }
 
+      File packFile = packResolver.apply(t.getRequestURI().getPath());
+      if (packFile == null || !packFile.exists()) {
+        tracker.requestDequeued();
+        sendText(t, 404, "Resource pack not found.");
+        return;
+      }
+
+      if (!tracker.tryAcquire(address)) {
+        tracker.requestDequeued();
+        t.getResponseHeaders().add("Retry-After", "5");
+        sendText(t, 429, "Too many concurrent downloads.");
+        return;
+      }
+
+      try {
+        downloadSlots.acquire();
+      } catch (InterruptedException e) {
+        tracker.requestDequeued();
+        tracker.release(address);
+        Thread.currentThread().interrupt();
+        t.close();
+        return;
+      }
+      tracker.requestDequeued();
+
+      tracker.downloadStarted();
+      long start = Timings.start();
+      boolean success = false;
+      try {
+        success = sendPack(t, packFile);
+      } finally {
+        Timings.stop(Timings.Section.PACK_SERVE, start);
+        tracker.downloadFinished(success);
+        downloadSlots.release();
+        tracker.release(address);
+      }
+    }
+
+    private boolean sendPack(HttpExchange t, File packFile) throws IOException {
       t.getResponseHeaders().add("Content-Type", "application/zip");
       t.sendResponseHeaders(200, packFile.length());
 
-      OutputStream os = t.getResponseBody();
-      FileInputStream fs = new FileInputStream(packFile);
-      final byte[] buffer = new byte[0x10000];
-      int count = 0;
-      while ((count = fs.read(buffer)) >= 0) {
-        os.write(buffer, 0, count);
+      try (OutputStream os = t.getResponseBody();
+          FileInputStream fs = new FileInputStream(packFile)) {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        long chunkStart = System.nanoTime();
+        while ((count = fs.read(buffer)) >= 0) {
+          os.write(buffer, 0, count);
+          tracker.bytesSent(count);
+          throttle(count, chunkStart);
+          chunkStart = System.nanoTime();
+        }
+        return true;
+      } catch (InterruptedException e) {
+        // Server is stopping, drop the connection
+        Thread.currentThread().interrupt();
+        t.close();
+        return false;
+      }
+    }
+
+    private void sendMetrics(HttpExchange t, InetAddress address) throws IOException {
+      MetricsRegistry metrics = plugin.getMetricsRegistry();
+      switch (metrics.checkScrape(address, t.getRequestHeaders().getFirst("Authorization"))) {
+        case FORBIDDEN:
+          sendText(t, 403, "Forbidden.");
+          break;
+        case UNAUTHORIZED:
+          t.getResponseHeaders().add("WWW-Authenticate", "Bearer");
+          sendText(t, 401, "Unauthorized.");
+          break;
+        default:
+          t.getResponseHeaders().add("Content-Type", MetricsRegistry.PROMETHEUS_CONTENT_TYPE);
+          sendText(t, 200, metrics.toPrometheus());
+      }
+    }
+
+    private void sendText(HttpExchange t, int status, String response) throws IOException {
+      byte[] bytes = response.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+      t.sendResponseHeaders(status, bytes.length);
+      try (OutputStream os = t.getResponseBody()) {
+        os.write(bytes);
       }
-      fs.close();
-      os.close();
     }
   }
 }
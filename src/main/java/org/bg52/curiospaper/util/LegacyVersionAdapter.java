@@ -0,0 +1,38 @@
+package org.bg52.curiospaper.util;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * Adapter for servers without item models or data components (before 1.21).
+ */
+final class LegacyVersionAdapter implements VersionAdapter {
+
+  @Override
+  public String getName() {
+    return "legacy";
+  }
+
+  @Override
+  public boolean setItemModel(ItemMeta meta, NamespacedKey itemModel) {
+    return false;
+  }
+
+  @Override
+  public boolean hasGlider(ItemStack item) {
+    return false;
+  }
+
+  @Override
+  public void setGlider(ItemStack item, boolean enabled) {
+  }
+
+  @Override
+  public void applyElytraFlight(ItemStack chestplate, String assetNamespace, String assetKey) {
+  }
+
+  @Override
+  public void removeGlider(ItemStack chestplate) {
+  }
+}
@@ -0,0 +1,239 @@
+package org.bg52.curiospaper.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Adapter for 1.21+ servers: ItemMeta#setItemModel (1.21.3+) and Paper's data
+ * components (GLIDER, EQUIPPABLE).
+ *
+ * <p>
+ * The methods are looked up once, when this class is initialized, into static
+ * final method handles with the component types already bound, so each call is
+ * a plain invokeExact the JIT can inline like a direct call. A handle is null
+ * if its feature is missing on this server.
+ */
+final class ModernVersionAdapter implements VersionAdapter {
+
+  // (ItemMeta, NamespacedKey)void
+  private static final MethodHandle SET_ITEM_MODEL;
+
+  // (ItemStack)boolean, (ItemStack)void, (ItemStack)void
+  private static final MethodHandle HAS_GLIDER;
+  private static final MethodHandle SET_GLIDER;
+  private static final MethodHandle UNSET_GLIDER;
+
+  // (ItemStack)Object, (ItemStack, Object)void, (ItemStack)void
+  private static final MethodHandle GET_EQUIPPABLE;
+  private static final MethodHandle SET_EQUIPPABLE;
+  private static final MethodHandle RESET_EQUIPPABLE;
+
+  // Equippable -> Builder, (Builder, Key) -> Builder, Builder -> Equippable, (String, String) -> Key
+  private static final MethodHandle EQUIPPABLE_TO_BUILDER;
+  private static final MethodHandle BUILDER_ASSET_ID;
+  private static final MethodHandle BUILDER_BUILD;
+  private static final MethodHandle KEY;
+
+  static {
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+    MethodHandle setItemModel = null;
+    if (VersionUtil.supportsItemModel()) {
+      try {
+        setItemModel = lookup.unreflect(ItemMeta.class.getMethod("setItemModel", NamespacedKey.class))
+            .asType(MethodType.methodType(void.class, ItemMeta.class, NamespacedKey.class));
+      } catch (Exception e) {
+        Bukkit.getLogger().warning("[CuriosPaper] Failed to bind setItemModel: " + e.getMessage());
+      }
+    }
+    SET_ITEM_MODEL = setItemModel;
+
+    MethodHandle[] components = VersionUtil.supportsDataComponents() ? bindDataComponents(lookup) : null;
+    if (components == null) {
+      components = new MethodHandle[6];
+    }
+    HAS_GLIDER = components[0];
+    SET_GLIDER = components[1];
+    UNSET_GLIDER = components[2];
+    GET_EQUIPPABLE = components[3];
+    SET_EQUIPPABLE = components[4];
+    RESET_EQUIPPABLE = components[5];
+
+    MethodHandle[] builder = HAS_GLIDER != null ? bindEquippableBuilder(lookup) : null;
+    if (builder == null) {
+      builder = new MethodHandle[4];
+    }
+    EQUIPPABLE_TO_BUILDER = builder[0];
+    BUILDER_ASSET_ID = builder[1];
+    BUILDER_BUILD = builder[2];
+    KEY = builder[3];
+  }
+
+  /**
+   * GLIDER is a NonValued type (single-arg setData), EQUIPPABLE is Valued
+   * (two-arg setData).
+   */
+  private static MethodHandle[] bindDataComponents(MethodHandles.Lookup lookup) {
+    try {
+      Class<?> dataComponentTypesClass = Class.forName("io.papermc.paper.datacomponent.DataComponentTypes");
+      Object typeGlider = dataComponentTypesClass.getField("GLIDER").get(null);
+      Object typeEquippable = dataComponentTypesClass.getField("EQUIPPABLE").get(null);
+
+      // Base type for hasData / unsetData / resetData
+      Class<?> typeClass = Class.forName("io.papermc.paper.datacomponent.DataComponentType");
+      // Valued subtype for getData / setData with value
+      Class<?> valuedClass = Class.forName("io.papermc.paper.datacomponent.DataComponentType$Valued");
+      // NonValued subtype for setData without value (unit types like GLIDER)
+      Class<?> nonValuedClass = Class.forName("io.papermc.paper.datacomponent.DataComponentType$NonValued");
+
+      MethodType onItem = MethodType.methodType(void.class, ItemStack.class);
+      // Looked up by parameter types only; asType below fixes the return types
+      MethodHandle hasData = lookup.unreflect(ItemStack.class.getMethod("hasData", typeClass));
+      MethodHandle setData = lookup.unreflect(ItemStack.class.getMethod("setData", nonValuedClass));
+      MethodHandle unsetData = lookup.unreflect(ItemStack.class.getMethod("unsetData", typeClass));
+      MethodHandle getData = lookup.unreflect(ItemStack.class.getMethod("getData", valuedClass));
+      MethodHandle setValuedData = lookup.unreflect(ItemStack.class.getMethod("setData", valuedClass, Object.class));
+      MethodHandle resetData = lookup.unreflect(ItemStack.class.getMethod("resetData", typeClass));
+
+      return new MethodHandle[] {
+          MethodHandles.insertArguments(hasData, 1, typeGlider)
+              .asType(MethodType.methodType(boolean.class, ItemStack.class)),
+          MethodHandles.insertArguments(setData, 1, typeGlider).asType(onItem),
+          MethodHandles.insertArguments(unsetData, 1, typeGlider).asType(onItem),
+          MethodHandles.insertArguments(getData, 1, typeEquippable)
+              .asType(MethodType.methodType(Object.class, ItemStack.class)),
+          MethodHandles.insertArguments(setValuedData, 1, typeEquippable)
+              .asType(MethodType.methodType(void.class, ItemStack.class, Object.class)),
+          MethodHandles.insertArguments(resetData, 1, typeEquippable).asType(onItem) };
+    } catch (Exception e) {
+      Bukkit.getLogger().warning("[CuriosPaper] Failed to init data components via method handles: " + e.getMessage());
+      VersionUtil.dataComponentsUnavailable();
+      return null;
+    }
+  }
+
+  private static MethodHandle[] bindEquippableBuilder(MethodHandles.Lookup lookup) {
+    try {
+      // Use the public interface classes, not the package-private impl classes
+      Class<?> equippableClass = Class.forName("io.papermc.paper.datacomponent.item.Equippable");
+      Class<?> builderClass = Class.forName("io.papermc.paper.datacomponent.item.Equippable$Builder");
+      Class<?> keyClass = Class.forName("net.kyori.adventure.key.Key");
+
+      MethodType objectToObject = MethodType.methodType(Object.class, Object.class);
+      return new MethodHandle[] {
+          lookup.unreflect(equippableClass.getMethod("toBuilder")).asType(objectToObject),
+          lookup.unreflect(builderClass.getMethod("assetId", keyClass))
+              .asType(MethodType.methodType(Object.class, Object.class, Object.class)),
+          lookup.unreflect(builderClass.getMethod("build")).asType(objectToObject),
+          lookup.unreflect(keyClass.getMethod("key", String.class, String.class))
+              .asType(MethodType.methodType(Object.class, String.class, String.class)) };
+    } catch (Exception e) {
+      Bukkit.getLogger().warning("[CuriosPaper] Failed to bind Equippable builder, wings asset won't be set: "
+          + e.getMessage());
+      return null;
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "modern (item model: " + (SET_ITEM_MODEL != null) + ", data components: " + (HAS_GLIDER != null) + ")";
+  }
+
+  @Override
+  public boolean setItemModel(ItemMeta meta, NamespacedKey itemModel) {
+    if (SET_ITEM_MODEL == null) {
+      return false;
+    }
+    try {
+      SET_ITEM_MODEL.invokeExact(meta, itemModel);
+      return true;
+    } catch (Throwable t) {
+      // Log and let the caller fall back to CustomModelData
+      Bukkit.getLogger().warning("[CuriosPaper] Failed to set item model: " + t.getMessage());
+      return false;
+    }
+  }
+
+  @Override
+  public boolean hasGlider(ItemStack item) {
+    if (HAS_GLIDER == null || item == null) {
+      return false;
+    }
+    try {
+      return (boolean) HAS_GLIDER.invokeExact(item);
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+
+  @Override
+  public void setGlider(ItemStack item, boolean enabled) {
+    if (SET_GLIDER == null || item == null) {
+      return;
+    }
+    try {
+      if (enabled) {
+        SET_GLIDER.invokeExact(item);
+      } else {
+        UNSET_GLIDER.invokeExact(item);
+      }
+    } catch (Throwable t) {
+      Bukkit.getLogger().warning("[CuriosPaper] Failed to set/unset glider: " + t.getMessage());
+    }
+  }
+
+  @Override
+  public void applyElytraFlight(ItemStack chestplate, String assetNamespace, String assetKey) {
+    if (SET_GLIDER == null || chestplate == null) {
+      return;
+    }
+    try {
+      // 1. Set Glider — GLIDER is NonValued, just mark it present
+      SET_GLIDER.invokeExact(chestplate);
+
+      // 2. Set Equippable asset ID to show wings model
+      // Equippable equippable = chestplate.getData(DataComponentTypes.EQUIPPABLE);
+      // Equippable built = equippable.toBuilder().assetId(Key.key(ns, key)).build();
+      // chestplate.setData(DataComponentTypes.EQUIPPABLE, built);
+      if (EQUIPPABLE_TO_BUILDER == null) {
+        return;
+      }
+      Object currentEquippable = (Object) GET_EQUIPPABLE.invokeExact(chestplate);
+      if (currentEquippable != null) {
+        Object builder = (Object) EQUIPPABLE_TO_BUILDER.invokeExact(currentEquippable);
+        Object key = (Object) KEY.invokeExact(assetNamespace, assetKey);
+        builder = (Object) BUILDER_ASSET_ID.invokeExact(builder, key);
+        Object newEquippable = (Object) BUILDER_BUILD.invokeExact(builder);
+        SET_EQUIPPABLE.invokeExact(chestplate, newEquippable);
+      }
+    } catch (Throwable t) {
+      Bukkit.getLogger().warning("[CuriosPaper] Failed to apply elytra flight: " + t.getMessage());
+      t.printStackTrace();
+    }
+  }
+
+  @Override
+  public void removeGlider(ItemStack chestplate) {
+    if (UNSET_GLIDER == null || chestplate == null) {
+      return;
+    }
+    try {
+      // Unset the GLIDER component
+      UNSET_GLIDER.invokeExact(chestplate);
+
+      // Reset Equippable to the item type's prototype default
+      // This restores the original asset ID (e.g. diamond_chestplate instead of
+      // elytra wings)
+      RESET_EQUIPPABLE.invokeExact(chestplate);
+    } catch (Throwable t) {
+      Bukkit.getLogger().warning("[CuriosPaper] Failed to remove glider: " + t.getMessage());
+      t.printStackTrace();
+    }
+  }
+}
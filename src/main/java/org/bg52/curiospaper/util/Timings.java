@@ -0,0 +1,281 @@
+package org.bg52.curiospaper.util;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on timing of CuriosPaper's listeners and periodic tasks, shown by
+ * /curios timings. Each section keeps a call count, the total and maximum time
+ * and a histogram of durations, from which percentiles are read.
+ *
+ * <p>
+ * Recording costs two System.nanoTime calls and a few atomic adds, and is
+ * thread-safe, so pack downloads can be timed from the HTTP threads. Usage:
+ *
+ * <pre>
+ * long start = Timings.start();
+ * ...
+ * Timings.stop(Timings.Section.LOOT, start);
+ * </pre>
+ */
+public final class Timings {
+
+  public enum Section {
+    ABILITY_TICK("ability-tick"),
+    RECONCILIATION("reconciliation"),
+    MODEL_STAND_SYNC("model-stand-sync"),
+    MOB_MODEL_SYNC("mob-model-sync"),
+    MOB_DROP("mob-drop"),
+    LOOT("loot"),
+    RECIPE_PREPARE("recipe-prepare"),
+    PACK_SERVE("pack-serve");
+
+    private final String id;
+
+    Section(String id) {
+      this.id = id;
+    }
+
+    public String getId() {
+      return id;
+    }
+  }
+
+  private static final Histogram[] HISTOGRAMS = new Histogram[Section.values().length];
+
+  static {
+    for (int i = 0; i < HISTOGRAMS.length; i++) {
+      HISTOGRAMS[i] = new Histogram();
+    }
+  }
+
+  private static volatile boolean enabled = true;
+  private static volatile long resetNanos = System.nanoTime();
+  private static volatile long resetMillis = System.currentTimeMillis();
+
+  private Timings() {
+  }
+
+  /**
+   * @return the start time to pass to {@link #stop}, or 0 if timings are off
+   */
+  public static long start() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  public static void stop(Section section, long start) {
+    if (start != 0L) {
+      record(section, System.nanoTime() - start);
+    }
+  }
+
+  public static void record(Section section, long nanos) {
+    HISTOGRAMS[section.ordinal()].record(Math.max(0L, nanos));
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    Timings.enabled = enabled;
+  }
+
+  /**
+   * Clears all sections and restarts the calls-per-second window
+   */
+  public static void reset() {
+    for (Histogram histogram : HISTOGRAMS) {
+      histogram.reset();
+    }
+    resetNanos = System.nanoTime();
+    resetMillis = System.currentTimeMillis();
+  }
+
+  /**
+   * @return the time covered by the current statistics
+   */
+  public static long getElapsedNanos() {
+    return System.nanoTime() - resetNanos;
+  }
+
+  public static Stats getStats(Section section) {
+    return HISTOGRAMS[section.ordinal()].snapshot();
+  }
+
+  /**
+   * @return the number of calls since startup, not cleared by {@link #reset}
+   */
+  public static long getLifetimeCount(Section section) {
+    return HISTOGRAMS[section.ordinal()].lifetimeCount.sum();
+  }
+
+  /**
+   * @return the time spent since startup, not cleared by {@link #reset}
+   */
+  public static long getLifetimeTotalNanos(Section section) {
+    return HISTOGRAMS[section.ordinal()].lifetimeTotal.sum();
+  }
+
+  /**
+   * Formats all sections as a JSON document, durations in milliseconds
+   */
+  public static String toJson() {
+    long elapsed = getElapsedNanos();
+    JsonObject root = new JsonObject();
+    root.addProperty("since", resetMillis);
+    root.addProperty("durationSeconds", elapsed / 1e9);
+    root.addProperty("enabled", enabled);
+
+    JsonArray sections = new JsonArray();
+    for (Section section : Section.values()) {
+      Stats stats = getStats(section);
+      JsonObject entry = new JsonObject();
+      entry.addProperty("section", section.getId());
+      entry.addProperty("calls", stats.getCount());
+      entry.addProperty("callsPerSecond", stats.getCallsPerSecond(elapsed));
+      entry.addProperty("totalMs", toMillis(stats.getTotalNanos()));
+      entry.addProperty("meanMs", toMillis(stats.getMeanNanos()));
+      entry.addProperty("p50Ms", toMillis(stats.getPercentileNanos(50)));
+      entry.addProperty("p95Ms", toMillis(stats.getPercentileNanos(95)));
+      entry.addProperty("p99Ms", toMillis(stats.getPercentileNanos(99)));
+      entry.addProperty("maxMs", toMillis(stats.getMaxNanos()));
+      sections.add(entry);
+    }
+    root.add("sections", sections);
+    return new GsonBuilder().setPrettyPrinting().create().toJson(root);
+  }
+
+  public static double toMillis(double nanos) {
+    return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * A copy of one section's statistics
+   */
+  public static final class Stats {
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] buckets;
+
+    private Stats(long count, long totalNanos, long maxNanos, long[] buckets) {
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.buckets = buckets;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    public double getMeanNanos() {
+      return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    public double getCallsPerSecond(long elapsedNanos) {
+      return elapsedNanos <= 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @param percentile 0 to 100
+     * @return the duration below which this share of the calls fall, accurate
+     *         to within 25%
+     */
+    public long getPercentileNanos(double percentile) {
+      long total = 0;
+      for (long bucket : buckets) {
+        total += bucket;
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= rank) {
+          return Math.min(Histogram.upperBound(i), maxNanos);
+        }
+      }
+      return maxNanos;
+    }
+  }
+
+  /**
+   * Counts durations in buckets of roughly logarithmic size: exact below 16ns,
+   * then four buckets per power of two
+   */
+  private static final class Histogram {
+    private static final int BUCKETS = 16 + (63 - 4) * 4;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    // Exported as monotonic counters, so never reset
+    private final LongAdder lifetimeCount = new LongAdder();
+    private final LongAdder lifetimeTotal = new LongAdder();
+
+    void record(long nanos) {
+      buckets.incrementAndGet(bucketOf(nanos));
+      count.increment();
+      total.add(nanos);
+      lifetimeCount.increment();
+      lifetimeTotal.add(nanos);
+      long current = max.get();
+      while (nanos > current && !max.compareAndSet(current, nanos)) {
+        current = max.get();
+      }
+    }
+
+    void reset() {
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets.set(i, 0L);
+      }
+      count.reset();
+      total.reset();
+      max.set(0L);
+    }
+
+    Stats snapshot() {
+      long[] copy = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++) {
+        copy[i] = buckets.get(i);
+      }
+      return new Stats(count.sum(), total.sum(), max.get(), copy);
+    }
+
+    static int bucketOf(long nanos) {
+      if (nanos < 16) {
+        return (int) nanos;
+      }
+      int msb = 63 - Long.numberOfLeadingZeros(nanos);
+      return 16 + ((msb - 4) << 2) + (int) ((nanos >>> (msb - 2)) & 3);
+    }
+
+    static long upperBound(int bucket) {
+      if (bucket < 16) {
+        return bucket;
+      }
+      int msb = 4 + ((bucket - 16) >> 2);
+      long width = 1L << (msb - 2);
+      return (4 + ((bucket - 16) & 3)) * width + width - 1;
+    }
+  }
+}
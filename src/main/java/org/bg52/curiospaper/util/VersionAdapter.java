@@ -0,0 +1,44 @@
+package org.bg52.curiospaper.util;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * Version-specific item operations that aren't part of the 1.14 API we compile
+ * against. The implementation is chosen once, on first use, by
+ * {@link VersionUtil#adapter()}: servers without item models or data
+ * components get a no-op one, newer servers one whose methods call straight
+ * into the server through method handles bound at that point.
+ */
+public interface VersionAdapter {
+
+  /**
+   * @return a short name for logging
+   */
+  String getName();
+
+  /**
+   * Sets ItemMeta#setItemModel if the server has it.
+   *
+   * @return false if item models aren't supported, so the caller can fall back
+   *         to CustomModelData
+   */
+  boolean setItemModel(ItemMeta meta, NamespacedKey itemModel);
+
+  boolean hasGlider(ItemStack item);
+
+  void setGlider(ItemStack item, boolean enabled);
+
+  /**
+   * Applies the Glider component and sets the Equippable asset to make it look
+   * like elytra.
+   */
+  void applyElytraFlight(ItemStack chestplate, String assetNamespace, String assetKey);
+
+  /**
+   * Removes the Glider component and resets the Equippable asset to the item
+   * type's default.
+   */
+  void removeGlider(ItemStack chestplate);
+}
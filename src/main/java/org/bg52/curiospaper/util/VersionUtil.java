@@ -2,6 +2,10 @@ package org.bg52.curiospaper.util;
 
 import org.bukkit.Bukkit;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
 /**
  * Utility class for detecting Minecraft server version and feature
  * availability.
@@ -216,6 +220,87 @@ public class VersionUtil {
     return majorVersion + "." + minorVersion + "." + patchVersion;
   }
 
+  // (UUID)int bound to the Via API instance, and (Player)int
+  private static MethodHandle viaGetPlayerVersion;
+  private static MethodHandle paperGetProtocolVersion;
+  private static boolean protocolLookupInitAttempted = false;
+
+  private static void initProtocolLookup() {
+    if (protocolLookupInitAttempted) {
+      return;
+    }
+    protocolLookupInitAttempted = true;
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    // ViaVersion knows the real client version; Paper reports the server's
+    // protocol for translated clients, so Via takes precedence when present.
+    try {
+      if (Bukkit.getPluginManager().getPlugin("ViaVersion") != null) {
+        Class<?> viaClass = Class.forName("com.viaversion.viaversion.api.Via");
+        Object viaApi = viaClass.getMethod("getAPI").invoke(null);
+        java.lang.reflect.Method method = viaApi.getClass().getMethod("getPlayerVersion", java.util.UUID.class);
+        method.setAccessible(true);
+        viaGetPlayerVersion = MethodHandles.lookup().unreflect(method).bindTo(viaApi)
+            .asType(MethodType.methodType(int.class, java.util.UUID.class));
+      }
+    } catch (Throwable e) {
+      viaGetPlayerVersion = null;
+    }
+    try {
+      paperGetProtocolVersion = lookup
+          .unreflect(org.bukkit.entity.Player.class.getMethod("getProtocolVersion"))
+          .asType(MethodType.methodType(int.class, org.bukkit.entity.Player.class));
+    } catch (Throwable e) {
+      paperGetProtocolVersion = null;
+    }
+  }
+
+  /**
+   * Get the network protocol version of a connected client (e.g. 769 for
+   * 1.21.4). Uses ViaVersion or Paper when available.
+   *
+   * @return the protocol version, or -1 if it cannot be determined
+   */
+  public static int getClientProtocolVersion(org.bukkit.entity.Player player) {
+    initProtocolLookup();
+    try {
+      if (viaGetPlayerVersion != null) {
+        return (int) viaGetPlayerVersion.invokeExact(player.getUniqueId());
+      }
+      if (paperGetProtocolVersion != null) {
+        return (int) paperGetProtocolVersion.invokeExact(player);
+      }
+    } catch (Throwable e) {
+      // Fall through to unknown
+    }
+    return -1;
+  }
+
+  /**
+   * Holds the adapter, so it is chosen on first use rather than when
+   * VersionUtil is loaded.
+   */
+  private static final class AdapterHolder {
+    static final VersionAdapter INSTANCE = supportsItemModel() || supportsDataComponents()
+        ? new ModernVersionAdapter()
+        : new LegacyVersionAdapter();
+  }
+
+  /**
+   * The adapter for this server's version, chosen and bound on first use. Call
+   * early (on enable) so a failed data component binding is reflected by
+   * {@link #supportsDataComponents()} before features check it.
+   */
+  public static VersionAdapter adapter() {
+    return AdapterHolder.INSTANCE;
+  }
+
+  /**
+   * Called by the adapter when the data component methods couldn't be bound.
+   */
+  static void dataComponentsUnavailable() {
+    supportsDataComponents = false;
+  }
+
   /**
    * Parse a namespaced key string into a NamespacedKey object.
    * Compatible with Spigot 1.14+ which doesn't have NamespacedKey.fromString()
@@ -259,20 +344,10 @@ public class VersionUtil {
       return;
 
     if (supportsItemModel() && itemModel != null && !itemModel.trim().isEmpty()) {
-      try {
-        org.bukkit.NamespacedKey key = parseNamespacedKey(itemModel);
-        if (key != null) {
-          // Use the interface class for reflection to ensure compatibility
-          Class<?> itemMetaClass = Class.forName("org.bukkit.inventory.meta.ItemMeta");
-          java.lang.reflect.Method method = itemMetaClass.getMethod("setItemModel",
-              org.bukkit.NamespacedKey.class);
-          method.invoke(meta, key);
-          return;
-        }
-      } catch (Exception e) {
-        // Log and fall through to CustomModelData
-        org.bukkit.Bukkit.getLogger()
-            .warning("[CuriosPaper] Failed to set item model via reflection: " + e.getMessage());
+      org.bukkit.NamespacedKey key = parseNamespacedKey(itemModel);
+      // Falls through to CustomModelData if the adapter couldn't set it
+      if (key != null && adapter().setItemModel(meta, key)) {
+        return;
       }
     }
 
@@ -290,104 +365,12 @@ public class VersionUtil {
     }
   }
 
-  /**
-   * Set item model on ItemMeta using a NamespacedKey directly (for slot
-   * configurations).
-   * 
-   * @param meta      The ItemMeta to modify
-   * @param itemModel    The NamespacedKey item model
-   * @param customModelData The CustomModelData value for older versions (can be
-   *            null)
-   */
-  // Reflection Cache
-  private static Class<?> dataComponentTypesClass;
-  private static Object typeGlider; // DataComponentType.NonValued
-  private static Object typeEquippable; // DataComponentType.Valued<Equippable>
-  private static java.lang.reflect.Method getDataMethod; // getData(DataComponentType.Valued)
-  private static java.lang.reflect.Method setDataValuedMethod; // setData(DataComponentType.Valued, Object)
-  private static java.lang.reflect.Method setDataNonValuedMethod; // setData(DataComponentType.NonValued)
-  private static java.lang.reflect.Method unsetDataMethod; // unsetData(DataComponentType)
-  private static java.lang.reflect.Method hasDataMethod; // hasData(DataComponentType)
-  private static java.lang.reflect.Method resetDataMethod; // resetData(DataComponentType)
-  private static java.lang.reflect.Method keyMethod;
-  private static boolean dataComponentsInitAttempted = false;
-
-  /**
-   * Tries to initialize reflection for Data Components (1.21+ functionality).
-   * GLIDER is a NonValued type (single-arg setData), EQUIPPABLE is Valued
-   * (two-arg setData).
-   */
-  private static void initDataComponents() {
-    if (dataComponentsInitAttempted)
-      return;
-    dataComponentsInitAttempted = true;
-    if (!supportsDataComponents())
-      return;
-    try {
-      dataComponentTypesClass = Class.forName("io.papermc.paper.datacomponent.DataComponentTypes");
-      typeGlider = dataComponentTypesClass.getField("GLIDER").get(null);
-      typeEquippable = dataComponentTypesClass.getField("EQUIPPABLE").get(null);
-
-      Class<?> itemStackClass = org.bukkit.inventory.ItemStack.class;
-
-      // Base type for hasData / unsetData / resetData
-      Class<?> dataComponentTypeClass = Class.forName("io.papermc.paper.datacomponent.DataComponentType");
-      hasDataMethod = itemStackClass.getMethod("hasData", dataComponentTypeClass);
-      unsetDataMethod = itemStackClass.getMethod("unsetData", dataComponentTypeClass);
-      resetDataMethod = itemStackClass.getMethod("resetData", dataComponentTypeClass);
-
-      // Valued subtype for getData / setData with value
-      Class<?> valuedClass = Class.forName("io.papermc.paper.datacomponent.DataComponentType$Valued");
-      getDataMethod = itemStackClass.getMethod("getData", valuedClass);
-      setDataValuedMethod = itemStackClass.getMethod("setData", valuedClass, Object.class);
-
-      // NonValued subtype for setData without value (unit types like GLIDER)
-      Class<?> nonValuedClass = Class.forName("io.papermc.paper.datacomponent.DataComponentType$NonValued");
-      setDataNonValuedMethod = itemStackClass.getMethod("setData", nonValuedClass);
-
-      // Key factory
-      Class<?> keyClass = Class.forName("net.kyori.adventure.key.Key");
-      keyMethod = keyClass.getMethod("key", String.class, String.class);
-
-    } catch (Exception e) {
-      org.bukkit.Bukkit.getLogger()
-          .warning("[CuriosPaper] Failed to init data components via reflection: " + e.getMessage());
-      supportsDataComponents = false;
-    }
-  }
-
   public static boolean hasGlider(org.bukkit.inventory.ItemStack item) {
-    if (!supportsDataComponents() || item == null)
-      return false;
-    try {
-      initDataComponents();
-      if (hasDataMethod == null)
-        return false;
-      return (boolean) hasDataMethod.invoke(item, typeGlider);
-    } catch (Exception e) {
-      return false;
-    }
+    return adapter().hasGlider(item);
   }
 
   public static void setGlider(org.bukkit.inventory.ItemStack item, boolean enabled) {
-    if (!supportsDataComponents() || item == null)
-      return;
-    try {
-      initDataComponents();
-      if (enabled) {
-        // GLIDER is NonValued — single-arg setData
-        if (setDataNonValuedMethod == null)
-          return;
-        setDataNonValuedMethod.invoke(item, typeGlider);
-      } else {
-        if (unsetDataMethod == null)
-          return;
-        unsetDataMethod.invoke(item, typeGlider);
-      }
-    } catch (Exception e) {
-      org.bukkit.Bukkit.getLogger()
-          .warning("[CuriosPaper] Failed to set/unset glider: " + e.getMessage());
-    }
+    adapter().setGlider(item, enabled);
   }
 
   /**
@@ -396,99 +379,29 @@ public class VersionUtil {
    */
   public static void applyElytraFlight(org.bukkit.inventory.ItemStack chestplate, String assetNamespace,
       String assetKey) {
-    if (!supportsDataComponents() || chestplate == null)
-      return;
-    try {
-      initDataComponents();
-
-      // 1. Set Glider — GLIDER is NonValued, just mark it present
-      if (setDataNonValuedMethod == null) {
-        org.bukkit.Bukkit.getLogger()
-            .warning("[CuriosPaper] setDataNonValuedMethod is null, cannot apply glider");
-        return;
-      }
-      setDataNonValuedMethod.invoke(chestplate, typeGlider);
-
-      // 2. Set Equippable asset ID to show wings model
-      // Equippable equippable = chestplate.getData(DataComponentTypes.EQUIPPABLE);
-      // Equippable built = equippable.toBuilder().assetId(Key.key(ns, key)).build();
-      // chestplate.setData(DataComponentTypes.EQUIPPABLE, built);
-      if (getDataMethod == null || setDataValuedMethod == null)
-        return;
-
-      Object currentEquippable = getDataMethod.invoke(chestplate, typeEquippable);
-      if (currentEquippable != null) {
-        // Use the public interface classes, not the package-private impl classes
-        Class<?> equippableClass = Class.forName("io.papermc.paper.datacomponent.item.Equippable");
-        Class<?> builderClass = Class.forName("io.papermc.paper.datacomponent.item.Equippable$Builder");
-
-        java.lang.reflect.Method toBuilder = equippableClass.getMethod("toBuilder");
-        Object builder = toBuilder.invoke(currentEquippable);
-
-        Object key = keyMethod.invoke(null, assetNamespace, assetKey);
-        java.lang.reflect.Method assetIdMethod = builderClass.getMethod("assetId",
-            Class.forName("net.kyori.adventure.key.Key"));
-        assetIdMethod.invoke(builder, key);
-
-        java.lang.reflect.Method buildMethod = builderClass.getMethod("build");
-        Object newEquippable = buildMethod.invoke(builder);
-
-        setDataValuedMethod.invoke(chestplate, typeEquippable, newEquippable);
-      }
-
-    } catch (Exception e) {
-      org.bukkit.Bukkit.getLogger()
-          .warning("[CuriosPaper] Failed to apply elytra flight: " + e.getMessage());
-      e.printStackTrace();
-    }
+    adapter().applyElytraFlight(chestplate, assetNamespace, assetKey);
   }
 
   public static void removeGlider(org.bukkit.inventory.ItemStack chestplate) {
-    if (!supportsDataComponents() || chestplate == null)
-      return;
-    try {
-      initDataComponents();
-
-      // Unset the GLIDER component
-      if (unsetDataMethod == null) {
-        org.bukkit.Bukkit.getLogger()
-            .warning("[CuriosPaper] unsetDataMethod is null, cannot remove glider");
-        return;
-      }
-      unsetDataMethod.invoke(chestplate, typeGlider);
-
-      // Reset Equippable to the item type's prototype default
-      // This restores the original asset ID (e.g. diamond_chestplate instead of
-      // elytra wings)
-      if (resetDataMethod != null) {
-        resetDataMethod.invoke(chestplate, typeEquippable);
-      }
-
-    } catch (Exception e) {
-      org.bukkit.Bukkit.getLogger()
-          .warning("[CuriosPaper] Failed to remove glider: " + e.getMessage());
-      e.printStackTrace();
-    }
+    adapter().removeGlider(chestplate);
   }
 
+  /**
+   * Set item model on ItemMeta using a NamespacedKey directly (for slot
+   * configurations).
+   * 
+   * @param meta      The ItemMeta to modify
+   * @param itemModel    The NamespacedKey item model
+   * @param customModelData The CustomModelData value for older versions (can be
+   *            null)
+   */
   public static void setItemModelSafe(org.bukkit.inventory.meta.ItemMeta meta, org.bukkit.NamespacedKey itemModel,
       Integer customModelData) {
     if (meta == null)
       return;
 
-    if (supportsItemModel() && itemModel != null) {
-      try {
-        // Use the interface class for reflection to ensure compatibility
-        Class<?> itemMetaClass = Class.forName("org.bukkit.inventory.meta.ItemMeta");
-        java.lang.reflect.Method method = itemMetaClass.getMethod("setItemModel",
-            org.bukkit.NamespacedKey.class);
-        method.invoke(meta, itemModel);
-        return;
-      } catch (Exception e) {
-        // Log and fall through to CustomModelData
-        org.bukkit.Bukkit.getLogger().warning(
-            "[CuriosPaper] Failed to set item model (NamespacedKey) via reflection: " + e.getMessage());
-      }
+    if (itemModel != null && adapter().setItemModel(meta, itemModel)) {
+      return;
     }
 
     // Fallback to CustomModelData
@@ -551,6 +464,175 @@ public class VersionUtil {
     return null;
   }
 
+  /**
+   * Skull profile methods of the three APIs setSkullBase64 / getSkullBase64
+   * try in turn, bound once on first use. A handle is null if this server
+   * doesn't have that API.
+   */
+  private static final class SkullHandles {
+    // Bukkit PlayerProfile API (1.18+)
+    static final MethodHandle CREATE_PLAYER_PROFILE; // (UUID, String)Object
+    static final MethodHandle PROFILE_GET_TEXTURES; // (Object)Object
+    static final MethodHandle PROFILE_SET_TEXTURES; // (Object, Object)void
+    static final MethodHandle PROFILE_GET_PROPERTIES; // (Object)Collection
+    static final MethodHandle TEXTURES_SET_SKIN; // (Object, URL)void
+    static final MethodHandle TEXTURES_GET_SKIN; // (Object)URL
+    static final MethodHandle NEW_PROFILE_PROPERTY; // (String, String)Object
+    static final MethodHandle SET_OWNER_PROFILE; // (SkullMeta, Object)void
+    static final MethodHandle GET_OWNER_PROFILE; // (SkullMeta)Object
+
+    // Paper PlayerProfile API (1.12 - 1.17)
+    static final MethodHandle CREATE_PAPER_PROFILE; // (UUID)Object
+    static final MethodHandle PAPER_GET_PROPERTIES; // (Object)Collection
+    static final MethodHandle NEW_PAPER_PROPERTY; // (String, String)Object
+    static final MethodHandle SET_PLAYER_PROFILE; // (SkullMeta, Object)void
+    static final MethodHandle GET_PLAYER_PROFILE; // (SkullMeta)Object
+
+    // Legacy Mojang GameProfile (1.8 - 1.17)
+    static final MethodHandle NEW_GAME_PROFILE; // (UUID, String)Object
+    static final MethodHandle NEW_MOJANG_PROPERTY; // (String, String)Object
+    static final MethodHandle GAME_PROFILE_GET_PROPERTIES; // (Object)Object
+
+    static {
+      Class<?> skullMeta = org.bukkit.inventory.meta.SkullMeta.class;
+      Class<?> bukkitProfile = classOrNull("org.bukkit.profile.PlayerProfile");
+      Class<?> bukkitTextures = classOrNull("org.bukkit.profile.PlayerTextures");
+      Class<?> bukkitProperty = classOrNull("org.bukkit.profile.ProfileProperty");
+      Class<?> paperProfile = classOrNull("com.destroystokyo.paper.profile.PlayerProfile");
+      Class<?> paperProperty = classOrNull("com.destroystokyo.paper.profile.ProfileProperty");
+      Class<?> gameProfile = classOrNull("com.mojang.authlib.GameProfile");
+      Class<?> mojangProperty = classOrNull("com.mojang.authlib.properties.Property");
+
+      CREATE_PLAYER_PROFILE = method(org.bukkit.Bukkit.class, "createPlayerProfile", java.util.UUID.class, String.class);
+      PROFILE_GET_TEXTURES = method(bukkitProfile, "getTextures");
+      PROFILE_SET_TEXTURES = method(bukkitProfile, "setTextures", bukkitTextures);
+      PROFILE_GET_PROPERTIES = method(bukkitProfile, "getProperties");
+      TEXTURES_SET_SKIN = method(bukkitTextures, "setSkin", java.net.URL.class);
+      TEXTURES_GET_SKIN = method(bukkitTextures, "getSkin");
+      NEW_PROFILE_PROPERTY = constructor(bukkitProperty, String.class, String.class);
+      SET_OWNER_PROFILE = method(skullMeta, "setOwnerProfile", bukkitProfile);
+      GET_OWNER_PROFILE = method(skullMeta, "getOwnerProfile");
+
+      CREATE_PAPER_PROFILE = method(org.bukkit.Bukkit.class, "createProfile", java.util.UUID.class);
+      PAPER_GET_PROPERTIES = method(paperProfile, "getProperties");
+      NEW_PAPER_PROPERTY = constructor(paperProperty, String.class, String.class);
+      SET_PLAYER_PROFILE = method(skullMeta, "setPlayerProfile", paperProfile);
+      GET_PLAYER_PROFILE = method(skullMeta, "getPlayerProfile");
+
+      NEW_GAME_PROFILE = constructor(gameProfile, java.util.UUID.class, String.class);
+      NEW_MOJANG_PROPERTY = constructor(mojangProperty, String.class, String.class);
+      GAME_PROFILE_GET_PROPERTIES = method(gameProfile, "getProperties");
+    }
+
+    private static Class<?> classOrNull(String name) {
+      try {
+        return Class.forName(name);
+      } catch (Throwable t) {
+        return null;
+      }
+    }
+
+    /**
+     * @return the method as a handle taking and returning Object (void stays
+     *         void), or null if it doesn't exist
+     */
+    private static MethodHandle method(Class<?> owner, String name, Class<?>... params) {
+      if (owner == null) {
+        return null;
+      }
+      for (Class<?> param : params) {
+        if (param == null) {
+          return null;
+        }
+      }
+      try {
+        java.lang.reflect.Method method = owner.getMethod(name, params);
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        return handle.asType(handle.type().generic().changeReturnType(
+            handle.type().returnType() == void.class ? void.class : Object.class));
+      } catch (Throwable t) {
+        return null;
+      }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... params) {
+      if (owner == null) {
+        return null;
+      }
+      try {
+        java.lang.reflect.Constructor<?> constructor = owner.getConstructor(params);
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor).asType(
+            MethodType.genericMethodType(params.length));
+      } catch (Throwable t) {
+        return null;
+      }
+    }
+
+    /**
+     * @return whether this server has all of the given methods
+     */
+    static boolean available(MethodHandle... handles) {
+      for (MethodHandle handle : handles) {
+        if (handle == null) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Methods of profile property and property map classes, which are only known
+   * at runtime. Resolved once per class; each name is only used with one
+   * parameter list.
+   */
+  private static final ClassValue<java.util.Map<String, MethodHandle>> RUNTIME_METHODS = new ClassValue<java.util.Map<String, MethodHandle>>() {
+    @Override
+    protected java.util.Map<String, MethodHandle> computeValue(Class<?> type) {
+      return new java.util.concurrent.ConcurrentHashMap<>();
+    }
+  };
+
+  private static MethodHandle runtimeMethod(Class<?> type, String name, Class<?>... params)
+      throws ReflectiveOperationException {
+    java.util.Map<String, MethodHandle> methods = RUNTIME_METHODS.get(type);
+    MethodHandle handle = methods.get(name);
+    if (handle == null) {
+      java.lang.reflect.Method method = type.getMethod(name, params);
+      method.setAccessible(true);
+      handle = MethodHandles.lookup().unreflect(method);
+      methods.put(name, handle);
+    }
+    return handle;
+  }
+
+  /**
+   * The "profile" field of the server's SkullMeta implementation as
+   * {getter, setter}, or null if there is none.
+   */
+  private static final ClassValue<MethodHandle[]> PROFILE_FIELD = new ClassValue<MethodHandle[]>() {
+    @Override
+    protected MethodHandle[] computeValue(Class<?> type) {
+      Class<?> currentClass = type;
+      while (currentClass != null && currentClass != Object.class) {
+        try {
+          java.lang.reflect.Field field = currentClass.getDeclaredField("profile");
+          field.setAccessible(true);
+          return new MethodHandle[] { MethodHandles.lookup().unreflectGetter(field),
+              MethodHandles.lookup().unreflectSetter(field) };
+        } catch (NoSuchFieldException e) {
+          currentClass = currentClass.getSuperclass();
+        } catch (Throwable t) {
+          return null;
+        }
+      }
+      return null;
+    }
+  };
+
+  @SuppressWarnings("unchecked")
   public static void setSkullBase64(org.bukkit.inventory.meta.SkullMeta meta, String base64) {
     if (meta == null || base64 == null || base64.trim().isEmpty()) {
       return;
@@ -562,252 +644,172 @@ public class VersionUtil {
     Throwable path3Err = null;
 
     // Path 1a: Bukkit PlayerProfile + PlayerTextures (Official, stable, avoids property errors on 1.18+)
-    try {
-      java.lang.reflect.Method createPlayerProfileMethod = org.bukkit.Bukkit.class.getMethod("createPlayerProfile", java.util.UUID.class, String.class);
-      createPlayerProfileMethod.setAccessible(true);
-      Object playerProfile = createPlayerProfileMethod.invoke(null, java.util.UUID.randomUUID(), "");
-
-      Class<?> playerProfileClass = Class.forName("org.bukkit.profile.PlayerProfile");
-      Class<?> playerTexturesClass = Class.forName("org.bukkit.profile.PlayerTextures");
-
-      java.lang.reflect.Method getTexturesMethod = playerProfileClass.getMethod("getTextures");
-      getTexturesMethod.setAccessible(true);
-      Object playerTextures = getTexturesMethod.invoke(playerProfile);
-
-      java.net.URL url = getUrlFromBase64(base64);
-      if (url != null) {
-        java.lang.reflect.Method setSkinMethod = playerTexturesClass.getMethod("setSkin", java.net.URL.class);
-        setSkinMethod.setAccessible(true);
-        setSkinMethod.invoke(playerTextures, url);
-
-        java.lang.reflect.Method setTexturesMethod = playerProfileClass.getMethod("setTextures", playerTexturesClass);
-        setTexturesMethod.setAccessible(true);
-        setTexturesMethod.invoke(playerProfile, playerTextures);
-
-        java.lang.reflect.Method setOwnerProfileMethod = org.bukkit.inventory.meta.SkullMeta.class.getMethod("setOwnerProfile", playerProfileClass);
-        setOwnerProfileMethod.setAccessible(true);
-        setOwnerProfileMethod.invoke(meta, playerProfile);
-        return; // Success!
-      } else {
-        path1aErr = new IllegalArgumentException("Parsed skin URL is null from base64 string");
+    if (SkullHandles.available(SkullHandles.CREATE_PLAYER_PROFILE, SkullHandles.PROFILE_GET_TEXTURES,
+        SkullHandles.TEXTURES_SET_SKIN, SkullHandles.PROFILE_SET_TEXTURES, SkullHandles.SET_OWNER_PROFILE)) {
+      try {
+        Object playerProfile = SkullHandles.CREATE_PLAYER_PROFILE.invoke(java.util.UUID.randomUUID(), "");
+        Object playerTextures = SkullHandles.PROFILE_GET_TEXTURES.invoke(playerProfile);
+
+        java.net.URL url = getUrlFromBase64(base64);
+        if (url != null) {
+          SkullHandles.TEXTURES_SET_SKIN.invoke(playerTextures, url);
+          SkullHandles.PROFILE_SET_TEXTURES.invoke(playerProfile, playerTextures);
+          SkullHandles.SET_OWNER_PROFILE.invoke(meta, playerProfile);
+          return; // Success!
+        } else {
+          path1aErr = new IllegalArgumentException("Parsed skin URL is null from base64 string");
+        }
+      } catch (Throwable t) {
+        path1aErr = t;
       }
-    } catch (Throwable t) {
-      path1aErr = t;
     }
 
     // Path 1b: Bukkit PlayerProfile + ProfileProperty (Fallback 1.18+)
-    try {
-      java.lang.reflect.Method createPlayerProfileMethod = org.bukkit.Bukkit.class.getMethod("createPlayerProfile", java.util.UUID.class, String.class);
-      createPlayerProfileMethod.setAccessible(true);
-      Object playerProfile = createPlayerProfileMethod.invoke(null, java.util.UUID.randomUUID(), "");
-
-      Class<?> playerProfileClass = Class.forName("org.bukkit.profile.PlayerProfile");
-      java.lang.reflect.Method getPropertiesMethod = playerProfileClass.getMethod("getProperties");
-      getPropertiesMethod.setAccessible(true);
-      java.util.Collection<Object> properties = (java.util.Collection<Object>) getPropertiesMethod.invoke(playerProfile);
-
-      Class<?> profilePropertyClass = Class.forName("org.bukkit.profile.ProfileProperty");
-      java.lang.reflect.Constructor<?> propertyConstructor = profilePropertyClass.getConstructor(String.class, String.class);
-      propertyConstructor.setAccessible(true);
-      Object property = propertyConstructor.newInstance("textures", base64);
-
-      properties.add(property);
-
-      java.lang.reflect.Method setOwnerProfileMethod = org.bukkit.inventory.meta.SkullMeta.class.getMethod("setOwnerProfile", playerProfileClass);
-      setOwnerProfileMethod.setAccessible(true);
-      setOwnerProfileMethod.invoke(meta, playerProfile);
-      return; // Success!
-    } catch (Throwable t) {
-      path1bErr = t;
-    }
+    if (SkullHandles.available(SkullHandles.CREATE_PLAYER_PROFILE, SkullHandles.PROFILE_GET_PROPERTIES,
+        SkullHandles.NEW_PROFILE_PROPERTY, SkullHandles.SET_OWNER_PROFILE)) {
+      try {
+        Object playerProfile = SkullHandles.CREATE_PLAYER_PROFILE.invoke(java.util.UUID.randomUUID(), "");
+        java.util.Collection<Object> properties = (java.util.Collection<Object>) SkullHandles.PROFILE_GET_PROPERTIES
+            .invoke(playerProfile);
+        Object property = SkullHandles.NEW_PROFILE_PROPERTY.invoke("textures", base64);
 
-    // Path 2: Paper PlayerProfile API (1.12 - 1.17)
-    try {
-      java.lang.reflect.Method createProfileMethod = org.bukkit.Bukkit.class.getMethod("createProfile", java.util.UUID.class);
-      createProfileMethod.setAccessible(true);
-      Object profile = createProfileMethod.invoke(null, java.util.UUID.randomUUID());
+        properties.add(property);
 
-      Class<?> paperProfileClass = Class.forName("com.destroystokyo.paper.profile.PlayerProfile");
-      java.lang.reflect.Method getPropertiesMethod = paperProfileClass.getMethod("getProperties");
-      getPropertiesMethod.setAccessible(true);
-      java.util.Collection<Object> properties = (java.util.Collection<Object>) getPropertiesMethod.invoke(profile);
+        SkullHandles.SET_OWNER_PROFILE.invoke(meta, playerProfile);
+        return; // Success!
+      } catch (Throwable t) {
+        path1bErr = t;
+      }
+    }
 
-      Class<?> profilePropertyClass = Class.forName("com.destroystokyo.paper.profile.ProfileProperty");
-      java.lang.reflect.Constructor<?> propertyConstructor = profilePropertyClass.getConstructor(String.class, String.class);
-      propertyConstructor.setAccessible(true);
-      Object property = propertyConstructor.newInstance("textures", base64);
+    // Path 2: Paper PlayerProfile API (1.12 - 1.17)
+    if (SkullHandles.available(SkullHandles.CREATE_PAPER_PROFILE, SkullHandles.PAPER_GET_PROPERTIES,
+        SkullHandles.NEW_PAPER_PROPERTY, SkullHandles.SET_PLAYER_PROFILE)) {
+      try {
+        Object profile = SkullHandles.CREATE_PAPER_PROFILE.invoke(java.util.UUID.randomUUID());
+        java.util.Collection<Object> properties = (java.util.Collection<Object>) SkullHandles.PAPER_GET_PROPERTIES
+            .invoke(profile);
+        Object property = SkullHandles.NEW_PAPER_PROPERTY.invoke("textures", base64);
 
-      properties.add(property);
+        properties.add(property);
 
-      java.lang.reflect.Method setPlayerProfileMethod = org.bukkit.inventory.meta.SkullMeta.class.getMethod("setPlayerProfile", paperProfileClass);
-      setPlayerProfileMethod.setAccessible(true);
-      setPlayerProfileMethod.invoke(meta, profile);
-      return;
-    } catch (Throwable t) {
-      path2Err = t;
+        SkullHandles.SET_PLAYER_PROFILE.invoke(meta, profile);
+        return;
+      } catch (Throwable t) {
+        path2Err = t;
+      }
     }
 
     // Path 3: Legacy GameProfile reflection (1.8 - 1.17)
-    try {
-      Class<?> gameProfileClass = Class.forName("com.mojang.authlib.GameProfile");
-      java.util.UUID uuid = java.util.UUID.randomUUID();
-      java.lang.reflect.Constructor<?> profileConstructor = gameProfileClass.getConstructor(java.util.UUID.class, String.class);
-      profileConstructor.setAccessible(true);
-      Object profile = profileConstructor.newInstance(uuid, "");
-
-      Class<?> propertyClass = Class.forName("com.mojang.authlib.properties.Property");
-      java.lang.reflect.Constructor<?> propertyConstructor = propertyClass.getConstructor(String.class, String.class);
-      propertyConstructor.setAccessible(true);
-      Object property = propertyConstructor.newInstance("textures", base64);
-
-      java.lang.reflect.Method getPropertiesMethod = gameProfileClass.getMethod("getProperties");
-      getPropertiesMethod.setAccessible(true);
-      Object propertiesMap = getPropertiesMethod.invoke(profile);
-
-      java.lang.reflect.Method putMethod = propertiesMap.getClass().getMethod("put", Object.class, Object.class);
-      putMethod.setAccessible(true);
-      putMethod.invoke(propertiesMap, "textures", property);
-
-      java.lang.reflect.Field profileField = null;
-      Class<?> currentClass = meta.getClass();
-      while (currentClass != null && currentClass != Object.class) {
-        try {
-          profileField = currentClass.getDeclaredField("profile");
-          break;
-        } catch (NoSuchFieldException e) {
-          currentClass = currentClass.getSuperclass();
-        }
-      }
-      if (profileField != null) {
-        profileField.setAccessible(true);
-        profileField.set(meta, profile);
+    MethodHandle[] profileField = PROFILE_FIELD.get(meta.getClass());
+    if (profileField == null) {
+      path3Err = new NoSuchFieldException("Could not find field 'profile' in " + meta.getClass().getName() + " or any of its superclasses");
+    } else if (SkullHandles.available(SkullHandles.NEW_GAME_PROFILE, SkullHandles.NEW_MOJANG_PROPERTY,
+        SkullHandles.GAME_PROFILE_GET_PROPERTIES)) {
+      try {
+        Object profile = SkullHandles.NEW_GAME_PROFILE.invoke(java.util.UUID.randomUUID(), "");
+        Object property = SkullHandles.NEW_MOJANG_PROPERTY.invoke("textures", base64);
+        Object propertiesMap = SkullHandles.GAME_PROFILE_GET_PROPERTIES.invoke(profile);
+        runtimeMethod(propertiesMap.getClass(), "put", Object.class, Object.class)
+            .invoke(propertiesMap, "textures", property);
+
+        profileField[1].invoke(meta, profile);
         return;
-      } else {
-        path3Err = new NoSuchFieldException("Could not find field 'profile' in " + meta.getClass().getName() + " or any of its superclasses");
+      } catch (Throwable t) {
+        path3Err = t;
       }
-    } catch (Throwable t) {
-      path3Err = t;
     }
 
     // Log all errors to help with troubleshooting
     org.bukkit.Bukkit.getLogger().warning("[CuriosPaper] All attempts to set skull base64 texture failed!");
-    if (path1aErr != null) {
-      org.bukkit.Bukkit.getLogger().warning("[CuriosPaper] Path 1a (Bukkit Profile + Textures API) failed: " + path1aErr.toString());
-      if (path1aErr instanceof java.lang.reflect.InvocationTargetException) {
-        org.bukkit.Bukkit.getLogger().warning("[CuriosPaper] Path 1a target error: " + ((java.lang.reflect.InvocationTargetException) path1aErr).getTargetException().toString());
-      }
-    }
+    if (path1aErr != null) org.bukkit.Bukkit.getLogger().warning("[CuriosPaper] Path 1a (Bukkit Profile + Textures API) failed: " + path1aErr.toString());
     if (path1bErr != null) org.bukkit.Bukkit.getLogger().warning("[CuriosPaper] Path 1b (Bukkit Profile + Property API) failed: " + path1bErr.toString());
     if (path2Err != null) org.bukkit.Bukkit.getLogger().warning("[CuriosPaper] Path 2 (Paper Profile API) failed: " + path2Err.toString());
     if (path3Err != null) org.bukkit.Bukkit.getLogger().warning("[CuriosPaper] Path 3 (Mojang GameProfile Reflection) failed: " + path3Err.toString());
   }
 
+  /**
+   * @return the value of the "textures" property, or null
+   */
+  private static String texturesValue(java.util.Collection<?> properties) throws Throwable {
+    for (Object prop : properties) {
+      String name = (String) runtimeMethod(prop.getClass(), "getName").invoke(prop);
+      if ("textures".equals(name)) {
+        return (String) runtimeMethod(prop.getClass(), "getValue").invoke(prop);
+      }
+    }
+    return null;
+  }
+
   public static String getSkullBase64(org.bukkit.inventory.meta.SkullMeta meta) {
     if (meta == null) {
       return null;
     }
 
     // Path 1: Bukkit PlayerProfile API (1.18+)
-    try {
-      java.lang.reflect.Method getOwnerProfileMethod = org.bukkit.inventory.meta.SkullMeta.class.getMethod("getOwnerProfile");
-      getOwnerProfileMethod.setAccessible(true);
-      Object playerProfile = getOwnerProfileMethod.invoke(meta);
+    if (SkullHandles.available(SkullHandles.GET_OWNER_PROFILE)) {
+      Object playerProfile = null;
+      try {
+        playerProfile = SkullHandles.GET_OWNER_PROFILE.invoke(meta);
+      } catch (Throwable t) {
+        // Fallback
+      }
       if (playerProfile != null) {
         // Try getting via properties first
-        try {
-          Class<?> playerProfileClass = Class.forName("org.bukkit.profile.PlayerProfile");
-          java.lang.reflect.Method getPropertiesMethod = playerProfileClass.getMethod("getProperties");
-          getPropertiesMethod.setAccessible(true);
-          java.util.Collection<?> properties = (java.util.Collection<?>) getPropertiesMethod.invoke(playerProfile);
-          for (Object prop : properties) {
-            java.lang.reflect.Method getNameMethod = prop.getClass().getMethod("getName");
-            getNameMethod.setAccessible(true);
-            String name = (String) getNameMethod.invoke(prop);
-            if ("textures".equals(name)) {
-              java.lang.reflect.Method getValueMethod = prop.getClass().getMethod("getValue");
-              getValueMethod.setAccessible(true);
-              return (String) getValueMethod.invoke(prop);
+        if (SkullHandles.available(SkullHandles.PROFILE_GET_PROPERTIES)) {
+          try {
+            String value = texturesValue(
+                (java.util.Collection<?>) SkullHandles.PROFILE_GET_PROPERTIES.invoke(playerProfile));
+            if (value != null) {
+              return value;
             }
+          } catch (Throwable e) {
+            // Fallback
           }
-        } catch (Throwable e) {
-          // Fallback
         }
 
         // Try getting via PlayerTextures
-        try {
-          Class<?> playerProfileClass = Class.forName("org.bukkit.profile.PlayerProfile");
-          Class<?> playerTexturesClass = Class.forName("org.bukkit.profile.PlayerTextures");
-
-          java.lang.reflect.Method getTexturesMethod = playerProfileClass.getMethod("getTextures");
-          getTexturesMethod.setAccessible(true);
-          Object playerTextures = getTexturesMethod.invoke(playerProfile);
-
-          java.lang.reflect.Method getSkinMethod = playerTexturesClass.getMethod("getSkin");
-          getSkinMethod.setAccessible(true);
-          java.net.URL skinUrl = (java.net.URL) getSkinMethod.invoke(playerTextures);
-          if (skinUrl != null) {
-            String json = "{\"textures\":{\"SKIN\":{\"url\":\"" + skinUrl.toString() + "\"}}}";
-            return java.util.Base64.getEncoder().encodeToString(json.getBytes());
+        if (SkullHandles.available(SkullHandles.PROFILE_GET_TEXTURES, SkullHandles.TEXTURES_GET_SKIN)) {
+          try {
+            Object playerTextures = SkullHandles.PROFILE_GET_TEXTURES.invoke(playerProfile);
+            java.net.URL skinUrl = (java.net.URL) SkullHandles.TEXTURES_GET_SKIN.invoke(playerTextures);
+            if (skinUrl != null) {
+              String json = "{\"textures\":{\"SKIN\":{\"url\":\"" + skinUrl.toString() + "\"}}}";
+              return java.util.Base64.getEncoder().encodeToString(json.getBytes());
+            }
+          } catch (Throwable e) {
+            // Fallback
           }
-        } catch (Throwable e) {
-          // Fallback
         }
       }
-    } catch (Throwable t) {
-      // Fallback
     }
 
     // Path 2: Paper PlayerProfile API (1.12 - 1.17)
-    try {
-      java.lang.reflect.Method getPlayerProfileMethod = org.bukkit.inventory.meta.SkullMeta.class.getMethod("getPlayerProfile");
-      getPlayerProfileMethod.setAccessible(true);
-      Object profile = getPlayerProfileMethod.invoke(meta);
-      if (profile != null) {
-        Class<?> paperProfileClass = Class.forName("com.destroystokyo.paper.profile.PlayerProfile");
-        java.lang.reflect.Method getPropertiesMethod = paperProfileClass.getMethod("getProperties");
-        getPropertiesMethod.setAccessible(true);
-        java.util.Collection<?> properties = (java.util.Collection<?>) getPropertiesMethod.invoke(profile);
-        for (Object prop : properties) {
-          java.lang.reflect.Method getNameMethod = prop.getClass().getMethod("getName");
-          getNameMethod.setAccessible(true);
-          String name = (String) getNameMethod.invoke(prop);
-          if ("textures".equals(name)) {
-            java.lang.reflect.Method getValueMethod = prop.getClass().getMethod("getValue");
-            getValueMethod.setAccessible(true);
-            return (String) getValueMethod.invoke(prop);
+    if (SkullHandles.available(SkullHandles.GET_PLAYER_PROFILE, SkullHandles.PAPER_GET_PROPERTIES)) {
+      try {
+        Object profile = SkullHandles.GET_PLAYER_PROFILE.invoke(meta);
+        if (profile != null) {
+          String value = texturesValue((java.util.Collection<?>) SkullHandles.PAPER_GET_PROPERTIES.invoke(profile));
+          if (value != null) {
+            return value;
           }
         }
+      } catch (Throwable t) {
+        // Fallback
       }
-    } catch (Throwable t) {
-      // Fallback
     }
 
     // Path 3: Legacy GameProfile reflection (1.8 - 1.20)
     try {
-      java.lang.reflect.Field profileField = null;
-      Class<?> currentClass = meta.getClass();
-      while (currentClass != null && currentClass != Object.class) {
-        try {
-          profileField = currentClass.getDeclaredField("profile");
-          break;
-        } catch (NoSuchFieldException e) {
-          currentClass = currentClass.getSuperclass();
-        }
-      }
+      MethodHandle[] profileField = PROFILE_FIELD.get(meta.getClass());
       if (profileField != null) {
-        profileField.setAccessible(true);
-        Object profile = profileField.get(meta);
+        Object profile = profileField[0].invoke(meta);
         if (profile != null) {
-          java.lang.reflect.Method getPropertiesMethod = profile.getClass().getMethod("getProperties");
-          getPropertiesMethod.setAccessible(true);
-          Object propertiesMap = getPropertiesMethod.invoke(profile);
-          java.lang.reflect.Method getMethod = propertiesMap.getClass().getMethod("get", Object.class);
-          getMethod.setAccessible(true);
-          java.util.Collection<?> textures = (java.util.Collection<?>) getMethod.invoke(propertiesMap, "textures");
+          Object propertiesMap = runtimeMethod(profile.getClass(), "getProperties").invoke(profile);
+          java.util.Collection<?> textures = (java.util.Collection<?>) runtimeMethod(propertiesMap.getClass(), "get",
+              Object.class).invoke(propertiesMap, "textures");
           for (Object prop : textures) {
-            java.lang.reflect.Method getValueMethod = prop.getClass().getMethod("getValue");
-            getValueMethod.setAccessible(true);
-            return (String) getValueMethod.invoke(prop);
+            return (String) runtimeMethod(prop.getClass(), "getValue").invoke(prop);
           }
         }
       }